@@ -0,0 +1,19 @@
+package frc.lib.inputs;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an inputs class of a hardware abstraction layer for which the LoggedInputsProcessor
+ * generates a serializer and NetworkTables publisher at compile time.
+ *
+ * <p>For an inputs class named XxxInputs, the processor generates the class XxxInputsLog in the same
+ * package with static writeTo and readFrom methods and a nested Publisher class. Every field that
+ * is neither static nor transient is serialized in the order in which it is declared. The fields
+ * must not be private and must be a boolean, int, long, double, or double[].
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface LoggedInputs {}
@@ -0,0 +1,243 @@
+package frc.lib.inputs.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a serializer and NetworkTables publisher for each class annotated with LoggedInputs.
+ *
+ * <p>The generated writeTo and readFrom methods access the fields directly and write them with the
+ * relative ByteBuffer methods, so they neither allocate nor use reflection. The wire format is the
+ * one used by frc.lib.util.LoggableInputs: a boolean is a single byte and an array is its length
+ * followed by its elements. The Publisher creates a topic for each field in the specified table
+ * once and sets every topic when publish is invoked.
+ */
+@SupportedAnnotationTypes("frc.lib.inputs.LoggedInputs")
+public class LoggedInputsProcessor extends AbstractProcessor {
+  private static final String GENERATED_SUFFIX = "Log";
+
+  /* The supported field types */
+  private enum FieldType {
+    BOOLEAN("Boolean"),
+    INT("Integer"),
+    LONG("Integer"),
+    DOUBLE("Double"),
+    DOUBLE_ARRAY("DoubleArray");
+
+    /* The prefix of the NetworkTables topic and publisher classes (e.g., DoubleTopic) */
+    final String topic;
+
+    FieldType(String topic) {
+      this.topic = topic;
+    }
+  }
+
+  private static class Field {
+    final String name;
+    final FieldType type;
+
+    Field(String name, FieldType type) {
+      this.name = name;
+      this.type = type;
+    }
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (element.getKind() != ElementKind.CLASS) {
+          error(element, "@LoggedInputs must annotate a class");
+          continue;
+        }
+        TypeElement type = (TypeElement) element;
+        List<Field> fields = getFields(type);
+        if (fields != null) {
+          generate(type, fields);
+        }
+      }
+    }
+    return true;
+  }
+
+  /* Returns the serialized fields in declaration order, or null if a field isn't supported */
+  private List<Field> getFields(TypeElement type) {
+    List<Field> fields = new ArrayList<>();
+    boolean valid = true;
+    for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+      Set<Modifier> modifiers = field.getModifiers();
+      if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+        continue;
+      }
+      if (modifiers.contains(Modifier.PRIVATE)) {
+        error(field, "Logged inputs must not be private");
+        valid = false;
+        continue;
+      }
+      FieldType fieldType = getFieldType(field.asType());
+      if (fieldType == null) {
+        error(field, "Logged inputs must be a boolean, int, long, double, or double[]");
+        valid = false;
+        continue;
+      }
+      // readFrom assigns every field, including arrays whose logged length differs
+      if (modifiers.contains(Modifier.FINAL)) {
+        error(field, "Logged inputs must not be final");
+        valid = false;
+        continue;
+      }
+      fields.add(new Field(field.getSimpleName().toString(), fieldType));
+    }
+    return valid ? fields : null;
+  }
+
+  private static FieldType getFieldType(TypeMirror type) {
+    switch (type.getKind()) {
+      case BOOLEAN:
+        return FieldType.BOOLEAN;
+      case INT:
+        return FieldType.INT;
+      case LONG:
+        return FieldType.LONG;
+      case DOUBLE:
+        return FieldType.DOUBLE;
+      case ARRAY:
+        return ((ArrayType) type).getComponentType().getKind() == TypeKind.DOUBLE
+            ? FieldType.DOUBLE_ARRAY
+            : null;
+      default:
+        return null;
+    }
+  }
+
+  private void generate(TypeElement type, List<Field> fields) {
+    String packageName = processingEnv.getElementUtils().getPackageOf(type).toString();
+    String inputsName = type.getQualifiedName().toString();
+    String className = type.getSimpleName() + GENERATED_SUFFIX;
+
+    try (PrintWriter out =
+        new PrintWriter(
+            processingEnv
+                .getFiler()
+                .createSourceFile(packageName + "." + className, type)
+                .openWriter())) {
+      out.println("package " + packageName + ";");
+      out.println();
+      out.println("import edu.wpi.first.networktables.NetworkTable;");
+      out.println("import frc.lib.util.LoggableInputs;");
+      out.println("import java.nio.ByteBuffer;");
+      out.println("import javax.annotation.processing.Generated;");
+      out.println();
+      out.println("/** Serializer and NetworkTables publisher for {@link " + inputsName + "}. */");
+      out.println("@Generated(\"" + LoggedInputsProcessor.class.getName() + "\")");
+      out.println("public final class " + className + " {");
+      out.println("  private " + className + "() {}");
+      out.println();
+
+      out.println("  public static void writeTo(" + inputsName + " inputs, ByteBuffer buffer) {");
+      for (Field field : fields) {
+        out.println("    " + writeStatement(field));
+      }
+      out.println("  }");
+      out.println();
+
+      out.println("  public static void readFrom(" + inputsName + " inputs, ByteBuffer buffer) {");
+      for (Field field : fields) {
+        out.println("    " + readStatement(field));
+      }
+      out.println("  }");
+      out.println();
+
+      out.println("  public static final class Publisher {");
+      for (Field field : fields) {
+        out.println(
+            "    private final edu.wpi.first.networktables."
+                + field.type.topic
+                + "Publisher "
+                + field.name
+                + ";");
+      }
+      out.println();
+      out.println("    public Publisher(NetworkTable table) {");
+      for (Field field : fields) {
+        out.println(
+            "      "
+                + field.name
+                + " = table.get"
+                + field.type.topic
+                + "Topic(\""
+                + field.name
+                + "\").publish();");
+      }
+      out.println("    }");
+      out.println();
+      out.println("    public void publish(" + inputsName + " inputs) {");
+      for (Field field : fields) {
+        out.println("      " + field.name + ".set(inputs." + field.name + ");");
+      }
+      out.println("    }");
+      out.println("  }");
+      out.println("}");
+    } catch (IOException ex) {
+      error(type, "Unable to generate " + className + ": " + ex.getMessage());
+    }
+  }
+
+  private static String writeStatement(Field field) {
+    String value = "inputs." + field.name;
+    switch (field.type) {
+      case BOOLEAN:
+        return "LoggableInputs.putBoolean(buffer, " + value + ");";
+      case INT:
+        return "buffer.putInt(" + value + ");";
+      case LONG:
+        return "buffer.putLong(" + value + ");";
+      case DOUBLE:
+        return "buffer.putDouble(" + value + ");";
+      default:
+        return "LoggableInputs.putDoubleArray(buffer, " + value + ");";
+    }
+  }
+
+  private static String readStatement(Field field) {
+    String value = "inputs." + field.name;
+    switch (field.type) {
+      case BOOLEAN:
+        return value + " = LoggableInputs.getBoolean(buffer);";
+      case INT:
+        return value + " = buffer.getInt();";
+      case LONG:
+        return value + " = buffer.getLong();";
+      case DOUBLE:
+        return value + " = buffer.getDouble();";
+      default:
+        return value + " = LoggableInputs.getDoubleArray(buffer, " + value + ");";
+    }
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+}
@@ -1,5 +1,10 @@
 package frc.lib.gyro;
 
+import edu.wpi.first.networktables.NetworkTable;
+import frc.lib.inputs.LoggedInputs;
+import frc.lib.util.LoggableInputs;
+import java.nio.ByteBuffer;
+
 /**
  * Gyro hardware abstraction interface
  *
@@ -9,19 +14,42 @@ package frc.lib.gyro;
  * coordination, and, in this library, it is invoked via the drivetrain subsystem's periodic
  * mehtod.)
  *
- * <p>There is not a simulated version of this interface. Instead, the drivetrain supports
- * determining the robot's rotation from the gryo when connected and via the swwerve module
- * positions when not connected.
+ * <p>The simulated version of this interface, GyroIOSim, reads the heading of the simulated
+ * chassis, so the drivetrain determines the robot's rotation from the gyro in simulation as it does
+ * on the robot. The drivetrain still supports determining the robot's rotation via the swerve
+ * module positions when the gyro is not connected.
  */
 public interface GyroIO {
 
-  public static class GyroIOInputs {
+  @LoggedInputs
+  public static class GyroIOInputs implements LoggableInputs {
     public boolean connected = false;
     public double positionDeg = 0.0;
     public double velocityDegPerSec = 0.0;
     public double yawDeg = 0.0;
     public double pitchDeg = 0.0;
     public double rollDeg = 0.0;
+
+    /* Created when the inputs are first published */
+    private transient GyroIOInputsLog.Publisher publisher = null;
+
+    @Override
+    public void toLog(ByteBuffer buffer) {
+      GyroIOInputsLog.writeTo(this, buffer);
+    }
+
+    @Override
+    public void fromLog(ByteBuffer buffer) {
+      GyroIOInputsLog.readFrom(this, buffer);
+    }
+
+    @Override
+    public void publish(NetworkTable table) {
+      if (publisher == null) {
+        publisher = new GyroIOInputsLog.Publisher(table);
+      }
+      publisher.publish(this);
+    }
   }
 
   /**
@@ -31,6 +59,16 @@ public interface GyroIO {
    */
   public default void updateInputs(GyroIOInputs inputs) {}
 
+  /**
+   * Returns the yaw in the same frame as GyroIOInputs.positionDeg, read directly from the device.
+   * This is invoked from the odometry thread and must be thread safe.
+   *
+   * @return the yaw of the robot (degrees)
+   */
+  public default double getOdometryYawDeg() {
+    return 0.0;
+  }
+
   public default boolean isConnected() {
     return false;
   }
@@ -26,6 +26,11 @@ public class GyroIONavX implements GyroIO {
     inputs.rollDeg = gyro.getRoll(); // degrees
   }
 
+  @Override
+  public double getOdometryYawDeg() {
+    return 360.0 - gyro.getYaw(); // degrees
+  }
+
   @Override
   public boolean isConnected() {
     return gyro.isConnected();
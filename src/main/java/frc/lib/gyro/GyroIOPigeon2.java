@@ -3,29 +3,38 @@ package frc.lib.gyro;
 import static frc.robot.Constants.*;
 
 import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.sensors.PigeonIMU_StatusFrame;
 import com.ctre.phoenix.sensors.WPI_Pigeon2;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInLayouts;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardLayout;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
+import frc.lib.util.OdometryThread;
 import frc.robot.Robot;
 
 public class GyroIOPigeon2 implements GyroIO {
   private final WPI_Pigeon2 gyro;
   private final double[] xyzDps = new double[3];
   private final double[] yprdeg = new double[3];
+  /* The status of the main thread's last read; the device's last error is shared by all threads */
+  private ErrorCode lastStatus = ErrorCode.OK;
 
   public GyroIOPigeon2(int id, String canBus) {
     gyro = new WPI_Pigeon2(id, canBus);
     gyro.configFactoryDefault();
+    // the odometry thread samples the yaw faster than the default frame rate
+    gyro.setStatusFramePeriod(
+        PigeonIMU_StatusFrame.CondStatus_9_SixDeg_YPR,
+        (int) (1000.0 / OdometryThread.FREQUENCY_HZ));
 
     initLogging();
   }
 
   @Override
   public void updateInputs(GyroIOInputs inputs) {
-    gyro.getRawGyro(xyzDps);
-    gyro.getYawPitchRoll(yprdeg);
+    ErrorCode rawGyroStatus = gyro.getRawGyro(xyzDps);
+    ErrorCode yprStatus = gyro.getYawPitchRoll(yprdeg);
+    lastStatus = yprStatus != ErrorCode.OK ? yprStatus : rawGyroStatus;
 
     inputs.connected = this.isConnected();
     inputs.positionDeg = yprdeg[0];
@@ -35,10 +44,20 @@ public class GyroIOPigeon2 implements GyroIO {
     inputs.rollDeg = yprdeg[2]; // degrees
   }
 
+  @Override
+  public double getOdometryYawDeg() {
+    return gyro.getYaw();
+  }
+
+  /**
+   * Returns true if the last read of the gyro's inputs succeeded. This uses the status returned by
+   * the reads in updateInputs rather than the device's last error, which the odometry thread's
+   * yaw reads also set. Must be invoked from the main robot thread.
+   */
   @Override
   public boolean isConnected() {
     if (Robot.isReal()) {
-      return gyro.getLastError().equals(ErrorCode.OK);
+      return lastStatus == ErrorCode.OK;
     }
     return false;
   }
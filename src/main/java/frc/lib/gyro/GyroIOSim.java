@@ -0,0 +1,173 @@
+package frc.lib.gyro;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.lib.swerve.SwerveChassisSim;
+import java.util.Random;
+
+/**
+ * A simulated version of the GyroIO interface that reads the heading and yaw rate of a
+ * SwerveChassisSim.
+ *
+ * <p>The yaw drifts at a configurable rate, which is integrated over time, and Gaussian noise with
+ * a configurable standard deviation is added to each reading. The readings are delayed by a
+ * configurable latency, rounded to whole loops, like the readings of a gyro on the CAN bus. The
+ * noise is drawn from a random generator with the specified seed, so runs with the same seed are
+ * repeatable. The pitch and roll are determined by the slope of the terrain under the robot (e.g.,
+ * the charge station), which is flat by default.
+ */
+public class GyroIOSim implements GyroIO {
+  public static final double DEFAULT_LATENCY_SECS = 0.02;
+
+  /* The number of readings kept for the latency, which limits it to this many loops */
+  private static final int HISTORY_SIZE = 16;
+
+  /** The slope of the field, which determines the simulated pitch and roll. */
+  public interface Terrain {
+    /**
+     * Returns the angle at which the field rises in the +x direction at the specified location.
+     *
+     * @param x the x coordinate of the location in meters
+     * @param y the y coordinate of the location in meters
+     * @return the angle in degrees
+     */
+    public double getSlopeDeg(double x, double y);
+  }
+
+  private final SwerveChassisSim chassis;
+  private final Random random;
+  private Terrain terrain = (x, y) -> 0.0;
+  private double driftDegPerSec = 0.0;
+  private double noiseStdDevDeg = 0.0;
+  private double latencySecs = DEFAULT_LATENCY_SECS;
+
+  private final double[] historyTimestamps = new double[HISTORY_SIZE];
+  private final double[] historyYawDeg = new double[HISTORY_SIZE];
+  private final double[] historyRateDegPerSec = new double[HISTORY_SIZE];
+  private int historyCount = 0;
+  private int historyIndex = 0;
+
+  private double lastTimestamp = Double.NaN;
+  private double driftDeg = 0.0;
+  private double zeroDeg = 0.0;
+  /* The last reported yaw, which the odometry thread may read */
+  private volatile double yawDeg = 0.0;
+
+  /**
+   * Create a simulated gyro on the specified chassis.
+   *
+   * @param chassis the simulated chassis
+   * @param seed the seed of the noise
+   */
+  public GyroIOSim(SwerveChassisSim chassis, long seed) {
+    this.chassis = chassis;
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Set the terrain that determines the pitch and roll.
+   *
+   * @param terrain the terrain
+   */
+  public void setTerrain(Terrain terrain) {
+    this.terrain = terrain;
+  }
+
+  /**
+   * Set the rate at which the yaw drifts.
+   *
+   * @param degPerSec the drift rate in degrees per second
+   */
+  public void setDrift(double degPerSec) {
+    driftDegPerSec = degPerSec;
+  }
+
+  /**
+   * Set the standard deviation of the noise added to each reading.
+   *
+   * @param stdDevDeg the standard deviation in degrees
+   */
+  public void setNoise(double stdDevDeg) {
+    noiseStdDevDeg = stdDevDeg;
+  }
+
+  /**
+   * Set the latency of the readings.
+   *
+   * @param secs the latency in seconds
+   */
+  public void setLatency(double secs) {
+    latencySecs = secs;
+  }
+
+  /**
+   * Return the gyro to the state in which it would be created with the specified seed: the
+   * readings, drift, and zero are cleared and the noise is drawn from the start of the seed's
+   * sequence. The terrain, drift rate, noise, and latency settings are kept.
+   *
+   * @param seed the seed of the noise
+   */
+  public void resetSimulation(long seed) {
+    random.setSeed(seed);
+    historyCount = 0;
+    historyIndex = 0;
+    lastTimestamp = Double.NaN;
+    driftDeg = 0.0;
+    zeroDeg = 0.0;
+    yawDeg = 0.0;
+  }
+
+  @Override
+  public void updateInputs(GyroIOInputs inputs) {
+    double timestamp = Timer.getFPGATimestamp();
+    if (!Double.isNaN(lastTimestamp)) {
+      driftDeg += driftDegPerSec * (timestamp - lastTimestamp);
+    }
+    lastTimestamp = timestamp;
+
+    // record the current reading and report the newest one that is at least the latency old
+    historyTimestamps[historyIndex] = timestamp;
+    historyYawDeg[historyIndex] = Math.toDegrees(chassis.getHeadingRad()) + driftDeg;
+    historyRateDegPerSec[historyIndex] = Math.toDegrees(chassis.getYawRateRadPerSec());
+    historyIndex = (historyIndex + 1) % HISTORY_SIZE;
+    historyCount = Math.min(historyCount + 1, HISTORY_SIZE);
+
+    int reported = (historyIndex - historyCount + HISTORY_SIZE) % HISTORY_SIZE;
+    for (int i = 1; i <= historyCount; i++) {
+      int index = (historyIndex - i + HISTORY_SIZE) % HISTORY_SIZE;
+      if (timestamp - historyTimestamps[index] >= latencySecs - 1e-9) {
+        reported = index;
+        break;
+      }
+    }
+
+    yawDeg = historyYawDeg[reported] - zeroDeg + random.nextGaussian() * noiseStdDevDeg;
+
+    // the pitch and roll are the slope of the terrain along and across the robot
+    double headingRad = chassis.getHeadingRad();
+    double slopeDeg = terrain.getSlopeDeg(chassis.getX(), chassis.getY());
+
+    inputs.connected = true;
+    inputs.positionDeg = yawDeg;
+    inputs.velocityDegPerSec = historyRateDegPerSec[reported];
+    inputs.yawDeg = yawDeg;
+    inputs.pitchDeg = slopeDeg * Math.cos(headingRad);
+    inputs.rollDeg = -slopeDeg * Math.sin(headingRad);
+  }
+
+  @Override
+  public double getOdometryYawDeg() {
+    return yawDeg;
+  }
+
+  @Override
+  public boolean isConnected() {
+    return true;
+  }
+
+  /** Zero the robot's heading. */
+  @Override
+  public void reset() {
+    zeroDeg += yawDeg;
+    yawDeg = 0.0;
+  }
+}
@@ -1,7 +1,6 @@
 package frc.lib.limelightvision;
 
 import edu.wpi.first.networktables.*;
-import edu.wpi.first.wpilibj.Notifier;
 import frc.lib.limelightvision.ControlMode.*;
 
 /**
@@ -11,50 +10,40 @@ import frc.lib.limelightvision.ControlMode.*;
 public class LimeLight {
 
   private NetworkTable m_table;
+  private LimelightSubscriberCache m_cache;
   private String m_tableName = "limelight";
-  private boolean m_isConnected = false;
-  private double _hearBeatPeriod = 0.1;
-
-  class PeriodicRunnable implements java.lang.Runnable {
-    public void run() {
-      resetPipelineLatency();
-      try {
-        Thread.sleep(50);
-      } catch (InterruptedException e) {
-        e.printStackTrace();
-      }
-      if (getPipelineLatency() == 0.0) {
-        m_isConnected = false;
-      } else {
-        m_isConnected = true;
-      }
-    }
-  }
-
-  Notifier _hearBeat = new Notifier(new PeriodicRunnable());
+  private LimelightConnectionMonitor m_monitor;
 
   /** Using the Default Lime Light NT table */
   public LimeLight() {
     m_table = NetworkTableInstance.getDefault().getTable(m_tableName);
-    _hearBeat.startPeriodic(_hearBeatPeriod);
+    m_cache = LimelightSubscriberCache.forTable(m_table);
+    m_monitor = LimelightConnectionMonitor.forTable(m_table);
   }
 
   /** If you changed the name of your Lime Light tell Me the New Name */
   public LimeLight(String tableName) {
     m_tableName = tableName;
     m_table = NetworkTableInstance.getDefault().getTable(m_tableName);
-    _hearBeat.startPeriodic(_hearBeatPeriod);
+    m_cache = LimelightSubscriberCache.forTable(m_table);
+    m_monitor = LimelightConnectionMonitor.forTable(m_table);
   }
 
   /** Send an instance of the NetworkTabe */
   public LimeLight(NetworkTable table) {
     m_table = table;
-    _hearBeat.startPeriodic(_hearBeatPeriod);
+    m_cache = LimelightSubscriberCache.forTable(m_table);
+    m_monitor = LimelightConnectionMonitor.forTable(m_table);
   }
 
   // This is a test
   public boolean isM_isConnected() {
-    return m_isConnected;
+    return m_monitor.isConnected();
+  }
+
+  /** Returns the monitor for the connection to the Lime Light */
+  public LimelightConnectionMonitor getConnectionMonitor() {
+    return m_monitor;
   }
 
   /**
@@ -63,8 +52,7 @@ public class LimeLight {
    * @return
    */
   public boolean getIsTargetFound() {
-    NetworkTableEntry tv = m_table.getEntry("tv");
-    double v = tv.getDouble(0);
+    double v = m_cache.getDouble("tv");
     if (v == 0.0f) {
       return false;
     } else {
@@ -77,8 +65,7 @@ public class LimeLight {
    * @return
    */
   public double getdegRotationToTarget() {
-    NetworkTableEntry tx = m_table.getEntry("tx");
-    return tx.getDouble(0.0);
+    return m_cache.getDouble("tx");
   }
   /**
    * ty Vertical Offset From Crosshair To Target (-20.5 degrees to 20.5 degrees)
@@ -86,8 +73,7 @@ public class LimeLight {
    * @return
    */
   public double getdegVerticalToTarget() {
-    NetworkTableEntry ty = m_table.getEntry("ty");
-    return ty.getDouble(0.0);
+    return m_cache.getDouble("ty");
   }
   /**
    * ta Target Area (0% of image to 100% of image)
@@ -95,8 +81,7 @@ public class LimeLight {
    * @return
    */
   public double getTargetArea() {
-    NetworkTableEntry ta = m_table.getEntry("ta");
-    return ta.getDouble(0.0);
+    return m_cache.getDouble("ta");
   }
   /**
    * ts Skew or rotation (-90 degrees to 0 degrees)
@@ -104,8 +89,7 @@ public class LimeLight {
    * @return
    */
   public double getSkew_Rotation() {
-    NetworkTableEntry ts = m_table.getEntry("ts");
-    return ts.getDouble(0.0);
+    return m_cache.getDouble("ts");
   }
   /**
    * tl The pipeline’s latency contribution (ms) Add at least 11ms for image capture latency.
@@ -113,13 +97,9 @@ public class LimeLight {
    * @return
    */
   public double getPipelineLatency() {
-    NetworkTableEntry tl = m_table.getEntry("tl");
-    return tl.getDouble(0.0);
+    return m_cache.getDouble("tl");
   }
 
-  private void resetPipelineLatency() {
-    m_table.getEntry("tl").setValue(0.0);
-  }
   // Setters
 
   /**
@@ -139,8 +119,7 @@ public class LimeLight {
    * @return LedMode
    */
   public LedMode getLEDMode() {
-    NetworkTableEntry ledMode = m_table.getEntry("ledMode");
-    double led = ledMode.getDouble(0.0);
+    double led = m_cache.getDouble("ledMode");
     LedMode mode = LedMode.getByValue(led);
     return mode;
   }
@@ -162,8 +141,7 @@ public class LimeLight {
    * @return CamMode
    */
   public CamMode getCamMode() {
-    NetworkTableEntry camMode = m_table.getEntry("camMode");
-    double cam = camMode.getDouble(0.0);
+    double cam = m_cache.getDouble("camMode");
     CamMode mode = CamMode.getByValue(cam);
     return mode;
   }
@@ -192,6 +170,7 @@ public class LimeLight {
    * @return Pipelinge
    */
   public Integer getPipelineInt() {
+    // written as an integer by setPipeline, so read it through the untyped entry
     NetworkTableEntry pipeline = m_table.getEntry("pipeline");
     Integer pipe = (int) pipeline.getDouble(0.0);
     return pipe;
@@ -212,8 +191,7 @@ public class LimeLight {
   }
 
   public StreamType getStream() {
-    NetworkTableEntry stream = m_table.getEntry("stream");
-    double st = stream.getDouble(0.0);
+    double st = m_cache.getDouble("stream");
     StreamType mode = StreamType.getByValue(st);
     return mode;
   }
@@ -230,8 +208,7 @@ public class LimeLight {
   }
 
   public Snapshot getSnapshot() {
-    NetworkTableEntry snapshot = m_table.getEntry("snapshot");
-    double snshot = snapshot.getDouble(0.0);
+    double snshot = m_cache.getDouble("snapshot");
     Snapshot mode = Snapshot.getByValue(snshot);
     return mode;
   }
@@ -244,26 +221,22 @@ public class LimeLight {
    * returned in normalized screen space (-1 to 1) rather than degrees. *
    */
   public double getAdvanced_RotationToTarget(Advanced_Target raw) {
-    NetworkTableEntry txRaw = m_table.getEntry("tx" + Integer.toString(raw.getValue()));
-    double x = txRaw.getDouble(0.0);
+    double x = m_cache.getDouble("tx" + Integer.toString(raw.getValue()));
     return x;
   }
 
   public double getAdvanced_degVerticalToTarget(Advanced_Target raw) {
-    NetworkTableEntry tyRaw = m_table.getEntry("ty" + Integer.toString(raw.getValue()));
-    double y = tyRaw.getDouble(0.0);
+    double y = m_cache.getDouble("ty" + Integer.toString(raw.getValue()));
     return y;
   }
 
   public double getAdvanced_TargetArea(Advanced_Target raw) {
-    NetworkTableEntry taRaw = m_table.getEntry("ta" + Integer.toString(raw.getValue()));
-    double a = taRaw.getDouble(0.0);
+    double a = m_cache.getDouble("ta" + Integer.toString(raw.getValue()));
     return a;
   }
 
   public double getAdvanced_Skew_Rotation(Advanced_Target raw) {
-    NetworkTableEntry tsRaw = m_table.getEntry("ts" + Integer.toString(raw.getValue()));
-    double s = tsRaw.getDouble(0.0);
+    double s = m_cache.getDouble("ts" + Integer.toString(raw.getValue()));
     return s;
   }
 
@@ -278,14 +251,12 @@ public class LimeLight {
   }
 
   public double getAdvanced_RawCrosshair_X(Advanced_Crosshair raw) {
-    NetworkTableEntry cxRaw = m_table.getEntry("cx" + Integer.toString(raw.getValue()));
-    double x = cxRaw.getDouble(0.0);
+    double x = m_cache.getDouble("cx" + Integer.toString(raw.getValue()));
     return x;
   }
 
   public double getAdvanced_RawCrosshair_Y(Advanced_Crosshair raw) {
-    NetworkTableEntry cyRaw = m_table.getEntry("cy" + Integer.toString(raw.getValue()));
-    double y = cyRaw.getDouble(0.0);
+    double y = m_cache.getDouble("cy" + Integer.toString(raw.getValue()));
     return y;
   }
 }
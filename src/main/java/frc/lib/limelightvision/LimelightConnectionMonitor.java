@@ -0,0 +1,182 @@
+package frc.lib.limelightvision;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.util.WPIUtilJNI;
+import edu.wpi.first.wpilibj.Notifier;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Monitors the connection to a Limelight by listening for the values it publishes.
+ *
+ * <p>The camera publishes its pipeline latency (and, on newer firmware, a heartbeat) every frame.
+ * A NetworkTables listener records when each of these values arrives from the camera; if none has
+ * arrived within the staleness timeout, the camera is considered disconnected. Connection changes
+ * are reported to registered listeners as they happen: connects from the NetworkTables listener
+ * thread and disconnects from a notifier that only compares timestamps and never blocks.
+ *
+ * <p>There is one monitor per Limelight table, shared by everything that uses the camera, so each
+ * camera has a single set of listeners and a single notifier.
+ */
+public class LimelightConnectionMonitor {
+  public static final double DEFAULT_TIMEOUT_SECS = 0.25;
+
+  private static final Map<String, LimelightConnectionMonitor> monitors =
+      new ConcurrentHashMap<>();
+
+  private final String key;
+  private final NetworkTableInstance instance;
+  private final long timeoutMicros;
+  private final int[] listenerHandles;
+  private final Notifier notifier;
+
+  private final AtomicLong lastUpdateMicros = new AtomicLong();
+  private final AtomicBoolean connected = new AtomicBoolean(false);
+  private final List<Consumer<Boolean>> connectionListeners = new CopyOnWriteArrayList<>();
+
+  private LimelightConnectionMonitor(String key, NetworkTable table, double timeoutSecs) {
+    this.key = key;
+    this.instance = table.getInstance();
+    this.timeoutMicros = (long) (timeoutSecs * 1.0e6);
+
+    EnumSet<NetworkTableEvent.Kind> kinds = EnumSet.of(NetworkTableEvent.Kind.kValueRemote);
+    this.listenerHandles =
+        new int[] {
+          instance.addListener(table.getTopic("tl"), kinds, this::onValue),
+          instance.addListener(table.getTopic("hb"), kinds, this::onValue)
+        };
+
+    this.notifier = new Notifier(this::checkStale);
+    this.notifier.setName("LimelightConnectionMonitor");
+    this.notifier.startPeriodic(timeoutSecs / 2.0);
+  }
+
+  /**
+   * Returns the connection monitor for the specified Limelight in the default NetworkTables
+   * instance, creating it with the default staleness timeout the first time.
+   *
+   * @param limelightName the name of the Limelight
+   * @return the connection monitor for the specified Limelight
+   */
+  public static LimelightConnectionMonitor get(String limelightName) {
+    return forTable(LimelightHelpers.getLimelightNTTable(limelightName));
+  }
+
+  /**
+   * Returns the connection monitor for the specified Limelight table, creating it with the default
+   * staleness timeout the first time.
+   *
+   * @param table the Limelight's NetworkTables table
+   * @return the connection monitor for the specified Limelight table
+   */
+  public static LimelightConnectionMonitor forTable(NetworkTable table) {
+    return forTable(table, DEFAULT_TIMEOUT_SECS);
+  }
+
+  /**
+   * Returns the connection monitor for the specified Limelight table, creating it with the
+   * specified staleness timeout the first time. The monitor is shared, so the timeout of an
+   * existing monitor isn't changed; the timeout should be specified by the first user of the
+   * camera (e.g., its VisionIO).
+   *
+   * @param table the Limelight's NetworkTables table
+   * @param timeoutSecs the time without a value from the camera after which it is considered
+   *     disconnected (seconds)
+   * @return the connection monitor for the specified Limelight table
+   */
+  public static LimelightConnectionMonitor forTable(NetworkTable table, double timeoutSecs) {
+    String key = table.getInstance().getHandle() + table.getPath();
+    LimelightConnectionMonitor monitor = monitors.get(key);
+    if (monitor == null) {
+      monitor =
+          monitors.computeIfAbsent(key, k -> new LimelightConnectionMonitor(k, table, timeoutSecs));
+    }
+    return monitor;
+  }
+
+  /**
+   * Returns the staleness timeout after which the camera is considered disconnected.
+   *
+   * @return the staleness timeout (seconds)
+   */
+  public double getTimeoutSecs() {
+    return timeoutMicros / 1.0e6;
+  }
+
+  /**
+   * Returns true if a value has been received from the camera within the staleness timeout.
+   *
+   * @return true if a value has been received from the camera within the staleness timeout
+   */
+  public boolean isConnected() {
+    checkStale();
+    return connected.get();
+  }
+
+  /**
+   * Returns the time since a value was last received from the camera.
+   *
+   * @return the time since a value was last received from the camera (seconds), or infinity if no
+   *     value has been received
+   */
+  public double getTimeSinceUpdateSecs() {
+    long last = lastUpdateMicros.get();
+    return last == 0 ? Double.POSITIVE_INFINITY : (WPIUtilJNI.now() - last) / 1.0e6;
+  }
+
+  /**
+   * Register a listener that is invoked with true when the camera connects and false when it
+   * disconnects. The listener may be invoked from a thread other than the main robot thread.
+   *
+   * @param listener the listener
+   */
+  public void addConnectionListener(Consumer<Boolean> listener) {
+    connectionListeners.add(listener);
+  }
+
+  public void removeConnectionListener(Consumer<Boolean> listener) {
+    connectionListeners.remove(listener);
+  }
+
+  /**
+   * Stop monitoring the camera and release the NetworkTables listeners. The monitor is shared, so
+   * this should only be called when the camera is no longer used; the next call to get or forTable
+   * creates a new monitor.
+   */
+  public void close() {
+    monitors.remove(key, this);
+    notifier.close();
+    for (int handle : listenerHandles) {
+      instance.removeListener(handle);
+    }
+  }
+
+  /* Runs on the NetworkTables listener thread */
+  private void onValue(NetworkTableEvent event) {
+    lastUpdateMicros.set(WPIUtilJNI.now());
+    if (connected.compareAndSet(false, true)) {
+      notifyListeners(true);
+    }
+  }
+
+  private void checkStale() {
+    long last = lastUpdateMicros.get();
+    if (WPIUtilJNI.now() - last > timeoutMicros && connected.compareAndSet(true, false)) {
+      notifyListeners(false);
+    }
+  }
+
+  private void notifyListeners(boolean isConnected) {
+    for (Consumer<Boolean> listener : connectionListeners) {
+      listener.accept(isConnected);
+    }
+  }
+}
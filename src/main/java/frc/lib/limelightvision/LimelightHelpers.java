@@ -399,7 +399,7 @@ public class LimelightHelpers {
   }
 
   public static double getLimelightNTDouble(String tableName, String entryName) {
-    return getLimelightNTTableEntry(tableName, entryName).getDouble(0.0);
+    return LimelightSubscriberCache.get(tableName).getDouble(entryName);
   }
 
   public static void setLimelightNTDouble(String tableName, String entryName, double val) {
@@ -411,11 +411,11 @@ public class LimelightHelpers {
   }
 
   public static double[] getLimelightNTDoubleArray(String tableName, String entryName) {
-    return getLimelightNTTableEntry(tableName, entryName).getDoubleArray(new double[0]);
+    return LimelightSubscriberCache.get(tableName).getDoubleArray(entryName);
   }
 
   public static String getLimelightNTString(String tableName, String entryName) {
-    return getLimelightNTTableEntry(tableName, entryName).getString("");
+    return LimelightSubscriberCache.get(tableName).getString(entryName);
   }
 
   public static URL getLimelightURLString(String tableName, String request) {
@@ -452,6 +452,17 @@ public class LimelightHelpers {
     return getLimelightNTDouble(limelightName, "cl");
   }
 
+  /**
+   * Reads the targeting values of the latest frame, with their timestamps, into the specified frame
+   * object without mixing values from different frames.
+   *
+   * @return true if a new frame was read
+   */
+  public static boolean getLatestFrame(
+      String limelightName, LimelightSubscriberCache.Frame frame) {
+    return LimelightSubscriberCache.get(limelightName).readFrame(frame);
+  }
+
   public static double getCurrentPipelineIndex(String limelightName) {
     return getLimelightNTDouble(limelightName, "getpipe");
   }
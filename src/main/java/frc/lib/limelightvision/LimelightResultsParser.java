@@ -0,0 +1,197 @@
+package frc.lib.limelightvision;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Streaming parser for the Limelight's JSON results dump.
+ *
+ * <p>Unlike LimelightHelpers.getLatestResults, which maps the entire dump to a new tree of objects
+ * on every call, this parser reads only the fields needed for pose estimation (latencies, the robot
+ * pose arrays, and the fiducial IDs and distances) into a caller-owned Results object that is
+ * reused every loop. All other fields, including the retroreflective, classifier, and detector
+ * results, are skipped without being mapped.
+ */
+public class LimelightResultsParser {
+  /** The maximum number of fiducials recorded from a single frame. */
+  public static final int MAX_FIDUCIALS = 16;
+
+  private static final JsonFactory factory = new JsonFactory();
+
+  /** The subset of a Limelight results dump used for pose estimation. Reused between frames. */
+  public static class Results {
+    public boolean valid = false;
+    public double pipelineID = 0.0;
+    public double latency_pipeline = 0.0;
+    public double latency_capture = 0.0;
+    public double latency_jsonParse = 0.0;
+    public double timestamp_LIMELIGHT_publish = 0.0;
+    public final double[] botpose = new double[6];
+    public final double[] botpose_wpired = new double[6];
+    public final double[] botpose_wpiblue = new double[6];
+    public int fiducialCount = 0;
+    public final int[] fiducialIDs = new int[MAX_FIDUCIALS];
+    /* distance from the camera to each fiducial (meters) */
+    public final double[] fiducialDistances = new double[MAX_FIDUCIALS];
+
+    /** Reset all fields to their default values. */
+    public void clear() {
+      valid = false;
+      pipelineID = 0.0;
+      latency_pipeline = 0.0;
+      latency_capture = 0.0;
+      latency_jsonParse = 0.0;
+      timestamp_LIMELIGHT_publish = 0.0;
+      Arrays.fill(botpose, 0.0);
+      Arrays.fill(botpose_wpired, 0.0);
+      Arrays.fill(botpose_wpiblue, 0.0);
+      fiducialCount = 0;
+    }
+  }
+
+  private LimelightResultsParser() {}
+
+  /**
+   * Parse the latest JSON results dump published by the specified Limelight.
+   *
+   * @param limelightName the name of the Limelight
+   * @param results the results object to fill
+   * @return true if the dump was parsed; false if it was malformed
+   */
+  public static boolean getLatestResults(String limelightName, Results results) {
+    return parse(LimelightHelpers.getJSONDump(limelightName), results);
+  }
+
+  /**
+   * Parse the specified Limelight JSON results dump.
+   *
+   * @param json the JSON results dump
+   * @param results the results object to fill
+   * @return true if the dump was parsed; false if it was malformed
+   */
+  public static boolean parse(String json, Results results) {
+    long start = System.nanoTime();
+    results.clear();
+
+    boolean parsed = true;
+    try (JsonParser parser = factory.createParser(json)) {
+      if (parser.nextToken() == JsonToken.START_OBJECT) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          parser.nextToken();
+          if ("Results".equals(parser.getCurrentName())
+              && parser.currentToken() == JsonToken.START_OBJECT) {
+            parseResults(parser, results);
+          } else {
+            parser.skipChildren();
+          }
+        }
+      }
+    } catch (IOException e) {
+      System.err.println("lljson error: " + e.getMessage());
+      parsed = false;
+    }
+
+    results.latency_jsonParse = (System.nanoTime() - start) * .000001;
+    if (LimelightHelpers.profileJSON) {
+      System.out.printf("lljson stream: %.2f\r\n", results.latency_jsonParse);
+    }
+    return parsed;
+  }
+
+  /* The parser is positioned on the start of the Results object */
+  private static void parseResults(JsonParser parser, Results results) throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      switch (name) {
+        case "v":
+          results.valid = parser.getValueAsInt() == 1;
+          break;
+        case "pID":
+          results.pipelineID = parser.getValueAsDouble();
+          break;
+        case "tl":
+          results.latency_pipeline = parser.getValueAsDouble();
+          break;
+        case "cl":
+          results.latency_capture = parser.getValueAsDouble();
+          break;
+        case "ts":
+          results.timestamp_LIMELIGHT_publish = parser.getValueAsDouble();
+          break;
+        case "botpose":
+          readArray(parser, results.botpose);
+          break;
+        case "botpose_wpired":
+          readArray(parser, results.botpose_wpired);
+          break;
+        case "botpose_wpiblue":
+          readArray(parser, results.botpose_wpiblue);
+          break;
+        case "Fiducial":
+          if (token == JsonToken.START_ARRAY) {
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+              parseFiducial(parser, results);
+            }
+          } else {
+            parser.skipChildren();
+          }
+          break;
+        default:
+          parser.skipChildren();
+          break;
+      }
+    }
+  }
+
+  /* The parser is positioned on the start of a fiducial object */
+  private static void parseFiducial(JsonParser parser, Results results) throws IOException {
+    int id = -1;
+    double distance = 0.0;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      parser.nextToken();
+      if ("fID".equals(name)) {
+        id = parser.getValueAsInt(-1);
+      } else if ("t6t_cs".equals(name) && parser.currentToken() == JsonToken.START_ARRAY) {
+        // the first three elements are the translation of the fiducial from the camera
+        double sumSquares = 0.0;
+        int i = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          if (i < 3) {
+            double value = parser.getValueAsDouble();
+            sumSquares += value * value;
+          }
+          i++;
+        }
+        distance = Math.sqrt(sumSquares);
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    if (results.fiducialCount < MAX_FIDUCIALS) {
+      results.fiducialIDs[results.fiducialCount] = id;
+      results.fiducialDistances[results.fiducialCount] = distance;
+      results.fiducialCount++;
+    }
+  }
+
+  /* Copy up to array.length numbers from the JSON array into the specified array */
+  private static void readArray(JsonParser parser, double[] array) throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return;
+    }
+    int i = 0;
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      if (i < array.length) {
+        array[i] = parser.getValueAsDouble();
+      }
+      i++;
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package frc.lib.limelightvision;
+
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.DoubleSubscriber;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.StringSubscriber;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-camera cache of NetworkTables subscribers for a Limelight's table.
+ *
+ * <p>Subscribers are created the first time a value is read and then reused, so reading a value
+ * doesn't look up the entry by name in NetworkTables every loop. The targeting values that make up
+ * a frame can be read together with readFrame, which retries if the camera publishes a new frame
+ * while the values are being read so that values from different frames are never mixed.
+ *
+ * <p>Caches are keyed by NetworkTables instance and table path, so tables with the same name in
+ * different instances (e.g., in tests or simulation) don't share subscribers.
+ */
+public class LimelightSubscriberCache {
+  private static final Map<String, LimelightSubscriberCache> caches = new ConcurrentHashMap<>();
+  /* Caches for the default instance by Limelight name, so get doesn't build a key every call */
+  private static final Map<String, LimelightSubscriberCache> defaultInstanceCaches =
+      new ConcurrentHashMap<>();
+  private static final double[] emptyArray = new double[0];
+  private static final int MAX_FRAME_READ_ATTEMPTS = 3;
+
+  /** The targeting values published by the camera for a single frame. Reused between frames. */
+  public static class Frame {
+    /* NetworkTables time (microseconds, same time base as the FPGA) the frame was received */
+    public long timestamp = 0;
+    public boolean valid = false;
+    public double tx = 0.0;
+    public double ty = 0.0;
+    public double ta = 0.0;
+    public double ts = 0.0;
+    public double latency_pipeline = 0.0;
+    public double latency_capture = 0.0;
+    public double fiducialID = 0.0;
+    public double pipelineIndex = 0.0;
+    public double[] botpose_wpiblue = emptyArray;
+    public double[] botpose_wpired = emptyArray;
+  }
+
+  private final String key;
+  private final NetworkTable table;
+  private final Map<String, DoubleSubscriber> doubleSubscribers = new ConcurrentHashMap<>();
+  private final Map<String, DoubleArraySubscriber> doubleArraySubscribers =
+      new ConcurrentHashMap<>();
+  private final Map<String, StringSubscriber> stringSubscribers = new ConcurrentHashMap<>();
+
+  /* The subscribers for the values that make up a frame */
+  private final DoubleSubscriber tv;
+  private final DoubleSubscriber tx;
+  private final DoubleSubscriber ty;
+  private final DoubleSubscriber ta;
+  private final DoubleSubscriber ts;
+  private final DoubleSubscriber tl;
+  private final DoubleSubscriber cl;
+  private final DoubleSubscriber tid;
+  private final DoubleSubscriber getpipe;
+  private final DoubleArraySubscriber botposeBlue;
+  private final DoubleArraySubscriber botposeRed;
+
+  private LimelightSubscriberCache(String key, NetworkTable table) {
+    this.key = key;
+    this.table = table;
+    tv = getDoubleSubscriber("tv");
+    tx = getDoubleSubscriber("tx");
+    ty = getDoubleSubscriber("ty");
+    ta = getDoubleSubscriber("ta");
+    ts = getDoubleSubscriber("ts");
+    tl = getDoubleSubscriber("tl");
+    cl = getDoubleSubscriber("cl");
+    tid = getDoubleSubscriber("tid");
+    getpipe = getDoubleSubscriber("getpipe");
+    botposeBlue = getDoubleArraySubscriber("botpose_wpiblue");
+    botposeRed = getDoubleArraySubscriber("botpose_wpired");
+  }
+
+  /**
+   * Returns the subscriber cache for the specified Limelight in the default NetworkTables instance.
+   *
+   * @param limelightName the name of the Limelight
+   * @return the subscriber cache for the specified Limelight
+   */
+  public static LimelightSubscriberCache get(String limelightName) {
+    String name = LimelightHelpers.sanitizeName(limelightName);
+    LimelightSubscriberCache cache = defaultInstanceCaches.get(name);
+    if (cache == null || cache.isClosed()) {
+      defaultInstanceCaches.remove(name, cache);
+      cache =
+          defaultInstanceCaches.computeIfAbsent(
+              name, n -> forTable(LimelightHelpers.getLimelightNTTable(n)));
+    }
+    return cache;
+  }
+
+  /**
+   * Returns the subscriber cache for the specified Limelight table.
+   *
+   * @param table the Limelight's NetworkTables table
+   * @return the subscriber cache for the specified Limelight table
+   */
+  public static LimelightSubscriberCache forTable(NetworkTable table) {
+    String key = table.getInstance().getHandle() + table.getPath();
+    LimelightSubscriberCache cache = caches.get(key);
+    if (cache == null) {
+      cache = caches.computeIfAbsent(key, k -> new LimelightSubscriberCache(k, table));
+    }
+    return cache;
+  }
+
+  /**
+   * Close the subscribers and remove this cache. The cache is shared, so this should only be
+   * called when the camera's table is no longer used (e.g., before its NetworkTables instance is
+   * destroyed); the next call to get or forTable creates a new cache.
+   */
+  public void close() {
+    caches.remove(key, this);
+    doubleSubscribers.values().forEach(DoubleSubscriber::close);
+    doubleArraySubscribers.values().forEach(DoubleArraySubscriber::close);
+    stringSubscribers.values().forEach(StringSubscriber::close);
+  }
+
+  private boolean isClosed() {
+    return caches.get(key) != this;
+  }
+
+  public double getDouble(String entryName) {
+    return getDoubleSubscriber(entryName).get();
+  }
+
+  public double[] getDoubleArray(String entryName) {
+    return getDoubleArraySubscriber(entryName).get();
+  }
+
+  public String getString(String entryName) {
+    return getStringSubscriber(entryName).get();
+  }
+
+  /**
+   * Returns the NetworkTables time the specified entry last changed.
+   *
+   * @param entryName the name of the entry
+   * @return the NetworkTables time (microseconds) the entry last changed, or 0 if never set
+   */
+  public long getLastChange(String entryName) {
+    return getDoubleSubscriber(entryName).getLastChange();
+  }
+
+  /**
+   * Read the values of the latest frame into the specified frame object. The times the pipeline
+   * latency and the blue alliance robot pose last changed mark the frame: a frame is new if either
+   * has changed since the previous read, and is consistent if neither changed while the values
+   * were read. Checking the markers doesn't allocate; the pose arrays are new arrays from
+   * NetworkTables.
+   *
+   * @param frame the frame object to fill
+   * @return true if a new, consistent frame was read; false if there is no newer frame than the one
+   *     previously read into the frame object or a consistent frame couldn't be read
+   */
+  public boolean readFrame(Frame frame) {
+    for (int attempt = 0; attempt < MAX_FRAME_READ_ATTEMPTS; attempt++) {
+      long latencyChange = tl.getLastChange();
+      long poseChange = botposeBlue.getLastChange();
+      long timestamp = Math.max(latencyChange, poseChange);
+      if (timestamp == frame.timestamp) {
+        return false;
+      }
+
+      frame.latency_pipeline = tl.get();
+      frame.valid = tv.get() == 1.0;
+      frame.tx = tx.get();
+      frame.ty = ty.get();
+      frame.ta = ta.get();
+      frame.ts = ts.get();
+      frame.latency_capture = cl.get();
+      frame.fiducialID = tid.get();
+      frame.pipelineIndex = getpipe.get();
+      frame.botpose_wpiblue = botposeBlue.get();
+      frame.botpose_wpired = botposeRed.get();
+
+      if (tl.getLastChange() == latencyChange && botposeBlue.getLastChange() == poseChange) {
+        frame.timestamp = timestamp;
+        return true;
+      }
+    }
+
+    // the camera kept publishing while reading; try again next loop rather than mix frames
+    return false;
+  }
+
+  private DoubleSubscriber getDoubleSubscriber(String entryName) {
+    DoubleSubscriber subscriber = doubleSubscribers.get(entryName);
+    if (subscriber == null) {
+      subscriber =
+          doubleSubscribers.computeIfAbsent(
+              entryName, n -> table.getDoubleTopic(n).subscribe(0.0));
+    }
+    return subscriber;
+  }
+
+  private DoubleArraySubscriber getDoubleArraySubscriber(String entryName) {
+    DoubleArraySubscriber subscriber = doubleArraySubscribers.get(entryName);
+    if (subscriber == null) {
+      subscriber =
+          doubleArraySubscribers.computeIfAbsent(
+              entryName, n -> table.getDoubleArrayTopic(n).subscribe(emptyArray));
+    }
+    return subscriber;
+  }
+
+  private StringSubscriber getStringSubscriber(String entryName) {
+    StringSubscriber subscriber = stringSubscribers.get(entryName);
+    if (subscriber == null) {
+      subscriber =
+          stringSubscribers.computeIfAbsent(entryName, n -> table.getStringTopic(n).subscribe(""));
+    }
+    return subscriber;
+  }
+}
@@ -0,0 +1,56 @@
+package frc.lib.limelightvision;
+
+import edu.wpi.first.networktables.NetworkTable;
+import frc.lib.inputs.LoggedInputs;
+import frc.lib.util.LoggableInputs;
+import java.nio.ByteBuffer;
+
+/**
+ * Vision hardware abstraction interface.
+ *
+ * <p>The inputs describe the most recent robot pose measurement published by the camera. The vision
+ * subsystem compares the frame timestamp with the last one it processed to ensure each frame is
+ * only fused into the pose estimator once. Recorded inputs can be played back through an
+ * implementation of this interface to test the vision subsystem without a camera.
+ */
+public interface VisionIO {
+  @LoggedInputs
+  public static class VisionIOInputs implements LoggableInputs {
+    public boolean connected = false;
+    public double frameTimestamp = 0.0; // FPGA time the frame was published (seconds)
+    public boolean hasTargets = false;
+    public double[] botPose = new double[6]; // x, y, z, roll, pitch, yaw; blue alliance origin
+    public double pipelineLatencyMs = 0.0;
+    public double captureLatencyMs = 0.0;
+    public int tagCount = 0;
+    public double averageTagDistanceMeters = 0.0;
+
+    /* Created when the inputs are first published */
+    private transient VisionIOInputsLog.Publisher publisher = null;
+
+    @Override
+    public void toLog(ByteBuffer buffer) {
+      VisionIOInputsLog.writeTo(this, buffer);
+    }
+
+    @Override
+    public void fromLog(ByteBuffer buffer) {
+      VisionIOInputsLog.readFrom(this, buffer);
+    }
+
+    @Override
+    public void publish(NetworkTable table) {
+      if (publisher == null) {
+        publisher = new VisionIOInputsLog.Publisher(table);
+      }
+      publisher.publish(this);
+    }
+  }
+
+  /**
+   * Updates the set of loggable inputs.
+   *
+   * @param inputs the inputs to update
+   */
+  public default void updateInputs(VisionIOInputs inputs) {}
+}
@@ -0,0 +1,65 @@
+package frc.lib.limelightvision;
+
+/**
+ * Implementation of the VisionIO interface for a Limelight running an AprilTag pipeline.
+ *
+ * <p>The values are read through the camera's subscriber cache, and only when the camera has
+ * published a new frame, which makes checking for a new frame cheap enough to do every loop.
+ * Firmware that doesn't publish the tag count in the botpose array has it parsed from the JSON
+ * results dump instead, again only once per frame.
+ */
+public class VisionIOLimelight implements VisionIO {
+  /* Newer firmware appends latency, tag count, tag span, average distance, and average area */
+  private static final int BOTPOSE_TAG_COUNT_INDEX = 7;
+  private static final int BOTPOSE_AVG_DISTANCE_INDEX = 9;
+
+  private final LimelightSubscriberCache cache;
+  private final LimelightConnectionMonitor monitor;
+  private final LimelightSubscriberCache.Frame frame = new LimelightSubscriberCache.Frame();
+  private final LimelightResultsParser.Results results = new LimelightResultsParser.Results();
+
+  public VisionIOLimelight(String limelightName) {
+    cache = LimelightSubscriberCache.get(limelightName);
+    monitor = LimelightConnectionMonitor.get(limelightName);
+  }
+
+  @Override
+  public void updateInputs(VisionIOInputs inputs) {
+    inputs.connected = monitor.isConnected();
+    if (!cache.readFrame(frame)) {
+      return;
+    }
+
+    // NetworkTables timestamps are in microseconds using the same time base as the FPGA
+    inputs.frameTimestamp = frame.timestamp / 1.0e6;
+    inputs.hasTargets = frame.valid;
+    inputs.pipelineLatencyMs = frame.latency_pipeline;
+    inputs.captureLatencyMs = frame.latency_capture;
+
+    double[] botPose = frame.botpose_wpiblue;
+    if (botPose.length < 6) {
+      inputs.hasTargets = false;
+      return;
+    }
+    System.arraycopy(botPose, 0, inputs.botPose, 0, 6);
+
+    if (botPose.length > BOTPOSE_AVG_DISTANCE_INDEX) {
+      inputs.tagCount = (int) botPose[BOTPOSE_TAG_COUNT_INDEX];
+      inputs.averageTagDistanceMeters = botPose[BOTPOSE_AVG_DISTANCE_INDEX];
+    } else {
+      // older firmware only publishes the primary tag to NetworkTables; get the rest from the dump
+      if (LimelightResultsParser.parse(cache.getString("json"), results)
+          && results.fiducialCount > 0) {
+        double sum = 0.0;
+        for (int i = 0; i < results.fiducialCount; i++) {
+          sum += results.fiducialDistances[i];
+        }
+        inputs.tagCount = results.fiducialCount;
+        inputs.averageTagDistanceMeters = sum / results.fiducialCount;
+      } else {
+        inputs.tagCount = 0;
+        inputs.averageTagDistanceMeters = 0.0;
+      }
+    }
+  }
+}
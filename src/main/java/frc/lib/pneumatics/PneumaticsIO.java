@@ -1,5 +1,10 @@
 package frc.lib.pneumatics;
 
+import edu.wpi.first.networktables.NetworkTable;
+import frc.lib.inputs.LoggedInputs;
+import frc.lib.util.LoggableInputs;
+import java.nio.ByteBuffer;
+
 // import edu.wpi.first.wpilibj.Compressor;
 // import edu.wpi.first.wpilibj.DoubleSolenoid;
 // import edu.wpi.first.wpilibj.Solenoid;
@@ -12,13 +17,35 @@ package frc.lib.pneumatics;
  * regulator (low pressure). In addition, there is a flow sensor. (We use the SMC PFM711-N7-C-R.)
  */
 public interface PneumaticsIO {
-  public static class PneumaticsIOInputs {
+  @LoggedInputs
+  public static class PneumaticsIOInputs implements LoggableInputs {
     double highPressurePSI = 0.0;
     double lowPressurePSI = 0.0;
     boolean compressorActive = false;
     double compressorCurrentAmps = 0.0;
     double flowLPM = 0.0;
     double volumeL = 0.0;
+
+    /* Created when the inputs are first published */
+    private transient PneumaticsIOInputsLog.Publisher publisher = null;
+
+    @Override
+    public void toLog(ByteBuffer buffer) {
+      PneumaticsIOInputsLog.writeTo(this, buffer);
+    }
+
+    @Override
+    public void fromLog(ByteBuffer buffer) {
+      PneumaticsIOInputsLog.readFrom(this, buffer);
+    }
+
+    @Override
+    public void publish(NetworkTable table) {
+      if (publisher == null) {
+        publisher = new PneumaticsIOInputsLog.Publisher(table);
+      }
+      publisher.publish(this);
+    }
   }
 
   /** Updates the set of loggable inputs. */
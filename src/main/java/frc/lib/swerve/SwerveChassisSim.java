@@ -0,0 +1,181 @@
+package frc.lib.swerve;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * A simulation of the swerve drive chassis as a rigid body on carpet.
+ *
+ * <p>Each module's wheel is pushed along the carpet by its drive motor and the carpet pushes back
+ * on the wheel with a friction force, which accelerates the chassis and slows the wheel. The
+ * friction force is proportional to the velocity with which the wheel slips over the carpet, both
+ * along and across the wheel, up to the limit of the friction coefficient times the normal force on
+ * the wheel. Therefore, the wheels slip when the robot accelerates too hard and scrub when the
+ * modules fight each other, and the reported module velocities lag the commanded velocities like
+ * they do on the real robot.
+ *
+ * <p>The attached modules' drive wheels, which are integrated together with the chassis, and the
+ * chassis are updated in SUB_STEP_SECS steps. The update method should be invoked once per loop
+ * after the modules' inputs have been updated. Its pose, heading, and yaw rate are the actual
+ * values that a simulated gyro or ground truth can be based on.
+ */
+public class SwerveChassisSim {
+  public static final double ROBOT_MASS_KG = 56.0;
+  public static final double ROBOT_MOI_KG_M2 = 5.5;
+  public static final double FRICTION_COEFFICIENT = 1.1;
+  /* Limited by SwerveModuleIOSim.WHEEL_MOI_KG_M2 for the sub-steps to be stable */
+  public static final double SLIP_STIFFNESS_NEWTONS_PER_MPS = 1000.0;
+  public static final double SUB_STEP_SECS = 0.001;
+
+  private static final double GRAVITY_MPS2 = 9.81;
+
+  private final SwerveModuleIOSim[] modules;
+  private final double[] moduleX;
+  private final double[] moduleY;
+  private final double maxFrictionNewtons;
+
+  private double x = 0.0;
+  private double y = 0.0;
+  private double headingRad = 0.0;
+  private double velocityX = 0.0;
+  private double velocityY = 0.0;
+  private double yawRateRadPerSec = 0.0;
+
+  /**
+   * Create a chassis simulation and attach the specified modules to it.
+   *
+   * @param modules the simulated modules
+   * @param moduleTranslations the location of each module relative to the center of the robot
+   */
+  public SwerveChassisSim(SwerveModuleIOSim[] modules, Translation2d[] moduleTranslations) {
+    this.modules = modules;
+    this.moduleX = new double[modules.length];
+    this.moduleY = new double[modules.length];
+    for (int i = 0; i < modules.length; i++) {
+      moduleX[i] = moduleTranslations[i].getX();
+      moduleY[i] = moduleTranslations[i].getY();
+      modules[i].attachToChassis();
+    }
+    this.maxFrictionNewtons = FRICTION_COEFFICIENT * ROBOT_MASS_KG * GRAVITY_MPS2 / modules.length;
+  }
+
+  /**
+   * Advance the simulation by the specified time in SUB_STEP_SECS steps.
+   *
+   * @param dtSecs the time by which the simulation is advanced
+   */
+  public void update(double dtSecs) {
+    int steps = Math.max(1, (int) Math.round(dtSecs / SUB_STEP_SECS));
+    double stepSecs = dtSecs / steps;
+    for (int step = 0; step < steps; step++) {
+      step(stepSecs);
+    }
+  }
+
+  private void step(double dtSecs) {
+    double cosHeading = Math.cos(headingRad);
+    double sinHeading = Math.sin(headingRad);
+    double forceX = 0.0;
+    double forceY = 0.0;
+    double torque = 0.0;
+
+    for (int i = 0; i < modules.length; i++) {
+      // the location of the module relative to the center of the robot in the field frame
+      double offsetX = moduleX[i] * cosHeading - moduleY[i] * sinHeading;
+      double offsetY = moduleX[i] * sinHeading + moduleY[i] * cosHeading;
+      double groundVelocityX = velocityX - yawRateRadPerSec * offsetY;
+      double groundVelocityY = velocityY + yawRateRadPerSec * offsetX;
+
+      double wheelRad = headingRad + modules[i].getActualAngleRad();
+      double cosWheel = Math.cos(wheelRad);
+      double sinWheel = Math.sin(wheelRad);
+      double alongVelocity = groundVelocityX * cosWheel + groundVelocityY * sinWheel;
+      double acrossVelocity = -groundVelocityX * sinWheel + groundVelocityY * cosWheel;
+
+      // the friction force opposes the slip and is limited by the friction circle
+      double alongSlip = modules[i].getWheelSpeedMetersPerSec() - alongVelocity;
+      double alongForce = SLIP_STIFFNESS_NEWTONS_PER_MPS * alongSlip;
+      double acrossForce = -SLIP_STIFFNESS_NEWTONS_PER_MPS * acrossVelocity;
+      double force = Math.hypot(alongForce, acrossForce);
+      if (force > maxFrictionNewtons) {
+        alongForce *= maxFrictionNewtons / force;
+        acrossForce *= maxFrictionNewtons / force;
+      }
+      modules[i].stepDrive(dtSecs, alongForce);
+
+      double moduleForceX = alongForce * cosWheel - acrossForce * sinWheel;
+      double moduleForceY = alongForce * sinWheel + acrossForce * cosWheel;
+      forceX += moduleForceX;
+      forceY += moduleForceY;
+      torque += offsetX * moduleForceY - offsetY * moduleForceX;
+    }
+
+    // semi-implicit Euler integration
+    velocityX += forceX / ROBOT_MASS_KG * dtSecs;
+    velocityY += forceY / ROBOT_MASS_KG * dtSecs;
+    yawRateRadPerSec += torque / ROBOT_MOI_KG_M2 * dtSecs;
+    x += velocityX * dtSecs;
+    y += velocityY * dtSecs;
+    headingRad += yawRateRadPerSec * dtSecs;
+  }
+
+  /**
+   * Move the robot to the specified pose at rest.
+   *
+   * @param pose the pose
+   */
+  public void resetPose(Pose2d pose) {
+    x = pose.getX();
+    y = pose.getY();
+    headingRad = pose.getRotation().getRadians();
+    velocityX = 0.0;
+    velocityY = 0.0;
+    yawRateRadPerSec = 0.0;
+  }
+
+  /**
+   * Returns the actual pose of the robot.
+   *
+   * @return the actual pose of the robot
+   */
+  public Pose2d getPose() {
+    return new Pose2d(x, y, new Rotation2d(headingRad));
+  }
+
+  /**
+   * Returns the actual x coordinate of the robot without creating a pose.
+   *
+   * @return the x coordinate in meters
+   */
+  public double getX() {
+    return x;
+  }
+
+  /**
+   * Returns the actual y coordinate of the robot without creating a pose.
+   *
+   * @return the y coordinate in meters
+   */
+  public double getY() {
+    return y;
+  }
+
+  /**
+   * Returns the actual heading of the robot, which is continuous (i.e., it isn't wrapped).
+   *
+   * @return the heading in radians
+   */
+  public double getHeadingRad() {
+    return headingRad;
+  }
+
+  /**
+   * Returns the actual rate at which the robot is rotating counterclockwise.
+   *
+   * @return the yaw rate in radians per second
+   */
+  public double getYawRateRadPerSec() {
+    return yawRateRadPerSec;
+  }
+}
@@ -10,22 +10,34 @@ import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardLayout;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
 import frc.lib.swerve.SwerveModuleIO.SwerveModuleIOInputs;
+import frc.lib.util.InputLogger;
 import frc.robot.subsystems.drivetrain.DriveTrainConstants;
 
 public class SwerveModule {
   private final SwerveModuleIO io;
   private final SwerveModuleIOInputs inputs = new SwerveModuleIOInputs();
 
+  /* Reused every loop so that reading the module's state doesn't allocate */
+  private final SwerveModuleState state = new SwerveModuleState();
+  private final SwerveModulePosition position = new SwerveModulePosition();
+  private Rotation2d currentAngle = new Rotation2d();
+  private double currentAngleDeg = 0.0;
+
   private int moduleNumber;
+  /* The key under which the inputs are logged; built once so logging doesn't allocate */
+  private final String inputsKey;
   private double lastAngle;
   private double maxVelocity;
+  /* While muted, the desired states are computed but not sent to the motors (e.g., JIT warm-up) */
+  private boolean outputsMuted = false;
 
   public SwerveModule(SwerveModuleIO io) {
     this.io = io;
     this.moduleNumber = io.getModuleNumber();
+    this.inputsKey = "Mod" + moduleNumber;
     this.maxVelocity = DriveTrainConstants.maxSpeed;
 
-    lastAngle = getState().angle.getDegrees();
+    lastAngle = inputs.anglePositionDeg;
 
     this.initLogging();
   }
@@ -108,51 +120,85 @@ public class SwerveModule {
    *     false, the module will not rotate if the velocity is less than 1% of the max velocity.
    */
   public void setDesiredState(SwerveModuleState desiredState, boolean isOpenLoop, boolean forceAngle) {
+    setDesiredState(
+        desiredState.speedMetersPerSecond, desiredState.angle.getDegrees(), isOpenLoop, forceAngle);
+  }
+
+  /**
+   * Set this swerve module to the specified speed and angle. This variant takes the state as
+   * primitives so that the drivetrain can command the modules every loop without allocating.
+   *
+   * @param speedMetersPerSecond the desired speed of the module
+   * @param angleDegrees the desired angle of the module
+   * @param isOpenLoop if true, the drive motor will be set to the calculated fraction of the max
+   *     velocity; if false, the drive motor will set to the specified velocity using a closed-loop
+   *     controller (PID).
+   * @param forceAngle if true, the module will be forced to rotate to the specified angle; if
+   *     false, the module will not rotate if the velocity is less than 1% of the max velocity.
+   */
+  public void setDesiredState(
+      double speedMetersPerSecond, double angleDegrees, boolean isOpenLoop, boolean forceAngle) {
 
     // this optimization is specific to CTRE hardware; perhaps this responsibility should be demoted
     // to the hardware-specific classes.
     // desiredState = CTREModuleState.optimize(desiredState, getState().angle);
 
-    double currentAngleDegrees = getState().angle.getDegrees();
-    double targetAngle = placeInAppropriate0To360Scope(currentAngleDegrees, desiredState.angle.getDegrees());
-    double targetSpeed = desiredState.speedMetersPerSecond;
+    double currentAngleDegrees = inputs.anglePositionDeg;
+    double targetAngle = placeInAppropriate0To360Scope(currentAngleDegrees, angleDegrees);
+    double targetSpeed = speedMetersPerSecond;
 
     double delta = targetAngle - currentAngleDegrees;
     if (Math.abs(delta) > 90) {
       targetSpeed = -targetSpeed;
       targetAngle = delta > 90 ? (targetAngle - 180) : (targetAngle + 180);
     }
-    desiredState = new SwerveModuleState(targetSpeed, Rotation2d.fromDegrees(targetAngle));
 
-    setSpeed(desiredState, isOpenLoop);
-    setAngle(desiredState, forceAngle);
+    setSpeed(targetSpeed, isOpenLoop);
+    setAngle(targetSpeed, targetAngle, forceAngle);
   }
 
-  private void setSpeed(SwerveModuleState desiredState, boolean isOpenLoop) {
+  private void setSpeed(double speedMetersPerSecond, boolean isOpenLoop) {
+    if (outputsMuted) {
+      return;
+    }
     if (isOpenLoop) {
-      double percentOutput = desiredState.speedMetersPerSecond / maxVelocity;
+      double percentOutput = speedMetersPerSecond / maxVelocity;
       io.setDriveMotorPercentage(percentOutput);
     } else {
-      io.setDriveVelocity(desiredState.speedMetersPerSecond);
+      io.setDriveVelocity(speedMetersPerSecond);
     }
   }
 
-  private void setAngle(SwerveModuleState desiredState, boolean forceAngle) {
+  private void setAngle(double speedMetersPerSecond, double angleDegrees, boolean forceAngle) {
     // Unless the angle is forced (e.g., X-stance), don't rotate the module if speed is less then
     // 1%. This prevents jittering if the controller isn't tuned perfectly. Perhaps more
     // importantly, it allows for smooth repeated movement as the wheel direction doesn't reset
     // during pauses (e.g., multi-segmented auto paths).
     double angle;
-    if (!forceAngle && Math.abs(desiredState.speedMetersPerSecond) <= (maxVelocity * 0.01)) {
+    if (!forceAngle && Math.abs(speedMetersPerSecond) <= (maxVelocity * 0.01)) {
       angle = lastAngle;
     } else {
-      angle = desiredState.angle.getDegrees();
+      angle = angleDegrees;
     }
 
+    if (outputsMuted) {
+      return;
+    }
     io.setAnglePosition(angle);
     lastAngle = angle;
   }
 
+  /**
+   * Mute or unmute this module's outputs. While muted, setDesiredState computes the module's
+   * optimized state as usual but neither sends it to the motors nor updates the last angle. This is
+   * used to exercise the drive code while disabled without affecting the motors.
+   *
+   * @param muted true to mute this module's outputs
+   */
+  public void setOutputsMuted(boolean muted) {
+    this.outputsMuted = muted;
+  }
+
   /**
    * Set the drive motor to the specified voltage. This is only used for characterization via the
    * FeedForwardCharacterization command. The module will be set to 0 degrees throughout the
@@ -161,6 +207,9 @@ public class SwerveModule {
    * @param voltage the specified voltage for the drive motor
    */
   public void setVoltageForCharacterization(double voltage) {
+    if (outputsMuted) {
+      return;
+    }
     io.setAnglePosition(0.0);
     lastAngle = 0.0;
     io.setDriveMotorPercentage(voltage / 12.0);
@@ -169,23 +218,70 @@ public class SwerveModule {
   /**
    * Get the current state of this swerve module.
    *
+   * <p>The returned object is owned by this module and updated in place on every call; copy it if
+   * it needs to be retained.
+   *
    * @return the current state of this swerve module
    */
   public SwerveModuleState getState() {
-    double velocity = inputs.driveVelocityMetersPerSec;
-    Rotation2d angle = Rotation2d.fromDegrees(inputs.anglePositionDeg);
-    return new SwerveModuleState(velocity, angle);
+    state.speedMetersPerSecond = inputs.driveVelocityMetersPerSec;
+    state.angle = getAngle();
+    return state;
   }
 
   /**
    * Get the current position of this swerve module.
    *
+   * <p>The returned object is owned by this module and updated in place on every call; copy it if
+   * it needs to be retained.
+   *
    * @return the current position of this swerve module
    */
   public SwerveModulePosition getPosition() {
-    double distance = inputs.driveDistanceMeters;
-    Rotation2d angle = Rotation2d.fromDegrees(inputs.anglePositionDeg);
-    return new SwerveModulePosition(distance, angle);
+    position.distanceMeters = inputs.driveDistanceMeters;
+    position.angle = getAngle();
+    return position;
+  }
+
+  /**
+   * Get the current angle of this swerve module. A new Rotation2d is only created when the angle
+   * has changed since the last call.
+   *
+   * @return the current angle of this swerve module
+   */
+  private Rotation2d getAngle() {
+    if (inputs.anglePositionDeg != currentAngleDeg) {
+      currentAngleDeg = inputs.anglePositionDeg;
+      currentAngle = Rotation2d.fromDegrees(currentAngleDeg);
+    }
+    return currentAngle;
+  }
+
+  /**
+   * Get the current speed of this swerve module.
+   *
+   * @return the current speed of this swerve module (m/s)
+   */
+  public double getVelocityMetersPerSec() {
+    return inputs.driveVelocityMetersPerSec;
+  }
+
+  /**
+   * Get the current angle of this swerve module.
+   *
+   * @return the current angle of this swerve module (degrees)
+   */
+  public double getAngleDegrees() {
+    return inputs.anglePositionDeg;
+  }
+
+  /**
+   * Get the current distance traveled by this swerve module.
+   *
+   * @return the current distance traveled by this swerve module (meters)
+   */
+  public double getDistanceMeters() {
+    return inputs.driveDistanceMeters;
   }
 
   /**
@@ -204,7 +300,7 @@ public class SwerveModule {
    */
   public void updateAndProcessInputs() {
     io.updateInputs(inputs);
-    // Logger.getInstance().processInputs("Mod" + moduleNumber, inputs);
+    InputLogger.getInstance().processInputs(inputsKey, inputs);
   }
 
   /**
@@ -225,6 +321,37 @@ public class SwerveModule {
     io.setAngleBrakeMode(enable);
   }
 
+  /**
+   * Get the number of status signals read from the devices by the last update of this module's
+   * inputs.
+   *
+   * @return the number of status signals read from the devices by the last update
+   */
+  public int getDeviceReadsPerLoop() {
+    return io.getDeviceReadsPerLoop();
+  }
+
+  /**
+   * Get the distance traveled by this swerve module, read directly from the device. Unlike
+   * getDistanceMeters, this doesn't depend on the inputs updated by the main loop and is used by
+   * the odometry thread.
+   *
+   * @return the distance traveled by this swerve module (meters)
+   */
+  public double getOdometryDistanceMeters() {
+    return io.getOdometryDistanceMeters();
+  }
+
+  /**
+   * Get the angle of this swerve module, read directly from the device. Unlike getAngleDegrees,
+   * this doesn't depend on the inputs updated by the main loop and is used by the odometry thread.
+   *
+   * @return the angle of this swerve module (degrees)
+   */
+  public double getOdometryAngleDegrees() {
+    return io.getOdometryAngleDeg();
+  }
+
   /** Return if the drive motor is connected. */
   public boolean isDriveMotorConnected() {
     return io.isDriveMotorConnected();
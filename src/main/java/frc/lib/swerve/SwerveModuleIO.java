@@ -1,5 +1,10 @@
 package frc.lib.swerve;
 
+import edu.wpi.first.networktables.NetworkTable;
+import frc.lib.inputs.LoggedInputs;
+import frc.lib.util.LoggableInputs;
+import java.nio.ByteBuffer;
+
 /** Swerve module hardware abstraction interface. */
 public interface SwerveModuleIO {
   public static class SwerveModuleID {
@@ -26,29 +31,78 @@ public interface SwerveModuleIO {
     }
   }
 
-  public static class SwerveModuleIOInputs {
+  @LoggedInputs
+  public static class SwerveModuleIOInputs implements LoggableInputs {
     double drivePositionDeg = 0.0;
     double driveDistanceMeters = 0.0;
     double driveVelocityMetersPerSec = 0.0;
     double driveAppliedPercentage = 0.0;
-    double[] driveCurrentAmps = new double[] {};
-    double[] driveTempCelsius = new double[] {};
+    double[] driveCurrentAmps = new double[1];
+    double[] driveTempCelsius = new double[1];
 
     double angleAbsolutePositionDeg = 0.0;
     double anglePositionDeg = 0.0;
     double angleVelocityRevPerMin = 0.0;
     double angleAppliedPercentage = 0.0;
-    double[] angleCurrentAmps = new double[] {};
-    double[] angleTempCelsius = new double[] {};
+    double[] angleCurrentAmps = new double[1];
+    double[] angleTempCelsius = new double[1];
+
+    /* Created when the inputs are first published */
+    private transient SwerveModuleIOInputsLog.Publisher publisher = null;
+
+    @Override
+    public void toLog(ByteBuffer buffer) {
+      SwerveModuleIOInputsLog.writeTo(this, buffer);
+    }
+
+    @Override
+    public void fromLog(ByteBuffer buffer) {
+      SwerveModuleIOInputsLog.readFrom(this, buffer);
+    }
+
+    @Override
+    public void publish(NetworkTable table) {
+      if (publisher == null) {
+        publisher = new SwerveModuleIOInputsLog.Publisher(table);
+      }
+      publisher.publish(this);
+    }
   }
   /** return the module number */
   public default int getModuleNumber() {
     return 0;
   }
 
-  /** Updates the set of loggable inputs. */
+  /**
+   * Updates the set of loggable inputs. The inputs object (including its arrays) is reused every
+   * loop; implementations must write into it rather than replacing its fields.
+   */
   public default void updateInputs(SwerveModuleIOInputs inputs) {}
 
+  /**
+   * Returns the number of status signals read from the devices by the last invocation of
+   * updateInputs. The reads made by the odometry thread are not included.
+   */
+  public default int getDeviceReadsPerLoop() {
+    return 0;
+  }
+
+  /**
+   * Returns the distance traveled by the drive wheel, read directly from the device. This is
+   * invoked from the odometry thread and must be thread safe.
+   */
+  public default double getOdometryDistanceMeters() {
+    return 0.0;
+  }
+
+  /**
+   * Returns the angle of the module, read directly from the device. This is invoked from the
+   * odometry thread and must be thread safe.
+   */
+  public default double getOdometryAngleDeg() {
+    return 0.0;
+  }
+
   /** Run the drive motor at the specified percentage of full power. */
   public default void setDriveMotorPercentage(double percentage) {}
 
@@ -0,0 +1,19 @@
+package frc.lib.swerve;
+
+/**
+ * A version of the SwerveModuleIO interface that is used when replaying an input log. It doesn't
+ * update the inputs; instead, the InputLogger overwrites them with the logged values. Outputs are
+ * ignored.
+ */
+public class SwerveModuleIOReplay implements SwerveModuleIO {
+  private final int moduleNumber;
+
+  public SwerveModuleIOReplay(int moduleNumber) {
+    this.moduleNumber = moduleNumber;
+  }
+
+  @Override
+  public int getModuleNumber() {
+    return moduleNumber;
+  }
+}
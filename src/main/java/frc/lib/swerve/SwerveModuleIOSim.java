@@ -12,14 +12,25 @@ import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.system.plant.DCMotor;
-import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import edu.wpi.first.wpilibj.RobotController;
 import frc.robot.subsystems.drivetrain.*;
+import java.util.Random;
 
 /**
  * A simulated version of the SwerveModuleIO interface.
  *
  * <p>The swerve module is simulated as a flywheel connected to the drive motor and another flywheel
- * connected ot the turn motor.
+ * connected ot the turn motor. The flywheels are the same models as WPILib's FlywheelSim, but are
+ * integrated with primitive math so that updating the inputs doesn't allocate.
+ *
+ * <p>The initial position of the absolute encoder is random but determined by the seed, so runs
+ * with the same seed are repeatable. An angle offset error can be specified to simulate a CANcoder
+ * whose offset is wrong: the wheel then points in a different direction than the encoders report.
+ * The applied voltages are limited to the simulated battery voltage.
+ *
+ * <p>If the module is attached to a SwerveChassisSim, the drive wheel is no longer simulated as a
+ * flywheel; instead, the chassis simulation integrates the wheel together with the chassis and the
+ * friction between the wheel and the carpet.
  */
 public class SwerveModuleIOSim implements SwerveModuleIO {
 
@@ -42,14 +53,26 @@ public class SwerveModuleIOSim implements SwerveModuleIO {
 
   public static final double LOOP_PERIOD_SECS = 0.02;
 
+  /* The moment of inertia of the wheel and the drive motor's rotor as seen at the wheel */
+  public static final double WHEEL_MOI_KG_M2 = 0.002;
+
+  private static final DCMotor DRIVE_MOTOR = DCMotor.getFalcon500(1);
+  private static final double WHEEL_RADIUS_METERS =
+      DriveTrainConstants.wheelCircumference / (2.0 * Math.PI);
+
   private int moduleNumber = 0;
-  private FlywheelSim driveSim =
-      new FlywheelSim(DCMotor.getFalcon500(1), DriveTrainConstants.driveGearRatio, 0.025);
-  private FlywheelSim turnSim =
-      new FlywheelSim(DCMotor.getFalcon500(1), DriveTrainConstants.angleGearRatio, 0.004096955);
+  private Flywheel driveSim =
+      new Flywheel(DCMotor.getFalcon500(1), DriveTrainConstants.driveGearRatio, 0.025);
+  private Flywheel turnSim =
+      new Flywheel(DCMotor.getFalcon500(1), DriveTrainConstants.angleGearRatio, 0.004096955);
 
   private double turnRelativePositionRad = 0.0;
-  private double turnAbsolutePositionRad = Math.random() * 2.0 * Math.PI;
+  private double turnAbsolutePositionRad;
+  private double angleOffsetErrorRad = 0.0;
+  private boolean chassisAttached = false;
+  private double driveVelocityRadPerSec = 0.0;
+  private double driveDistanceMeters = 0.0;
+  private double driveCurrentAmps = 0.0;
   private double driveAppliedVolts = 0.0;
   private double turnAppliedVolts = 0.0;
   private boolean isDriveOpenLoop = true;
@@ -63,8 +86,146 @@ public class SwerveModuleIOSim implements SwerveModuleIO {
   private PIDController turnController =
       new PIDController(SIM_ANGLE_KP, SIM_ANGLE_KI, SIM_ANGLE_KD);
 
+  /*
+   * A flywheel driven by a motor through a gearbox. The velocity follows the same first-order
+   * system as FlywheelSim's and is integrated exactly over each step, as FlywheelSim's matrix
+   * exponential does, and the input voltage is likewise limited to the battery voltage.
+   */
+  private static class Flywheel {
+    private final DCMotor motor;
+    private final double gearing;
+    private final double a;
+    private final double b;
+    private double velocityRadPerSec = 0.0;
+    private double inputVolts = 0.0;
+
+    Flywheel(DCMotor motor, double gearing, double moiKgMetersSquared) {
+      this.motor = motor;
+      this.gearing = gearing;
+      this.a =
+          -gearing
+              * gearing
+              * motor.KtNMPerAmp
+              / (motor.KvRadPerSecPerVolt * motor.rOhms * moiKgMetersSquared);
+      this.b = gearing * motor.KtNMPerAmp / (motor.rOhms * moiKgMetersSquared);
+    }
+
+    void setInputVoltage(double volts) {
+      inputVolts = volts;
+    }
+
+    void reset() {
+      velocityRadPerSec = 0.0;
+      inputVolts = 0.0;
+    }
+
+    void update(double dtSecs) {
+      double batteryVolts = RobotController.getBatteryVoltage();
+      inputVolts = MathUtil.clamp(inputVolts, -batteryVolts, batteryVolts);
+      double decay = Math.exp(a * dtSecs);
+      velocityRadPerSec = decay * velocityRadPerSec + (decay - 1.0) / a * b * inputVolts;
+    }
+
+    double getAngularVelocityRadPerSec() {
+      return velocityRadPerSec;
+    }
+
+    double getCurrentDrawAmps() {
+      return motor.getCurrent(velocityRadPerSec * gearing, inputVolts) * Math.signum(inputVolts);
+    }
+  }
+
   public SwerveModuleIOSim(int moduleNumber) {
+    this(moduleNumber, moduleNumber);
+  }
+
+  /**
+   * Create a simulated swerve module whose initial absolute encoder position is determined by the
+   * specified seed.
+   *
+   * @param moduleNumber the module number
+   * @param seed the seed of the initial absolute encoder position
+   */
+  public SwerveModuleIOSim(int moduleNumber, long seed) {
     this.moduleNumber = moduleNumber;
+    resetSimulation(seed);
+  }
+
+  /**
+   * Return the module to the state in which it would be created with the specified seed: the wheel
+   * is at rest, the motors and controllers are idle, there is no angle offset error, and the
+   * initial absolute encoder position is determined by the seed. The module stays attached to its
+   * SwerveChassisSim, if any.
+   *
+   * @param seed the seed of the initial absolute encoder position
+   */
+  public void resetSimulation(long seed) {
+    driveSim.reset();
+    turnSim.reset();
+    turnRelativePositionRad = 0.0;
+    turnAbsolutePositionRad = new Random(seed).nextDouble() * 2.0 * Math.PI;
+    angleOffsetErrorRad = 0.0;
+    driveVelocityRadPerSec = 0.0;
+    driveDistanceMeters = 0.0;
+    driveCurrentAmps = 0.0;
+    driveAppliedVolts = 0.0;
+    turnAppliedVolts = 0.0;
+    isDriveOpenLoop = true;
+    driveSetpointMPS = 0.0;
+    angleSetpointDeg = 0.0;
+    driveController.reset();
+    turnController.reset();
+  }
+
+  /**
+   * Set the error of the angle encoder's offset. The actual angle of the wheel is the reported
+   * angle plus this error.
+   *
+   * @param radians the error of the angle encoder's offset in radians
+   */
+  public void setAngleOffsetError(double radians) {
+    angleOffsetErrorRad = radians;
+  }
+
+  /**
+   * Returns the actual angle of the wheel, which differs from the reported angle by the angle
+   * offset error.
+   *
+   * @return the actual angle of the wheel in radians
+   */
+  public double getActualAngleRad() {
+    return turnRelativePositionRad + angleOffsetErrorRad;
+  }
+
+  /**
+   * Returns the current drawn by the drive and turn motors.
+   *
+   * @return the current in amps
+   */
+  public double getCurrentDrawAmps() {
+    return Math.abs(driveCurrentAmps) + Math.abs(turnSim.getCurrentDrawAmps());
+  }
+
+  /* Invoked by the SwerveChassisSim; the drive wheel is integrated by stepDrive from now on */
+  void attachToChassis() {
+    chassisAttached = true;
+    driveVelocityRadPerSec = 0.0;
+  }
+
+  /* The speed of the wheel's surface, which differs from the ground speed when the wheel slips */
+  double getWheelSpeedMetersPerSec() {
+    return driveVelocityRadPerSec * WHEEL_RADIUS_METERS;
+  }
+
+  /* Integrate the drive wheel, which is slowed by the force of the carpet on the wheel */
+  void stepDrive(double dtSecs, double groundForceNewtons) {
+    double motorVelocityRadPerSec = driveVelocityRadPerSec * DriveTrainConstants.driveGearRatio;
+    driveCurrentAmps = DRIVE_MOTOR.getCurrent(motorVelocityRadPerSec, driveAppliedVolts);
+    double torqueNm =
+        DRIVE_MOTOR.getTorque(driveCurrentAmps) * DriveTrainConstants.driveGearRatio
+            - groundForceNewtons * WHEEL_RADIUS_METERS;
+    driveVelocityRadPerSec += torqueNm / WHEEL_MOI_KG_M2 * dtSecs;
+    driveDistanceMeters += driveVelocityRadPerSec * WHEEL_RADIUS_METERS * dtSecs;
   }
 
   @Override
@@ -74,8 +235,13 @@ public class SwerveModuleIOSim implements SwerveModuleIO {
 
   @Override
   public void updateInputs(SwerveModuleIOInputs inputs) {
-    // update the models
-    driveSim.update(LOOP_PERIOD_SECS);
+    // update the models; the drive wheel is integrated by the chassis simulation if attached
+    if (!chassisAttached) {
+      driveSim.update(LOOP_PERIOD_SECS);
+      driveVelocityRadPerSec = driveSim.getAngularVelocityRadPerSec();
+      driveCurrentAmps = driveSim.getCurrentDrawAmps();
+      driveDistanceMeters += driveVelocityRadPerSec * WHEEL_RADIUS_METERS * LOOP_PERIOD_SECS;
+    }
     turnSim.update(LOOP_PERIOD_SECS);
 
     // update the inputs that will be logged
@@ -89,23 +255,14 @@ public class SwerveModuleIOSim implements SwerveModuleIO {
       turnAbsolutePositionRad -= 2.0 * Math.PI;
     }
 
-    inputs.drivePositionDeg =
-        inputs.drivePositionDeg
-            + (driveSim.getAngularVelocityRadPerSec() * LOOP_PERIOD_SECS * (180.0 / Math.PI));
+    inputs.drivePositionDeg = driveDistanceMeters / WHEEL_RADIUS_METERS * (180.0 / Math.PI);
 
-    inputs.driveDistanceMeters =
-        inputs.driveDistanceMeters
-            + (driveSim.getAngularVelocityRadPerSec()
-                * LOOP_PERIOD_SECS
-                * (DriveTrainConstants.wheelCircumference / (2.0 * Math.PI)));
+    inputs.driveDistanceMeters = driveDistanceMeters;
 
-    inputs.driveVelocityMetersPerSec =
-        driveSim.getAngularVelocityRadPerSec()
-            * (DriveTrainConstants.wheelCircumference / (2.0 * Math.PI));
+    inputs.driveVelocityMetersPerSec = driveVelocityRadPerSec * WHEEL_RADIUS_METERS;
 
     inputs.driveAppliedPercentage = driveAppliedVolts / 12.0;
-    inputs.driveCurrentAmps = new double[] {Math.abs(driveSim.getCurrentDrawAmps())};
-    inputs.driveTempCelsius = new double[] {};
+    inputs.driveCurrentAmps[0] = Math.abs(driveCurrentAmps);
 
     inputs.angleAbsolutePositionDeg = turnAbsolutePositionRad * (180.0 / Math.PI);
     inputs.anglePositionDeg = turnRelativePositionRad * (180.0 / Math.PI);
@@ -113,8 +270,7 @@ public class SwerveModuleIOSim implements SwerveModuleIO {
         turnSim.getAngularVelocityRadPerSec() * (60.0 / (2.0 * Math.PI));
 
     inputs.angleAppliedPercentage = turnAppliedVolts / 12.0;
-    inputs.angleCurrentAmps = new double[] {Math.abs(turnSim.getCurrentDrawAmps())};
-    inputs.angleTempCelsius = new double[] {};
+    inputs.angleCurrentAmps[0] = Math.abs(turnSim.getCurrentDrawAmps());
 
     /*  // update the tunable PID constants
     if (driveKp.hasChanged() || driveKi.hasChanged() || driveKd.hasChanged()) {
@@ -127,7 +283,8 @@ public class SwerveModuleIOSim implements SwerveModuleIO {
     // calculate and apply the "on-board" controllers for the turn and drive motors
     turnAppliedVolts =
         turnController.calculate(turnRelativePositionRad, angleSetpointDeg * (Math.PI / 180.0));
-    turnAppliedVolts = MathUtil.clamp(turnAppliedVolts, -12.0, 12.0);
+    double batteryVolts = RobotController.getBatteryVoltage();
+    turnAppliedVolts = MathUtil.clamp(turnAppliedVolts, -batteryVolts, batteryVolts);
     turnSim.setInputVoltage(turnAppliedVolts);
 
     if (!isDriveOpenLoop) {
@@ -135,8 +292,8 @@ public class SwerveModuleIOSim implements SwerveModuleIO {
           driveSetpointMPS * (2.0 * Math.PI) / (DriveTrainConstants.wheelCircumference);
       driveAppliedVolts =
           feedForward.calculate(velocityRadPerSec)
-              + driveController.calculate(inputs.driveVelocityMetersPerSec, velocityRadPerSec);
-      driveAppliedVolts = MathUtil.clamp(driveAppliedVolts, -12.0, 12.0);
+              + driveController.calculate(driveVelocityRadPerSec, velocityRadPerSec);
+      driveAppliedVolts = MathUtil.clamp(driveAppliedVolts, -batteryVolts, batteryVolts);
       driveSim.setInputVoltage(driveAppliedVolts);
     }
   }
@@ -11,6 +11,7 @@ import com.ctre.phoenix.motorcontrol.can.TalonFXConfiguration;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonFX;
 import com.ctre.phoenix.sensors.AbsoluteSensorRange;
 import com.ctre.phoenix.sensors.CANCoderConfiguration;
+import com.ctre.phoenix.sensors.CANCoderStatusFrame;
 import com.ctre.phoenix.sensors.SensorInitializationStrategy;
 import com.ctre.phoenix.sensors.SensorTimeBase;
 import com.ctre.phoenix.sensors.WPI_CANCoder;
@@ -18,6 +19,10 @@ import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.util.sendable.SendableRegistry;
 import frc.lib.math.Conversions;
+import frc.lib.util.DeviceConfigurator;
+import frc.lib.util.OdometryThread;
+import frc.lib.util.OutputDeduplicator;
+import frc.lib.util.StatusFrameManager;
 import frc.robot.subsystems.drivetrain.*;
 
 /**
@@ -30,6 +35,17 @@ public class SwerveModuleIOTalonFX implements SwerveModuleIO {
   public static final int SLOT_INDEX = 0;
   public static final int TIMEOUT_MS = 100;
 
+  /* The sensor position frame must be sent at least as often as the odometry thread samples it */
+  public static final int ODOMETRY_FRAME_PERIOD_MS = (int) (1000.0 / OdometryThread.FREQUENCY_HZ);
+
+  /* Status signals that aren't used for control are read less often than every loop */
+  private static final int DIAGNOSTIC_UPDATE_LOOPS = 5;
+  private static final int TEMPERATURE_UPDATE_LOOPS = 50;
+
+  /* Setpoint changes smaller than these (percentage or m/s, and degrees) aren't resent */
+  private static final double DRIVE_SETPOINT_TOLERANCE = 1.0e-3;
+  private static final double ANGLE_SETPOINT_TOLERANCE_DEG = 1.0e-2;
+
   private int moduleNumber;
   private WPI_TalonFX mAngleMotor;
   private WPI_TalonFX mDriveMotor;
@@ -37,6 +53,12 @@ public class SwerveModuleIOTalonFX implements SwerveModuleIO {
   private SimpleMotorFeedforward feedForward;
   private double angleOffsetDeg;
 
+  private final OutputDeduplicator driveOutput;
+  private final OutputDeduplicator angleOutput;
+
+  private int loopCount = 0;
+  private int deviceReadsPerLoop = 0;
+
   /**
    * Make a new SwerveModuleIOTalonFX object.
    *
@@ -57,13 +79,29 @@ public class SwerveModuleIOTalonFX implements SwerveModuleIO {
 
     this.moduleNumber = moduleNumber;
     this.angleOffsetDeg = angleOffsetDeg;
+    this.driveOutput =
+        new OutputDeduplicator("Mod " + moduleNumber + " Drive", DRIVE_SETPOINT_TOLERANCE);
+    this.angleOutput =
+        new OutputDeduplicator("Mod " + moduleNumber + " Angle", ANGLE_SETPOINT_TOLERANCE_DEG);
     this.feedForward =
         new SimpleMotorFeedforward(
             DriveTrainConstants.driveKS, DriveTrainConstants.driveKV, DriveTrainConstants.driveKA);
 
-    configAngleEncoder(canCoderID, canBusID);
-    configAngleMotor(angleMotorID, canBusID);
-    configDriveMotor(driveMotorID, canBusID);
+    angleEncoder = new WPI_CANCoder(canCoderID, canBusID);
+    mAngleMotor = new WPI_TalonFX(angleMotorID, canBusID);
+    mDriveMotor = new WPI_TalonFX(driveMotorID, canBusID);
+
+    // the angle motor's position is seeded from the CANcoder, so they are configured in order
+    DeviceConfigurator configurator = DeviceConfigurator.getInstance();
+    configurator.submit(
+        "Mod " + moduleNumber + " Angle",
+        () -> {
+          boolean configured = configAngleEncoder();
+          configured = configAngleMotor(canBusID) || configured;
+          registerStatusFrames(angleEncoder, canBusID);
+          return configured;
+        });
+    configurator.submit("Mod " + moduleNumber + " Drive", () -> configDriveMotor(canBusID));
 
     SendableRegistry.setName(mDriveMotor, "SwerveModule " + moduleNumber, "Drive Motor");
     SendableRegistry.setName(mAngleMotor, "SwerveModule " + moduleNumber, "Angle Motor");
@@ -80,22 +118,16 @@ public class SwerveModuleIOTalonFX implements SwerveModuleIO {
         modID.angleOffsetDeg);
   }
 
-  private void configAngleEncoder(int canCoderID, String canBusID) {
-    angleEncoder = new WPI_CANCoder(canCoderID, canBusID);
-
-    angleEncoder.configFactoryDefault();
-
+  private boolean configAngleEncoder() {
     CANCoderConfiguration config = new CANCoderConfiguration();
     config.absoluteSensorRange = AbsoluteSensorRange.Unsigned_0_to_360;
     config.sensorDirection = DriveTrainConstants.canCoderInvert;
     config.initializationStrategy = SensorInitializationStrategy.BootToAbsolutePosition;
     config.sensorTimeBase = SensorTimeBase.PerSecond;
-    angleEncoder.configAllSettings(config);
+    return DeviceConfigurator.configureIfChanged(angleEncoder, config, TIMEOUT_MS);
   }
 
-  private void configAngleMotor(int angleMotorID, String canBusID) {
-    mAngleMotor = new WPI_TalonFX(angleMotorID, canBusID);
-
+  private boolean configAngleMotor(String canBusID) {
     /* Swerve Angle Motor Configurations */
     TalonFXConfiguration config = new TalonFXConfiguration();
     config.supplyCurrLimit =
@@ -110,8 +142,8 @@ public class SwerveModuleIOTalonFX implements SwerveModuleIO {
     config.slot0.kD = DriveTrainConstants.angleKD;
     config.slot0.kF = DriveTrainConstants.angleKF;
 
-    mAngleMotor.configFactoryDefault();
-    mAngleMotor.configAllSettings(config, TIMEOUT_MS);
+    config.voltageCompSaturation = 12; // default 12v voltage compensation for motors
+    boolean configured = DeviceConfigurator.configureIfChanged(mAngleMotor, config, TIMEOUT_MS);
 
     mAngleMotor.configSelectedFeedbackSensor(FeedbackDevice.IntegratedSensor);
     mAngleMotor.changeMotionControlFramePeriod(101);
@@ -120,11 +152,7 @@ public class SwerveModuleIOTalonFX implements SwerveModuleIO {
     mAngleMotor.clearStickyFaults(TIMEOUT_MS);
     mAngleMotor.selectProfileSlot(0, 0);
 
-    mAngleMotor.setStatusFramePeriod(StatusFrameEnhanced.Status_1_General, 9, TIMEOUT_MS);
-    mAngleMotor.setStatusFramePeriod(StatusFrameEnhanced.Status_2_Feedback0, 19, TIMEOUT_MS);
-    mAngleMotor.setStatusFramePeriod(StatusFrameEnhanced.Status_4_AinTempVbat, 100, TIMEOUT_MS);
-    mAngleMotor.setStatusFramePeriod(StatusFrameEnhanced.Status_10_MotionMagic, 101, TIMEOUT_MS);
-    mAngleMotor.setStatusFramePeriod(StatusFrameEnhanced.Status_13_Base_PIDF0, 102, TIMEOUT_MS);
+    registerStatusFrames(mAngleMotor, canBusID);
 
     mAngleMotor.setInverted(DriveTrainConstants.angleMotorInvert);
     mAngleMotor.setNeutralMode(DriveTrainConstants.angleNeutralMode);
@@ -133,13 +161,11 @@ public class SwerveModuleIOTalonFX implements SwerveModuleIO {
         Conversions.degreesToFalcon(
             getCanCoder().getDegrees() - angleOffsetDeg, DriveTrainConstants.angleGearRatio);
     mAngleMotor.setSelectedSensorPosition(absolutePosition);
-    mAngleMotor.configVoltageCompSaturation(12); // default 12v voltage compensation for motors
     mAngleMotor.enableVoltageCompensation(true);
+    return configured;
   }
 
-  private void configDriveMotor(int driveMotorID, String canBusID) {
-    mDriveMotor = new WPI_TalonFX(driveMotorID, canBusID);
-
+  private boolean configDriveMotor(String canBusID) {
     /* Swerve Drive Motor Configuration */
     TalonFXConfiguration config = new TalonFXConfiguration();
     config.supplyCurrLimit =
@@ -156,8 +182,8 @@ public class SwerveModuleIOTalonFX implements SwerveModuleIO {
     config.openloopRamp = DriveTrainConstants.openLoopRamp;
     config.closedloopRamp = DriveTrainConstants.closedLoopRamp;
 
-    mDriveMotor.configFactoryDefault();
-    mDriveMotor.configAllSettings(config, TIMEOUT_MS);
+    config.voltageCompSaturation = 12; // default 12v voltage compensation for motors
+    boolean configured = DeviceConfigurator.configureIfChanged(mDriveMotor, config, TIMEOUT_MS);
 
     mDriveMotor.configSelectedFeedbackSensor(FeedbackDevice.IntegratedSensor);
     mDriveMotor.changeMotionControlFramePeriod(101);
@@ -166,18 +192,84 @@ public class SwerveModuleIOTalonFX implements SwerveModuleIO {
     mDriveMotor.clearStickyFaults(TIMEOUT_MS);
     mDriveMotor.selectProfileSlot(0, 0);
 
-    mDriveMotor.setStatusFramePeriod(StatusFrameEnhanced.Status_1_General, 9, TIMEOUT_MS);
-    mDriveMotor.setStatusFramePeriod(StatusFrameEnhanced.Status_2_Feedback0, 19, TIMEOUT_MS);
-    mDriveMotor.setStatusFramePeriod(StatusFrameEnhanced.Status_4_AinTempVbat, 100, TIMEOUT_MS);
-    mDriveMotor.setStatusFramePeriod(StatusFrameEnhanced.Status_10_MotionMagic, 101, TIMEOUT_MS);
-    mDriveMotor.setStatusFramePeriod(StatusFrameEnhanced.Status_13_Base_PIDF0, 102, TIMEOUT_MS);
+    registerStatusFrames(mDriveMotor, canBusID);
 
     mDriveMotor.setInverted(DriveTrainConstants.driveMotorInvert);
     mDriveMotor.setNeutralMode(DriveTrainConstants.driveNeutralMode);
 
-    mDriveMotor.configVoltageCompSaturation(12); // default 12v voltage compensation for motors
     mDriveMotor.enableVoltageCompensation(true);
     mDriveMotor.setSelectedSensorPosition(0);
+    return configured;
+  }
+
+  /*
+   * The feedback frame is used for control and odometry. The odometry thread samples it in every
+   * mode, so it is always sent at the odometry rate; a slower frame would feed repeated, stale
+   * positions into the pose estimator. The general and current frames are only used for
+   * diagnostics, and the remaining frames aren't used at all. While disabled, everything but the
+   * feedback frame is sent at the slowest rate.
+   */
+  private static void registerStatusFrames(WPI_TalonFX motor, String canBusID) {
+    StatusFrameManager manager = StatusFrameManager.getInstance();
+    manager.register(
+        canBusID,
+        (periodMs, timeoutMs) ->
+            motor.setStatusFramePeriod(StatusFrameEnhanced.Status_1_General, periodMs, timeoutMs),
+        255,
+        20,
+        20);
+    manager.register(
+        canBusID,
+        (periodMs, timeoutMs) ->
+            motor.setStatusFramePeriod(
+                StatusFrameEnhanced.Status_2_Feedback0, periodMs, timeoutMs),
+        ODOMETRY_FRAME_PERIOD_MS);
+    manager.register(
+        canBusID,
+        (periodMs, timeoutMs) ->
+            motor.setStatusFramePeriod(
+                StatusFrameEnhanced.Status_Brushless_Current, periodMs, timeoutMs),
+        255,
+        100,
+        100);
+    manager.register(
+        canBusID,
+        (periodMs, timeoutMs) ->
+            motor.setStatusFramePeriod(
+                StatusFrameEnhanced.Status_4_AinTempVbat, periodMs, timeoutMs),
+        255);
+    manager.register(
+        canBusID,
+        (periodMs, timeoutMs) ->
+            motor.setStatusFramePeriod(
+                StatusFrameEnhanced.Status_10_MotionMagic, periodMs, timeoutMs),
+        255);
+    manager.register(
+        canBusID,
+        (periodMs, timeoutMs) ->
+            motor.setStatusFramePeriod(
+                StatusFrameEnhanced.Status_13_Base_PIDF0, periodMs, timeoutMs),
+        255);
+  }
+
+  /*
+   * The absolute position is only needed to seed the angle motor's position at startup, so these
+   * frames must not be slowed until after the angle motor has been configured.
+   */
+  private static void registerStatusFrames(WPI_CANCoder encoder, String canBusID) {
+    StatusFrameManager manager = StatusFrameManager.getInstance();
+    manager.register(
+        canBusID,
+        (periodMs, timeoutMs) ->
+            encoder.setStatusFramePeriod(CANCoderStatusFrame.SensorData, periodMs, timeoutMs),
+        255,
+        100,
+        100);
+    manager.register(
+        canBusID,
+        (periodMs, timeoutMs) ->
+            encoder.setStatusFramePeriod(CANCoderStatusFrame.VbatAndFaults, periodMs, timeoutMs),
+        255);
   }
 
   private Rotation2d getCanCoder() {
@@ -198,36 +290,59 @@ public class SwerveModuleIOTalonFX implements SwerveModuleIO {
     return this.moduleNumber;
   }
 
-  /** Updates the set of loggable inputs. */
+  /**
+   * Updates the set of loggable inputs.
+   *
+   * <p>Each status signal is read from the device at most once per loop and every derived value is
+   * computed from that single read. The signals used for control are read every loop. The
+   * diagnostic signals are read every DIAGNOSTIC_UPDATE_LOOPS loops and the temperatures every
+   * TEMPERATURE_UPDATE_LOOPS loops; in between, the inputs keep their last values. The loops in
+   * which each module reads these signals are staggered by module number.
+   */
   @Override
   public void updateInputs(SwerveModuleIOInputs inputs) {
+    int reads = 0;
+
+    double drivePosition = mDriveMotor.getSelectedSensorPosition();
+    double driveVelocity = mDriveMotor.getSelectedSensorVelocity();
+    double anglePosition = mAngleMotor.getSelectedSensorPosition();
+    reads += 3;
+
     inputs.drivePositionDeg =
-        Conversions.falconToDegrees(
-            mDriveMotor.getSelectedSensorPosition(), DriveTrainConstants.driveGearRatio);
+        Conversions.falconToDegrees(drivePosition, DriveTrainConstants.driveGearRatio);
     inputs.driveDistanceMeters =
         Conversions.falconToMeters(
-            mDriveMotor.getSelectedSensorPosition(),
+            drivePosition,
             DriveTrainConstants.wheelCircumference,
             DriveTrainConstants.driveGearRatio);
     inputs.driveVelocityMetersPerSec =
         Conversions.falconToMPS(
-            mDriveMotor.getSelectedSensorVelocity(),
+            driveVelocity,
             DriveTrainConstants.wheelCircumference,
             DriveTrainConstants.driveGearRatio);
-    inputs.driveAppliedPercentage = mDriveMotor.getMotorOutputPercent();
-    inputs.driveCurrentAmps = new double[] {mDriveMotor.getStatorCurrent()};
-    inputs.driveTempCelsius = new double[] {mDriveMotor.getTemperature()};
-
-    inputs.angleAbsolutePositionDeg = angleEncoder.getAbsolutePosition();
     inputs.anglePositionDeg =
-        Conversions.falconToDegrees(
-            mAngleMotor.getSelectedSensorPosition(), DriveTrainConstants.angleGearRatio);
-    inputs.angleVelocityRevPerMin =
-        Conversions.falconToRPM(
-            mAngleMotor.getSelectedSensorVelocity(), DriveTrainConstants.angleGearRatio);
-    inputs.angleAppliedPercentage = mAngleMotor.getMotorOutputPercent();
-    inputs.angleCurrentAmps = new double[] {mAngleMotor.getStatorCurrent()};
-    inputs.angleTempCelsius = new double[] {mAngleMotor.getTemperature()};
+        Conversions.falconToDegrees(anglePosition, DriveTrainConstants.angleGearRatio);
+
+    int loop = loopCount + moduleNumber;
+    if (loop % DIAGNOSTIC_UPDATE_LOOPS == 0) {
+      inputs.driveAppliedPercentage = mDriveMotor.getMotorOutputPercent();
+      inputs.driveCurrentAmps[0] = mDriveMotor.getStatorCurrent();
+      inputs.angleAbsolutePositionDeg = angleEncoder.getAbsolutePosition();
+      inputs.angleVelocityRevPerMin =
+          Conversions.falconToRPM(
+              mAngleMotor.getSelectedSensorVelocity(), DriveTrainConstants.angleGearRatio);
+      inputs.angleAppliedPercentage = mAngleMotor.getMotorOutputPercent();
+      inputs.angleCurrentAmps[0] = mAngleMotor.getStatorCurrent();
+      reads += 6;
+    }
+    if (loop % TEMPERATURE_UPDATE_LOOPS == 0) {
+      inputs.driveTempCelsius[0] = mDriveMotor.getTemperature();
+      inputs.angleTempCelsius[0] = mAngleMotor.getTemperature();
+      reads += 2;
+    }
+
+    loopCount++;
+    deviceReadsPerLoop = reads;
 
     /*  // update tunables
     if (driveKp.hasChanged()
@@ -245,15 +360,40 @@ public class SwerveModuleIOTalonFX implements SwerveModuleIO {
     } */
   }
 
+  @Override
+  public int getDeviceReadsPerLoop() {
+    return deviceReadsPerLoop;
+  }
+
+  @Override
+  public double getOdometryDistanceMeters() {
+    return Conversions.falconToMeters(
+        mDriveMotor.getSelectedSensorPosition(),
+        DriveTrainConstants.wheelCircumference,
+        DriveTrainConstants.driveGearRatio);
+  }
+
+  @Override
+  public double getOdometryAngleDeg() {
+    return Conversions.falconToDegrees(
+        mAngleMotor.getSelectedSensorPosition(), DriveTrainConstants.angleGearRatio);
+  }
+
   /** Run the drive motor at the specified percentage of full power. */
   @Override
   public void setDriveMotorPercentage(double percentage) {
+    if (!driveOutput.shouldSend(ControlMode.PercentOutput, percentage)) {
+      return;
+    }
     mDriveMotor.set(ControlMode.PercentOutput, percentage);
   }
 
   /** Run the drive motor at the specified velocity. */
   @Override
   public void setDriveVelocity(double velocity) {
+    if (!driveOutput.shouldSend(ControlMode.Velocity, velocity)) {
+      return;
+    }
     double ticksPerSecond =
         Conversions.MPSToFalcon(
             velocity, DriveTrainConstants.wheelCircumference, DriveTrainConstants.driveGearRatio);
@@ -267,6 +407,9 @@ public class SwerveModuleIOTalonFX implements SwerveModuleIO {
   /** Run the turn motor to the specified angle. */
   @Override
   public void setAnglePosition(double degrees) {
+    if (!angleOutput.shouldSend(ControlMode.Position, degrees)) {
+      return;
+    }
     mAngleMotor.set(
         ControlMode.Position,
         Conversions.degreesToFalcon(degrees, DriveTrainConstants.angleGearRatio));
@@ -0,0 +1,382 @@
+package frc.lib.util;
+
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.EventMarker;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import com.pathplanner.lib.PathPlannerTrajectory.StopEvent;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable trajectory whose states are stored as primitive doubles in parallel arrays.
+ *
+ * <p>A PathPlannerTrajectory stores each state as a PathPlannerState that references a Pose2d, a
+ * Translation2d, and two Rotation2d objects; a CompactTrajectory stores the same state in eleven
+ * doubles, including the holonomic angular velocity that PPHolonomicDriveController uses as its
+ * rotation feedforward. Trajectories are sampled through a Cursor, which remembers the index of the
+ * last sample. Since a trajectory is sampled at increasing times while it is followed, each sample
+ * is O(1) amortized and doesn't allocate. The asPathPlannerTrajectory method adapts a
+ * CompactTrajectory for the commands that follow a Trajectory or PathPlannerTrajectory.
+ */
+public class CompactTrajectory {
+  private final int length;
+  private final double[] times;
+  private final double[] xs;
+  private final double[] ys;
+  private final double[] headings;
+  private final double[] holonomicRotations;
+  private final double[] velocities;
+  private final double[] accelerations;
+  private final double[] curvatures;
+  private final double[] angularVelocities;
+  private final double[] holonomicAngularVelocities;
+  private final double[] curveRadii;
+
+  private final List<EventMarker> markers;
+  private final StopEvent startStopEvent;
+  private final StopEvent endStopEvent;
+
+  /** The state of a trajectory at a point in time. Reused by the caller to avoid allocations. */
+  public static class Sample {
+    public double timeSeconds = 0.0;
+    public double xMeters = 0.0;
+    public double yMeters = 0.0;
+    public double headingRad = 0.0;
+    public double holonomicRotationRad = 0.0;
+    public double velocityMetersPerSec = 0.0;
+    public double accelerationMetersPerSecSq = 0.0;
+    public double curvatureRadPerMeter = 0.0;
+    public double angularVelocityRadPerSec = 0.0;
+    public double holonomicAngularVelocityRadPerSec = 0.0;
+    public double curveRadiusMeters = 0.0;
+  }
+
+  /**
+   * Samples a trajectory. A cursor is optimized for samples at nondecreasing times; sampling at an
+   * earlier time than the previous sample is supported, but is O(log n). A cursor is not thread
+   * safe.
+   */
+  public class Cursor {
+    /* Index of the state at or before the previous sample's time */
+    private int index = 0;
+
+    /**
+     * Copy the state of the trajectory at the specified time into the specified sample. The state
+     * is linearly interpolated between the two states that bracket the time. Times before the start
+     * or after the end of the trajectory are clamped to the first or last state.
+     *
+     * @param timeSeconds the time since the start of the trajectory (seconds)
+     * @param sample the sample into which the state is copied
+     */
+    public void sample(double timeSeconds, Sample sample) {
+      if (timeSeconds <= times[0]) {
+        index = 0;
+        copy(0, sample);
+        return;
+      }
+      if (timeSeconds >= times[length - 1]) {
+        index = length - 1;
+        copy(length - 1, sample);
+        return;
+      }
+
+      if (timeSeconds < times[index]) {
+        index = search(timeSeconds);
+      }
+      while (times[index + 1] <= timeSeconds) {
+        index++;
+      }
+
+      int before = index;
+      int after = index + 1;
+      double t = (timeSeconds - times[before]) / (times[after] - times[before]);
+      sample.timeSeconds = timeSeconds;
+      sample.xMeters = MathUtil.interpolate(xs[before], xs[after], t);
+      sample.yMeters = MathUtil.interpolate(ys[before], ys[after], t);
+      sample.headingRad = interpolateAngle(headings[before], headings[after], t);
+      sample.holonomicRotationRad =
+          interpolateAngle(holonomicRotations[before], holonomicRotations[after], t);
+      sample.velocityMetersPerSec = MathUtil.interpolate(velocities[before], velocities[after], t);
+      sample.accelerationMetersPerSecSq =
+          MathUtil.interpolate(accelerations[before], accelerations[after], t);
+      sample.curvatureRadPerMeter = MathUtil.interpolate(curvatures[before], curvatures[after], t);
+      sample.angularVelocityRadPerSec =
+          MathUtil.interpolate(angularVelocities[before], angularVelocities[after], t);
+      sample.holonomicAngularVelocityRadPerSec =
+          MathUtil.interpolate(
+              holonomicAngularVelocities[before], holonomicAngularVelocities[after], t);
+      sample.curveRadiusMeters = MathUtil.interpolate(curveRadii[before], curveRadii[after], t);
+    }
+
+    /** Rewind the cursor to the start of the trajectory. */
+    public void reset() {
+      index = 0;
+    }
+  }
+
+  private CompactTrajectory(
+      int length, List<EventMarker> markers, StopEvent startStopEvent, StopEvent endStopEvent) {
+    this.length = length;
+    this.times = new double[length];
+    this.xs = new double[length];
+    this.ys = new double[length];
+    this.headings = new double[length];
+    this.holonomicRotations = new double[length];
+    this.velocities = new double[length];
+    this.accelerations = new double[length];
+    this.curvatures = new double[length];
+    this.angularVelocities = new double[length];
+    this.holonomicAngularVelocities = new double[length];
+    this.curveRadii = new double[length];
+    this.markers = markers;
+    this.startStopEvent = startStopEvent;
+    this.endStopEvent = endStopEvent;
+  }
+
+  /**
+   * Create a CompactTrajectory from the specified trajectory. If the trajectory is a
+   * PathPlannerTrajectory, its holonomic rotations, angular velocities, curve radii, event
+   * markers, and stop events are retained; otherwise, the holonomic rotation of each state is its
+   * heading, both angular velocities are the velocity times the curvature, and the curve radius is
+   * zero.
+   *
+   * @param trajectory the trajectory, which must contain at least one state
+   * @return the CompactTrajectory
+   */
+  public static CompactTrajectory fromTrajectory(Trajectory trajectory) {
+    List<Trajectory.State> states = trajectory.getStates();
+    CompactTrajectory compact;
+    if (trajectory instanceof PathPlannerTrajectory) {
+      PathPlannerTrajectory ppTrajectory = (PathPlannerTrajectory) trajectory;
+      compact =
+          new CompactTrajectory(
+              states.size(),
+              ppTrajectory.getMarkers(),
+              ppTrajectory.getStartStopEvent(),
+              ppTrajectory.getEndStopEvent());
+    } else {
+      StopEvent none =
+          new StopEvent(
+              List.of(), StopEvent.ExecutionBehavior.PARALLEL, StopEvent.WaitBehavior.NONE, 0.0);
+      compact = new CompactTrajectory(states.size(), List.of(), none, none);
+    }
+
+    for (int i = 0; i < states.size(); i++) {
+      Trajectory.State state = states.get(i);
+      compact.times[i] = state.timeSeconds;
+      compact.xs[i] = state.poseMeters.getX();
+      compact.ys[i] = state.poseMeters.getY();
+      compact.headings[i] = state.poseMeters.getRotation().getRadians();
+      compact.velocities[i] = state.velocityMetersPerSecond;
+      compact.accelerations[i] = state.accelerationMetersPerSecondSq;
+      compact.curvatures[i] = state.curvatureRadPerMeter;
+      if (state instanceof PathPlannerState) {
+        PathPlannerState ppState = (PathPlannerState) state;
+        compact.holonomicRotations[i] = ppState.holonomicRotation.getRadians();
+        compact.angularVelocities[i] = ppState.angularVelocityRadPerSec;
+        compact.holonomicAngularVelocities[i] = ppState.holonomicAngularVelocityRadPerSec;
+        compact.curveRadii[i] = ppState.curveRadius;
+      } else {
+        compact.holonomicRotations[i] = compact.headings[i];
+        compact.angularVelocities[i] = state.velocityMetersPerSecond * state.curvatureRadPerMeter;
+        compact.holonomicAngularVelocities[i] = compact.angularVelocities[i];
+      }
+    }
+    return compact;
+  }
+
+  /**
+   * Create a CompactTrajectory for each trajectory in the specified path group.
+   *
+   * @param trajectories the path group
+   * @return the CompactTrajectory for each trajectory in the path group
+   */
+  public static List<CompactTrajectory> fromPathGroup(List<PathPlannerTrajectory> trajectories) {
+    List<CompactTrajectory> compact = new ArrayList<>(trajectories.size());
+    for (PathPlannerTrajectory trajectory : trajectories) {
+      compact.add(fromTrajectory(trajectory));
+    }
+    return compact;
+  }
+
+  /**
+   * Returns a new cursor positioned at the start of the trajectory.
+   *
+   * @return a new cursor positioned at the start of the trajectory
+   */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  /**
+   * Returns the number of states in the trajectory.
+   *
+   * @return the number of states in the trajectory
+   */
+  public int size() {
+    return length;
+  }
+
+  /**
+   * Returns the duration of the trajectory.
+   *
+   * @return the duration of the trajectory (seconds)
+   */
+  public double getTotalTimeSeconds() {
+    return times[length - 1];
+  }
+
+  /**
+   * Returns the approximate number of bytes of heap used by the states of the trajectory.
+   *
+   * @return the approximate number of bytes of heap used by the states of the trajectory
+   */
+  public long getStateHeapBytes() {
+    // eleven arrays, each with a 16-byte header
+    return 11L * (16L + (long) length * Double.BYTES);
+  }
+
+  /**
+   * Returns a PathPlannerTrajectory that samples this trajectory through a cursor, so that it can
+   * be followed by FollowPath, driveToTrajectory, or any other command that follows a Trajectory.
+   * Each call to the returned trajectory's sample method overwrites and returns the same state, so
+   * the state must not be kept between samples; only its pose and holonomic rotation are allocated,
+   * and only when they change. The returned trajectory's getStates method creates the full list of
+   * states the first time it is invoked (e.g., when a command sends the path to the PathPlanner
+   * server). Each returned trajectory has its own cursor and must only be sampled from one thread.
+   *
+   * @return a PathPlannerTrajectory backed by this trajectory
+   */
+  public PathPlannerTrajectory asPathPlannerTrajectory() {
+    return new Adapter(this);
+  }
+
+  /**
+   * Returns a new list containing a new PathPlannerState for each state of the trajectory.
+   *
+   * @return a new list containing a new PathPlannerState for each state of the trajectory
+   */
+  public List<Trajectory.State> toStates() {
+    List<Trajectory.State> states = new ArrayList<>(length);
+    Sample sample = new Sample();
+    for (int i = 0; i < length; i++) {
+      copy(i, sample);
+      states.add(toState(sample));
+    }
+    return states;
+  }
+
+  private static PathPlannerState toState(Sample sample) {
+    PathPlannerState state = new PathPlannerState();
+    state.timeSeconds = sample.timeSeconds;
+    state.poseMeters =
+        new Pose2d(sample.xMeters, sample.yMeters, new Rotation2d(sample.headingRad));
+    state.holonomicRotation = new Rotation2d(sample.holonomicRotationRad);
+    state.velocityMetersPerSecond = sample.velocityMetersPerSec;
+    state.accelerationMetersPerSecondSq = sample.accelerationMetersPerSecSq;
+    state.curvatureRadPerMeter = sample.curvatureRadPerMeter;
+    state.angularVelocityRadPerSec = sample.angularVelocityRadPerSec;
+    state.holonomicAngularVelocityRadPerSec = sample.holonomicAngularVelocityRadPerSec;
+    state.curveRadius = sample.curveRadiusMeters;
+    return state;
+  }
+
+  private void copy(int i, Sample sample) {
+    sample.timeSeconds = times[i];
+    sample.xMeters = xs[i];
+    sample.yMeters = ys[i];
+    sample.headingRad = headings[i];
+    sample.holonomicRotationRad = holonomicRotations[i];
+    sample.velocityMetersPerSec = velocities[i];
+    sample.accelerationMetersPerSecSq = accelerations[i];
+    sample.curvatureRadPerMeter = curvatures[i];
+    sample.angularVelocityRadPerSec = angularVelocities[i];
+    sample.holonomicAngularVelocityRadPerSec = holonomicAngularVelocities[i];
+    sample.curveRadiusMeters = curveRadii[i];
+  }
+
+  /* Binary search for the last state at or before the specified time */
+  private int search(double timeSeconds) {
+    int low = 0;
+    int high = length - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (times[mid] <= timeSeconds) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  private static double interpolateAngle(double start, double end, double t) {
+    return MathUtil.angleModulus(start + MathUtil.angleModulus(end - start) * t);
+  }
+
+  /* Adapts a CompactTrajectory to the PathPlannerTrajectory that the path following commands use */
+  private static class Adapter extends PathPlannerTrajectory {
+    private final CompactTrajectory trajectory;
+    private final Cursor cursor;
+    private final Sample sample = new Sample();
+    private final PathPlannerState state = new PathPlannerState();
+    private List<Trajectory.State> states = null;
+
+    private Adapter(CompactTrajectory trajectory) {
+      super(
+          endpoints(trajectory),
+          trajectory.markers,
+          trajectory.startStopEvent,
+          trajectory.endStopEvent,
+          true);
+      this.trajectory = trajectory;
+      this.cursor = trajectory.cursor();
+      this.state.poseMeters = null;
+    }
+
+    private static List<Trajectory.State> endpoints(CompactTrajectory trajectory) {
+      Sample sample = new Sample();
+      trajectory.copy(0, sample);
+      PathPlannerState initial = toState(sample);
+      trajectory.copy(trajectory.length - 1, sample);
+      PathPlannerState end = toState(sample);
+      return List.of(initial, end);
+    }
+
+    @Override
+    public PathPlannerState sample(double time) {
+      cursor.sample(time, sample);
+      state.timeSeconds = sample.timeSeconds;
+      if (state.poseMeters == null
+          || state.poseMeters.getX() != sample.xMeters
+          || state.poseMeters.getY() != sample.yMeters
+          || state.poseMeters.getRotation().getRadians() != sample.headingRad) {
+        state.poseMeters =
+            new Pose2d(sample.xMeters, sample.yMeters, new Rotation2d(sample.headingRad));
+      }
+      if (state.holonomicRotation == null
+          || state.holonomicRotation.getRadians() != sample.holonomicRotationRad) {
+        state.holonomicRotation = new Rotation2d(sample.holonomicRotationRad);
+      }
+      state.velocityMetersPerSecond = sample.velocityMetersPerSec;
+      state.accelerationMetersPerSecondSq = sample.accelerationMetersPerSecSq;
+      state.curvatureRadPerMeter = sample.curvatureRadPerMeter;
+      state.angularVelocityRadPerSec = sample.angularVelocityRadPerSec;
+      state.holonomicAngularVelocityRadPerSec = sample.holonomicAngularVelocityRadPerSec;
+      state.curveRadius = sample.curveRadiusMeters;
+      return state;
+    }
+
+    @Override
+    public List<Trajectory.State> getStates() {
+      if (states == null) {
+        states = trajectory.toStates();
+      }
+      return states;
+    }
+  }
+}
@@ -0,0 +1,190 @@
+package frc.lib.util;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.ParamEnum;
+import com.ctre.phoenix.motorcontrol.can.BaseTalon;
+import com.ctre.phoenix.motorcontrol.can.TalonFXConfiguration;
+import com.ctre.phoenix.sensors.CANCoder;
+import com.ctre.phoenix.sensors.CANCoderConfiguration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Singleton class that configures the robot's CAN devices concurrently at startup.
+ *
+ * <p>Subsystems submit a configuration task for each independent device (or chain of dependent
+ * devices) while they are constructed, and the robot container waits for all of them to complete
+ * once every subsystem has been constructed. Each task returns whether it had to write the device's
+ * configuration: devices whose stored configuration already matches the desired configuration are
+ * skipped. For CTRE devices, a hash of the desired configuration is stored in the device's first
+ * custom parameter, so verifying a device only requires reading that parameter and a couple of key
+ * settings back. The time taken to configure each device is reported once all tasks are complete.
+ *
+ * <p>Skipping on a matching hash assumes the device's settings were last written by this class. A
+ * setting changed by other means (e.g., in Phoenix Tuner) without changing the stored hash is only
+ * detected if it is one of the settings read back, and two different configurations can have the
+ * same 32-bit hash (an unlikely collision). Either way, the stale configuration would be kept. To
+ * force a device to be configured, restore its factory defaults or set its first custom parameter
+ * to 0. Settings that aren't persisted (inversion, neutral mode, and sensor position) aren't
+ * covered by the hash and must be applied on every boot.
+ */
+public class DeviceConfigurator {
+  /* Configuration is dominated by waiting on CAN round trips, not by the CPU */
+  private static final int THREAD_COUNT = 6;
+  private static final int CONFIG_HASH_PARAM_INDEX = 0;
+  /* Gains are stored in fixed point, so the values read back only approximately match */
+  private static final double GAIN_TOLERANCE = 1e-3;
+
+  private static class Result {
+    final String name;
+    CompletableFuture<Boolean> future;
+    volatile double durationMs = 0.0;
+
+    Result(String name) {
+      this.name = name;
+    }
+  }
+
+  private static final DeviceConfigurator deviceConfigurator = new DeviceConfigurator();
+  private final List<Result> results = new ArrayList<>();
+  private ExecutorService executor = null;
+
+  private DeviceConfigurator() {}
+
+  public static DeviceConfigurator getInstance() {
+    return deviceConfigurator;
+  }
+
+  /**
+   * Submit a task that configures a device. Tasks for different devices run concurrently, so a task
+   * must only access its own device(s).
+   *
+   * @param name the name of the device; used for reporting
+   * @param task configures the device and returns true if the device's configuration was written or
+   *     false if it already matched and was skipped
+   */
+  public synchronized void submit(String name, BooleanSupplier task) {
+    if (executor == null) {
+      executor =
+          Executors.newFixedThreadPool(
+              THREAD_COUNT,
+              runnable -> {
+                Thread thread = new Thread(runnable, "DeviceConfigurator");
+                thread.setDaemon(true);
+                return thread;
+              });
+    }
+
+    Result result = new Result(name);
+    result.future =
+        CompletableFuture.supplyAsync(
+            () -> {
+              long start = System.nanoTime();
+              try {
+                return task.getAsBoolean();
+              } finally {
+                result.durationMs = (System.nanoTime() - start) / 1.0e6;
+              }
+            },
+            executor);
+    results.add(result);
+  }
+
+  /**
+   * Wait for all submitted tasks to complete and print the time taken to configure each device.
+   * This must be invoked from robotInit after all subsystems have been constructed.
+   */
+  public synchronized void awaitCompletion() {
+    long start = System.nanoTime();
+    for (Result result : results) {
+      String status;
+      try {
+        status = result.future.join() ? "configured" : "verified";
+      } catch (RuntimeException e) {
+        status = "FAILED: " + e.getCause();
+      }
+      System.out.printf(
+          "Device config: %-24s %-10s %7.1f ms%n", result.name, status, result.durationMs);
+    }
+    System.out.printf(
+        "Device config: %d devices in %.1f ms%n",
+        results.size(), (System.nanoTime() - start) / 1.0e6);
+
+    results.clear();
+    if (executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+  /**
+   * Apply the specified configuration to the motor controller unless the hash of the configuration
+   * stored on the device already matches and the device's slot 0 kP and kF match the configuration.
+   * The hash is stored in the configuration's first custom parameter, which must not be used for
+   * anything else. See the class documentation for the settings this check can miss.
+   *
+   * @param motor the motor controller
+   * @param config the desired configuration
+   * @param timeoutMs the time to wait for each configuration to be acknowledged (milliseconds)
+   * @return true if the configuration was written; false if it already matched
+   */
+  public static boolean configureIfChanged(
+      BaseTalon motor, TalonFXConfiguration config, int timeoutMs) {
+    config.customParam0 = 0;
+    int hash = config.toString().hashCode();
+    if (motor.configGetCustomParam(CONFIG_HASH_PARAM_INDEX, timeoutMs) == hash
+        && motor.getLastError() == ErrorCode.OK
+        && isGainSet(motor, ParamEnum.eProfileParamSlot_P, config.slot0.kP, timeoutMs)
+        && isGainSet(motor, ParamEnum.eProfileParamSlot_F, config.slot0.kF, timeoutMs)) {
+      return false;
+    }
+
+    motor.configFactoryDefault(timeoutMs);
+    config.customParam0 = hash;
+    motor.configAllSettings(config, timeoutMs);
+    return true;
+  }
+
+  /* Returns true if the slot 0 gain read back from the motor controller matches the expected one */
+  private static boolean isGainSet(
+      BaseTalon motor, ParamEnum param, double expected, int timeoutMs) {
+    double actual = motor.configGetParameter(param, 0, timeoutMs);
+    return motor.getLastError() == ErrorCode.OK
+        && Math.abs(actual - expected) <= GAIN_TOLERANCE * Math.max(1.0, Math.abs(expected));
+  }
+
+  /**
+   * Apply the specified configuration to the CANcoder unless the hash of the configuration stored
+   * on the device already matches and the device's sensor direction and absolute sensor range
+   * match the configuration. The hash is stored in the configuration's first custom parameter,
+   * which must not be used for anything else. See the class documentation for the settings this
+   * check can miss.
+   *
+   * @param encoder the CANcoder
+   * @param config the desired configuration
+   * @param timeoutMs the time to wait for each configuration to be acknowledged (milliseconds)
+   * @return true if the configuration was written; false if it already matched
+   */
+  public static boolean configureIfChanged(
+      CANCoder encoder, CANCoderConfiguration config, int timeoutMs) {
+    config.customParam0 = 0;
+    int hash = config.toString().hashCode();
+    if (encoder.configGetCustomParam(CONFIG_HASH_PARAM_INDEX, timeoutMs) == hash
+        && encoder.getLastError() == ErrorCode.OK
+        && encoder.configGetSensorDirection(timeoutMs) == config.sensorDirection
+        && encoder.getLastError() == ErrorCode.OK
+        && encoder.configGetAbsoluteSensorRange(timeoutMs) == config.absoluteSensorRange
+        && encoder.getLastError() == ErrorCode.OK) {
+      return false;
+    }
+
+    encoder.configFactoryDefault(timeoutMs);
+    config.customParam0 = hash;
+    encoder.configAllSettings(config, timeoutMs);
+    return true;
+  }
+}
@@ -0,0 +1,433 @@
+package frc.lib.util;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Records the inputs of the hardware abstraction layers to a compact binary log and replays them.
+ *
+ * <p>While recording, the inputs processed each loop are written into a preallocated direct buffer
+ * on the main thread. Once a buffer is nearly full, it is handed to a writer thread that writes it
+ * to the log file and returns it to the pool, so the main thread never allocates or blocks on the
+ * file system. If the writer thread falls so far behind that no buffer is free, loops are dropped
+ * rather than delaying the main thread.
+ *
+ * <p>While replaying, each call to nextLoop advances to the next recorded loop, and processInputs
+ * overwrites the inputs with the values recorded for that loop. Since the subsystems read their
+ * inputs only through the hardware abstraction layers, the subsystems' logic can be run against the
+ * inputs recorded during a match (see frc.robot.ReplayRunner).
+ *
+ * <p>The log starts with the magic number and version. Each loop is recorded as its length, its
+ * timestamp, and an entry for each processed inputs object: a key id, the length of the inputs,
+ * and the inputs as written by LoggableInputs.toLog. The first entry for each key defines the key
+ * by storing its negated id (minus one) followed by its name. The log must only be accessed from
+ * the main robot thread.
+ *
+ * <p>If publishing is enabled, the inputs are also published to the Inputs NetworkTable. The time
+ * spent processing inputs each loop is recorded in the InputLogger.processInputs histogram.
+ */
+public class InputLogger {
+  private static final InputLogger inputLogger = new InputLogger();
+
+  public static final String EXTENSION = ".rinp";
+
+  private static final int MAGIC = 0x52494E50; // "RINP"
+  private static final int VERSION = 1;
+
+  private static final int BUFFER_BYTES = 256 * 1024;
+  private static final int BUFFER_COUNT = 4;
+  /* A loop is only started in a buffer with at least this many bytes remaining */
+  private static final int MAX_LOOP_BYTES = 16 * 1024;
+
+  /* Queued after the last buffer of a log file to close it */
+  private static final ByteBuffer CLOSE = ByteBuffer.allocate(0);
+
+  private enum Mode {
+    IDLE,
+    RECORDING,
+    REPLAYING
+  }
+
+  private Mode mode = Mode.IDLE;
+
+  /* Recording; the buffers are allocated when the first recording starts */
+  private final BlockingQueue<ByteBuffer> freeBuffers = new ArrayBlockingQueue<>(BUFFER_COUNT);
+  private final BlockingQueue<ByteBuffer> fullBuffers = new LinkedBlockingQueue<>();
+  private final ConcurrentLinkedQueue<Path> pendingFiles = new ConcurrentLinkedQueue<>();
+  private Thread writerThread = null;
+  private ByteBuffer buffer = null;
+  /* The position of the current loop in the buffer, or -1 if the loop isn't recorded */
+  private int loopStart = -1;
+  private final Map<String, Integer> keyIds = new HashMap<>();
+  private long recordedLoops = 0;
+  private long droppedLoops = 0;
+  private long droppedEntries = 0;
+
+  /* Publishing */
+  private boolean publishing = false;
+  private final NetworkTable publishTable = NetworkTableInstance.getDefault().getTable("Inputs");
+  private final Map<String, NetworkTable> publishTables = new HashMap<>();
+
+  private final LoopProfiler.Histogram processTiming =
+      LoopProfiler.getInstance().getHistogram("InputLogger.processInputs");
+  private long loopProcessNanos = 0;
+
+  /* Replaying */
+  private MappedByteBuffer replayBuffer = null;
+  private final List<String> replayKeys = new ArrayList<>();
+  private final Map<String, Integer> replayEntries = new HashMap<>();
+  private int nextLoopPosition = 0;
+  private double loopTimestamp = 0.0;
+
+  private InputLogger() {}
+
+  public static InputLogger getInstance() {
+    return inputLogger;
+  }
+
+  /**
+   * Start recording to a new log file in the specified directory. The file is opened by the writer
+   * thread. Recording starts with the next loop.
+   *
+   * @param directory the directory in which the log file is created
+   */
+  public void startRecording(Path directory) {
+    if (mode != Mode.IDLE) {
+      return;
+    }
+
+    if (writerThread == null) {
+      for (int i = 0; i < BUFFER_COUNT; i++) {
+        freeBuffers.add(ByteBuffer.allocateDirect(BUFFER_BYTES));
+      }
+      writerThread = new Thread(this::write, "InputLogger");
+      writerThread.setDaemon(true);
+      writerThread.start();
+    }
+
+    pendingFiles.add(directory.resolve("inputs_" + System.currentTimeMillis() / 1000 + EXTENSION));
+    keyIds.clear();
+    recordedLoops = 0;
+    droppedLoops = 0;
+    droppedEntries = 0;
+    mode = Mode.RECORDING;
+  }
+
+  /**
+   * Stop recording. The current loop is recorded up to this point, and the log file is closed once
+   * the writer thread has written the remaining buffers.
+   */
+  public void stopRecording() {
+    if (mode != Mode.RECORDING) {
+      return;
+    }
+
+    endLoop();
+    if (buffer != null) {
+      flush();
+    }
+    fullBuffers.add(CLOSE);
+    mode = Mode.IDLE;
+    System.out.printf(
+        "InputLogger: recorded %d loops; dropped %d loops and %d entries%n",
+        recordedLoops, droppedLoops, droppedEntries);
+  }
+
+  public boolean isRecording() {
+    return mode == Mode.RECORDING;
+  }
+
+  /**
+   * Enable or disable publishing the inputs to NetworkTables. Publishing is disabled by default.
+   *
+   * @param publishing true to publish the inputs each loop
+   */
+  public void setPublishing(boolean publishing) {
+    this.publishing = publishing;
+  }
+
+  /**
+   * Start a loop. This must be invoked at the start of each loop, before any inputs are processed.
+   *
+   * @param timestamp the FPGA timestamp of the start of the loop (seconds)
+   */
+  public void beginLoop(double timestamp) {
+    loopProcessNanos = 0;
+    if (mode != Mode.RECORDING) {
+      return;
+    }
+
+    if (buffer != null && buffer.remaining() < MAX_LOOP_BYTES) {
+      flush();
+    }
+    if (buffer == null) {
+      buffer = freeBuffers.poll();
+      if (buffer == null) {
+        droppedLoops++;
+        return;
+      }
+    }
+
+    loopStart = buffer.position();
+    buffer.putInt(0);
+    buffer.putDouble(timestamp);
+  }
+
+  /** End a loop. This must be invoked at the end of each loop, after all inputs are processed. */
+  public void endLoop() {
+    if (mode != Mode.REPLAYING && loopProcessNanos > 0) {
+      processTiming.record(loopProcessNanos);
+      loopProcessNanos = 0;
+    }
+    if (mode != Mode.RECORDING || loopStart < 0) {
+      return;
+    }
+
+    buffer.putInt(loopStart, buffer.position() - loopStart - Integer.BYTES);
+    loopStart = -1;
+    recordedLoops++;
+  }
+
+  /**
+   * Record the specified inputs or, while replaying, overwrite them with the values recorded for
+   * the current loop. This must be invoked each loop immediately after the inputs are updated.
+   *
+   * @param key the key that identifies the inputs (e.g., "Mod0"); unique for each inputs object
+   * @param inputs the inputs
+   */
+  public void processInputs(String key, LoggableInputs inputs) {
+    if (mode == Mode.REPLAYING) {
+      Integer position = replayEntries.get(key);
+      if (position != null) {
+        replayBuffer.position(position);
+        inputs.fromLog(replayBuffer);
+      }
+      return;
+    }
+    if (mode != Mode.RECORDING && !publishing) {
+      return;
+    }
+
+    long start = System.nanoTime();
+    if (mode == Mode.RECORDING) {
+      record(key, inputs);
+    }
+    if (publishing) {
+      NetworkTable table = publishTables.get(key);
+      if (table == null) {
+        table = publishTable.getSubTable(key);
+        publishTables.put(key, table);
+      }
+      inputs.publish(table);
+    }
+    loopProcessNanos += System.nanoTime() - start;
+  }
+
+  /**
+   * Start replaying the specified log file. Replaying starts with the first invocation of nextLoop.
+   *
+   * @param file the log file
+   * @throws IOException if the log file can't be read or is not a log file
+   */
+  public void startReplay(Path file) throws IOException {
+    if (mode == Mode.RECORDING) {
+      stopRecording();
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      replayBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (replayBuffer.remaining() < 2 * Integer.BYTES
+        || replayBuffer.getInt() != MAGIC
+        || replayBuffer.getInt() != VERSION) {
+      throw new IOException("Not an input log: " + file);
+    }
+
+    replayKeys.clear();
+    replayEntries.clear();
+    nextLoopPosition = replayBuffer.position();
+    mode = Mode.REPLAYING;
+  }
+
+  /**
+   * Advance to the next recorded loop.
+   *
+   * @return true if there is another loop; false if the end of the log has been reached
+   */
+  public boolean nextLoop() {
+    if (mode != Mode.REPLAYING) {
+      return false;
+    }
+
+    replayEntries.clear();
+    replayBuffer.position(nextLoopPosition);
+    if (replayBuffer.remaining() < Integer.BYTES + Double.BYTES) {
+      return false;
+    }
+    int length = replayBuffer.getInt();
+    int end = replayBuffer.position() + length;
+    if (length < Double.BYTES || end > replayBuffer.limit()) {
+      // the log was truncated (e.g., the robot lost power while recording)
+      return false;
+    }
+
+    loopTimestamp = replayBuffer.getDouble();
+    while (replayBuffer.position() < end) {
+      int id = replayBuffer.getShort();
+      if (id < 0) {
+        id = -id - 1;
+        byte[] name = new byte[replayBuffer.getShort()];
+        replayBuffer.get(name);
+        replayKeys.add(id, new String(name, StandardCharsets.UTF_8));
+      }
+      int entryLength = replayBuffer.getInt();
+      replayEntries.put(replayKeys.get(id), replayBuffer.position());
+      replayBuffer.position(replayBuffer.position() + entryLength);
+    }
+    nextLoopPosition = end;
+    return true;
+  }
+
+  /**
+   * Returns the timestamp recorded at the start of the current replayed loop.
+   *
+   * @return the FPGA timestamp recorded at the start of the current loop (seconds)
+   */
+  public double getLoopTimestamp() {
+    return loopTimestamp;
+  }
+
+  private void record(String key, LoggableInputs inputs) {
+    if (loopStart < 0) {
+      return;
+    }
+
+    int entryStart = buffer.position();
+    Integer id = keyIds.get(key);
+    int newId = keyIds.size();
+    try {
+      if (id != null) {
+        buffer.putShort(id.shortValue());
+      } else {
+        byte[] name = key.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) (-newId - 1));
+        buffer.putShort((short) name.length);
+        buffer.put(name);
+      }
+      int lengthPosition = buffer.position();
+      buffer.putInt(0);
+      inputs.toLog(buffer);
+      buffer.putInt(lengthPosition, buffer.position() - lengthPosition - Integer.BYTES);
+    } catch (BufferOverflowException ex) {
+      buffer.position(entryStart);
+      droppedEntries++;
+      return;
+    }
+
+    // the key is only defined once its first entry has been written
+    if (id == null) {
+      keyIds.put(key, newId);
+    }
+  }
+
+  /* Hand the current buffer to the writer thread */
+  private void flush() {
+    buffer.flip();
+    fullBuffers.add(buffer);
+    buffer = null;
+  }
+
+  /* Runs on the writer thread */
+  private void write() {
+    FileChannel channel = null;
+    boolean opened = false;
+    Path file = null;
+    while (true) {
+      ByteBuffer next;
+      try {
+        next = fullBuffers.take();
+      } catch (InterruptedException ex) {
+        return;
+      }
+
+      if (next == CLOSE) {
+        if (!opened) {
+          // nothing was recorded to this file
+          pendingFiles.poll();
+        } else if (channel != null) {
+          close(channel);
+          System.out.println("InputLogger: wrote " + file);
+        }
+        channel = null;
+        opened = false;
+        continue;
+      }
+
+      if (!opened) {
+        opened = true;
+        file = pendingFiles.poll();
+        channel = open(file);
+      }
+      if (channel != null) {
+        try {
+          while (next.hasRemaining()) {
+            channel.write(next);
+          }
+        } catch (IOException ex) {
+          DriverStation.reportError("Unable to write input log: " + file, false);
+          close(channel);
+          channel = null;
+        }
+      }
+      next.clear();
+      freeBuffers.add(next);
+    }
+  }
+
+  private static FileChannel open(Path file) {
+    try {
+      Files.createDirectories(file.getParent());
+      FileChannel channel =
+          FileChannel.open(
+              file,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING);
+      ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES).putInt(MAGIC).putInt(VERSION);
+      header.flip();
+      while (header.hasRemaining()) {
+        channel.write(header);
+      }
+      return channel;
+    } catch (IOException ex) {
+      DriverStation.reportError("Unable to create input log: " + file, false);
+      return null;
+    }
+  }
+
+  private static void close(FileChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException ex) {
+      // nothing more can be written to the file
+    }
+  }
+}
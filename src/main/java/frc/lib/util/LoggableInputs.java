@@ -0,0 +1,87 @@
+package frc.lib.util;
+
+import edu.wpi.first.networktables.NetworkTable;
+import java.nio.ByteBuffer;
+
+/**
+ * Inputs of a hardware abstraction layer that can be recorded to and replayed from the binary input
+ * log by the InputLogger.
+ *
+ * <p>Implementations write their fields in a fixed order and must read them back in the same order.
+ * Arrays are written with their length so that they can be read back into the existing arrays.
+ * Inputs classes annotated with frc.lib.inputs.LoggedInputs delegate to the serializer and
+ * publisher generated for them at compile time rather than implementing these methods by hand.
+ */
+public interface LoggableInputs {
+  /**
+   * Write the inputs to the specified buffer.
+   *
+   * @param buffer the buffer to which the inputs are written
+   */
+  public void toLog(ByteBuffer buffer);
+
+  /**
+   * Read the inputs from the specified buffer, overwriting the current values.
+   *
+   * @param buffer the buffer from which the inputs are read
+   */
+  public void fromLog(ByteBuffer buffer);
+
+  /**
+   * Publish the inputs to the specified NetworkTable. The table is the same every time this is
+   * invoked, so implementations may create their publishers the first time.
+   *
+   * @param table the table to which the inputs are published
+   */
+  public default void publish(NetworkTable table) {}
+
+  /**
+   * Write the specified boolean to the specified buffer as a single byte.
+   *
+   * @param buffer the buffer to which the value is written
+   * @param value the value
+   */
+  public static void putBoolean(ByteBuffer buffer, boolean value) {
+    buffer.put(value ? (byte) 1 : (byte) 0);
+  }
+
+  /**
+   * Read a boolean written by putBoolean from the specified buffer.
+   *
+   * @param buffer the buffer from which the value is read
+   * @return the value
+   */
+  public static boolean getBoolean(ByteBuffer buffer) {
+    return buffer.get() != 0;
+  }
+
+  /**
+   * Write the specified array, preceded by its length, to the specified buffer.
+   *
+   * @param buffer the buffer to which the array is written
+   * @param array the array
+   */
+  public static void putDoubleArray(ByteBuffer buffer, double[] array) {
+    buffer.putInt(array.length);
+    for (double value : array) {
+      buffer.putDouble(value);
+    }
+  }
+
+  /**
+   * Read an array written by putDoubleArray from the specified buffer into the specified array. A
+   * new array is only created if the length of the logged array differs.
+   *
+   * @param buffer the buffer from which the array is read
+   * @param array the array into which the values are read
+   * @return the array containing the values; either the specified array or a new array
+   */
+  public static double[] getDoubleArray(ByteBuffer buffer, double[] array) {
+    int length = buffer.getInt();
+    double[] values = array.length == length ? array : new double[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = buffer.getDouble();
+    }
+    return values;
+  }
+}
@@ -0,0 +1,315 @@
+package frc.lib.util;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records how long each part of the robot loop takes in histograms so that the source of a loop
+ * overrun can be identified.
+ *
+ * <p>Subsystems record the duration of their periodic methods in a histogram obtained from
+ * getHistogram. The scheduler has no callback before a command executes, so each command is
+ * measured through the onCommandExecute callback as the time since the previous command executed
+ * (or since the buttons were polled, for the first command). That time includes the previous
+ * command's isFinished method, and its end method if it finished, which the histogram's name
+ * ("Command/name.sincePrevious") makes explicit. Commands are keyed by name, so the new instances
+ * created each time a command is built share one histogram. Recording a duration doesn't
+ * allocate.
+ *
+ * <p>Each loop, the p50, p99, and max of one histogram are published to the LoopTiming
+ * NetworkTable (in microseconds); as a result, each histogram is published at a low rate. At the
+ * end of each match, the histograms are written to a CSV file on a background thread and reset.
+ * The histograms must only be accessed from the main robot thread.
+ */
+public class LoopProfiler {
+  private static final LoopProfiler loopProfiler = new LoopProfiler();
+
+  /**
+   * A histogram of durations whose buckets are spaced logarithmically: each power of two
+   * microseconds is divided into 2^SUB_BUCKET_BITS buckets, so a percentile is reported within
+   * 12.5% of its actual value. Durations are recorded without allocating.
+   */
+  public static class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /* Durations of 2^MAX_MAGNITUDE us (about 17 minutes) or longer share the last bucket */
+    private static final int MAX_MAGNITUDE = 30;
+
+    private final String name;
+    private final long[] counts = new long[(MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+    private long count = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+
+    /* Created when the histogram is first published */
+    private DoubleArrayPublisher publisher = null;
+    private final double[] published = new double[3];
+
+    private Histogram(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Record the specified duration.
+     *
+     * @param nanos the duration (nanoseconds)
+     */
+    public void record(long nanos) {
+      long micros = Math.max(nanos, 0) / 1000;
+      counts[Math.min(index(micros), counts.length - 1)]++;
+      count++;
+      totalNanos += nanos;
+      maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * Record the time elapsed since the specified start time.
+     *
+     * @param startNanos the start time, as returned by System.nanoTime()
+     * @return the current time, as returned by System.nanoTime(); this can be used as the start
+     *     time of the next measurement
+     */
+    public long recordSince(long startNanos) {
+      long now = System.nanoTime();
+      record(now - startNanos);
+      return now;
+    }
+
+    /**
+     * Returns the specified percentile of the recorded durations. The upper bound of the bucket
+     * that contains the percentile is returned.
+     *
+     * @param percentile the percentile, between 0 and 1
+     * @return the specified percentile of the recorded durations (microseconds), or 0 if no
+     *     durations have been recorded
+     */
+    public double getPercentileMicros(double percentile) {
+      if (count == 0) {
+        return 0.0;
+      }
+      long target = Math.max(1, (long) Math.ceil(percentile * count));
+      long cumulative = 0;
+      for (int i = 0; i < counts.length; i++) {
+        cumulative += counts[i];
+        if (cumulative >= target) {
+          return Math.min(lowerBound(i + 1), getMaxMicros());
+        }
+      }
+      return getMaxMicros();
+    }
+
+    public double getMaxMicros() {
+      return maxNanos / 1000.0;
+    }
+
+    public double getMeanMicros() {
+      return count > 0 ? totalNanos / 1000.0 / count : 0.0;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /** Discard all recorded durations. */
+    public void reset() {
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = 0;
+      }
+      count = 0;
+      totalNanos = 0;
+      maxNanos = 0;
+    }
+
+    /* Returns the index of the bucket that contains the specified duration */
+    private static int index(long micros) {
+      if (micros < SUB_BUCKETS) {
+        return (int) micros;
+      }
+      int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+      int subBucket = (int) (micros >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+      return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /* Returns the smallest duration (microseconds) in the bucket with the specified index */
+    private static long lowerBound(int index) {
+      if (index < SUB_BUCKETS) {
+        return index;
+      }
+      int magnitude = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+      int subBucket = index % SUB_BUCKETS;
+      return (long) (SUB_BUCKETS + subBucket) << (magnitude - SUB_BUCKET_BITS);
+    }
+
+    private void publish(NetworkTable table) {
+      if (publisher == null) {
+        publisher = table.getDoubleArrayTopic(name).publish();
+      }
+      published[0] = getPercentileMicros(0.5);
+      published[1] = getPercentileMicros(0.99);
+      published[2] = getMaxMicros();
+      publisher.set(published);
+    }
+
+    /* Returns this histogram as a CSV row; allocates, so it is only used when dumping */
+    private String toCsv() {
+      StringBuilder buckets = new StringBuilder();
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] > 0) {
+          buckets.append(buckets.length() > 0 ? ";" : "");
+          buckets.append(lowerBound(i)).append('=').append(counts[i]);
+        }
+      }
+      return String.format(
+          "%s,%d,%.1f,%.1f,%.1f,%.1f,%s",
+          name,
+          count,
+          getPercentileMicros(0.5),
+          getPercentileMicros(0.99),
+          getMaxMicros(),
+          getMeanMicros(),
+          buckets);
+    }
+  }
+
+  /* Obtained when a histogram is first published, so recording doesn't need NetworkTables */
+  private NetworkTable table = null;
+  private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+  private final List<Histogram> histogramList = new ArrayList<>();
+  /* Keyed by command name */
+  private final Map<String, Histogram> commandHistograms = new HashMap<>();
+  private int publishIndex = 0;
+  private boolean installed = false;
+
+  /* The end of the previous command's execute method, or of the button polling */
+  private long commandMark = 0;
+
+  private LoopProfiler() {}
+
+  public static LoopProfiler getInstance() {
+    return loopProfiler;
+  }
+
+  /**
+   * Start measuring the commands run by the command scheduler. This must be invoked after all
+   * button bindings are created, and again whenever the button bindings are recreated, so that the
+   * polling of the buttons isn't attributed to the first command.
+   */
+  public void install() {
+    CommandScheduler scheduler = CommandScheduler.getInstance();
+    scheduler.getActiveButtonLoop().bind(() -> commandMark = System.nanoTime());
+    if (!installed) {
+      scheduler.onCommandExecute(this::commandExecuted);
+      installed = true;
+    }
+  }
+
+  /**
+   * Returns the histogram with the specified name, creating it if necessary. Histograms should be
+   * obtained once (e.g., in a constructor) rather than every loop.
+   *
+   * @param name the name of the histogram (e.g., "Drivetrain.periodic")
+   * @return the histogram with the specified name
+   */
+  public Histogram getHistogram(String name) {
+    Histogram histogram = histograms.get(name);
+    if (histogram == null) {
+      histogram = new Histogram(name);
+      histograms.put(name, histogram);
+      histogramList.add(histogram);
+    }
+    return histogram;
+  }
+
+  /** Publish the next histogram. This should be invoked once per loop. */
+  public void publishNext() {
+    if (histogramList.isEmpty()) {
+      return;
+    }
+    if (table == null) {
+      table = NetworkTableInstance.getDefault().getTable("LoopTiming");
+    }
+    publishIndex = (publishIndex + 1) % histogramList.size();
+    histogramList.get(publishIndex).publish(table);
+  }
+
+  /**
+   * Write all histograms to a CSV file named for the current match in the loop-timing directory
+   * and then reset them. The file is written on a background thread.
+   */
+  public void dump() {
+    List<String> rows = new ArrayList<>(histogramList.size() + 1);
+    rows.add("name,count,p50_us,p99_us,max_us,mean_us,buckets_us");
+    for (Histogram histogram : histogramList) {
+      rows.add(histogram.toCsv());
+      histogram.reset();
+    }
+
+    writeMatchFile("timing", rows);
+  }
+
+  /**
+   * Write the specified lines to a CSV file named for the current match in the loop-timing
+   * directory on a background thread.
+   *
+   * @param suffix the suffix appended to the file name to identify its contents
+   * @param lines the lines of the file
+   */
+  static void writeMatchFile(String suffix, List<String> lines) {
+    String fileName =
+        String.format(
+                "%s_%s%d_%d_%s.csv",
+                DriverStation.getEventName(),
+                DriverStation.getMatchType(),
+                DriverStation.getMatchNumber(),
+                System.currentTimeMillis() / 1000,
+                suffix)
+            .replaceAll("[^A-Za-z0-9_.-]", "_");
+    Path file =
+        Filesystem.getOperatingDirectory().toPath().resolve("loop-timing").resolve(fileName);
+
+    Thread writer =
+        new Thread(
+            () -> {
+              try {
+                Files.createDirectories(file.getParent());
+                try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+                  lines.forEach(out::println);
+                }
+                System.out.println("LoopProfiler: wrote " + file);
+              } catch (IOException ex) {
+                DriverStation.reportError("Unable to write loop timing: " + file, false);
+              }
+            },
+            "LoopProfiler");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  private void commandExecuted(Command command) {
+    String name = command.getName();
+    Histogram histogram = commandHistograms.get(name);
+    if (histogram == null) {
+      histogram = getHistogram("Command/" + name + ".sincePrevious");
+      commandHistograms.put(name, histogram);
+    }
+    commandMark = histogram.recordSince(commandMark);
+  }
+}
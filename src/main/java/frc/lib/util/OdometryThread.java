@@ -0,0 +1,202 @@
+package frc.lib.util;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+import frc.lib.gyro.GyroIO;
+import frc.lib.swerve.SwerveModule;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samples the swerve module positions and the gyro's yaw on a dedicated notifier thread at a higher
+ * rate than the main robot loop.
+ *
+ * <p>Each sample is timestamped and pushed into a fixed-size, single-producer/single-consumer ring
+ * buffer of primitive doubles. The drivetrain subsystem drains the buffer from its periodic method
+ * and feeds every sample into the shared pose estimator. As a result, the pose estimator sees every
+ * sample regardless of how long the command scheduler loop takes, and only the main thread ever
+ * touches the pose estimator.
+ */
+public class OdometryThread {
+  public static final double FREQUENCY_HZ = 250.0;
+
+  /* Must be a power of two; holds well over one loop's worth of samples */
+  private static final int CAPACITY = 64;
+  private static final int MODULE_COUNT = 4;
+  /* timestamp, yaw, and then the distance and angle for each module */
+  private static final int SAMPLE_SIZE = 2 + 2 * MODULE_COUNT;
+
+  /** A single timestamped odometry sample. Reused by the consumer to avoid allocations. */
+  public static class Sample {
+    public double timestamp = 0.0;
+    public double yawDeg = 0.0;
+    public final double[] distanceMeters = new double[MODULE_COUNT];
+    public final double[] angleDeg = new double[MODULE_COUNT];
+  }
+
+  /**
+   * The samples taken since the previous loop, which the drivetrain logs as inputs so that the pose
+   * estimator can be replayed. Only the first count samples are valid.
+   */
+  public static class Samples implements LoggableInputs {
+    /* True if the samples were taken by an odometry thread (i.e., the robot is real) */
+    public boolean threaded = false;
+    /* FPGA time at which the main loop read the swerve module positions (seconds) */
+    public double loopTimestamp = 0.0;
+    public int count = 0;
+    public final double[] timestamps = new double[CAPACITY];
+    public final double[] yawDeg = new double[CAPACITY];
+    /* Indexed by sample * MODULE_COUNT + module number */
+    public final double[] distanceMeters = new double[CAPACITY * MODULE_COUNT];
+    public final double[] angleDeg = new double[CAPACITY * MODULE_COUNT];
+
+    @Override
+    public void toLog(ByteBuffer buffer) {
+      LoggableInputs.putBoolean(buffer, threaded);
+      buffer.putDouble(loopTimestamp);
+      buffer.putInt(count);
+      for (int i = 0; i < count; i++) {
+        buffer.putDouble(timestamps[i]);
+        buffer.putDouble(yawDeg[i]);
+        for (int j = 0; j < MODULE_COUNT; j++) {
+          buffer.putDouble(distanceMeters[i * MODULE_COUNT + j]);
+          buffer.putDouble(angleDeg[i * MODULE_COUNT + j]);
+        }
+      }
+    }
+
+    @Override
+    public void fromLog(ByteBuffer buffer) {
+      threaded = LoggableInputs.getBoolean(buffer);
+      loopTimestamp = buffer.getDouble();
+      count = buffer.getInt();
+      for (int i = 0; i < count; i++) {
+        timestamps[i] = buffer.getDouble();
+        yawDeg[i] = buffer.getDouble();
+        for (int j = 0; j < MODULE_COUNT; j++) {
+          distanceMeters[i * MODULE_COUNT + j] = buffer.getDouble();
+          angleDeg[i * MODULE_COUNT + j] = buffer.getDouble();
+        }
+      }
+    }
+  }
+
+  private final GyroIO gyro;
+  private final SwerveModule[] modules;
+  private final Notifier notifier;
+
+  private final double[] buffer = new double[CAPACITY * SAMPLE_SIZE];
+  /* Index of the next sample written by the notifier thread */
+  private final AtomicLong head = new AtomicLong();
+  /* Index of the next sample read by the main thread */
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong droppedSamples = new AtomicLong();
+  /* Reused by drain on the main thread */
+  private final Sample polled = new Sample();
+
+  /**
+   * Create a new OdometryThread. The thread is not started until start() is invoked.
+   *
+   * @param gyro the gyro whose yaw is sampled
+   * @param modules the swerve modules whose positions are sampled, indexed by module number
+   */
+  public OdometryThread(GyroIO gyro, SwerveModule[] modules) {
+    this.gyro = gyro;
+    this.modules = modules;
+    this.notifier = new Notifier(this::sample);
+    this.notifier.setName("OdometryThread");
+  }
+
+  /** Start sampling at FREQUENCY_HZ. */
+  public void start() {
+    notifier.startPeriodic(1.0 / FREQUENCY_HZ);
+  }
+
+  /** Stop sampling. */
+  public void stop() {
+    notifier.stop();
+  }
+
+  /* Runs on the notifier thread; this is the only writer of head. Package-private for tests. */
+  void sample() {
+    long h = head.get();
+    if (h - tail.get() >= CAPACITY) {
+      // the main loop has fallen too far behind; drop this sample rather than block
+      droppedSamples.incrementAndGet();
+      return;
+    }
+
+    int offset = (int) (h & (CAPACITY - 1)) * SAMPLE_SIZE;
+    buffer[offset] = Timer.getFPGATimestamp();
+    buffer[offset + 1] = gyro.getOdometryYawDeg();
+    for (int i = 0; i < MODULE_COUNT; i++) {
+      buffer[offset + 2 + i * 2] = modules[i].getOdometryDistanceMeters();
+      buffer[offset + 3 + i * 2] = modules[i].getOdometryAngleDegrees();
+    }
+
+    // publish the sample only after it has been completely written
+    head.lazySet(h + 1);
+  }
+
+  /**
+   * Copy the oldest unread sample into the specified sample object. This method must only be
+   * invoked from the main robot thread.
+   *
+   * @param sample the sample object to fill
+   * @return true if a sample was available; false if the buffer is empty
+   */
+  public boolean poll(Sample sample) {
+    long t = tail.get();
+    if (t == head.get()) {
+      return false;
+    }
+
+    int offset = (int) (t & (CAPACITY - 1)) * SAMPLE_SIZE;
+    sample.timestamp = buffer[offset];
+    sample.yawDeg = buffer[offset + 1];
+    for (int i = 0; i < MODULE_COUNT; i++) {
+      sample.distanceMeters[i] = buffer[offset + 2 + i * 2];
+      sample.angleDeg[i] = buffer[offset + 3 + i * 2];
+    }
+
+    // release the slot back to the notifier thread only after it has been read
+    tail.lazySet(t + 1);
+    return true;
+  }
+
+  /**
+   * Copy all unread samples into the specified samples object. This method must only be invoked
+   * from the main robot thread.
+   *
+   * @param samples the samples object to fill
+   */
+  public void drain(Samples samples) {
+    samples.count = 0;
+    while (samples.count < CAPACITY && poll(polled)) {
+      int i = samples.count++;
+      samples.timestamps[i] = polled.timestamp;
+      samples.yawDeg[i] = polled.yawDeg;
+      for (int j = 0; j < MODULE_COUNT; j++) {
+        samples.distanceMeters[i * MODULE_COUNT + j] = polled.distanceMeters[j];
+        samples.angleDeg[i * MODULE_COUNT + j] = polled.angleDeg[j];
+      }
+    }
+  }
+
+  /**
+   * Discard all unread samples. This must be invoked whenever the pose estimator is reset so that
+   * samples taken before the reset are not applied after it.
+   */
+  public void clear() {
+    tail.lazySet(head.get());
+  }
+
+  /**
+   * Returns the number of samples that were dropped because the buffer was full.
+   *
+   * @return the number of samples that were dropped because the buffer was full
+   */
+  public long getDroppedSamples() {
+    return droppedSamples.get();
+  }
+}
@@ -0,0 +1,153 @@
+package frc.lib.util;
+
+import static frc.robot.Constants.*;
+
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.shuffleboard.BuiltInLayouts;
+import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardLayout;
+
+/**
+ * Suppresses redundant writes of a motor controller's setpoint.
+ *
+ * <p>Before sending a setpoint to a motor controller, invoke shouldSend with the control mode and
+ * setpoint. If the mode is the same as that of the last setpoint sent and the setpoint is within
+ * the tolerance of it, the write is suppressed and shouldSend returns false. To recover from a
+ * device that missed or lost a setpoint (e.g., after a brownout), the setpoint is resent anyway
+ * once it has been suppressed for the keep-alive number of consecutive calls. This class is not
+ * thread safe; it is intended to be used only from the main robot thread.
+ *
+ * <p>The suppressed counts only measure saved CAN bus load for SPARK MAX outputs, which send a
+ * frame for every setpoint written. A Phoenix 5 Talon's set() only updates the control frame that
+ * the device library sends periodically anyway, so suppressing it saves the JNI call but not bus
+ * traffic.
+ *
+ * <p>The totals over all outputs are published to the CAN Writes table by publishTotals, whether
+ * or not debugging is enabled; the per-output counts are only shown on the dashboard when
+ * debugging.
+ */
+public class OutputDeduplicator {
+  /* Resend an unchanged setpoint every 25 loops (0.5 seconds) */
+  public static final int DEFAULT_KEEP_ALIVE_CALLS = 25;
+
+  private static long totalSent = 0;
+  private static long totalSuppressed = 0;
+  private static IntegerPublisher totalSentPublisher = null;
+  private static IntegerPublisher totalSuppressedPublisher = null;
+
+  private final double tolerance;
+  private final int keepAliveCalls;
+
+  private Enum<?> lastMode = null;
+  private double lastSetpoint = 0.0;
+  private int consecutiveSuppressed = 0;
+  private long sent = 0;
+  private long suppressed = 0;
+
+  /**
+   * Create a new OutputDeduplicator with the default keep-alive.
+   *
+   * @param name the name of the output; used for logging
+   * @param tolerance the largest change in the setpoint, in the setpoint's units, that is
+   *     suppressed
+   */
+  public OutputDeduplicator(String name, double tolerance) {
+    this(name, tolerance, DEFAULT_KEEP_ALIVE_CALLS);
+  }
+
+  /**
+   * Create a new OutputDeduplicator.
+   *
+   * @param name the name of the output; used for logging
+   * @param tolerance the largest change in the setpoint, in the setpoint's units, that is
+   *     suppressed
+   * @param keepAliveCalls the number of consecutive suppressed calls after which an unchanged
+   *     setpoint is resent; 0 to never resend an unchanged setpoint
+   */
+  public OutputDeduplicator(String name, double tolerance, int keepAliveCalls) {
+    this.tolerance = tolerance;
+    this.keepAliveCalls = keepAliveCalls;
+
+    if (DEBUGGING) {
+      ShuffleboardLayout layout =
+          Shuffleboard.getTab("CAN Writes")
+              .getLayout(name, BuiltInLayouts.kList)
+              .withSize(2, 2);
+      layout.addNumber("Sent", this::getSentCount);
+      layout.addNumber("Suppressed", this::getSuppressedCount);
+    }
+  }
+
+  /**
+   * Returns true if the specified setpoint must be sent to the motor controller. If true is
+   * returned, the setpoint is recorded as the last one sent, so the caller must send it.
+   *
+   * @param mode the control mode
+   * @param setpoint the setpoint
+   * @return true if the setpoint must be sent; false if the write is redundant
+   */
+  public boolean shouldSend(Enum<?> mode, double setpoint) {
+    if (mode == lastMode
+        && Math.abs(setpoint - lastSetpoint) <= tolerance
+        && (keepAliveCalls <= 0 || consecutiveSuppressed < keepAliveCalls)) {
+      consecutiveSuppressed++;
+      suppressed++;
+      totalSuppressed++;
+      return false;
+    }
+
+    lastMode = mode;
+    lastSetpoint = setpoint;
+    consecutiveSuppressed = 0;
+    sent++;
+    totalSent++;
+    return true;
+  }
+
+  /**
+   * Forget the last setpoint sent so that the next setpoint is always sent. This must be invoked
+   * if the motor controller's output is changed without using this object.
+   */
+  public void reset() {
+    lastMode = null;
+  }
+
+  public long getSentCount() {
+    return sent;
+  }
+
+  public long getSuppressedCount() {
+    return suppressed;
+  }
+
+  /**
+   * Returns the number of setpoints sent by all OutputDeduplicators.
+   *
+   * @return the number of setpoints sent by all OutputDeduplicators
+   */
+  public static long getTotalSentCount() {
+    return totalSent;
+  }
+
+  /**
+   * Returns the number of setpoint writes suppressed by all OutputDeduplicators.
+   *
+   * @return the number of setpoint writes suppressed by all OutputDeduplicators
+   */
+  public static long getTotalSuppressedCount() {
+    return totalSuppressed;
+  }
+
+  /** Publish the number of setpoints sent and suppressed by all OutputDeduplicators. */
+  public static void publishTotals() {
+    if (totalSentPublisher == null) {
+      NetworkTable table = NetworkTableInstance.getDefault().getTable("CAN Writes");
+      totalSentPublisher = table.getIntegerTopic("Total Sent").publish();
+      totalSuppressedPublisher = table.getIntegerTopic("Total Suppressed").publish();
+    }
+    totalSentPublisher.set(totalSent);
+    totalSuppressedPublisher.set(totalSuppressed);
+  }
+}
@@ -0,0 +1,202 @@
+package frc.lib.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Samples the main robot thread's stack while a loop runs past a threshold so that the cause of a
+ * loop overrun can be identified.
+ *
+ * <p>The main thread marks the start and end of each loop. A daemon thread sleeps until the current
+ * loop's deadline; if the loop is still running at the deadline, the thread captures the main
+ * thread's stack and then captures it again every SAMPLE_PERIOD_SECS until the loop ends. Each
+ * sample is aggregated into a profile across the match: the method at the top of the stack (self),
+ * every method on the stack (total), and the innermost method of the robot code (i.e., in the frc
+ * package) on the stack, to which the sample is attributed. Since the main thread's stack is only
+ * captured while it is overrunning, the watchdog costs nothing but a few wake-ups per loop while
+ * the loops are on time.
+ *
+ * <p>The first sample of each overrun is printed with its attribution. At the end of each match,
+ * the profile is written to a CSV file in the loop-timing directory and reset.
+ */
+public class OverrunWatchdog {
+  /** The default duration of a loop after which the main thread's stack is sampled. */
+  public static final double DEFAULT_THRESHOLD_SECS = 0.02;
+
+  private static final double SAMPLE_PERIOD_SECS = 0.005;
+  private static final String ROBOT_PACKAGE = "frc.";
+
+  private final Thread mainThread;
+  private final long thresholdNanos;
+  private final long samplePeriodNanos = (long) (SAMPLE_PERIOD_SECS * 1e9);
+  private final Thread watchdogThread;
+
+  /* Written by the main thread; the start of the current loop, or 0 between loops */
+  private volatile long loopStartNanos = 0;
+  private volatile long loopSequence = 0;
+
+  private final AtomicLong overrunCount = new AtomicLong();
+  private final AtomicLong sampleCount = new AtomicLong();
+
+  /* Guarded by this; only allocated while overrunning */
+  private final Map<String, long[]> selfCounts = new HashMap<>();
+  private final Map<String, long[]> totalCounts = new HashMap<>();
+  private final Map<String, long[]> attributedCounts = new HashMap<>();
+
+  /**
+   * Create and start a new OverrunWatchdog.
+   *
+   * @param mainThread the main robot thread, which runs the loops
+   * @param thresholdSecs the duration of a loop after which the main thread's stack is sampled
+   */
+  public OverrunWatchdog(Thread mainThread, double thresholdSecs) {
+    this.mainThread = mainThread;
+    this.thresholdNanos = (long) (thresholdSecs * 1e9);
+    this.watchdogThread = new Thread(this::run, "OverrunWatchdog");
+    this.watchdogThread.setDaemon(true);
+    this.watchdogThread.start();
+  }
+
+  /** Mark the start of a loop. This must be invoked from the main thread. */
+  public void loopStarted() {
+    loopSequence++;
+    loopStartNanos = System.nanoTime();
+  }
+
+  /** Mark the end of a loop. This must be invoked from the main thread. */
+  public void loopEnded() {
+    if (System.nanoTime() - loopStartNanos > thresholdNanos) {
+      overrunCount.incrementAndGet();
+    }
+    loopStartNanos = 0;
+  }
+
+  /**
+   * Returns the number of loops that ran past the threshold.
+   *
+   * @return the number of loops that ran past the threshold
+   */
+  public long getOverrunCount() {
+    return overrunCount.get();
+  }
+
+  /**
+   * Returns the number of times the main thread's stack was sampled.
+   *
+   * @return the number of times the main thread's stack was sampled
+   */
+  public long getSampleCount() {
+    return sampleCount.get();
+  }
+
+  /**
+   * Write the profile to a CSV file named for the current match in the loop-timing directory and
+   * then reset it. The file is written on a background thread.
+   */
+  public synchronized void dump() {
+    List<String> rows = new ArrayList<>();
+    rows.add(
+        String.format(
+            "# overruns=%d samples=%d threshold_ms=%.1f",
+            overrunCount.get(), sampleCount.get(), thresholdNanos / 1e6));
+    rows.add("method,attributed,self,total");
+    List<String> sorted = new ArrayList<>(totalCounts.keySet());
+    sorted.sort((a, b) -> Long.compare(count(totalCounts, b), count(totalCounts, a)));
+    for (String method : sorted) {
+      rows.add(
+          String.format(
+              "%s,%d,%d,%d",
+              method,
+              count(attributedCounts, method),
+              count(selfCounts, method),
+              count(totalCounts, method)));
+    }
+    LoopProfiler.writeMatchFile("overruns", rows);
+
+    selfCounts.clear();
+    totalCounts.clear();
+    attributedCounts.clear();
+    overrunCount.set(0);
+    sampleCount.set(0);
+  }
+
+  /* Runs on the watchdog thread */
+  private void run() {
+    long reportedSequence = -1;
+    while (true) {
+      long start = loopStartNanos;
+      long sequence = loopSequence;
+      if (start == 0) {
+        // between loops; check again before the next loop could overrun
+        LockSupport.parkNanos(thresholdNanos / 2);
+        continue;
+      }
+
+      long elapsed = System.nanoTime() - start;
+      if (elapsed < thresholdNanos) {
+        LockSupport.parkNanos(thresholdNanos - elapsed);
+        continue;
+      }
+
+      StackTraceElement[] stack = mainThread.getStackTrace();
+      // the loop may have ended while the stack was captured
+      if (loopStartNanos != start) {
+        continue;
+      }
+      String attributed = aggregate(stack);
+      if (sequence != reportedSequence) {
+        reportedSequence = sequence;
+        System.out.printf(
+            "OverrunWatchdog: loop running for %.1f ms in %s (robot code: %s)%n",
+            elapsed / 1e6, stack.length > 0 ? method(stack[0]) : "unknown", attributed);
+      }
+      LockSupport.parkNanos(samplePeriodNanos);
+    }
+  }
+
+  /* Add the sample to the profile and return the method to which it is attributed */
+  private synchronized String aggregate(StackTraceElement[] stack) {
+    sampleCount.incrementAndGet();
+    if (stack.length == 0) {
+      return "unknown";
+    }
+
+    increment(selfCounts, method(stack[0]));
+    String attributed = null;
+    Set<String> seen = new HashSet<>();
+    for (StackTraceElement frame : stack) {
+      String method = method(frame);
+      // count recursive methods once per sample
+      if (seen.add(method)) {
+        increment(totalCounts, method);
+      }
+      if (attributed == null && frame.getClassName().startsWith(ROBOT_PACKAGE)) {
+        attributed = method;
+      }
+    }
+    if (attributed == null) {
+      attributed = "unknown";
+    }
+    increment(attributedCounts, attributed);
+    return attributed;
+  }
+
+  private static String method(StackTraceElement frame) {
+    return frame.getClassName() + "." + frame.getMethodName();
+  }
+
+  private static void increment(Map<String, long[]> counts, String method) {
+    counts.computeIfAbsent(method, key -> new long[1])[0]++;
+  }
+
+  private static long count(Map<String, long[]> counts, String method) {
+    long[] count = counts.get(method);
+    return count != null ? count[0] : 0;
+  }
+}
@@ -0,0 +1,179 @@
+package frc.lib.util;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * Fixed-capacity ring buffer of timestamped robot poses that supports interpolated lookups by FPGA
+ * timestamp.
+ *
+ * <p>Poses are stored as primitive doubles (timestamp, x, y, and theta) in parallel arrays so that
+ * neither adding a pose nor looking one up allocates. Lookups use a binary search over the buffer
+ * and are O(log n). Poses must be added in increasing timestamp order. This class is not thread
+ * safe; it is intended to be used only from the main robot thread.
+ */
+public class PoseHistory {
+  private final int capacity;
+  private final double[] timestamps;
+  private final double[] xs;
+  private final double[] ys;
+  private final double[] thetas;
+
+  /* Index of the oldest pose and the number of poses in the buffer */
+  private int start = 0;
+  private int size = 0;
+
+  /**
+   * Create a new PoseHistory.
+   *
+   * @param capacity the maximum number of poses retained; once full, the oldest pose is replaced
+   */
+  public PoseHistory(int capacity) {
+    this.capacity = capacity;
+    this.timestamps = new double[capacity];
+    this.xs = new double[capacity];
+    this.ys = new double[capacity];
+    this.thetas = new double[capacity];
+  }
+
+  /**
+   * Add a pose to the history. Poses with a timestamp that is not after the newest pose in the
+   * history are ignored.
+   *
+   * @param timestamp the FPGA timestamp of the pose (seconds)
+   * @param x the x coordinate of the pose (meters)
+   * @param y the y coordinate of the pose (meters)
+   * @param theta the rotation of the pose (radians)
+   */
+  public void add(double timestamp, double x, double y, double theta) {
+    if (size > 0 && timestamp <= timestamps[index(size - 1)]) {
+      return;
+    }
+
+    int i;
+    if (size < capacity) {
+      i = index(size);
+      size++;
+    } else {
+      i = start;
+      start = index(1);
+    }
+    timestamps[i] = timestamp;
+    xs[i] = x;
+    ys[i] = y;
+    thetas[i] = theta;
+  }
+
+  /**
+   * Add a pose to the history.
+   *
+   * @param timestamp the FPGA timestamp of the pose (seconds)
+   * @param pose the pose
+   */
+  public void add(double timestamp, Pose2d pose) {
+    add(timestamp, pose.getX(), pose.getY(), pose.getRotation().getRadians());
+  }
+
+  /** Remove all poses from the history (e.g., after the robot's pose is reset). */
+  public void clear() {
+    start = 0;
+    size = 0;
+  }
+
+  /**
+   * Returns the number of poses in the history.
+   *
+   * @return the number of poses in the history
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the timestamp of the oldest pose in the history.
+   *
+   * @return the timestamp of the oldest pose in the history, or NaN if the history is empty
+   */
+  public double getOldestTimestamp() {
+    return size > 0 ? timestamps[start] : Double.NaN;
+  }
+
+  /**
+   * Returns the timestamp of the newest pose in the history.
+   *
+   * @return the timestamp of the newest pose in the history, or NaN if the history is empty
+   */
+  public double getNewestTimestamp() {
+    return size > 0 ? timestamps[index(size - 1)] : Double.NaN;
+  }
+
+  /**
+   * Copy the pose of the robot at the specified time into the specified array as {x, y, theta}.
+   * The pose is linearly interpolated between the two poses that bracket the timestamp. Timestamps
+   * before the oldest pose or after the newest pose are clamped to those poses.
+   *
+   * @param timestamp the FPGA timestamp (seconds)
+   * @param pose the array, of at least length 3, into which the pose is copied
+   * @return true if the history contained a pose; false if the history is empty
+   */
+  public boolean getPose(double timestamp, double[] pose) {
+    if (size == 0) {
+      return false;
+    }
+
+    // binary search for the first pose after the timestamp
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (timestamps[index(mid)] <= timestamp) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    if (low == 0) {
+      copy(index(0), pose);
+    } else if (low == size) {
+      copy(index(size - 1), pose);
+    } else {
+      int before = index(low - 1);
+      int after = index(low);
+      double t = (timestamp - timestamps[before]) / (timestamps[after] - timestamps[before]);
+      pose[0] = MathUtil.interpolate(xs[before], xs[after], t);
+      pose[1] = MathUtil.interpolate(ys[before], ys[after], t);
+      pose[2] =
+          MathUtil.angleModulus(
+              thetas[before] + MathUtil.angleModulus(thetas[after] - thetas[before]) * t);
+    }
+    return true;
+  }
+
+  /**
+   * Returns the pose of the robot at the specified time. Unlike getPose(double, double[]), this
+   * method allocates and is intended for code that isn't run every loop.
+   *
+   * @param timestamp the FPGA timestamp (seconds)
+   * @return the pose of the robot at the specified time, or null if the history is empty
+   */
+  public Pose2d getPose(double timestamp) {
+    double[] pose = new double[3];
+    if (!getPose(timestamp, pose)) {
+      return null;
+    }
+    return new Pose2d(pose[0], pose[1], new Rotation2d(pose[2]));
+  }
+
+  private void copy(int i, double[] pose) {
+    pose[0] = xs[i];
+    pose[1] = ys[i];
+    pose[2] = thetas[i];
+  }
+
+  /* Convert a logical index (0 is the oldest pose) to an index in the arrays */
+  private int index(int i) {
+    return (start + i) % capacity;
+  }
+}
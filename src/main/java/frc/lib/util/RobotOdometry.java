@@ -1,37 +1,39 @@
 package frc.lib.util;
 
-import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
-import edu.wpi.first.math.geometry.Pose2d;
-import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import frc.robot.subsystems.drivetrain.DriveTrainConstants;
 
 /**
- * Singleton class for SwerveDrivePoseEstimator that allows it to be shared by subsystems
- * (drivetrain and vision)
+ * Singleton class for SwervePoseEstimator that allows it to be shared by subsystems (drivetrain and
+ * vision)
  */
 public class RobotOdometry {
+  /* Enough for roughly the last second of poses at the odometry thread's rate */
+  private static final int POSE_HISTORY_CAPACITY = 256;
+  /* Enough for the pose estimator's 1.5 s of samples at the odometry thread's rate */
+  private static final int ESTIMATOR_CAPACITY = 512;
+
   private static final RobotOdometry robotOdometry = new RobotOdometry();
-  private SwerveDrivePoseEstimator estimator;
-  private SwerveModulePosition[] defaultPositions =
-      new SwerveModulePosition[] {
-        new SwerveModulePosition(),
-        new SwerveModulePosition(),
-        new SwerveModulePosition(),
-        new SwerveModulePosition()
-      };
+  private final SwervePoseEstimator estimator =
+      new SwervePoseEstimator(DriveTrainConstants.moduleTranslations, ESTIMATOR_CAPACITY);
+  private final PoseHistory poseHistory = new PoseHistory(POSE_HISTORY_CAPACITY);
 
-  private RobotOdometry() {
-    estimator =
-        new SwerveDrivePoseEstimator(
-            DriveTrainConstants.swerveKinematics, new Rotation2d(), defaultPositions, new Pose2d());
-  }
+  private RobotOdometry() {}
 
   public static RobotOdometry getInstance() {
     return robotOdometry;
   }
 
-  public SwerveDrivePoseEstimator getPoseEstimator() {
+  public SwervePoseEstimator getPoseEstimator() {
     return estimator;
   }
+
+  /**
+   * Returns the history of the poses estimated by the pose estimator. This can be used to find
+   * where the robot was at the time a latent measurement (e.g., a vision frame) was taken.
+   *
+   * @return the history of the poses estimated by the pose estimator
+   */
+  public PoseHistory getPoseHistory() {
+    return poseHistory;
+  }
 }
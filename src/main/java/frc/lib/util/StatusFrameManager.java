@@ -0,0 +1,169 @@
+package frc.lib.util;
+
+import edu.wpi.first.wpilibj.shuffleboard.BuiltInLayouts;
+import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardLayout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Singleton class that manages the status frame periods of the motor controllers and sensors on
+ * the CAN buses based on the robot's mode.
+ *
+ * <p>Each device registers the status frames it sends along with the period of each frame in each
+ * mode. Frames whose values are used for control in a mode are sent often in that mode; all other
+ * frames are sent slowly. When the robot's mode changes, only the frames whose periods differ
+ * between the old and new mode are updated. The manager also estimates each bus's utilization in
+ * each mode from the registered periods. Devices may register their status frames concurrently
+ * while they are configured.
+ */
+public class StatusFrameManager {
+  /** The modes for which status frame periods are specified. */
+  public enum Mode {
+    DISABLED,
+    AUTONOMOUS,
+    TELEOP
+  }
+
+  /** Sets the period of a single status frame on a device. */
+  @FunctionalInterface
+  public interface PeriodSetter {
+    /**
+     * Set the period of the status frame.
+     *
+     * @param periodMs the period of the status frame (milliseconds)
+     * @param timeoutMs the time to wait for the device to acknowledge the change (milliseconds); 0
+     *     to not wait
+     */
+    void setPeriod(int periodMs, int timeoutMs);
+  }
+
+  /* Wait for devices to acknowledge the periods set at startup but not those set on mode changes */
+  private static final int REGISTER_TIMEOUT_MS = 100;
+  private static final int MODE_CHANGE_TIMEOUT_MS = 0;
+
+  /* An extended CAN frame with 8 data bytes, including typical bit stuffing, on a 1 Mbps bus */
+  private static final double BITS_PER_FRAME = 130.0;
+  private static final double BUS_BITS_PER_SECOND = 1.0e6;
+
+  private static class Frame {
+    final String bus;
+    final PeriodSetter setter;
+    final int[] periodsMs;
+
+    Frame(String bus, PeriodSetter setter, int[] periodsMs) {
+      this.bus = bus;
+      this.setter = setter;
+      this.periodsMs = periodsMs;
+    }
+  }
+
+  private static final StatusFrameManager statusFrameManager = new StatusFrameManager();
+  private final List<Frame> frames = new ArrayList<>();
+  private Mode mode = Mode.DISABLED;
+
+  private StatusFrameManager() {}
+
+  public static StatusFrameManager getInstance() {
+    return statusFrameManager;
+  }
+
+  /**
+   * Register a status frame and set its period for the current mode.
+   *
+   * @param bus the name of the CAN bus the device is on
+   * @param setter sets the period of the status frame on the device
+   * @param disabledMs the period of the status frame while disabled (milliseconds)
+   * @param autonomousMs the period of the status frame during autonomous (milliseconds)
+   * @param teleopMs the period of the status frame during teleop and test (milliseconds)
+   */
+  public synchronized void register(
+      String bus, PeriodSetter setter, int disabledMs, int autonomousMs, int teleopMs) {
+    Frame frame = new Frame(bus, setter, new int[] {disabledMs, autonomousMs, teleopMs});
+    frames.add(frame);
+    frame.setter.setPeriod(frame.periodsMs[mode.ordinal()], REGISTER_TIMEOUT_MS);
+  }
+
+  /**
+   * Register a status frame whose period is the same in every mode and set its period.
+   *
+   * @param bus the name of the CAN bus the device is on
+   * @param setter sets the period of the status frame on the device
+   * @param periodMs the period of the status frame (milliseconds)
+   */
+  public void register(String bus, PeriodSetter setter, int periodMs) {
+    register(bus, setter, periodMs, periodMs, periodMs);
+  }
+
+  /**
+   * Update the status frame periods of all registered devices for the specified mode. This should
+   * be invoked from the robot's mode init methods.
+   *
+   * @param newMode the robot's new mode
+   */
+  public synchronized void setMode(Mode newMode) {
+    if (newMode == mode) {
+      return;
+    }
+    for (Frame frame : frames) {
+      int periodMs = frame.periodsMs[newMode.ordinal()];
+      if (periodMs != frame.periodsMs[mode.ordinal()]) {
+        frame.setter.setPeriod(periodMs, MODE_CHANGE_TIMEOUT_MS);
+      }
+    }
+    mode = newMode;
+  }
+
+  public synchronized Mode getMode() {
+    return mode;
+  }
+
+  /**
+   * Returns the names of the CAN buses with registered status frames.
+   *
+   * @return the names of the CAN buses with registered status frames
+   */
+  public synchronized Set<String> getBuses() {
+    Set<String> buses = new TreeSet<>();
+    for (Frame frame : frames) {
+      buses.add(frame.bus);
+    }
+    return buses;
+  }
+
+  /**
+   * Returns the estimated fraction of the specified bus's bandwidth used by the registered status
+   * frames in the specified mode. Control frames sent by the roboRIO and frames from devices that
+   * aren't registered are not included.
+   *
+   * @param bus the name of the CAN bus
+   * @param forMode the mode
+   * @return the estimated utilization of the bus (0.0 to 1.0)
+   */
+  public synchronized double getEstimatedBusUtilization(String bus, Mode forMode) {
+    double framesPerSecond = 0.0;
+    for (Frame frame : frames) {
+      if (frame.bus.equals(bus)) {
+        framesPerSecond += 1000.0 / frame.periodsMs[forMode.ordinal()];
+      }
+    }
+    return framesPerSecond * BITS_PER_FRAME / BUS_BITS_PER_SECOND;
+  }
+
+  /**
+   * Add the estimated utilization of each bus in each mode to the "CAN Bus" tab. This must be
+   * invoked after all devices have registered their status frames.
+   */
+  public void initLogging() {
+    for (String bus : getBuses()) {
+      ShuffleboardLayout layout =
+          Shuffleboard.getTab("CAN Bus").getLayout(bus, BuiltInLayouts.kList).withSize(2, 3);
+      for (Mode m : Mode.values()) {
+        double utilization = getEstimatedBusUtilization(bus, m) * 100.0;
+        layout.addNumber(m + " Est Util %", () -> utilization);
+      }
+    }
+  }
+}
@@ -0,0 +1,492 @@
+package frc.lib.util;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import org.ejml.simple.SimpleMatrix;
+
+/**
+ * Estimates the pose of a swerve drive from its module positions and gyro angle and fuses latent
+ * vision measurements into the estimate.
+ *
+ * <p>This is equivalent to WPILib's SwerveDrivePoseEstimator, but doesn't allocate: the odometry is
+ * integrated with primitive math, and the samples used to apply vision measurements at the time
+ * they were captured are kept in a fixed-capacity buffer of parallel primitive arrays instead of a
+ * TreeMap of records. As in WPILib, a vision measurement corrects the odometry pose at the time of
+ * the measurement by a fraction of the difference, determined by the state and vision standard
+ * deviations, and the odometry samples after that time are replayed on top of the corrected pose.
+ *
+ * <p>Angles are in radians and distances in meters. This class is not thread safe; it is intended
+ * to be used only from the main robot thread.
+ */
+public class SwervePoseEstimator {
+  /* Vision measurements older than this, relative to the newest sample, are ignored */
+  private static final double BUFFER_DURATION_SECS = 1.5;
+
+  private final int numModules;
+  /* The rows of the forward kinematics (pseudo-inverse) matrix for the x and y translation */
+  private final double[] forwardX;
+  private final double[] forwardY;
+
+  private final double[] stateVariances = new double[3];
+  private final double[] visionK = new double[3];
+
+  /* The odometry's state */
+  private double poseX = 0.0;
+  private double poseY = 0.0;
+  private double poseTheta = 0.0;
+  private double gyroOffset = 0.0;
+  private double previousAngle = 0.0;
+  private final double[] previousDistances;
+
+  /* Samples ordered by timestamp in a ring buffer; logical index 0 is the oldest sample */
+  private final int capacity;
+  private final double[] timestamps;
+  private final double[] sampleXs;
+  private final double[] sampleYs;
+  private final double[] sampleThetas;
+  private final double[] sampleGyroAngles;
+  private final double[] sampleDistances;
+  private final double[] sampleAngles;
+  private int start = 0;
+  private int size = 0;
+
+  /* Scratch state for vision measurements and replays */
+  private final double[] scratchDistances;
+  private final double[] scratchAngles;
+  private double scratchX;
+  private double scratchY;
+  private double scratchTheta;
+  private double scratchGyroAngle;
+  private double twistX;
+  private double twistY;
+
+  /* The pose last returned by getEstimatedPosition(); only rebuilt when the estimate changes */
+  private Pose2d estimatedPose = new Pose2d();
+
+  /**
+   * Create a pose estimator with the WPILib default standard deviations: 0.1 m, 0.1 m, and 0.1 rad
+   * for the state and 0.9 m, 0.9 m, and 0.9 rad for vision measurements.
+   *
+   * @param moduleTranslations the locations of the modules relative to the center of the robot
+   * @param capacity the maximum number of samples retained for vision measurements; at least the
+   *     number of odometry updates in BUFFER_DURATION_SECS
+   */
+  public SwervePoseEstimator(Translation2d[] moduleTranslations, int capacity) {
+    this.numModules = moduleTranslations.length;
+    this.previousDistances = new double[numModules];
+    this.scratchDistances = new double[numModules];
+    this.scratchAngles = new double[numModules];
+
+    // the same least-squares forward kinematics as SwerveDriveKinematics.toTwist2d
+    SimpleMatrix inverseKinematics = new SimpleMatrix(numModules * 2, 3);
+    for (int i = 0; i < numModules; i++) {
+      inverseKinematics.setRow(i * 2, 0, 1, 0, -moduleTranslations[i].getY());
+      inverseKinematics.setRow(i * 2 + 1, 0, 0, 1, moduleTranslations[i].getX());
+    }
+    SimpleMatrix forwardKinematics = inverseKinematics.pseudoInverse();
+    this.forwardX = new double[numModules * 2];
+    this.forwardY = new double[numModules * 2];
+    for (int i = 0; i < numModules * 2; i++) {
+      forwardX[i] = forwardKinematics.get(0, i);
+      forwardY[i] = forwardKinematics.get(1, i);
+    }
+
+    this.capacity = capacity;
+    this.timestamps = new double[capacity];
+    this.sampleXs = new double[capacity];
+    this.sampleYs = new double[capacity];
+    this.sampleThetas = new double[capacity];
+    this.sampleGyroAngles = new double[capacity];
+    this.sampleDistances = new double[capacity * numModules];
+    this.sampleAngles = new double[capacity * numModules];
+
+    setStateStdDevs(0.1, 0.1, 0.1);
+    setVisionMeasurementStdDevs(0.9, 0.9, 0.9);
+  }
+
+  /**
+   * Set the standard deviations of the odometry pose. Larger values trust the odometry less.
+   *
+   * @param x the standard deviation of the x coordinate (meters)
+   * @param y the standard deviation of the y coordinate (meters)
+   * @param theta the standard deviation of the rotation (radians)
+   */
+  public void setStateStdDevs(double x, double y, double theta) {
+    stateVariances[0] = x * x;
+    stateVariances[1] = y * y;
+    stateVariances[2] = theta * theta;
+  }
+
+  /**
+   * Set the standard deviations of the vision measurements. Larger values trust the measurements
+   * less. This doesn't allocate, so it can be invoked for every measurement.
+   *
+   * @param x the standard deviation of the x coordinate (meters)
+   * @param y the standard deviation of the y coordinate (meters)
+   * @param theta the standard deviation of the rotation (radians)
+   */
+  public void setVisionMeasurementStdDevs(double x, double y, double theta) {
+    visionK[0] = gain(stateVariances[0], x * x);
+    visionK[1] = gain(stateVariances[1], y * y);
+    visionK[2] = gain(stateVariances[2], theta * theta);
+  }
+
+  /* The closed form of the steady-state Kalman gain for a continuous system with A = 0 and C = I */
+  private static double gain(double q, double r) {
+    return q == 0.0 ? 0.0 : q / (q + Math.sqrt(q * r));
+  }
+
+  /**
+   * Reset the estimated pose. The gyro angle and module positions are those at the time the robot
+   * is at the pose. The samples retained for vision measurements are discarded.
+   *
+   * @param gyroAngle the gyro angle (radians)
+   * @param distances the distance traveled by each module (meters)
+   * @param angles the angle of each module (radians)
+   * @param x the x coordinate of the pose (meters)
+   * @param y the y coordinate of the pose (meters)
+   * @param theta the rotation of the pose (radians)
+   */
+  public void resetPosition(
+      double gyroAngle, double[] distances, double[] angles, double x, double y, double theta) {
+    resetOdometry(gyroAngle, distances, x, y, theta);
+    start = 0;
+    size = 0;
+  }
+
+  /**
+   * Reset the estimated pose. Unlike the primitive variant, this method allocates and is intended
+   * for code that isn't run every loop.
+   *
+   * @param gyroAngle the gyro angle
+   * @param modulePositions the position of each module
+   * @param pose the pose
+   */
+  public void resetPosition(
+      Rotation2d gyroAngle, SwerveModulePosition[] modulePositions, Pose2d pose) {
+    double[] distances = new double[numModules];
+    double[] angles = new double[numModules];
+    for (int i = 0; i < numModules; i++) {
+      distances[i] = modulePositions[i].distanceMeters;
+      angles[i] = modulePositions[i].angle.getRadians();
+    }
+    resetPosition(
+        gyroAngle.getRadians(),
+        distances,
+        angles,
+        pose.getX(),
+        pose.getY(),
+        pose.getRotation().getRadians());
+  }
+
+  private void resetOdometry(
+      double gyroAngle, double[] distances, double x, double y, double theta) {
+    poseX = x;
+    poseY = y;
+    poseTheta = MathUtil.angleModulus(theta);
+    gyroOffset = MathUtil.angleModulus(theta - gyroAngle);
+    previousAngle = poseTheta;
+    System.arraycopy(distances, 0, previousDistances, 0, numModules);
+  }
+
+  /**
+   * Update the estimated pose with the module positions and gyro angle at the specified time.
+   *
+   * @param timestamp the FPGA timestamp of the module positions and gyro angle (seconds)
+   * @param gyroAngle the gyro angle (radians)
+   * @param distances the distance traveled by each module (meters)
+   * @param angles the angle of each module (radians)
+   */
+  public void updateWithTime(
+      double timestamp, double gyroAngle, double[] distances, double[] angles) {
+    updateOdometry(gyroAngle, distances, angles);
+    record(timestamp, gyroAngle, distances, angles);
+  }
+
+  /* Integrate the change in the module positions, using the gyro for the change in rotation */
+  private void updateOdometry(double gyroAngle, double[] distances, double[] angles) {
+    double angle = MathUtil.angleModulus(gyroAngle + gyroOffset);
+    computeTwist(previousDistances, 0, distances, angles);
+    applyTwist(poseX, poseY, poseTheta, MathUtil.angleModulus(angle - previousAngle));
+    poseX = scratchX;
+    poseY = scratchY;
+    poseTheta = angle;
+    previousAngle = angle;
+    System.arraycopy(distances, 0, previousDistances, 0, numModules);
+  }
+
+  /* Compute the translation of the robot, into twistX and twistY, from the modules' movements */
+  private void computeTwist(
+      double[] fromDistances, int fromOffset, double[] toDistances, double[] angles) {
+    twistX = 0.0;
+    twistY = 0.0;
+    for (int i = 0; i < numModules; i++) {
+      double delta = toDistances[i] - fromDistances[fromOffset + i];
+      double dx = delta * Math.cos(angles[i]);
+      double dy = delta * Math.sin(angles[i]);
+      twistX += forwardX[i * 2] * dx + forwardX[i * 2 + 1] * dy;
+      twistY += forwardY[i * 2] * dx + forwardY[i * 2 + 1] * dy;
+    }
+  }
+
+  /* Equivalent to Pose2d.exp with the twist; the result is left in scratchX, Y, and Theta */
+  private void applyTwist(double x, double y, double theta, double dtheta) {
+    double s;
+    double c;
+    if (Math.abs(dtheta) < 1E-9) {
+      s = 1.0 - 1.0 / 6.0 * dtheta * dtheta;
+      c = 0.5 * dtheta;
+    } else {
+      s = Math.sin(dtheta) / dtheta;
+      c = (1 - Math.cos(dtheta)) / dtheta;
+    }
+    double tx = twistX * s - twistY * c;
+    double ty = twistX * c + twistY * s;
+    double cos = Math.cos(theta);
+    double sin = Math.sin(theta);
+    scratchX = x + tx * cos - ty * sin;
+    scratchY = y + tx * sin + ty * cos;
+    scratchTheta = MathUtil.angleModulus(theta + dtheta);
+  }
+
+  /**
+   * Fuse a vision measurement of the robot's pose into the estimate. The measurement is ignored if
+   * it is older than the samples retained for vision measurements.
+   *
+   * @param x the measured x coordinate (meters)
+   * @param y the measured y coordinate (meters)
+   * @param theta the measured rotation (radians)
+   * @param timestamp the FPGA timestamp at which the measurement was captured (seconds)
+   */
+  public void addVisionMeasurement(double x, double y, double theta, double timestamp) {
+    if (size == 0 || timestamps[index(size - 1)] - BUFFER_DURATION_SECS > timestamp) {
+      return;
+    }
+
+    // the odometry pose, gyro angle, and module positions at the time of the measurement
+    sample(timestamp);
+
+    // move the odometry pose part of the way to the measurement (Pose2d.log, scaled, then exp)
+    double dxField = x - scratchX;
+    double dyField = y - scratchY;
+    double cos = Math.cos(scratchTheta);
+    double sin = Math.sin(scratchTheta);
+    double dx = dxField * cos + dyField * sin;
+    double dy = -dxField * sin + dyField * cos;
+    double dtheta = MathUtil.angleModulus(theta - scratchTheta);
+    double halfDtheta = dtheta / 2.0;
+    double cosMinusOne = Math.cos(dtheta) - 1.0;
+    double halfThetaByTanOfHalfDtheta =
+        Math.abs(cosMinusOne) < 1E-9
+            ? 1.0 - 1.0 / 12.0 * dtheta * dtheta
+            : -(halfDtheta * Math.sin(dtheta)) / cosMinusOne;
+    twistX = visionK[0] * (dx * halfThetaByTanOfHalfDtheta + dy * halfDtheta);
+    twistY = visionK[1] * (-dx * halfDtheta + dy * halfThetaByTanOfHalfDtheta);
+    applyTwist(scratchX, scratchY, scratchTheta, visionK[2] * dtheta);
+    resetOdometry(scratchGyroAngle, scratchDistances, scratchX, scratchY, scratchTheta);
+
+    // record the corrected pose and replay the odometry samples taken after the measurement
+    int i = record(timestamp, scratchGyroAngle, scratchDistances, scratchAngles);
+    if (i < 0) {
+      return;
+    }
+    for (i++; i < size; i++) {
+      int index = index(i);
+      System.arraycopy(sampleDistances, index * numModules, scratchDistances, 0, numModules);
+      System.arraycopy(sampleAngles, index * numModules, scratchAngles, 0, numModules);
+      updateOdometry(sampleGyroAngles[index], scratchDistances, scratchAngles);
+      sampleXs[index] = poseX;
+      sampleYs[index] = poseY;
+      sampleThetas[index] = poseTheta;
+    }
+  }
+
+  /**
+   * Fuse a vision measurement of the robot's pose into the estimate with the specified standard
+   * deviations.
+   *
+   * @param x the measured x coordinate (meters)
+   * @param y the measured y coordinate (meters)
+   * @param theta the measured rotation (radians)
+   * @param timestamp the FPGA timestamp at which the measurement was captured (seconds)
+   * @param xStdDev the standard deviation of the x coordinate (meters)
+   * @param yStdDev the standard deviation of the y coordinate (meters)
+   * @param thetaStdDev the standard deviation of the rotation (radians)
+   */
+  public void addVisionMeasurement(
+      double x,
+      double y,
+      double theta,
+      double timestamp,
+      double xStdDev,
+      double yStdDev,
+      double thetaStdDev) {
+    setVisionMeasurementStdDevs(xStdDev, yStdDev, thetaStdDev);
+    addVisionMeasurement(x, y, theta, timestamp);
+  }
+
+  /*
+   * Copy the odometry pose, gyro angle, and module positions at the specified time into the
+   * scratch state. Between two samples, they are interpolated as WPILib's InterpolationRecord does:
+   * the module positions and gyro angle linearly, and the pose by integrating the interpolated
+   * module movements from the earlier sample.
+   */
+  private void sample(double timestamp) {
+    int after = upperBound(timestamp);
+    if (after == 0 || after == size || timestamps[index(after - 1)] == timestamp) {
+      copySample(index(after == 0 ? 0 : after - 1));
+      return;
+    }
+
+    int before = index(after - 1);
+    int next = index(after);
+    double t = (timestamp - timestamps[before]) / (timestamps[next] - timestamps[before]);
+    for (int i = 0; i < numModules; i++) {
+      double fromDistance = sampleDistances[before * numModules + i];
+      double fromAngle = sampleAngles[before * numModules + i];
+      double toAngle = sampleAngles[next * numModules + i];
+      scratchDistances[i] =
+          MathUtil.interpolate(fromDistance, sampleDistances[next * numModules + i], t);
+      scratchAngles[i] =
+          MathUtil.angleModulus(fromAngle + MathUtil.angleModulus(toAngle - fromAngle) * t);
+    }
+    double fromGyro = sampleGyroAngles[before];
+    double gyroDelta = MathUtil.angleModulus(sampleGyroAngles[next] - fromGyro) * t;
+    scratchGyroAngle = MathUtil.angleModulus(fromGyro + gyroDelta);
+
+    computeTwist(sampleDistances, before * numModules, scratchDistances, scratchAngles);
+    applyTwist(
+        sampleXs[before],
+        sampleYs[before],
+        sampleThetas[before],
+        MathUtil.angleModulus(scratchGyroAngle - fromGyro));
+  }
+
+  private void copySample(int index) {
+    scratchX = sampleXs[index];
+    scratchY = sampleYs[index];
+    scratchTheta = sampleThetas[index];
+    scratchGyroAngle = sampleGyroAngles[index];
+    System.arraycopy(sampleDistances, index * numModules, scratchDistances, 0, numModules);
+    System.arraycopy(sampleAngles, index * numModules, scratchAngles, 0, numModules);
+  }
+
+  /*
+   * Record the current pose with the gyro angle and module positions at the specified time,
+   * replacing a sample with the same timestamp, and discard the samples that are more than
+   * BUFFER_DURATION_SECS older. Returns the logical index of the sample, or -1 if it is older than
+   * every sample in a full buffer.
+   */
+  private int record(double timestamp, double gyroAngle, double[] distances, double[] angles) {
+    int i = upperBound(timestamp);
+    if (i > 0 && timestamps[index(i - 1)] == timestamp) {
+      i--;
+    } else {
+      if (size == capacity) {
+        if (i == 0) {
+          return -1;
+        }
+        start = index(1);
+        size--;
+        i--;
+      }
+      // shift the newer samples up to make room
+      for (int j = size; j > i; j--) {
+        copy(index(j - 1), index(j));
+      }
+      size++;
+    }
+
+    int index = index(i);
+    timestamps[index] = timestamp;
+    sampleXs[index] = poseX;
+    sampleYs[index] = poseY;
+    sampleThetas[index] = poseTheta;
+    sampleGyroAngles[index] = gyroAngle;
+    System.arraycopy(distances, 0, sampleDistances, index * numModules, numModules);
+    System.arraycopy(angles, 0, sampleAngles, index * numModules, numModules);
+
+    while (i > 0 && timestamp - timestamps[start] >= BUFFER_DURATION_SECS) {
+      start = index(1);
+      size--;
+      i--;
+    }
+    return i;
+  }
+
+  private void copy(int from, int to) {
+    timestamps[to] = timestamps[from];
+    sampleXs[to] = sampleXs[from];
+    sampleYs[to] = sampleYs[from];
+    sampleThetas[to] = sampleThetas[from];
+    sampleGyroAngles[to] = sampleGyroAngles[from];
+    System.arraycopy(
+        sampleDistances, from * numModules, sampleDistances, to * numModules, numModules);
+    System.arraycopy(sampleAngles, from * numModules, sampleAngles, to * numModules, numModules);
+  }
+
+  /* Returns the logical index of the first sample after the timestamp */
+  private int upperBound(double timestamp) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (timestamps[index(mid)] <= timestamp) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /* Convert a logical index (0 is the oldest sample) to an index in the arrays */
+  private int index(int i) {
+    return (start + i) % capacity;
+  }
+
+  /**
+   * Returns the x coordinate of the estimated pose.
+   *
+   * @return the x coordinate of the estimated pose (meters)
+   */
+  public double getX() {
+    return poseX;
+  }
+
+  /**
+   * Returns the y coordinate of the estimated pose.
+   *
+   * @return the y coordinate of the estimated pose (meters)
+   */
+  public double getY() {
+    return poseY;
+  }
+
+  /**
+   * Returns the rotation of the estimated pose.
+   *
+   * @return the rotation of the estimated pose (radians)
+   */
+  public double getRotationRadians() {
+    return poseTheta;
+  }
+
+  /**
+   * Returns the estimated pose. A new Pose2d is only created when the estimate has changed since
+   * the last call.
+   *
+   * @return the estimated pose
+   */
+  public Pose2d getEstimatedPosition() {
+    if (estimatedPose.getX() != poseX
+        || estimatedPose.getY() != poseY
+        || estimatedPose.getRotation().getRadians() != poseTheta) {
+      estimatedPose = new Pose2d(poseX, poseY, new Rotation2d(poseTheta));
+    }
+    return estimatedPose;
+  }
+}
@@ -0,0 +1,320 @@
+package frc.lib.util;
+
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.EventMarker;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import com.pathplanner.lib.PathPlannerTrajectory.StopEvent;
+import com.pathplanner.lib.PathPlannerTrajectory.StopEvent.ExecutionBehavior;
+import com.pathplanner.lib.PathPlannerTrajectory.StopEvent.WaitBehavior;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes PathPlanner path groups in a compact binary format so that the trajectories
+ * don't have to be parsed from JSON and generated on the robot.
+ *
+ * <p>The file starts with a header containing the velocity and acceleration limits used to
+ * generate the trajectories and a CRC32 of the source .path file. A file whose header doesn't match
+ * is treated as stale and is not loaded. Each trajectory is then stored as its start and end stop
+ * events, its event markers, and its states. Files are read through a memory-mapped buffer.
+ */
+public class TrajectoryFile {
+  public static final String EXTENSION = ".traj";
+
+  private static final int MAGIC = 0x50505442; // "PPTB"
+  private static final int VERSION = 1;
+  /* Number of doubles stored for each trajectory state */
+  private static final int STATE_SIZE = 12;
+
+  private TrajectoryFile() {}
+
+  /**
+   * Returns the CRC32 of the specified file's contents; this identifies the source .path file from
+   * which a binary trajectory file was generated.
+   *
+   * @param file the file
+   * @return the CRC32 of the file's contents
+   * @throws IOException if the file can't be read
+   */
+  public static long checksum(Path file) throws IOException {
+    CRC32 crc = new CRC32();
+    crc.update(Files.readAllBytes(file));
+    return crc.getValue();
+  }
+
+  /**
+   * Write the specified path group to a binary trajectory file.
+   *
+   * @param file the binary trajectory file
+   * @param trajectories the path group
+   * @param maxVelocity the maximum velocity used to generate the path group
+   * @param maxAcceleration the maximum acceleration used to generate the path group
+   * @param sourceChecksum the checksum of the .path file from which the path group was generated
+   * @throws IOException if the file can't be written
+   */
+  public static void write(
+      Path file,
+      List<PathPlannerTrajectory> trajectories,
+      double maxVelocity,
+      double maxAcceleration,
+      long sourceChecksum)
+      throws IOException {
+    int size = Integer.BYTES * 3 + Double.BYTES * 2 + Long.BYTES;
+    for (PathPlannerTrajectory trajectory : trajectories) {
+      size += sizeOf(trajectory.getStartStopEvent()) + sizeOf(trajectory.getEndStopEvent());
+      size += Integer.BYTES;
+      for (EventMarker marker : trajectory.getMarkers()) {
+        size += sizeOf(marker.names) + Double.BYTES * 3;
+      }
+      size += Integer.BYTES + trajectory.getStates().size() * STATE_SIZE * Double.BYTES;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    buffer.putInt(MAGIC);
+    buffer.putInt(VERSION);
+    buffer.putDouble(maxVelocity);
+    buffer.putDouble(maxAcceleration);
+    buffer.putLong(sourceChecksum);
+    buffer.putInt(trajectories.size());
+    for (PathPlannerTrajectory trajectory : trajectories) {
+      putStopEvent(buffer, trajectory.getStartStopEvent());
+      putStopEvent(buffer, trajectory.getEndStopEvent());
+
+      buffer.putInt(trajectory.getMarkers().size());
+      for (EventMarker marker : trajectory.getMarkers()) {
+        putStrings(buffer, marker.names);
+        buffer.putDouble(marker.timeSeconds);
+        buffer.putDouble(marker.positionMeters.getX());
+        buffer.putDouble(marker.positionMeters.getY());
+      }
+
+      buffer.putInt(trajectory.getStates().size());
+      for (Trajectory.State s : trajectory.getStates()) {
+        PathPlannerState state = (PathPlannerState) s;
+        buffer.putDouble(state.timeSeconds);
+        buffer.putDouble(state.velocityMetersPerSecond);
+        buffer.putDouble(state.accelerationMetersPerSecondSq);
+        buffer.putDouble(state.poseMeters.getX());
+        buffer.putDouble(state.poseMeters.getY());
+        buffer.putDouble(state.poseMeters.getRotation().getRadians());
+        buffer.putDouble(state.curvatureRadPerMeter);
+        buffer.putDouble(state.angularVelocityRadPerSec);
+        buffer.putDouble(state.holonomicRotation.getRadians());
+        buffer.putDouble(state.holonomicAngularVelocityRadPerSec);
+        buffer.putDouble(state.curveRadius);
+        buffer.putDouble(state.deltaPos);
+      }
+    }
+
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    Files.write(file, buffer.array());
+  }
+
+  /**
+   * Read a path group from a binary trajectory file.
+   *
+   * @param file the binary trajectory file
+   * @param maxVelocity the maximum velocity with which the path group must have been generated
+   * @param maxAcceleration the maximum acceleration with which the path group must have been
+   *     generated
+   * @param sourceChecksum the checksum of the .path file from which the path group must have been
+   *     generated
+   * @return the path group, or null if the file doesn't exist or is stale
+   * @throws IOException if the file can't be read
+   */
+  public static List<PathPlannerTrajectory> read(
+      Path file, double maxVelocity, double maxAcceleration, long sourceChecksum)
+      throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    if (buffer.getInt() != MAGIC
+        || buffer.getInt() != VERSION
+        || buffer.getDouble() != maxVelocity
+        || buffer.getDouble() != maxAcceleration
+        || buffer.getLong() != sourceChecksum) {
+      return null;
+    }
+
+    int trajectoryCount = buffer.getInt();
+    List<PathPlannerTrajectory> trajectories = new ArrayList<>(trajectoryCount);
+    for (int i = 0; i < trajectoryCount; i++) {
+      StopEvent startStopEvent = getStopEvent(buffer);
+      StopEvent endStopEvent = getStopEvent(buffer);
+
+      int markerCount = buffer.getInt();
+      List<EventMarker> markers = new ArrayList<>(markerCount);
+      for (int j = 0; j < markerCount; j++) {
+        EventMarker marker = new EventMarker(getStrings(buffer), 0.0);
+        marker.timeSeconds = buffer.getDouble();
+        marker.positionMeters = new Translation2d(buffer.getDouble(), buffer.getDouble());
+        markers.add(marker);
+      }
+
+      int stateCount = buffer.getInt();
+      List<Trajectory.State> states = new ArrayList<>(stateCount);
+      for (int j = 0; j < stateCount; j++) {
+        PathPlannerState state = new PathPlannerState();
+        state.timeSeconds = buffer.getDouble();
+        state.velocityMetersPerSecond = buffer.getDouble();
+        state.accelerationMetersPerSecondSq = buffer.getDouble();
+        double x = buffer.getDouble();
+        double y = buffer.getDouble();
+        state.poseMeters = new Pose2d(x, y, new Rotation2d(buffer.getDouble()));
+        state.curvatureRadPerMeter = buffer.getDouble();
+        state.angularVelocityRadPerSec = buffer.getDouble();
+        state.holonomicRotation = new Rotation2d(buffer.getDouble());
+        state.holonomicAngularVelocityRadPerSec = buffer.getDouble();
+        state.curveRadius = buffer.getDouble();
+        state.deltaPos = buffer.getDouble();
+        states.add(state);
+      }
+
+      trajectories.add(
+          new PathPlannerTrajectory(states, markers, startStopEvent, endStopEvent, true));
+    }
+    return trajectories;
+  }
+
+  /**
+   * Returns true if the specified path groups are equivalent within the specified tolerance. This
+   * is used to verify that a path group survives a round trip through a binary trajectory file.
+   *
+   * @param expected the expected path group
+   * @param actual the actual path group
+   * @param tolerance the maximum difference between any two values
+   * @return true if the path groups are equivalent
+   */
+  public static boolean equivalent(
+      List<PathPlannerTrajectory> expected, List<PathPlannerTrajectory> actual, double tolerance) {
+    if (expected.size() != actual.size()) {
+      return false;
+    }
+    for (int i = 0; i < expected.size(); i++) {
+      PathPlannerTrajectory e = expected.get(i);
+      PathPlannerTrajectory a = actual.get(i);
+      if (!equivalent(e.getStartStopEvent(), a.getStartStopEvent())
+          || !equivalent(e.getEndStopEvent(), a.getEndStopEvent())
+          || e.getMarkers().size() != a.getMarkers().size()
+          || e.getStates().size() != a.getStates().size()) {
+        return false;
+      }
+      for (int j = 0; j < e.getMarkers().size(); j++) {
+        EventMarker em = e.getMarkers().get(j);
+        EventMarker am = a.getMarkers().get(j);
+        if (!em.names.equals(am.names)
+            || Math.abs(em.timeSeconds - am.timeSeconds) > tolerance
+            || em.positionMeters.getDistance(am.positionMeters) > tolerance) {
+          return false;
+        }
+      }
+      for (int j = 0; j < e.getStates().size(); j++) {
+        PathPlannerState es = (PathPlannerState) e.getStates().get(j);
+        PathPlannerState as = (PathPlannerState) a.getStates().get(j);
+        if (!equivalent(es.timeSeconds, as.timeSeconds, tolerance)
+            || !equivalent(es.velocityMetersPerSecond, as.velocityMetersPerSecond, tolerance)
+            || !equivalent(
+                es.accelerationMetersPerSecondSq, as.accelerationMetersPerSecondSq, tolerance)
+            || !equivalent(es.poseMeters.getX(), as.poseMeters.getX(), tolerance)
+            || !equivalent(es.poseMeters.getY(), as.poseMeters.getY(), tolerance)
+            || !equivalent(
+                es.poseMeters.getRotation().minus(as.poseMeters.getRotation()).getRadians(),
+                0.0,
+                tolerance)
+            || !equivalent(es.curvatureRadPerMeter, as.curvatureRadPerMeter, tolerance)
+            || !equivalent(es.angularVelocityRadPerSec, as.angularVelocityRadPerSec, tolerance)
+            || !equivalent(
+                es.holonomicRotation.minus(as.holonomicRotation).getRadians(), 0.0, tolerance)
+            || !equivalent(
+                es.holonomicAngularVelocityRadPerSec,
+                as.holonomicAngularVelocityRadPerSec,
+                tolerance)
+            || !equivalent(es.curveRadius, as.curveRadius, tolerance)
+            || !equivalent(es.deltaPos, as.deltaPos, tolerance)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /* NaN only matches NaN and an infinity only matches the same infinity (e.g., a curve radius) */
+  private static boolean equivalent(double expected, double actual, double tolerance) {
+    if (Double.isNaN(expected) || Double.isNaN(actual) || Double.isInfinite(expected)) {
+      return Double.compare(expected, actual) == 0;
+    }
+    return Math.abs(expected - actual) <= tolerance;
+  }
+
+  private static boolean equivalent(StopEvent expected, StopEvent actual) {
+    return expected.names.equals(actual.names)
+        && expected.executionBehavior == actual.executionBehavior
+        && expected.waitBehavior == actual.waitBehavior
+        && expected.waitTime == actual.waitTime;
+  }
+
+  private static int sizeOf(StopEvent event) {
+    return sizeOf(event.names) + 2 + Double.BYTES;
+  }
+
+  private static int sizeOf(List<String> strings) {
+    int size = Integer.BYTES;
+    for (String string : strings) {
+      size += Short.BYTES + string.getBytes(StandardCharsets.UTF_8).length;
+    }
+    return size;
+  }
+
+  private static void putStopEvent(ByteBuffer buffer, StopEvent event) {
+    putStrings(buffer, event.names);
+    buffer.put((byte) event.executionBehavior.ordinal());
+    buffer.put((byte) event.waitBehavior.ordinal());
+    buffer.putDouble(event.waitTime);
+  }
+
+  private static StopEvent getStopEvent(ByteBuffer buffer) {
+    List<String> names = getStrings(buffer);
+    ExecutionBehavior executionBehavior = ExecutionBehavior.values()[buffer.get()];
+    WaitBehavior waitBehavior = WaitBehavior.values()[buffer.get()];
+    return new StopEvent(names, executionBehavior, waitBehavior, buffer.getDouble());
+  }
+
+  private static void putStrings(ByteBuffer buffer, List<String> strings) {
+    buffer.putInt(strings.size());
+    for (String string : strings) {
+      byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+      buffer.putShort((short) bytes.length);
+      buffer.put(bytes);
+    }
+  }
+
+  private static List<String> getStrings(ByteBuffer buffer) {
+    int count = buffer.getInt();
+    List<String> strings = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      byte[] bytes = new byte[buffer.getShort()];
+      buffer.get(bytes);
+      strings.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+    return strings;
+  }
+}
@@ -18,6 +18,7 @@ public final class Constants {
 
   public static final int ARM_LIFT_MOTOR_ID = 30;
   public static final int ARM_EXTEND_MOTOR_ID = 31;
+  public static final String ARM_CAN_BUS = "rio";
 
   public static final double STICK_DEADBAND = 0.1;
 
@@ -0,0 +1,146 @@
+package frc.robot;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.lib.gyro.GyroIO;
+import frc.lib.limelightvision.VisionIO;
+import frc.lib.swerve.SwerveModule;
+import frc.lib.swerve.SwerveModuleIOReplay;
+import frc.lib.util.InputLogger;
+import frc.robot.subsystems.arm.Arm;
+import frc.robot.subsystems.arm.ArmIOReplay;
+import frc.robot.subsystems.drivetrain.Drivetrain;
+import frc.robot.subsystems.vision.Vision;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Replays an input log recorded by the InputLogger through the drivetrain, swerve modules, arm,
+ * vision subsystem, and pose estimator as fast as possible, and writes the estimated pose for each
+ * loop to a CSV file. This is run by the replayInputs Gradle task.
+ *
+ * <p>The simulated FPGA time is paused and stepped to the timestamp recorded for each loop, so the
+ * subsystems see the same inputs and timestamps as they did on the robot. If a baseline CSV file
+ * (e.g., written by replaying the same log before a change) is specified, the estimated poses are
+ * compared with it; the replay fails if any pose differs by more than TOLERANCE.
+ */
+public class ReplayRunner {
+  private static final double TOLERANCE = 1e-6;
+
+  private ReplayRunner() {}
+
+  /**
+   * Replay an input log.
+   *
+   * @param args the input log, the CSV file to which the estimated poses are written, and,
+   *     optionally, the baseline CSV file with which the estimated poses are compared
+   * @throws IOException if a file can't be read or written, or the poses differ from the baseline
+   */
+  public static void main(String[] args) throws IOException {
+    Path logFile = Paths.get(args[0]);
+    Path outputFile = Paths.get(args[1]);
+
+    HAL.initialize(500, 0);
+    SimHooks.pauseTiming();
+
+    InputLogger inputLogger = InputLogger.getInstance();
+    inputLogger.startReplay(logFile);
+
+    // the subsystems register with the command scheduler, which runs their periodic methods
+    Drivetrain drivetrain =
+        new Drivetrain(
+            new GyroIO() {},
+            new SwerveModule(new SwerveModuleIOReplay(0)),
+            new SwerveModule(new SwerveModuleIOReplay(1)),
+            new SwerveModule(new SwerveModuleIOReplay(2)),
+            new SwerveModule(new SwerveModuleIOReplay(3)));
+    new Arm(new ArmIOReplay());
+    new Vision(new VisionIO() {});
+
+    if (outputFile.getParent() != null) {
+      Files.createDirectories(outputFile.getParent());
+    }
+    long start = System.nanoTime();
+    int loops = 0;
+    double firstTimestamp = 0.0;
+    double lastTimestamp = 0.0;
+    try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(outputFile))) {
+      out.println("timestamp,x,y,rotation_deg");
+      while (inputLogger.nextLoop()) {
+        double timestamp = inputLogger.getLoopTimestamp();
+        double delta = timestamp - Timer.getFPGATimestamp();
+        if (delta > 0.0) {
+          SimHooks.stepTiming(delta);
+        }
+        if (loops == 0) {
+          firstTimestamp = timestamp;
+        }
+        lastTimestamp = timestamp;
+
+        CommandScheduler.getInstance().run();
+
+        Pose2d pose = drivetrain.getPose();
+        out.printf(
+            "%.6f,%.9f,%.9f,%.9f%n",
+            timestamp, pose.getX(), pose.getY(), pose.getRotation().getDegrees());
+        loops++;
+      }
+    }
+
+    double elapsedSecs = (System.nanoTime() - start) / 1e9;
+    System.out.printf(
+        "ReplayRunner: replayed %d loops (%.1f s of match time) in %.2f s (%.0fx real time)%n",
+        loops,
+        lastTimestamp - firstTimestamp,
+        elapsedSecs,
+        (lastTimestamp - firstTimestamp) / elapsedSecs);
+
+    if (args.length > 2) {
+      compare(outputFile, Paths.get(args[2]));
+    }
+  }
+
+  /* Compare the estimated poses with the baseline; the timestamps must match exactly */
+  private static void compare(Path outputFile, Path baselineFile) throws IOException {
+    List<String> output = Files.readAllLines(outputFile);
+    List<String> baseline = Files.readAllLines(baselineFile);
+    if (output.size() != baseline.size()) {
+      throw new IOException(
+          String.format(
+              "Replayed %d loops, but the baseline has %d", output.size(), baseline.size()));
+    }
+
+    double maxDifference = 0.0;
+    String worstTimestamp = null;
+    // skip the header
+    for (int i = 1; i < output.size(); i++) {
+      String[] actual = output.get(i).split(",");
+      String[] expected = baseline.get(i).split(",");
+      if (!actual[0].equals(expected[0])) {
+        throw new IOException("Timestamps differ from the baseline at line " + (i + 1));
+      }
+      for (int j = 1; j < actual.length; j++) {
+        double difference =
+            Math.abs(Double.parseDouble(actual[j]) - Double.parseDouble(expected[j]));
+        if (difference > maxDifference) {
+          maxDifference = difference;
+          worstTimestamp = actual[0];
+        }
+      }
+    }
+
+    System.out.printf(
+        "ReplayRunner: maximum difference from the baseline is %.9f at %s%n",
+        maxDifference, worstTimestamp);
+    if (maxDifference > TOLERANCE) {
+      throw new IOException("Estimated poses differ from the baseline: " + baselineFile);
+    }
+  }
+}
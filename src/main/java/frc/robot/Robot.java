@@ -7,8 +7,14 @@ package frc.robot;
 import edu.wpi.first.wpilibj.Filesystem;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.lib.util.InputLogger;
+import frc.lib.util.LoopProfiler;
+import frc.lib.util.OutputDeduplicator;
+import frc.lib.util.OverrunWatchdog;
+import frc.lib.util.StatusFrameManager;
 import java.io.File;
 import java.nio.file.Path;
 
@@ -23,6 +29,20 @@ public class Robot extends TimedRobot {
 
   private RobotContainer m_robotContainer;
 
+  /* Timing of each loop, the command scheduler, and what runs after robotPeriodic (dashboards) */
+  private final LoopProfiler.Histogram m_loopTiming =
+      LoopProfiler.getInstance().getHistogram("Robot.loop");
+  private final LoopProfiler.Histogram m_schedulerTiming =
+      LoopProfiler.getInstance().getHistogram("CommandScheduler.run");
+  private final LoopProfiler.Histogram m_dashboardTiming =
+      LoopProfiler.getInstance().getHistogram("Dashboards");
+  private long m_robotPeriodicEnd = 0;
+  private boolean m_enabledSinceDump = false;
+
+  /* Samples the stack of this (the main) thread when a loop overruns */
+  private final OverrunWatchdog m_overrunWatchdog =
+      new OverrunWatchdog(Thread.currentThread(), OverrunWatchdog.DEFAULT_THRESHOLD_SECS);
+
   /**
    * The absolute filepath to the resources folder containing the config files when the robot is
    * real.
@@ -36,6 +56,9 @@ public class Robot extends TimedRobot {
   /** The filepath to the resources folder containing the config files. */
   public static final Path RESOURCES_PATH =
       RobotBase.isReal() ? RESOURCES_PATH_REAL : RESOURCES_PATH_SIMULATED;
+  /** The filepath to the folder to which the inputs are logged while the robot is enabled. */
+  public static final Path INPUT_LOG_PATH =
+      Filesystem.getOperatingDirectory().toPath().resolve("input-logs");
 
   /**
    * This function is run when the robot is first started up and should be used for any
@@ -46,6 +69,24 @@ public class Robot extends TimedRobot {
     // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
     // autonomous chooser on the dashboard.
     m_robotContainer = new RobotContainer();
+
+    InputLogger.getInstance().setPublishing(Constants.DEBUGGING);
+  }
+
+  @Override
+  protected void loopFunc() {
+    long start = System.nanoTime();
+    m_overrunWatchdog.loopStarted();
+    InputLogger.getInstance().beginLoop(Timer.getFPGATimestamp());
+    super.loopFunc();
+    InputLogger.getInstance().endLoop();
+    m_overrunWatchdog.loopEnded();
+    long end = m_loopTiming.recordSince(start);
+    if (m_robotPeriodicEnd > start) {
+      m_dashboardTiming.record(end - m_robotPeriodicEnd);
+    }
+    LoopProfiler.getInstance().publishNext();
+    OutputDeduplicator.publishTotals();
   }
 
   /**
@@ -61,7 +102,9 @@ public class Robot extends TimedRobot {
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
+    long start = System.nanoTime();
     CommandScheduler.getInstance().run();
+    m_robotPeriodicEnd = m_schedulerTiming.recordSince(start);
 
     // if (RobotBase.isSimulation()) {
     //   PhysicsSim.getInstance().run();
@@ -70,16 +113,31 @@ public class Robot extends TimedRobot {
 
   /** This function is called once each time the robot enters Disabled mode. */
   @Override
-  public void disabledInit() {}
+  public void disabledInit() {
+    StatusFrameManager.getInstance().setMode(StatusFrameManager.Mode.DISABLED);
+
+    // the robot is disabled at the end of each match; save the loop timing and inputs for the match
+    if (m_enabledSinceDump) {
+      LoopProfiler.getInstance().dump();
+      m_overrunWatchdog.dump();
+      InputLogger.getInstance().stopRecording();
+      m_enabledSinceDump = false;
+    }
+  }
 
   @Override
   public void disabledPeriodic() {
     m_robotContainer.updateOI();
+    m_robotContainer.updateAutoSelection();
+    m_robotContainer.warmUp();
   }
 
   /** This autonomous runs the autonomous command selected by your {@link RobotContainer} class. */
   @Override
   public void autonomousInit() {
+    m_enabledSinceDump = true;
+    InputLogger.getInstance().startRecording(INPUT_LOG_PATH);
+    StatusFrameManager.getInstance().setMode(StatusFrameManager.Mode.AUTONOMOUS);
     m_autonomousCommand = m_robotContainer.getAutonomousCommand();
 
     // schedule the autonomous command (example)
@@ -94,6 +152,9 @@ public class Robot extends TimedRobot {
 
   @Override
   public void teleopInit() {
+    m_enabledSinceDump = true;
+    InputLogger.getInstance().startRecording(INPUT_LOG_PATH);
+    StatusFrameManager.getInstance().setMode(StatusFrameManager.Mode.TELEOP);
     // This makes sure that the autonomous stops running when
     // teleop starts running. If you want the autonomous to
     // continue until interrupted by another command, remove
@@ -123,6 +184,7 @@ public class Robot extends TimedRobot {
   public void testInit() {
     // Cancels all running commands at the start of test mode.
     CommandScheduler.getInstance().cancelAll();
+    StatusFrameManager.getInstance().setMode(StatusFrameManager.Mode.TELEOP);
 
     m_robotContainer.testInit();
   }
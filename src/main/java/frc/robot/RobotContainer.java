@@ -1,7 +1,5 @@
 package frc.robot;
 
-import com.pathplanner.lib.PathPlanner;
-import com.pathplanner.lib.PathPlannerTrajectory;
 import com.pathplanner.lib.auto.PIDConstants;
 import com.pathplanner.lib.auto.SwerveAutoBuilder;
 // import com.pathplanner.lib.commands.FollowPathWithEvents;
@@ -14,29 +12,29 @@ import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.GenericHID;
 import edu.wpi.first.wpilibj.PowerDistribution;
 import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.XboxController;
 // import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import edu.wpi.first.wpilibj.livewindow.LiveWindow;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
-import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.Commands;
 import frc.lib.gyro.*;
 import frc.lib.limelightvision.LimelightHelpers;
+import frc.lib.limelightvision.VisionIOLimelight;
 import frc.lib.swerve.*;
+import frc.lib.util.DeviceConfigurator;
+import frc.lib.util.LoopProfiler;
+import frc.lib.util.StatusFrameManager;
 import frc.robot.autos.*;
 import frc.robot.commands.*;
 import frc.robot.operator_interface.*;
 import frc.robot.subsystems.arm.*;
 import frc.robot.subsystems.drivetrain.*;
-import java.io.IOException;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import frc.robot.subsystems.vision.*;
 import java.util.HashMap;
-import java.util.List;
 // import java.util.List;
 import java.util.Map;
 
@@ -47,37 +45,57 @@ import java.util.Map;
  * subsystems, commands, and button mappings) should be declared here.
  */
 public class RobotContainer {
-  private SendableChooser<Command> chooser = new SendableChooser<>();
-
   /* Operator Interface */
   public OperatorInterface oi = new OperatorInterface() {};
 
   /* Subsystems */
   public final PowerDistribution power = new PowerDistribution();
-  public final GyroIO gyro = new GyroIOPigeon2(Constants.GYRO_ID, Constants.GYRO_CAN_BUS);
+  public final GyroIO gyro;
   public final Drivetrain driveTrain;
   public final Arm arm;
+  public final Vision vision;
   public final TestChecklist test;
+  public final WarmUpService warmUp;
+  /* Only created in simulation, unless the modules are specified */
+  public final SwerveChassisSim chassisSim;
 
   /* Cameras */
   // public UsbCamera cam0;
 
   /* Auto paths */
   public SwerveAutoBuilder autoBuilder;
+  public AutoRegistry autoRegistry;
 
   public static Map<String, Trajectory> trajectoryList = new HashMap<String, Trajectory>();
-  public static Map<String, List<PathPlannerTrajectory>> pptrajectoryList =
-      new HashMap<String, List<PathPlannerTrajectory>>();
   public static final HashMap<String, Command> AUTO_EVENT_MAP = new HashMap<>();
 
   /** The container for the robot. Contains subsystems, OI devices, and commands. */
   public RobotContainer() {
+    this(null, null);
+  }
+
+  /**
+   * Create the container for the robot with the specified gyro and swerve modules instead of the
+   * ones for the current platform (e.g., the perturbed simulated devices of the auto sweep).
+   *
+   * @param gyro the gyro, which must be specified if the modules are specified
+   * @param modules the front left, front right, back left, and back right modules, or null to use
+   *     the gyro and modules for the current platform
+   */
+  public RobotContainer(GyroIO gyro, SwerveModuleIO[] modules) {
     SwerveModuleIO flModule;
     SwerveModuleIO frModule;
     SwerveModuleIO blModule;
     SwerveModuleIO brModule;
 
-    if (RobotBase.isReal()) {
+    if (modules != null) {
+      this.gyro = gyro;
+      flModule = modules[0];
+      frModule = modules[1];
+      blModule = modules[2];
+      brModule = modules[3];
+      chassisSim = null;
+    } else if (RobotBase.isReal()) {
       // Make sure you only configure port forwarding once in your robot code.
       for (int port = 5800; port <= 5805; port++) {
         PortForwarder.add(port, Constants.LIMELIGHTURL, port);
@@ -87,28 +105,50 @@ public class RobotContainer {
       frModule = new SwerveModuleIOTalonFX(DriveTrainConstants.mod1);
       blModule = new SwerveModuleIOTalonFX(DriveTrainConstants.mod2);
       brModule = new SwerveModuleIOTalonFX(DriveTrainConstants.mod3);
+      chassisSim = null;
+      this.gyro = new GyroIOPigeon2(Constants.GYRO_ID, Constants.GYRO_CAN_BUS);
     } else {
-      flModule = new SwerveModuleIOSim(DriveTrainConstants.mod0.moduleNumber);
-      frModule = new SwerveModuleIOSim(DriveTrainConstants.mod1.moduleNumber);
-      blModule = new SwerveModuleIOSim(DriveTrainConstants.mod2.moduleNumber);
-      brModule = new SwerveModuleIOSim(DriveTrainConstants.mod3.moduleNumber);
+      SwerveModuleIOSim[] simModules = {
+        new SwerveModuleIOSim(DriveTrainConstants.mod0.moduleNumber),
+        new SwerveModuleIOSim(DriveTrainConstants.mod1.moduleNumber),
+        new SwerveModuleIOSim(DriveTrainConstants.mod2.moduleNumber),
+        new SwerveModuleIOSim(DriveTrainConstants.mod3.moduleNumber)
+      };
+      flModule = simModules[0];
+      frModule = simModules[1];
+      blModule = simModules[2];
+      brModule = simModules[3];
+      chassisSim = new SwerveChassisSim(simModules, DriveTrainConstants.moduleTranslations);
+      GyroIOSim simGyro = new GyroIOSim(chassisSim, 0);
+      simGyro.setTerrain(new ChargeStationSim());
+      this.gyro = simGyro;
     }
     driveTrain =
         new Drivetrain(
-            gyro,
+            this.gyro,
             new SwerveModule(flModule),
             new SwerveModule(frModule),
             new SwerveModule(blModule),
             new SwerveModule(brModule));
-    arm = new Arm();
+    arm = new Arm(RobotBase.isReal() ? new ArmIOSparkMax() : new ArmIOSim());
+    vision = new Vision(new VisionIOLimelight(Constants.LIMELIGHTNAME));
     test = new TestChecklist(this);
 
+    // the subsystems configure their devices concurrently; wait for all of them to finish
+    DeviceConfigurator.getInstance().awaitCompletion();
+
+    if (Constants.DEBUGGING) {
+      StatusFrameManager.getInstance().initLogging();
+    }
+
     // disable all telemetry in the LiveWindow to reduce the processing during each iteration
     LiveWindow.disableAllTelemetry();
 
     configureAutoCommands();
     configureAutoPaths();
 
+    warmUp = new WarmUpService(driveTrain, arm);
+
     // cam0 = CameraServer.startAutomaticCapture(0);
     // cam0.setConnectVerbose(0);
 
@@ -119,9 +159,18 @@ public class RobotContainer {
     // LimelightHelpers.setStreamMode_PiPSecondary("");
 
     ShuffleboardTab tab = Shuffleboard.getTab("MAIN");
-    tab.add(chooser).withSize(2, 1);
+    tab.add(autoRegistry.getChooser()).withSize(2, 1);
     tab.addNumber("DriveTrain/Drive Scaling", () -> oi.getDriveScaling());
     tab.addNumber("DriveTrain/Rotate Scaling", () -> oi.getRotateScaling());
+    if (RobotBase.isSimulation()) {
+      // stalls the main thread for one loop to verify the overrun watchdog's stack sampling
+      tab.add(
+          Commands.runOnce(() -> Timer.delay(0.05))
+              .ignoringDisable(true)
+              .withName("Inject Loop Overrun"));
+    }
+
+    LoopProfiler.getInstance().install();
   }
 
   /**
@@ -158,6 +207,9 @@ public class RobotContainer {
     arm.setDefaultCommand(new TeleopArm(arm, oi::getArmLift, oi::getArmExtend));
 
     configureButtonBindings();
+
+    // the button bindings were recreated; measure the commands from the end of the bindings
+    LoopProfiler.getInstance().install();
   }
 
   /**
@@ -194,15 +246,28 @@ public class RobotContainer {
    * @return the command to run in autonomous
    */
   public Command getAutonomousCommand() {
-    return chooser.getSelected();
+    return autoRegistry.getSelectedCommand();
+  }
+
+  /**
+   * Build the command for the auto selected in the chooser so that it is ready when autonomous
+   * starts. This should be invoked periodically while disabled.
+   */
+  public void updateAutoSelection() {
+    autoRegistry.updateSelection();
+  }
+
+  /**
+   * Run the hot paths with synthetic inputs until they are compiled by the JIT compiler. This must
+   * only be invoked periodically while disabled.
+   */
+  public void warmUp() {
+    warmUp.run();
   }
 
   /** Use this method to define your commands for autonomous mode. */
   private void configureAutoCommands() {
 
-    // Add commands to Autonomous Sendable Chooser
-    chooser.setDefaultOption("Do Nothing", Commands.none());
-
     // Create the AutoBuilder. This only needs to be created once when robot code starts, not every
     // time you want to create an auto command. A good place to put this is in RobotContainer along
     // with your subsystems.
@@ -227,12 +292,16 @@ public class RobotContainer {
             driveTrain::setSwerveModuleStates, // Module states consumer used to output to the drive
             // subsystem
             AUTO_EVENT_MAP,
-            true, // Should the path be automatically mirrored depending on alliance color.
-            // Optional, defaults to true
+            false, // Should the path be automatically mirrored depending on alliance color.
+            // AutoRegistry mirrors the paths for the red alliance while disabled instead
             driveTrain // The drive subsystem. Used to properly set the requirements of path
             // following commands
             );
 
+    // Add commands to Autonomous Sendable Chooser; each command is only built once it is selected
+    autoRegistry = new AutoRegistry(autoBuilder);
+    autoRegistry.addCommand("Do Nothing", Commands::none, true);
+
     // SmartDashboard Buttons
     // SmartDashboard.putData("Auto mode", chooser);
     // SmartDashboard.putData("Calibrate Arm", Commands.runOnce(arm::resetArm, arm));
@@ -255,26 +324,9 @@ public class RobotContainer {
     AUTO_EVENT_MAP.put("GrabPiece", new Grip(arm, false));
     AUTO_EVENT_MAP.put("ZeroArm", new PositionArm(arm, 0));
 
-    try {
-      DirectoryStream<Path> stream =
-          Files.newDirectoryStream(Robot.RESOURCES_PATH.resolve("pathplanner"));
-      for (Path file : stream) {
-        if (!Files.isDirectory(file)) {
-          String name = file.getFileName().toString().replaceFirst("[.][^.]+$", "");
-          pptrajectoryList.put(
-              name,
-              PathPlanner.loadPathGroup(
-                  name,
-                  AutoConstants.kMaxSpeedMetersPerSecond,
-                  AutoConstants.kMaxAccelerationMetersPerSecondSquared));
-        }
-      }
-    } catch (IOException ex) {
-      DriverStation.reportError("Unable to open pptrajectory: ", ex.getStackTrace());
-    }
-    for (Map.Entry<String, List<PathPlannerTrajectory>> entry : pptrajectoryList.entrySet()) {
-      chooser.addOption(entry.getKey(), autoBuilder.fullAuto(entry.getValue()));
-    }
+    // the trajectories are generated in the background while the rest of the robot starts
+    autoRegistry.addPaths(
+        Robot.RESOURCES_PATH.resolve("pathplanner"), Robot.RESOURCES_PATH.resolve("trajectories"));
     // for (Map.Entry<String, PathPlannerTrajectory> entry : pptrajectoryList.entrySet()) {
     //   Command autoPathBlue =
     //       new FollowPathWithEvents(
@@ -290,7 +342,7 @@ public class RobotContainer {
     //   chooser.addOption(entry.getKey(), Commands.either(autoPathBlue, autoPathRed, () ->
     // DriverStation.getAlliance() == Alliance.Blue));
     // }
-    chooser.addOption("Autonomous Command", new exampleAuto(driveTrain));
+    autoRegistry.addCommand("Autonomous Command", () -> new exampleAuto(driveTrain), false);
 
     /*    try {
       DirectoryStream<Path> stream =
@@ -334,7 +386,11 @@ public class RobotContainer {
 
   public void simulationInit() {}
 
-  public void simulationPeriodic() {}
+  public void simulationPeriodic() {
+    if (chassisSim != null) {
+      chassisSim.update(SwerveModuleIOSim.LOOP_PERIOD_SECS);
+    }
+  }
 
   public void testInit() {
     this.test.testInit();
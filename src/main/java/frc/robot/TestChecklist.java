@@ -2,8 +2,6 @@ package frc.robot;
 
 import static frc.robot.Constants.*;
 
-import com.revrobotics.CANSparkMax.ControlType;
-import com.revrobotics.REVLibError;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.networktables.GenericEntry;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInWidgets;
@@ -206,7 +204,7 @@ public class TestChecklist {
 
   public void testInit() {
     m_enableCheckList = true;
-    robot.arm.m_pH.disableCompressor();
+    robot.arm.disableCompressor();
 
     doResetTests();
     resetTeleopWidget();
@@ -237,7 +235,7 @@ public class TestChecklist {
 
   public void testExit() {
     m_enableCheckList = false;
-    robot.arm.m_pH.enableCompressorDigital();
+    robot.arm.enableCompressor();
   }
 
   public String getCurrentStep() {
@@ -392,9 +390,9 @@ public class TestChecklist {
       item.status += "Gyro(" + Constants.GYRO_ID + ") ";
     }
 
-    if (robot.arm.m_pH.getFaults().CanWarning) {
+    if (!robot.arm.isPneumaticHubConnected()) {
       allPresent = false;
-      item.status += "PH(" + robot.arm.m_pH.getModuleNumber() + ") ";
+      item.status += "PH(" + Constants.PNEUMATICSHUB_ID + ") ";
     }
 
     if (robot.power.getFaults().CanWarning) {
@@ -402,11 +400,11 @@ public class TestChecklist {
       item.status += "PDP(" + robot.power.getModule() + ") ";
     }
 
-    if (robot.arm.m_armLiftMotor.getLastError() == REVLibError.kCANDisconnected) {
+    if (!robot.arm.isLiftMotorConnected()) {
       allPresent = false;
       item.status += "SparkMax(" + Constants.ARM_LIFT_MOTOR_ID + ") ";
     }
-    if (robot.arm.m_armExtendMotor.getLastError() == REVLibError.kCANDisconnected) {
+    if (!robot.arm.isExtendMotorConnected()) {
       allPresent = false;
       item.status += "SparkMax(" + Constants.ARM_EXTEND_MOTOR_ID + ") ";
     }
@@ -513,11 +511,11 @@ public class TestChecklist {
     if (item.state == 0) {
       if (robot.arm.isArmExtendMinLimitSwitch()) {
         item.status = "Extending Arm";
-        robot.arm.m_armExtendMotor.set(-ArmConstants.armExtendResetOutput);
+        robot.arm.setArmExtendPercentage(-ArmConstants.armExtendResetOutput);
       } else {
         item.state = 1;
         item.status = "Click Arm Extend Limit Switch";
-        robot.arm.m_armExtendMotor.set(0.0);
+        robot.arm.setArmExtendPercentage(0.0);
       }
     } else if ((item.state == 1) && robot.arm.isArmExtendMinLimitSwitch()) {
       item.state = 2;
@@ -535,11 +533,11 @@ public class TestChecklist {
     if (item.state == 0) {
       if (robot.arm.isArmLiftMinLimitSwitch()) {
         item.status = "Lifting Arm";
-        robot.arm.m_armLiftMotor.set(-ArmConstants.armLiftResetOutput);
+        robot.arm.setArmLiftPercentage(-ArmConstants.armLiftResetOutput);
       } else {
         item.state = 1;
         item.status = "Click Arm Lift Limit Switch";
-        robot.arm.m_armLiftMotor.set(0.0);
+        robot.arm.setArmLiftPercentage(0.0);
       }
     } else if ((item.state == 1) && robot.arm.isArmLiftMinLimitSwitch()) {
       item.state = 2;
@@ -572,23 +570,23 @@ public class TestChecklist {
         item.state = 1;
         item.status = "Calibrating Extend Arm";
         if (!robot.arm.isArmExtendMinLimitSwitch()) {
-          robot.arm.m_armExtendMotor.set(ArmConstants.armExtendResetOutput);
+          robot.arm.setArmExtendPercentage(ArmConstants.armExtendResetOutput);
         }
       }
     } else if (item.state == 1) {
       if (robot.arm.isArmExtendMinLimitSwitch()) {
-        robot.arm.m_armExtendMotor.set(0.0);
-        robot.arm.m_armExtendEncoder.setPosition(0.0);
+        robot.arm.setArmExtendPercentage(0.0);
+        robot.arm.zeroArmExtendPosition();
         item.state = 2;
         item.status = "Calibrating Lift Arm";
         if (!robot.arm.isArmLiftMinLimitSwitch()) {
-          robot.arm.m_armLiftMotor.set(ArmConstants.armLiftResetOutput);
+          robot.arm.setArmLiftPercentage(ArmConstants.armLiftResetOutput);
         }
       }
     } else if (item.state == 2) {
       if (robot.arm.isArmLiftMinLimitSwitch()) {
-        robot.arm.m_armLiftMotor.set(0.0);
-        robot.arm.m_armLiftEncoder.setPosition(0.0);
+        robot.arm.setArmLiftPercentage(0.0);
+        robot.arm.zeroArmLiftPosition();
         item.state = 3;
         item.status = "Calibrating Arm Complete";
         item.setComplete(true);
@@ -603,8 +601,7 @@ public class TestChecklist {
       if (!getDoStep()) {
         item.status = "Click 'Step' to Raise Arm to Max Height";
       } else {
-        robot.arm.m_armLiftController.setReference(
-            ArmConstants.armLiftMaxPosition, ControlType.kPosition);
+        robot.arm.driveArmLiftTo(ArmConstants.armLiftMaxPosition);
         item.state = 1;
         item.status = "Raising Arm";
       }
@@ -624,8 +621,7 @@ public class TestChecklist {
       if (!getDoStep()) {
         item.status = "Click 'Step' to Extend Arm to Max Length";
       } else {
-        robot.arm.m_armExtendController.setReference(
-            ArmConstants.armExtendMaxPosition, ControlType.kPosition);
+        robot.arm.driveArmExtendTo(ArmConstants.armExtendMaxPosition);
         item.state = 1;
         item.status = "Extending Arm";
       }
@@ -646,13 +642,13 @@ public class TestChecklist {
       if (!getDoStep()) {
         item.status = "Click 'Step' to reset Arm to Zero";
       } else {
-        robot.arm.m_armExtendController.setReference(0.0, ControlType.kPosition);
+        robot.arm.driveArmExtendTo(0.0);
         item.state = 1;
         item.status = "Retracting Arm";
       }
     } else if ((item.state == 1)
         && (robot.arm.getArmExtendPosition() < ArmConstants.armExtendMoveThreshold)) {
-      robot.arm.m_armLiftController.setReference(0.0, ControlType.kPosition);
+      robot.arm.driveArmLiftTo(0.0);
       item.state = 2;
       item.status = "Lowering Arm";
     } else if ((item.state == 2)
@@ -681,11 +677,11 @@ public class TestChecklist {
       if (!getDoStep()) {
         item.status = "Click 'Step' to Start Compressor";
       } else {
-        robot.arm.m_pH.enableCompressorDigital();
+        robot.arm.enableCompressor();
         item.state = 1;
         item.status = "Compressor Enabled - waiting for full pressure";
       }
-    } else if ((item.state == 1) && !robot.arm.m_pH.getPressureSwitch()) {
+    } else if ((item.state == 1) && !robot.arm.getPressureSwitch()) {
       item.state = 2;
       item.status = "Compressor check complete";
       item.setComplete(true);
@@ -0,0 +1,256 @@
+package frc.robot;
+
+import static frc.robot.Constants.*;
+
+import com.pathplanner.lib.PathConstraints;
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import com.pathplanner.lib.PathPoint;
+import com.pathplanner.lib.controllers.PPHolonomicDriveController;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
+import frc.lib.limelightvision.LimelightResultsParser;
+import frc.lib.util.CompactTrajectory;
+import frc.lib.util.PoseHistory;
+import frc.lib.util.SwervePoseEstimator;
+import frc.robot.subsystems.arm.Arm;
+import frc.robot.subsystems.drivetrain.DriveTrainConstants;
+import frc.robot.subsystems.drivetrain.Drivetrain;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Warms up the JIT compiler while the robot is disabled so that the first autonomous loop doesn't
+ * run the hot paths in the interpreter.
+ *
+ * <p>Each disabled loop, the service runs rounds of synthetic inputs through the drivetrain's
+ * drive and setSwerveModuleStates methods (with the swerve modules' outputs muted), the holonomic
+ * drive controller that PPSwerveControllerCommand uses following a generated path, trajectory
+ * sampling, a pose estimator, the arm's setpoint envelope, and the Limelight results parser until
+ * its time budget for the loop is spent. The controller is used directly rather than through the
+ * command, which would publish to the dashboard and the PathPlanner server. The pose estimator and
+ * controllers are separate instances, so the robot's pose isn't affected.
+ *
+ * <p>The JVM doesn't report which methods are compiled; instead, the hot paths are considered
+ * compiled once the average time of a round in each loop has stayed near its minimum for
+ * STABLE_LOOPS consecutive loops. Only the rounds themselves are timed, so compilation of other
+ * code (e.g., by the auto registry's background threads) doesn't delay this. In case the round
+ * time never settles, the service also stops after MAX_WARM_UP_SECS of warming up. The service
+ * then reports how long the warm-up took.
+ */
+public class WarmUpService {
+  /* Time spent warming up in each disabled loop; the loop is 20 ms */
+  private static final double BUDGET_SECS = 0.005;
+  /* Consecutive loops at steady state required to consider the hot paths compiled */
+  private static final int STABLE_LOOPS = 50;
+  /* A loop is at steady state if its average round is within this factor of the fastest */
+  private static final double STEADY_ROUND_FACTOR = 1.25;
+  /* Stop after this much time warming up (200 s disabled at the budget) even if not steady */
+  private static final double MAX_WARM_UP_SECS = 10.0;
+
+  private static final String SYNTHETIC_RESULTS =
+      "{\"Results\":{\"v\":1,\"pID\":0,\"tl\":12.5,\"cl\":11.0,\"ts\":123456.0,"
+          + "\"botpose\":[0.1,0.2,0.0,0.0,0.0,10.0],"
+          + "\"botpose_wpiblue\":[8.37,4.21,0.0,0.0,0.0,10.0],"
+          + "\"botpose_wpired\":[8.17,-3.79,0.0,0.0,0.0,190.0],"
+          + "\"Fiducial\":[{\"fID\":1,\"t6t_cs\":[0.5,0.1,2.5,0.0,0.0,0.0]},"
+          + "{\"fID\":2,\"t6t_cs\":[-0.5,0.1,2.7,0.0,0.0,0.0]}],"
+          + "\"Retro\":[],\"Classifier\":[],\"Detector\":[]}}";
+
+  private final Drivetrain drivetrain;
+  private final Arm arm;
+
+  private final PathPlannerTrajectory trajectory;
+  private final CompactTrajectory.Cursor cursor;
+  private final CompactTrajectory.Sample sample = new CompactTrajectory.Sample();
+  private final PPHolonomicDriveController controller =
+      new PPHolonomicDriveController(
+          new PIDController(AutoConstants.kPXController, 0.0, 0.0),
+          new PIDController(AutoConstants.kPYController, 0.0, 0.0),
+          new PIDController(AutoConstants.kPThetaController, 0.0, 0.0));
+  private double pathStart = 0.0;
+
+  private final SwervePoseEstimator poseEstimator =
+      new SwervePoseEstimator(DriveTrainConstants.moduleTranslations, 128);
+  private final PoseHistory poseHistory = new PoseHistory(50);
+  private final double[] distances = new double[4];
+  private final double[] anglesRad = new double[4];
+  private final double[] historyPose = new double[3];
+  private final double[] armSetpoints = new double[2];
+  private final LimelightResultsParser.Results results = new LimelightResultsParser.Results();
+  private Pose2d syntheticPose = new Pose2d();
+
+  private final CompilationMXBean compilationMXBean = ManagementFactory.getCompilationMXBean();
+  private long bestRoundNanos = Long.MAX_VALUE;
+  private long lastRoundNanos = 0;
+  private int stableLoops = 0;
+  private long rounds = 0;
+  private double warmUpSecs = 0.0;
+  private boolean warm = false;
+
+  /**
+   * Create a new WarmUpService.
+   *
+   * @param drivetrain the drivetrain whose drive code is warmed up
+   * @param arm the arm whose setpoint envelope is warmed up
+   */
+  public WarmUpService(Drivetrain drivetrain, Arm arm) {
+    this.drivetrain = drivetrain;
+    this.arm = arm;
+
+    this.trajectory =
+        PathPlanner.generatePath(
+            new PathConstraints(
+                AutoConstants.kMaxSpeedMetersPerSecond,
+                AutoConstants.kMaxAccelerationMetersPerSecondSquared),
+            new PathPoint(new Translation2d(2.0, 2.0), new Rotation2d(), new Rotation2d()),
+            new PathPoint(
+                new Translation2d(4.0, 3.0), new Rotation2d(), Rotation2d.fromDegrees(90.0)),
+            new PathPoint(
+                new Translation2d(6.0, 2.0), new Rotation2d(), Rotation2d.fromDegrees(180.0)));
+    this.cursor = CompactTrajectory.fromTrajectory(trajectory).cursor();
+
+    initLogging();
+  }
+
+  /**
+   * Run rounds of synthetic inputs through the hot paths until this loop's time budget is spent.
+   * This must be invoked from the main robot thread and only while the robot is disabled.
+   */
+  public void run() {
+    if (warm) {
+      return;
+    }
+
+    double start = Timer.getFPGATimestamp();
+    long loopRoundNanos = 0;
+    int loopRounds = 0;
+    drivetrain.setOutputsMuted(true);
+    try {
+      do {
+        long roundStart = System.nanoTime();
+        runRound();
+        loopRoundNanos += System.nanoTime() - roundStart;
+        loopRounds++;
+        rounds++;
+      } while (Timer.getFPGATimestamp() - start < BUDGET_SECS);
+    } finally {
+      drivetrain.setOutputsMuted(false);
+    }
+    warmUpSecs += Timer.getFPGATimestamp() - start;
+    lastRoundNanos = loopRoundNanos / loopRounds;
+
+    updateWarm();
+  }
+
+  /**
+   * Returns true if the hot paths are considered compiled.
+   *
+   * @return true if the hot paths are considered compiled
+   */
+  public boolean isWarm() {
+    return warm;
+  }
+
+  private void runRound() {
+    double timestamp = Timer.getFPGATimestamp();
+    double phase = rounds * 0.01;
+    double vx = 2.0 * Math.sin(phase);
+    double vy = 2.0 * Math.cos(phase * 0.7);
+    double omega = Math.sin(phase * 1.3);
+    syntheticPose =
+        new Pose2d(
+            2.0 + Math.sin(phase), 2.0 + Math.cos(phase), new Rotation2d(Math.sin(phase * 0.5)));
+
+    // teleop and autonomous drive paths
+    drivetrain.drive(vx, vy, omega);
+    SwerveModuleState[] states =
+        drivetrain.kinematics.toSwerveModuleStates(new ChassisSpeeds(vx, vy, omega));
+    drivetrain.setSwerveModuleStates(states);
+
+    // path following and trajectory sampling; restart the path once it has been followed
+    if (timestamp - pathStart > trajectory.getTotalTimeSeconds()) {
+      pathStart = timestamp;
+      cursor.reset();
+    }
+    double pathTime = timestamp - pathStart;
+    PathPlannerState desiredState = trajectory.sample(pathTime);
+    ChassisSpeeds speeds = controller.calculate(syntheticPose, desiredState);
+    drivetrain.setSwerveModuleStates(drivetrain.kinematics.toSwerveModuleStates(speeds));
+    cursor.sample(pathTime, sample);
+
+    // pose estimation
+    for (int i = 0; i < 4; i++) {
+      distances[i] += states[i].speedMetersPerSecond * 0.02;
+      anglesRad[i] = states[i].angle.getRadians();
+    }
+    poseEstimator.updateWithTime(
+        timestamp, syntheticPose.getRotation().getRadians(), distances, anglesRad);
+    poseHistory.add(
+        timestamp,
+        poseEstimator.getX(),
+        poseEstimator.getY(),
+        poseEstimator.getRotationRadians());
+    if (rounds % 10 == 0) {
+      poseEstimator.addVisionMeasurement(
+          syntheticPose.getX(),
+          syntheticPose.getY(),
+          syntheticPose.getRotation().getRadians(),
+          timestamp - 0.05,
+          0.5,
+          0.5,
+          1e6);
+      poseHistory.getPose(timestamp - 0.05, historyPose);
+    }
+
+    // arm envelope and vision parsing
+    arm.limitSetpoints(
+        50.0 + 50.0 * Math.sin(phase), 100.0 + 100.0 * Math.cos(phase), 100.0, 50.0, armSetpoints);
+    LimelightResultsParser.parse(SYNTHETIC_RESULTS, results);
+  }
+
+  private void updateWarm() {
+    // rounds that are still getting much faster or are much slower than the fastest aren't steady
+    if (lastRoundNanos * STEADY_ROUND_FACTOR >= bestRoundNanos
+        && lastRoundNanos <= bestRoundNanos * STEADY_ROUND_FACTOR) {
+      stableLoops++;
+    } else {
+      stableLoops = 0;
+    }
+    bestRoundNanos = Math.min(bestRoundNanos, lastRoundNanos);
+
+    boolean steady = stableLoops >= STABLE_LOOPS;
+    if (steady || warmUpSecs >= MAX_WARM_UP_SECS) {
+      warm = true;
+      long compilationTimeMs =
+          compilationMXBean != null && compilationMXBean.isCompilationTimeMonitoringSupported()
+              ? compilationMXBean.getTotalCompilationTime()
+              : 0;
+      System.out.printf(
+          "WarmUpService: %s after %d rounds and %.2f s; %.1f us per round; %d ms compiling%n",
+          steady ? "warm" : "stopped before steady state",
+          rounds,
+          warmUpSecs,
+          bestRoundNanos / 1000.0,
+          compilationTimeMs);
+    }
+  }
+
+  private void initLogging() {
+    if (DEBUGGING) {
+      ShuffleboardTab tab = Shuffleboard.getTab("Warm Up");
+      tab.addBoolean("Warm", () -> warm);
+      tab.addNumber("Rounds", () -> rounds);
+      tab.addNumber("Round us", () -> lastRoundNanos / 1000.0);
+      tab.addNumber("Stable Loops", () -> stableLoops);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package frc.robot.autos;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.Random;
+
+/**
+ * The errors with which an auto is run in simulation: the error of the robot's starting pose
+ * relative to the start of the path, the error of each CANcoder's offset, the gyro's drift rate,
+ * and the battery's nominal voltage and internal resistance. The errors are drawn from a random
+ * generator with the specified seed, so a trial can be repeated by running it with the same seed.
+ */
+public class AutoPerturbation {
+  private static final double START_TRANSLATION_STDDEV_METERS = 0.05;
+  private static final double START_HEADING_STDDEV_DEG = 2.0;
+  private static final double ANGLE_OFFSET_STDDEV_DEG = 1.0;
+  private static final double GYRO_DRIFT_STDDEV_DEG_PER_SEC = 0.05;
+  private static final double MIN_BATTERY_VOLTS = 11.8;
+  private static final double MAX_BATTERY_VOLTS = 12.8;
+  private static final double MIN_BATTERY_RESISTANCE_OHMS = 0.012;
+  private static final double MAX_BATTERY_RESISTANCE_OHMS = 0.030;
+
+  /** No errors and a battery that doesn't sag. */
+  public static final AutoPerturbation NONE =
+      new AutoPerturbation(-1, new Transform2d(), new double[4], 0.0, 12.0, 0.0);
+
+  public final long seed;
+  /* The actual starting pose relative to the start of the path */
+  public final Transform2d startError;
+  public final double[] angleOffsetErrorsRad;
+  public final double gyroDriftDegPerSec;
+  public final double batteryVolts;
+  public final double batteryResistanceOhms;
+
+  private AutoPerturbation(
+      long seed,
+      Transform2d startError,
+      double[] angleOffsetErrorsRad,
+      double gyroDriftDegPerSec,
+      double batteryVolts,
+      double batteryResistanceOhms) {
+    this.seed = seed;
+    this.startError = startError;
+    this.angleOffsetErrorsRad = angleOffsetErrorsRad;
+    this.gyroDriftDegPerSec = gyroDriftDegPerSec;
+    this.batteryVolts = batteryVolts;
+    this.batteryResistanceOhms = batteryResistanceOhms;
+  }
+
+  /**
+   * Draw the errors from a random generator with the specified seed.
+   *
+   * @param seed the seed
+   * @return the errors
+   */
+  public static AutoPerturbation fromSeed(long seed) {
+    Random random = new Random(seed);
+    Transform2d startError =
+        new Transform2d(
+            new Translation2d(
+                random.nextGaussian() * START_TRANSLATION_STDDEV_METERS,
+                random.nextGaussian() * START_TRANSLATION_STDDEV_METERS),
+            Rotation2d.fromDegrees(random.nextGaussian() * START_HEADING_STDDEV_DEG));
+    double[] angleOffsetErrorsRad = new double[4];
+    for (int i = 0; i < angleOffsetErrorsRad.length; i++) {
+      angleOffsetErrorsRad[i] = Math.toRadians(random.nextGaussian() * ANGLE_OFFSET_STDDEV_DEG);
+    }
+    double gyroDriftDegPerSec = random.nextGaussian() * GYRO_DRIFT_STDDEV_DEG_PER_SEC;
+    double batteryVolts =
+        MIN_BATTERY_VOLTS + random.nextDouble() * (MAX_BATTERY_VOLTS - MIN_BATTERY_VOLTS);
+    double batteryResistanceOhms =
+        MIN_BATTERY_RESISTANCE_OHMS
+            + random.nextDouble() * (MAX_BATTERY_RESISTANCE_OHMS - MIN_BATTERY_RESISTANCE_OHMS);
+    return new AutoPerturbation(
+        seed,
+        startError,
+        angleOffsetErrorsRad,
+        gyroDriftDegPerSec,
+        batteryVolts,
+        batteryResistanceOhms);
+  }
+}
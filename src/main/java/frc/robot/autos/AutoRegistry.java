@@ -0,0 +1,321 @@
+package frc.robot.autos;
+
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.auto.SwerveAutoBuilder;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import frc.lib.util.TrajectoryFile;
+import frc.robot.AutoConstants;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the autonomous routines that can be selected in the chooser.
+ *
+ * <p>At startup, the PathPlanner directory is only indexed by file name; the trajectories for each
+ * path group are then generated in parallel on a background pool. The command for an auto is only
+ * built when the auto is selected in the chooser, which is checked while the robot is disabled, so
+ * the selected auto is ready when autonomous starts and commands are never built for the autos that
+ * aren't selected. A path group is only added to the chooser once its trajectories have been
+ * generated, so a path group that fails to load is reported and left out of the chooser.
+ *
+ * <p>Both the blue and red alliance variants of each path group are generated in the background,
+ * and the commands for both alliances are built when an auto is selected. Therefore, the builder
+ * must not mirror the trajectories itself (i.e., useAllianceColor must be false), and starting
+ * autonomous only looks up the command for the current alliance.
+ *
+ * <p>When a path group has been precompiled into a binary trajectory file by the
+ * compileTrajectories Gradle task, its trajectories are loaded from that file instead.
+ */
+public class AutoRegistry {
+  /* One thread per roboRIO core; the threads run at minimum priority below the main robot thread */
+  private static final int THREAD_COUNT = 2;
+  /* The pool's threads exit once idle for this long and are recreated if more paths are added */
+  private static final long THREAD_KEEP_ALIVE_SECS = 1;
+
+  private final SwerveAutoBuilder autoBuilder;
+  private final SendableChooser<String> chooser = new SendableChooser<>();
+  private final Map<String, Supplier<Command>> commandAutos = new HashMap<>();
+  /* The trajectories for each path group, keyed by path name and then alliance */
+  private final Map<String, CompletableFuture<Map<Alliance, List<PathPlannerTrajectory>>>>
+      pathAutos = new TreeMap<>();
+  /* The path groups that haven't been added to the chooser yet, in the order they will be added */
+  private final List<String> loadingNames = new ArrayList<>();
+  private final ThreadPoolExecutor executor =
+      new ThreadPoolExecutor(
+          THREAD_COUNT,
+          THREAD_COUNT,
+          THREAD_KEEP_ALIVE_SECS,
+          TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(),
+          runnable -> {
+            Thread thread = new Thread(runnable, "AutoRegistry");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+          });
+
+  private final AtomicInteger precompiledCount = new AtomicInteger();
+
+  private String selectedName = null;
+  private final Map<Alliance, Command> selectedCommands = new EnumMap<>(Alliance.class);
+
+  /**
+   * Create a new AutoRegistry.
+   *
+   * @param autoBuilder the builder used to create the commands for PathPlanner path groups
+   */
+  public AutoRegistry(SwerveAutoBuilder autoBuilder) {
+    this.autoBuilder = autoBuilder;
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Add an auto whose command is created by the specified factory when the auto is selected.
+   *
+   * @param name the name of the auto displayed in the chooser
+   * @param factory creates the command for the auto
+   * @param isDefault true if this auto is selected by default
+   */
+  public void addCommand(String name, Supplier<Command> factory, boolean isDefault) {
+    commandAutos.put(name, factory);
+    if (isDefault) {
+      chooser.setDefaultOption(name, name);
+    } else {
+      chooser.addOption(name, name);
+    }
+  }
+
+  /**
+   * Add an auto for each PathPlanner path group in the specified directory and start loading their
+   * trajectories in the background. Each auto is added to the chooser by updateSelection once its
+   * trajectories have been loaded. This may be invoked more than once (e.g., for another
+   * directory).
+   *
+   * @param directory the directory containing the PathPlanner path files
+   * @param compiledDirectory the directory containing the binary trajectory files
+   */
+  public void addPaths(Path directory, Path compiledDirectory) {
+    long start = System.nanoTime();
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (Path file : stream) {
+        if (!Files.isDirectory(file)) {
+          files.add(file);
+        }
+      }
+    } catch (IOException ex) {
+      DriverStation.reportError("Unable to open pptrajectory: ", ex.getStackTrace());
+    }
+
+    List<String> names = new ArrayList<>();
+    for (Path file : files) {
+      String name = file.getFileName().toString().replaceFirst("[.][^.]+$", "");
+      pathAutos.put(
+          name,
+          CompletableFuture.supplyAsync(
+                  () -> mirrorPathGroup(loadPathGroup(name, file, compiledDirectory)), executor)
+              .exceptionally(
+                  ex -> {
+                    // runs on the pool; the empty map leaves the auto out of the chooser
+                    DriverStation.reportError(
+                        "Unable to load path group: " + name + ": " + ex.getCause(), false);
+                    return new EnumMap<>(Alliance.class);
+                  }));
+      names.add(name);
+    }
+    Collections.sort(names);
+    loadingNames.addAll(names);
+
+    double indexMs = (System.nanoTime() - start) / 1.0e6;
+    CompletableFuture.allOf(pathAutos.values().toArray(new CompletableFuture<?>[0]))
+        .whenComplete(
+            (result, ex) -> {
+              System.out.printf(
+                  "AutoRegistry: indexed %d paths in %.1f ms; loaded in %.1f ms (%d precompiled)%n",
+                  files.size(),
+                  indexMs,
+                  (System.nanoTime() - start) / 1.0e6,
+                  precompiledCount.get());
+            });
+  }
+
+  public SendableChooser<String> getChooser() {
+    return chooser;
+  }
+
+  /**
+   * Add the autos whose trajectories have been generated to the chooser, and build the commands for
+   * both alliances for the auto selected in the chooser if the selection has changed and its
+   * trajectories have been generated. This should be invoked periodically while disabled.
+   */
+  public void updateSelection() {
+    addLoadedPaths();
+
+    String name = chooser.getSelected();
+    if (name == null || name.equals(selectedName)) {
+      return;
+    }
+
+    CompletableFuture<Map<Alliance, List<PathPlannerTrajectory>>> trajectories =
+        pathAutos.get(name);
+    if (trajectories != null && !trajectories.isDone()) {
+      // check again next loop rather than block the main thread
+      return;
+    }
+    buildCommands(name);
+  }
+
+  /* Add the loaded path groups to the chooser in alphabetical order, except those that failed */
+  private void addLoadedPaths() {
+    while (!loadingNames.isEmpty()) {
+      String name = loadingNames.get(0);
+      CompletableFuture<Map<Alliance, List<PathPlannerTrajectory>>> trajectories =
+          pathAutos.get(name);
+      if (!trajectories.isDone()) {
+        return;
+      }
+      loadingNames.remove(0);
+      if (!trajectories.join().isEmpty()) {
+        chooser.addOption(name, name);
+      }
+    }
+  }
+
+  /**
+   * Returns the command for the current alliance for the auto selected in the chooser, building it
+   * if it hasn't been built while disabled.
+   *
+   * @return the command for the auto selected in the chooser
+   */
+  public Command getSelectedCommand() {
+    String name = chooser.getSelected();
+    if (name != null && !name.equals(selectedName)) {
+      buildCommands(name);
+    }
+    return selectedCommands.get(getAlliance());
+  }
+
+  /**
+   * Returns the names of the autos for the PathPlanner path groups in alphabetical order.
+   *
+   * @return the names of the autos for the PathPlanner path groups
+   */
+  public List<String> getPathNames() {
+    return new ArrayList<>(pathAutos.keySet());
+  }
+
+  /**
+   * Returns the trajectories of the specified path group for the specified alliance, waiting for
+   * them to be generated if necessary.
+   *
+   * @param name the name of the path group
+   * @param alliance the alliance, which must be Blue or Red
+   * @return the trajectories, or null if the path group couldn't be loaded
+   */
+  public List<PathPlannerTrajectory> getTrajectories(String name, Alliance alliance) {
+    return pathAutos.get(name).join().get(alliance);
+  }
+
+  /**
+   * Build a new command for the specified path group and alliance. Unlike getSelectedCommand, this
+   * doesn't depend on the chooser, and a new command is built every time (e.g., to run each auto in
+   * simulation).
+   *
+   * @param name the name of the path group
+   * @param alliance the alliance, which must be Blue or Red
+   * @return the command for the path group
+   */
+  public Command buildPathCommand(String name, Alliance alliance) {
+    List<PathPlannerTrajectory> trajectories = getTrajectories(name, alliance);
+    return trajectories != null ? autoBuilder.fullAuto(trajectories) : Commands.none();
+  }
+
+  /* Runs on the pool; the path group is generated if its binary file is missing or stale */
+  private List<PathPlannerTrajectory> loadPathGroup(
+      String name, Path file, Path compiledDirectory) {
+    try {
+      List<PathPlannerTrajectory> trajectories =
+          TrajectoryFile.read(
+              compiledDirectory.resolve(name + TrajectoryFile.EXTENSION),
+              AutoConstants.kMaxSpeedMetersPerSecond,
+              AutoConstants.kMaxAccelerationMetersPerSecondSquared,
+              TrajectoryFile.checksum(file));
+      if (trajectories != null) {
+        precompiledCount.incrementAndGet();
+        return trajectories;
+      }
+    } catch (IOException | RuntimeException ex) {
+      DriverStation.reportWarning("Unable to load binary trajectory: " + name, false);
+    }
+    return PathPlanner.loadPathGroup(
+        name,
+        AutoConstants.kMaxSpeedMetersPerSecond,
+        AutoConstants.kMaxAccelerationMetersPerSecondSquared);
+  }
+
+  /* Runs on the pool; the red trajectories are mirrored with the transform PathPlanner uses */
+  private static Map<Alliance, List<PathPlannerTrajectory>> mirrorPathGroup(
+      List<PathPlannerTrajectory> trajectories) {
+    Map<Alliance, List<PathPlannerTrajectory>> mirrored = new EnumMap<>(Alliance.class);
+    if (trajectories == null || trajectories.isEmpty()) {
+      return mirrored;
+    }
+
+    List<PathPlannerTrajectory> red = new ArrayList<>(trajectories.size());
+    for (PathPlannerTrajectory trajectory : trajectories) {
+      red.add(PathPlannerTrajectory.transformTrajectoryForAlliance(trajectory, Alliance.Red));
+    }
+    mirrored.put(Alliance.Blue, trajectories);
+    mirrored.put(Alliance.Red, red);
+    return mirrored;
+  }
+
+  private void buildCommands(String name) {
+    selectedName = name;
+    selectedCommands.clear();
+
+    Supplier<Command> factory = commandAutos.get(name);
+    if (factory != null) {
+      Command command = factory.get();
+      selectedCommands.put(Alliance.Blue, command);
+      selectedCommands.put(Alliance.Red, command);
+      return;
+    }
+
+    Map<Alliance, List<PathPlannerTrajectory>> trajectories = pathAutos.get(name).join();
+    if (trajectories.isEmpty()) {
+      DriverStation.reportError("Unable to load path group: " + name, false);
+      selectedCommands.put(Alliance.Blue, Commands.none());
+      selectedCommands.put(Alliance.Red, Commands.none());
+      return;
+    }
+    for (Map.Entry<Alliance, List<PathPlannerTrajectory>> entry : trajectories.entrySet()) {
+      selectedCommands.put(entry.getKey(), autoBuilder.fullAuto(entry.getValue()));
+    }
+  }
+
+  /* The builder doesn't mirror the trajectories for an invalid alliance; neither does this */
+  private static Alliance getAlliance() {
+    return DriverStation.getAlliance() == Alliance.Red ? Alliance.Red : Alliance.Blue;
+  }
+}
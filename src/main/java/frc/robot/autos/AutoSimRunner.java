@@ -0,0 +1,333 @@
+package frc.robot.autos;
+
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import com.pathplanner.lib.commands.PPSwerveControllerCommand;
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.BatterySim;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.lib.gyro.GyroIOSim;
+import frc.lib.swerve.SwerveChassisSim;
+import frc.lib.swerve.SwerveModuleIOSim;
+import frc.robot.RobotContainer;
+import frc.robot.subsystems.drivetrain.ChargeStationSim;
+import frc.robot.subsystems.drivetrain.DriveTrainConstants;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs every PathPlanner auto in simulation as fast as possible and writes a report of how well
+ * each one is followed to a CSV file. This is run by the simulateAutos Gradle task, and by each
+ * worker process of the AutoSweepRunner.
+ *
+ * <p>The RobotContainer is created as it is in simulation, and the simulated FPGA time is paused
+ * and stepped by one loop period after each loop, so the subsystems and commands see the same
+ * timestamps as they would in real time. Each auto is run for the blue alliance until its command
+ * finishes or TIMEOUT_SECS of simulated time elapse. Before each auto, the robot is disabled and
+ * the simulated modules, chassis, and gyro are reset to the state determined by the auto's seed,
+ * so the result of a trial doesn't depend on the autos run before it. Each auto resets the
+ * estimated pose to the start of its first path.
+ *
+ * <p>The actual pose of the robot is simulated by a SwerveChassisSim, which is moved to the start
+ * of the first path offset by the perturbation's starting pose error before the gyro is reset and
+ * the robot settles, so the gyro reads the start heading when the auto resets the estimated pose.
+ * For each auto, the report
+ * contains the simulated duration, the error of the final actual pose relative to the end of the
+ * last path, the RMS and maximum tracking error of the actual position and heading, and the time
+ * taken by each loop on this computer. The tracking error is relative to the state of the path
+ * being followed at the time since that path started, so a robot that lags behind the path or
+ * has the wrong heading has a large error even if it is on the path.
+ *
+ * <p>If a first seed and a number of seeds are specified, every auto is run once with the
+ * perturbation for each seed; otherwise, every auto is run once without a perturbation.
+ */
+public class AutoSimRunner {
+  static final String REPORT_HEADER =
+      "auto,seed,finished,duration_s,final_error_m,final_heading_error_deg,rms_error_m,"
+          + "max_error_m,rms_heading_error_deg,max_heading_error_deg,loop_p50_us,loop_p99_us,"
+          + "loop_max_us";
+
+  private static final double LOOP_PERIOD_SECS = 0.02;
+  private static final double TIMEOUT_SECS = 15.0;
+  /* The number of disabled loops between autos, which lets the modules come to a stop */
+  private static final int SETTLE_LOOPS = 50;
+  private static final int MAX_LOOPS = (int) Math.ceil(TIMEOUT_SECS / LOOP_PERIOD_SECS);
+  private static final SwerveModuleState[] STOPPED_STATES = {
+    new SwerveModuleState(),
+    new SwerveModuleState(),
+    new SwerveModuleState(),
+    new SwerveModuleState()
+  };
+
+  private final RobotContainer container;
+  private final SwerveModuleIOSim[] modules = new SwerveModuleIOSim[4];
+  private final double[] moduleCurrents = new double[4];
+  private final SwerveChassisSim chassisSim;
+  private final GyroIOSim gyro;
+  private AutoPerturbation perturbation = AutoPerturbation.NONE;
+  /* The path being followed and the time at which it started */
+  private PathPlannerTrajectory activeTrajectory = null;
+  private double activeStartTime = 0.0;
+
+  static class Result {
+    String name;
+    long seed;
+    double durationSecs;
+    boolean finished;
+    double finalErrorMeters;
+    double finalHeadingErrorDeg;
+    double rmsErrorMeters;
+    double maxErrorMeters;
+    double rmsHeadingErrorDeg;
+    double maxHeadingErrorDeg;
+    long[] loopNanos;
+  }
+
+  AutoSimRunner() {
+    for (int i = 0; i < modules.length; i++) {
+      modules[i] = new SwerveModuleIOSim(i);
+    }
+    chassisSim = new SwerveChassisSim(modules, DriveTrainConstants.moduleTranslations);
+    gyro = new GyroIOSim(chassisSim, 0);
+    gyro.setTerrain(new ChargeStationSim());
+    container = new RobotContainer(gyro, modules);
+
+    PPSwerveControllerCommand.setLoggingCallbacks(
+        trajectory -> {
+          activeTrajectory = trajectory;
+          activeStartTime = Timer.getFPGATimestamp();
+        },
+        null,
+        null,
+        null);
+  }
+
+  /**
+   * Run every PathPlanner auto in simulation.
+   *
+   * @param args the CSV file to which the report is written and, optionally, the first seed and
+   *     the number of seeds
+   * @throws IOException if the report can't be written
+   */
+  public static void main(String[] args) throws IOException {
+    Path reportFile = Paths.get(args[0]);
+    long firstSeed = args.length > 2 ? Long.parseLong(args[1]) : 0;
+    int seedCount = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+
+    initializeSimulation();
+    AutoSimRunner runner = new AutoSimRunner();
+
+    if (reportFile.getParent() != null) {
+      Files.createDirectories(reportFile.getParent());
+    }
+    long start = System.nanoTime();
+    double simulatedSecs = 0.0;
+    int runs = 0;
+    try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(reportFile))) {
+      out.println(REPORT_HEADER);
+      for (String name : runner.container.autoRegistry.getPathNames()) {
+        if (seedCount == 0) {
+          Result result = runner.runAuto(name, AutoPerturbation.NONE);
+          write(out, result);
+          System.out.printf(
+              "AutoSimRunner: %-20s %6.2f s%s  final error %.3f m, %.1f deg  "
+                  + "RMS error %.3f m, %.1f deg%n",
+              result.name,
+              result.durationSecs,
+              result.finished ? "" : " (timed out)",
+              result.finalErrorMeters,
+              result.finalHeadingErrorDeg,
+              result.rmsErrorMeters,
+              result.rmsHeadingErrorDeg);
+          simulatedSecs += result.durationSecs;
+          runs++;
+        }
+        for (long seed = firstSeed; seed < firstSeed + seedCount; seed++) {
+          Result result = runner.runAuto(name, AutoPerturbation.fromSeed(seed));
+          write(out, result);
+          simulatedSecs += result.durationSecs;
+          runs++;
+        }
+      }
+    }
+
+    double elapsedSecs = (System.nanoTime() - start) / 1e9;
+    System.out.printf(
+        "AutoSimRunner: ran %d autos (%.1f s of match time) in %.2f s (%.0fx real time)%n",
+        runs, simulatedSecs, elapsedSecs, simulatedSecs / elapsedSecs);
+    // the robot code starts threads (e.g., NetworkTables) that would keep the JVM running
+    System.exit(0);
+  }
+
+  /* Initialize the HAL with the timing paused and a disabled blue driver station in autonomous */
+  static void initializeSimulation() {
+    HAL.initialize(500, 0);
+    SimHooks.pauseTiming();
+    DriverStationSim.setDsAttached(true);
+    DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+    DriverStationSim.setAutonomous(true);
+    DriverStationSim.setEnabled(false);
+    DriverStationSim.notifyNewData();
+  }
+
+  private static void write(PrintWriter out, Result result) {
+    long[] sorted = result.loopNanos.clone();
+    Arrays.sort(sorted);
+    out.printf(
+        "%s,%d,%b,%.2f,%.4f,%.2f,%.4f,%.4f,%.2f,%.2f,%.1f,%.1f,%.1f%n",
+        result.name,
+        result.seed,
+        result.finished,
+        result.durationSecs,
+        result.finalErrorMeters,
+        result.finalHeadingErrorDeg,
+        result.rmsErrorMeters,
+        result.maxErrorMeters,
+        result.rmsHeadingErrorDeg,
+        result.maxHeadingErrorDeg,
+        percentile(sorted, 0.50) / 1e3,
+        percentile(sorted, 0.99) / 1e3,
+        percentile(sorted, 1.0) / 1e3);
+  }
+
+  Result runAuto(String name, AutoPerturbation perturbation) {
+    Result result = new Result();
+    result.name = name;
+    result.seed = perturbation.seed;
+
+    List<PathPlannerTrajectory> trajectories =
+        container.autoRegistry.getTrajectories(name, Alliance.Blue);
+    if (trajectories == null || trajectories.isEmpty()) {
+      result.loopNanos = new long[0];
+      return result;
+    }
+
+    // start from the same simulated state for the seed regardless of the previous autos
+    container.driveTrain.stop();
+    setEnabled(false);
+    this.perturbation = perturbation;
+    // the unperturbed run has no seed and uses the same module and gyro seed as seed 0
+    long seed = Math.max(perturbation.seed, 0);
+    for (int i = 0; i < modules.length; i++) {
+      modules[i].resetSimulation(seed * modules.length + i);
+      modules[i].setAngleOffsetError(perturbation.angleOffsetErrorsRad[i]);
+    }
+    // the robot is placed at the start before the gyro is reset, so the gyro reads the start
+    // heading when the auto resets the estimated pose, as it would on the field
+    chassisSim.resetPose(
+        trajectories.get(0).getInitialHolonomicPose().transformBy(perturbation.startError));
+    gyro.resetSimulation(seed);
+    gyro.setDrift(perturbation.gyroDriftDegPerSec);
+    // once the modules' inputs are reset, point them straight ahead, which also replaces the angle
+    // the modules hold from the previous auto
+    runLoop();
+    container.driveTrain.setSwerveModuleStates(STOPPED_STATES, false, true);
+    for (int i = 1; i < SETTLE_LOOPS; i++) {
+      runLoop();
+    }
+
+    Command command = container.autoRegistry.buildPathCommand(name, Alliance.Blue);
+    activeTrajectory = null;
+    setEnabled(true);
+    command.schedule();
+
+    double startTime = Timer.getFPGATimestamp();
+    long[] loopNanos = new long[MAX_LOOPS];
+    double squaredErrorSum = 0.0;
+    double squaredHeadingErrorSum = 0.0;
+    int trackedLoops = 0;
+    int loops = 0;
+    while (loops < MAX_LOOPS) {
+      loopNanos[loops] = runLoop();
+      loops++;
+
+      // compare the actual pose with where the path being followed should be by now; between
+      // paths, the state is the end of the previous path
+      if (activeTrajectory != null) {
+        PathPlannerState state =
+            activeTrajectory.sample(Timer.getFPGATimestamp() - activeStartTime);
+        Pose2d actualPose = chassisSim.getPose();
+        double error = actualPose.getTranslation().getDistance(state.poseMeters.getTranslation());
+        double headingError =
+            Math.abs(actualPose.getRotation().minus(state.holonomicRotation).getDegrees());
+        squaredErrorSum += error * error;
+        squaredHeadingErrorSum += headingError * headingError;
+        result.maxErrorMeters = Math.max(result.maxErrorMeters, error);
+        result.maxHeadingErrorDeg = Math.max(result.maxHeadingErrorDeg, headingError);
+        trackedLoops++;
+      }
+
+      if (!command.isScheduled()) {
+        result.finished = true;
+        break;
+      }
+    }
+    result.durationSecs = Timer.getFPGATimestamp() - startTime;
+    if (trackedLoops > 0) {
+      result.rmsErrorMeters = Math.sqrt(squaredErrorSum / trackedLoops);
+      result.rmsHeadingErrorDeg = Math.sqrt(squaredHeadingErrorSum / trackedLoops);
+    }
+    result.loopNanos = Arrays.copyOf(loopNanos, loops);
+
+    PathPlannerTrajectory lastTrajectory = trajectories.get(trajectories.size() - 1);
+    PathPlannerState endState = lastTrajectory.getEndState();
+    Pose2d actualPose = chassisSim.getPose();
+    result.finalErrorMeters =
+        actualPose.getTranslation().getDistance(endState.poseMeters.getTranslation());
+    result.finalHeadingErrorDeg =
+        Math.abs(actualPose.getRotation().minus(endState.holonomicRotation).getDegrees());
+
+    CommandScheduler.getInstance().cancelAll();
+    setEnabled(false);
+    return result;
+  }
+
+  /* Run one robot loop and step the simulated time; returns the time taken by the loop */
+  private long runLoop() {
+    long start = System.nanoTime();
+    DriverStation.refreshData();
+    CommandScheduler.getInstance().run();
+    container.simulationPeriodic();
+    chassisSim.update(LOOP_PERIOD_SECS);
+    long nanos = System.nanoTime() - start;
+
+    // the battery voltage sags with the current drawn by the modules during the next loop
+    for (int i = 0; i < modules.length; i++) {
+      moduleCurrents[i] = modules[i].getCurrentDrawAmps();
+    }
+    RoboRioSim.setVInVoltage(
+        BatterySim.calculate(
+            perturbation.batteryVolts, perturbation.batteryResistanceOhms, moduleCurrents));
+    SimHooks.stepTiming(LOOP_PERIOD_SECS);
+    return nanos;
+  }
+
+  private static void setEnabled(boolean enabled) {
+    DriverStationSim.setEnabled(enabled);
+    DriverStationSim.notifyNewData();
+    DriverStation.refreshData();
+  }
+
+  private static double percentile(long[] sorted, double fraction) {
+    if (sorted.length == 0) {
+      return 0.0;
+    }
+    int index = (int) Math.ceil(fraction * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+}
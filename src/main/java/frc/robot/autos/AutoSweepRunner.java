@@ -0,0 +1,164 @@
+package frc.robot.autos;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs every PathPlanner auto in simulation many times with a different perturbation each time, in
+ * parallel on every core, and reports the success rate and the distribution of the final pose
+ * error for each auto. This is run by the sweepAutos Gradle task.
+ *
+ * <p>The HAL and the command scheduler are singletons, so each simulation must run in its own JVM.
+ * The seeds are divided between worker processes, each of which runs the AutoSimRunner for its
+ * seeds and writes a report of every trial. The reports are then combined into the summary. The
+ * AutoSimRunner resets the simulated robot to the state determined by the seed before each trial,
+ * so a trial's result depends only on its auto and seed, not on the worker that ran it or the
+ * trials before it. Therefore, a trial can be investigated by running the AutoSimRunner with that
+ * seed alone.
+ *
+ * <p>A trial succeeds if the auto finishes before it times out and the final actual pose is within
+ * SUCCESS_ERROR_METERS and SUCCESS_HEADING_ERROR_DEG of the end of the last path.
+ */
+public class AutoSweepRunner {
+  static final double SUCCESS_ERROR_METERS = 0.2;
+  static final double SUCCESS_HEADING_ERROR_DEG = 5.0;
+
+  private AutoSweepRunner() {}
+
+  /**
+   * Run the sweep.
+   *
+   * @param args the directory to which the reports are written, the number of trials of each auto,
+   *     and, optionally, the number of worker processes
+   * @throws IOException if a report can't be written or read
+   * @throws InterruptedException if interrupted while waiting for the workers
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    Path outputDirectory = Paths.get(args[0]);
+    int trials = Integer.parseInt(args[1]);
+    int workerCount =
+        Math.min(
+            trials,
+            args.length > 2
+                ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors());
+    Files.createDirectories(outputDirectory);
+
+    String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+
+    long start = System.nanoTime();
+    List<Process> workers = new ArrayList<>();
+    List<Path> reports = new ArrayList<>();
+    int firstSeed = 0;
+    for (int i = 0; i < workerCount; i++) {
+      int seedCount = trials / workerCount + (i < trials % workerCount ? 1 : 0);
+      Path report = outputDirectory.resolve("trials-" + i + ".csv");
+      File log = outputDirectory.resolve("worker-" + i + ".log").toFile();
+      workers.add(
+          new ProcessBuilder(
+                  java,
+                  "-cp",
+                  System.getProperty("java.class.path"),
+                  "-Djava.library.path=" + System.getProperty("java.library.path"),
+                  AutoSimRunner.class.getName(),
+                  report.toString(),
+                  Integer.toString(firstSeed),
+                  Integer.toString(seedCount))
+              .redirectErrorStream(true)
+              .redirectOutput(log)
+              .start());
+      reports.add(report);
+      firstSeed += seedCount;
+    }
+    for (int i = 0; i < workers.size(); i++) {
+      int exitCode = workers.get(i).waitFor();
+      if (exitCode != 0) {
+        throw new IOException(
+            String.format(
+                "Worker %d failed with exit code %d; see its log in %s",
+                i, exitCode, outputDirectory));
+      }
+    }
+    double elapsedSecs = (System.nanoTime() - start) / 1e9;
+
+    // the final errors of each auto's trials, keyed by auto name
+    Map<String, List<double[]>> trialsByAuto = new TreeMap<>();
+    for (Path report : reports) {
+      List<String> lines = Files.readAllLines(report);
+      // skip the header
+      for (String line : lines.subList(1, lines.size())) {
+        String[] fields = line.split(",");
+        double finished = Boolean.parseBoolean(fields[2]) ? 1.0 : 0.0;
+        trialsByAuto
+            .computeIfAbsent(fields[0], name -> new ArrayList<>())
+            .add(
+                new double[] {
+                  finished, Double.parseDouble(fields[4]), Double.parseDouble(fields[5])
+                });
+      }
+    }
+
+    Path summaryFile = outputDirectory.resolve("summary.csv");
+    try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(summaryFile))) {
+      out.println(
+          "auto,trials,success_rate,final_error_mean_m,final_error_p50_m,final_error_p95_m,"
+              + "final_error_max_m,final_heading_error_p95_deg");
+      for (Map.Entry<String, List<double[]>> entry : trialsByAuto.entrySet()) {
+        List<double[]> autoTrials = entry.getValue();
+        int count = autoTrials.size();
+        int successes = 0;
+        double errorSum = 0.0;
+        double[] errors = new double[count];
+        double[] headingErrors = new double[count];
+        for (int i = 0; i < count; i++) {
+          double[] trial = autoTrials.get(i);
+          errors[i] = trial[1];
+          headingErrors[i] = trial[2];
+          errorSum += trial[1];
+          if (trial[0] != 0.0
+              && trial[1] <= SUCCESS_ERROR_METERS
+              && trial[2] <= SUCCESS_HEADING_ERROR_DEG) {
+            successes++;
+          }
+        }
+        Arrays.sort(errors);
+        Arrays.sort(headingErrors);
+        double successRate = (double) successes / count;
+        out.printf(
+            "%s,%d,%.3f,%.4f,%.4f,%.4f,%.4f,%.2f%n",
+            entry.getKey(),
+            count,
+            successRate,
+            errorSum / count,
+            percentile(errors, 0.50),
+            percentile(errors, 0.95),
+            percentile(errors, 1.0),
+            percentile(headingErrors, 0.95));
+        System.out.printf(
+            "AutoSweepRunner: %-20s %5.1f%% succeeded  final error p50 %.3f m, p95 %.3f m%n",
+            entry.getKey(),
+            successRate * 100.0,
+            percentile(errors, 0.50),
+            percentile(errors, 0.95));
+      }
+    }
+
+    System.out.printf(
+        "AutoSweepRunner: ran %d trials of %d autos in %d workers in %.1f s%n",
+        trials, trialsByAuto.size(), workerCount, elapsedSecs);
+  }
+
+  private static double percentile(double[] sorted, double fraction) {
+    int index = (int) Math.ceil(fraction * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+}
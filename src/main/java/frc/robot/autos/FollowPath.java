@@ -2,6 +2,7 @@ package frc.robot.autos;
 
 import com.pathplanner.lib.PathPlannerTrajectory;
 import com.pathplanner.lib.commands.PPSwerveControllerCommand;
+import frc.lib.util.CompactTrajectory;
 import frc.robot.subsystems.drivetrain.Drivetrain;
 
 /**
@@ -47,6 +48,19 @@ public class FollowPath extends PPSwerveControllerCommand {
     this.initialPath = initialPath;
   }
 
+  /**
+   * Constructs a new FollowPath object that follows a CompactTrajectory. Each loop's sample is an
+   * O(1) lookup rather than a binary search of the trajectory's states.
+   *
+   * @param trajectory the specified trajectory
+   * @param subsystem the drivetrain subsystem required by this command
+   * @param initialPath true, if this trajectory is the first in a sequence of trajectories or the
+   *     only trajectory; false, if this trajectory is a subsequent trajectory
+   */
+  public FollowPath(CompactTrajectory trajectory, Drivetrain subsystem, boolean initialPath) {
+    this(trajectory.asPathPlannerTrajectory(), subsystem, initialPath);
+  }
+
   /**
    * This method is invoked once when this command is scheduled. If the trajectory is the first in a
    * sequence of trajectories or the only trajectory, initialize the gyro and odometry to match the
@@ -0,0 +1,78 @@
+package frc.robot.autos;
+
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import frc.lib.util.TrajectoryFile;
+import frc.robot.AutoConstants;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Generates a binary trajectory file for each PathPlanner path group so that the robot doesn't have
+ * to parse and generate them at startup. This is run by the compileTrajectories Gradle task from
+ * the project directory, which is where PathPlanner loads the path files from on the desktop.
+ *
+ * <p>Each file is read back after it is written and compared with the path group generated by
+ * PathPlanner; the build fails if they aren't equivalent.
+ */
+public class TrajectoryCompiler {
+  private static final double TOLERANCE = 1e-9;
+
+  private TrajectoryCompiler() {}
+
+  /**
+   * Generate the binary trajectory files.
+   *
+   * @param args the directory containing the .path files and the directory to which the binary
+   *     trajectory files are written
+   * @throws IOException if a file can't be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    Path pathDirectory = Paths.get(args[0]);
+    Path outputDirectory = Paths.get(args[1]);
+    Files.createDirectories(outputDirectory);
+
+    int count = 0;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(pathDirectory)) {
+      for (Path file : stream) {
+        if (Files.isDirectory(file)) {
+          continue;
+        }
+        String name = file.getFileName().toString().replaceFirst("[.][^.]+$", "");
+        List<PathPlannerTrajectory> trajectories =
+            PathPlanner.loadPathGroup(
+                name,
+                AutoConstants.kMaxSpeedMetersPerSecond,
+                AutoConstants.kMaxAccelerationMetersPerSecondSquared);
+        if (trajectories == null || trajectories.isEmpty()) {
+          throw new IOException("Unable to load path group: " + name);
+        }
+
+        long checksum = TrajectoryFile.checksum(file);
+        Path output = outputDirectory.resolve(name + TrajectoryFile.EXTENSION);
+        TrajectoryFile.write(
+            output,
+            trajectories,
+            AutoConstants.kMaxSpeedMetersPerSecond,
+            AutoConstants.kMaxAccelerationMetersPerSecondSquared,
+            checksum);
+
+        List<PathPlannerTrajectory> roundTrip =
+            TrajectoryFile.read(
+                output,
+                AutoConstants.kMaxSpeedMetersPerSecond,
+                AutoConstants.kMaxAccelerationMetersPerSecondSquared,
+                checksum);
+        if (roundTrip == null || !TrajectoryFile.equivalent(trajectories, roundTrip, TOLERANCE)) {
+          throw new IOException("Binary trajectory doesn't match path group: " + name);
+        }
+        count++;
+      }
+    }
+    System.out.printf("TrajectoryCompiler: generated %d path groups%n", count);
+  }
+}
@@ -4,6 +4,7 @@ import edu.wpi.first.math.trajectory.Trajectory;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.SwerveControllerCommand;
+import frc.lib.util.CompactTrajectory;
 import frc.robot.subsystems.drivetrain.Drivetrain;
 
 public class driveToTrajectory extends SequentialCommandGroup {
@@ -23,4 +24,8 @@ public class driveToTrajectory extends SequentialCommandGroup {
         Commands.runOnce(() -> driveTrain.resetPose(trajectory.getInitialPose()), driveTrain),
         swerveControllerCommand);
   }
+
+  public driveToTrajectory(Drivetrain driveTrain, CompactTrajectory trajectory) {
+    this(driveTrain, trajectory.asPathPlannerTrajectory());
+  }
 }
@@ -6,6 +6,7 @@ import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.trajectory.Trajectory;
 import edu.wpi.first.math.trajectory.TrajectoryGenerator;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import frc.lib.util.CompactTrajectory;
 import frc.robot.subsystems.drivetrain.Drivetrain;
 import java.util.List;
 
@@ -22,6 +23,7 @@ public class exampleAuto extends SequentialCommandGroup {
             new Pose2d(3, 0, new Rotation2d(0)),
             Drivetrain.trajectoryConfig);
 
-    addCommands(new driveToTrajectory(driveTrain, exampleTrajectory));
+    addCommands(
+        new driveToTrajectory(driveTrain, CompactTrajectory.fromTrajectory(exampleTrajectory)));
   }
 }
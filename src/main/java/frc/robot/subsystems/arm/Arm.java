@@ -3,130 +3,75 @@ package frc.robot.subsystems.arm;
 import static frc.robot.Constants.*;
 
 import com.revrobotics.CANSparkMax;
-import com.revrobotics.CANSparkMaxLowLevel.MotorType;
-import com.revrobotics.RelativeEncoder;
-import com.revrobotics.SimableCANSparkMax;
-import com.revrobotics.SparkMaxLimitSwitch;
-import com.revrobotics.SparkMaxPIDController;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.Pair;
-import edu.wpi.first.math.system.plant.DCMotor;
-import edu.wpi.first.math.util.Units;
-import edu.wpi.first.wpilibj.DoubleSolenoid;
 import edu.wpi.first.wpilibj.DoubleSolenoid.Value;
-import edu.wpi.first.wpilibj.PneumaticHub;
-import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInLayouts;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardLayout;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
-import edu.wpi.first.wpilibj.simulation.ElevatorSim;
-import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
-import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import frc.lib.util.InputLogger;
+import frc.lib.util.LoopProfiler;
+import frc.lib.util.OutputDeduplicator;
+import frc.robot.subsystems.arm.ArmIO.ArmIOInputs;
 import java.util.ArrayList;
 import java.util.List;
-import org.snobotv2.module_wrappers.rev.RevEncoderSimWrapper;
-import org.snobotv2.module_wrappers.rev.RevMotorControllerSimWrapper;
-import org.snobotv2.sim_wrappers.ElevatorSimWrapper;
-import org.snobotv2.sim_wrappers.ISimWrapper;
-import org.snobotv2.sim_wrappers.SingleJointedArmSimWrapper;
-
-/** */
-public class Arm extends SubsystemBase {
-  public final PneumaticHub m_pH = new PneumaticHub(PNEUMATICSHUB_ID);
-  public final DoubleSolenoid m_gripper =
-      m_pH.makeDoubleSolenoid(SOLENOID_FWD_CHANNEL, SOLENOID_REV_CHANNEL);
-
-  public final SimableCANSparkMax m_armLiftMotor =
-      new SimableCANSparkMax(ARM_LIFT_MOTOR_ID, MotorType.kBrushless);
-  public final SparkMaxPIDController m_armLiftController;
-  public final RelativeEncoder m_armLiftEncoder;
-  public final SparkMaxLimitSwitch m_armLiftLimit;
-
-  public final SimableCANSparkMax m_armExtendMotor =
-      new SimableCANSparkMax(ARM_EXTEND_MOTOR_ID, MotorType.kBrushless);
-  public final SparkMaxPIDController m_armExtendController;
-  public final RelativeEncoder m_armExtendEncoder;
-  public final SparkMaxLimitSwitch m_armExtendLimit;
-
-  private ISimWrapper mLiftSim;
-  private ISimWrapper mExtendSim;
+
+/**
+ * The arm, which lifts and extends the gripper. The lift and extend setpoints are limited to the
+ * lift profile every loop so that the arm isn't extended while it is too low.
+ *
+ * <p>The public constructor registers the arm with the command scheduler and adds it to
+ * Shuffleboard. The package-private constructor does neither, so the arm can be created and its
+ * periodic method invoked directly without the HAL (e.g., in unit tests).
+ */
+public class Arm implements Subsystem {
+  private final ArmIO io;
+  private final ArmIOInputs inputs = new ArmIOInputs();
+
+  /* Setpoint changes smaller than this (rotations or duty cycle) aren't resent */
+  private static final double OUTPUT_TOLERANCE = 1.0e-2;
+
+  private final OutputDeduplicator m_armLiftOutput =
+      new OutputDeduplicator("Arm Lift", OUTPUT_TOLERANCE);
+  private final OutputDeduplicator m_armExtendOutput =
+      new OutputDeduplicator("Arm Extend", OUTPUT_TOLERANCE);
 
   private double m_armLiftSetpoint = 0;
   private double m_armExtendSetpoint = 0;
   private int m_Resetting = 0; // 1 == resetting Extend, 2 == resetting Lift
   private List<Pair<Double, Double>> liftProfile = new ArrayList<Pair<Double, Double>>();
   private boolean m_targetCones = true;
+  private final LoopProfiler.Histogram periodicTiming =
+      LoopProfiler.getInstance().getHistogram("Arm.periodic");
+
+  /* The lift and extend setpoints limited to the lift profile; reused every loop */
+  private final double[] m_limitedSetpoints = new double[2];
+
+  /**
+   * Create the arm, register it with the command scheduler, and add it to Shuffleboard.
+   *
+   * @param io the arm's hardware
+   */
+  public Arm(ArmIO io) {
+    this(io, true);
+  }
 
-  public Arm() {
-    m_armLiftMotor.restoreFactoryDefaults();
-    // initialze PID controller and encoder objects
-    m_armLiftController = m_armLiftMotor.getPIDController();
-    m_armLiftEncoder = m_armLiftMotor.getEncoder();
-    m_armLiftLimit = m_armLiftMotor.getReverseLimitSwitch(SparkMaxLimitSwitch.Type.kNormallyOpen);
-
-    // set PID coefficients
-    m_armLiftController.setP(ArmConstants.armLiftKP);
-    m_armLiftController.setI(ArmConstants.armLiftKI);
-    m_armLiftController.setD(ArmConstants.armLiftKD);
-    m_armLiftController.setIZone(ArmConstants.armLiftKIZ);
-    m_armLiftController.setFF(ArmConstants.armLiftKFF);
-    m_armLiftController.setOutputRange(
-        ArmConstants.armLiftMinOutput, ArmConstants.armLiftMaxOutput);
-
-    // m_armLiftEncoder.setPositionConversionFactor(RobotPreferences.ArmLift.armGearRatio.get()
-    // * RobotPreferences.ArmLift.armMetersPerRotation.get());
-    m_armLiftSetpoint = m_armLiftEncoder.getPosition();
-
-    m_armExtendMotor.restoreFactoryDefaults();
-    // initialze PID controller and encoder objects
-    m_armExtendController = m_armExtendMotor.getPIDController();
-    m_armExtendEncoder = m_armExtendMotor.getEncoder();
-    m_armExtendLimit =
-        m_armExtendMotor.getReverseLimitSwitch(SparkMaxLimitSwitch.Type.kNormallyOpen);
-
-    // set PID coefficients
-    m_armExtendController.setP(ArmConstants.armExtendKP);
-    m_armExtendController.setI(ArmConstants.armExtendKI);
-    m_armExtendController.setD(ArmConstants.armExtendKD);
-    m_armExtendController.setIZone(ArmConstants.armExtendKIZ);
-    m_armExtendController.setFF(ArmConstants.armExtendKFF);
-    m_armExtendController.setOutputRange(
-        ArmConstants.armExtendMinOutput, ArmConstants.armExtendMaxOutput);
-
-    // m_armExtendEncoder.setPositionConversionFactor(RobotPreferences.Arm.armExtendGearRatio.get()
-    // * RobotPreferences.Arm.armExtendMetersPerRotation.get());
-    m_armExtendSetpoint = m_armExtendEncoder.getPosition();
-
-    if (RobotBase.isSimulation()) {
-      mLiftSim =
-          new SingleJointedArmSimWrapper(
-              new SingleJointedArmSim(
-                  DCMotor.getNEO(1),
-                  ArmConstants.armLiftGearRatio,
-                  SingleJointedArmSim.estimateMOI(Units.inchesToMeters(30.0), 5.0),
-                  Units.inchesToMeters(30.0),
-                  0.0,
-                  60.0,
-                  true),
-              new RevMotorControllerSimWrapper(m_armLiftMotor),
-              RevEncoderSimWrapper.create(m_armLiftMotor));
-      mExtendSim =
-          new ElevatorSimWrapper(
-              new ElevatorSim(
-                  DCMotor.getNEO(1),
-                  ArmConstants.armExtendGearRatio,
-                  3.0,
-                  Units.inchesToMeters(1.0),
-                  0.0,
-                  550.0,
-                  false),
-              new RevMotorControllerSimWrapper(m_armExtendMotor),
-              RevEncoderSimWrapper.create(m_armExtendMotor));
-    }
+  /* If attach is false, the arm isn't registered with the scheduler or added to Shuffleboard */
+  Arm(ArmIO io, boolean attach) {
+    this.io = io;
+
+    // start with the setpoints at the current positions
+    io.updateInputs(inputs);
+    m_armLiftSetpoint = inputs.liftPosition;
+    m_armExtendSetpoint = inputs.extendPosition;
 
     initLiftProfile();
-    initLogging();
+    if (attach) {
+      register();
+      initLogging();
+    }
   }
 
   void initLiftProfile() {
@@ -154,43 +99,21 @@ public class Arm extends SubsystemBase {
     // }
   }
 
-  @Override
-  public void simulationPeriodic() {
-    mLiftSim.update();
-    mExtendSim.update();
-  }
-
   @Override
   public void periodic() {
+    long start = System.nanoTime();
+    io.updateInputs(inputs);
+    InputLogger.getInstance().processInputs("Arm", inputs);
+
     if (isResetting()) {
       doResetting();
     } else {
       double liftPos = this.getArmLiftPosition();
       double extendPos = this.getArmExtendPosition();
-      double newExtendSetpoint = m_armExtendSetpoint;
-      double newLiftSetPoint = m_armLiftSetpoint;
-
-      boolean goUp = (newLiftSetPoint - liftPos) > ArmConstants.armLiftMoveThreshold;
-      boolean goDn = (newLiftSetPoint - liftPos) < -ArmConstants.armLiftMoveThreshold;
-
-      Pair<Double, Double> lastPair = new Pair<Double, Double>(0.0, 0.0);
-      for (Pair<Double, Double> pair : liftProfile) {
-        if ((lastPair.getFirst() <= liftPos) && (liftPos <= pair.getFirst())) {
-          newExtendSetpoint =
-              Math.min(newExtendSetpoint, goDn ? lastPair.getSecond() : pair.getSecond());
-        }
-        if ((lastPair.getSecond() <= extendPos) && (extendPos <= pair.getSecond())) {
-          if (goDn) {
-            newLiftSetPoint = Math.min(liftPos, Math.max(newLiftSetPoint, lastPair.getFirst()));
-          }
-          break;
-        }
-        lastPair = pair;
-      }
-      boolean inSafeZoneHt = (liftPos >= ArmConstants.armLiftExtendSafetyHeight);
-      if (goUp && !inSafeZoneHt) {
-        newExtendSetpoint = Math.min(newExtendSetpoint, extendPos);
-      }
+      limitSetpoints(
+          liftPos, extendPos, m_armLiftSetpoint, m_armExtendSetpoint, m_limitedSetpoints);
+      double newLiftSetPoint = m_limitedSetpoints[0];
+      double newExtendSetpoint = m_limitedSetpoints[1];
 
       // double htPct = (liftPos - lastPair.getFirst()) / (pair.getFirst() - lastPair.getFirst());
       // newExtendSetpoint =
@@ -210,7 +133,7 @@ public class Arm extends SubsystemBase {
 
       boolean liftDone = Math.abs(liftPos - newLiftSetPoint) <= ArmConstants.armLiftMoveThreshold;
       if (!liftDone) {
-        m_armLiftController.setReference(newLiftSetPoint, CANSparkMax.ControlType.kPosition);
+        setArmLiftOutput(CANSparkMax.ControlType.kPosition, newLiftSetPoint);
         if (DEBUGGING) {
           System.out.println(
               "armLift - pos:"
@@ -224,7 +147,7 @@ public class Arm extends SubsystemBase {
       boolean extendDone =
           Math.abs(extendPos - newExtendSetpoint) <= ArmConstants.armExtendMoveThreshold;
       if (!extendDone) {
-        m_armExtendController.setReference(newExtendSetpoint, CANSparkMax.ControlType.kPosition);
+        setArmExtendOutput(CANSparkMax.ControlType.kPosition, newExtendSetpoint);
         if (DEBUGGING) {
           System.out.println(
               "armExtend - pos:"
@@ -255,20 +178,68 @@ public class Arm extends SubsystemBase {
       //   newLiftSetPoint + " ext:" + newExtendSetpoint);
       // }
     }
+    periodicTiming.recordSince(start);
+  }
+
+  /**
+   * Limit the lift and extend setpoints to the envelope defined by the lift profile so that the arm
+   * isn't extended while it is too low. This doesn't use or change the state of the motors, so it
+   * can be invoked with any positions (e.g., to warm up the JIT compiler while disabled).
+   *
+   * @param liftPos the current position of the lift
+   * @param extendPos the current position of the extension
+   * @param liftSetpoint the desired position of the lift
+   * @param extendSetpoint the desired position of the extension
+   * @param limited the array, of at least length 2, into which the limited lift and extend
+   *     setpoints are copied
+   */
+  public void limitSetpoints(
+      double liftPos,
+      double extendPos,
+      double liftSetpoint,
+      double extendSetpoint,
+      double[] limited) {
+    double newExtendSetpoint = extendSetpoint;
+    double newLiftSetPoint = liftSetpoint;
+
+    boolean goUp = (newLiftSetPoint - liftPos) > ArmConstants.armLiftMoveThreshold;
+    boolean goDn = (newLiftSetPoint - liftPos) < -ArmConstants.armLiftMoveThreshold;
+
+    Pair<Double, Double> lastPair = new Pair<Double, Double>(0.0, 0.0);
+    for (Pair<Double, Double> pair : liftProfile) {
+      if ((lastPair.getFirst() <= liftPos) && (liftPos <= pair.getFirst())) {
+        newExtendSetpoint =
+            Math.min(newExtendSetpoint, goDn ? lastPair.getSecond() : pair.getSecond());
+      }
+      if ((lastPair.getSecond() <= extendPos) && (extendPos <= pair.getSecond())) {
+        if (goDn) {
+          newLiftSetPoint = Math.min(liftPos, Math.max(newLiftSetPoint, lastPair.getFirst()));
+        }
+        break;
+      }
+      lastPair = pair;
+    }
+    boolean inSafeZoneHt = (liftPos >= ArmConstants.armLiftExtendSafetyHeight);
+    if (goUp && !inSafeZoneHt) {
+      newExtendSetpoint = Math.min(newExtendSetpoint, extendPos);
+    }
+
+    limited[0] = newLiftSetPoint;
+    limited[1] = newExtendSetpoint;
   }
 
   public void doResetting() {
-    if ((m_Resetting == 1) && m_armExtendLimit.isPressed()) {
-      m_armExtendMotor.set(0.0);
-      m_armExtendEncoder.setPosition(0.0);
+    if ((m_Resetting == 1) && inputs.extendLimitSwitch) {
+      setArmExtendOutput(CANSparkMax.ControlType.kDutyCycle, 0.0);
+      io.resetExtendPosition(0.0);
       m_armExtendSetpoint = 0.0;
 
       m_Resetting = 2;
-      m_armLiftMotor.set(ArmConstants.armLiftResetOutput);
+      setArmLiftOutput(CANSparkMax.ControlType.kDutyCycle, ArmConstants.armLiftResetOutput);
     }
-    if ((m_Resetting == 2) && m_armLiftLimit.isPressed()) {
-      m_armLiftEncoder.setPosition(0.0);
-      m_armLiftMotor.set(0.0);
+    if ((m_Resetting == 2) && inputs.liftLimitSwitch) {
+      io.resetLiftPosition(0.0);
+      setArmLiftOutput(CANSparkMax.ControlType.kDutyCycle, 0.0);
       m_armLiftSetpoint = 0.0;
 
       m_Resetting = 0;
@@ -277,7 +248,29 @@ public class Arm extends SubsystemBase {
 
   public void resetArm() {
     m_Resetting = 1;
-    m_armExtendMotor.set(ArmConstants.armExtendResetOutput);
+    setArmExtendOutput(CANSparkMax.ControlType.kDutyCycle, ArmConstants.armExtendResetOutput);
+  }
+
+  /* Send the lift motor's output unless it is the same as the output last sent */
+  private void setArmLiftOutput(CANSparkMax.ControlType type, double value) {
+    if (m_armLiftOutput.shouldSend(type, value)) {
+      if (type == CANSparkMax.ControlType.kPosition) {
+        io.setLiftPosition(value);
+      } else {
+        io.setLiftPercentage(value);
+      }
+    }
+  }
+
+  /* Send the extend motor's output unless it is the same as the output last sent */
+  private void setArmExtendOutput(CANSparkMax.ControlType type, double value) {
+    if (m_armExtendOutput.shouldSend(type, value)) {
+      if (type == CANSparkMax.ControlType.kPosition) {
+        io.setExtendPosition(value);
+      } else {
+        io.setExtendPercentage(value);
+      }
+    }
   }
 
   public boolean isResetting() {
@@ -293,7 +286,7 @@ public class Arm extends SubsystemBase {
   }
 
   public double getArmLiftPosition() {
-    return m_armLiftEncoder.getPosition();
+    return inputs.liftPosition;
   }
 
   public void raiseArm(double pctHeight) {
@@ -315,7 +308,7 @@ public class Arm extends SubsystemBase {
   }
 
   public double getArmExtendPosition() {
-    return m_armExtendEncoder.getPosition();
+    return inputs.extendPosition;
   }
 
   public void extendArm(double pctLength) {
@@ -330,31 +323,31 @@ public class Arm extends SubsystemBase {
   }
 
   public void gripOpen() {
-    m_gripper.set(Value.kForward);
+    io.setGripper(Value.kForward);
   }
 
   public void gripClose() {
-    m_gripper.set(Value.kReverse);
+    io.setGripper(Value.kReverse);
   }
 
   public void gripToggle() {
-    m_gripper.set(isGripClawOpen() ? Value.kReverse : Value.kForward);
+    io.setGripper(isGripClawOpen() ? Value.kReverse : Value.kForward);
   }
 
   public void gripReset() {
-    m_gripper.set(Value.kOff);
+    io.setGripper(Value.kOff);
   }
 
   public boolean isGripClawOpen() {
-    return (m_gripper.get() == Value.kForward);
+    return inputs.gripperOpen;
   }
 
   public boolean isArmExtendMinLimitSwitch() {
-    return m_armExtendLimit.isPressed();
+    return inputs.extendLimitSwitch;
   }
 
   public boolean isArmLiftMinLimitSwitch() {
-    return m_armLiftLimit.isPressed();
+    return inputs.liftLimitSwitch;
   }
 
   public boolean isTargetCone() {
@@ -385,13 +378,65 @@ public class Arm extends SubsystemBase {
     }
   }
 
+  /* Direct access to the motors and the pneumatic hub for the pre-match checks */
+
+  public void setArmLiftPercentage(double percentage) {
+    setArmLiftOutput(CANSparkMax.ControlType.kDutyCycle, percentage);
+  }
+
+  public void setArmExtendPercentage(double percentage) {
+    setArmExtendOutput(CANSparkMax.ControlType.kDutyCycle, percentage);
+  }
+
+  /** Run the lift to the position without limiting it to the lift profile. */
+  public void driveArmLiftTo(double position) {
+    setArmLiftOutput(CANSparkMax.ControlType.kPosition, position);
+  }
+
+  /** Run the extension to the position without limiting it to the lift profile. */
+  public void driveArmExtendTo(double position) {
+    setArmExtendOutput(CANSparkMax.ControlType.kPosition, position);
+  }
+
+  public void zeroArmLiftPosition() {
+    io.resetLiftPosition(0.0);
+  }
+
+  public void zeroArmExtendPosition() {
+    io.resetExtendPosition(0.0);
+  }
+
+  public void enableCompressor() {
+    io.enableCompressorDigital();
+  }
+
+  public void disableCompressor() {
+    io.disableCompressor();
+  }
+
+  public boolean getPressureSwitch() {
+    return inputs.pressureSwitch;
+  }
+
+  public boolean isLiftMotorConnected() {
+    return io.isLiftMotorConnected();
+  }
+
+  public boolean isExtendMotorConnected() {
+    return io.isExtendMotorConnected();
+  }
+
+  public boolean isPneumaticHubConnected() {
+    return io.isPneumaticHubConnected();
+  }
+
   public void initLogging() {
     ShuffleboardTab tabMain = Shuffleboard.getTab("MAIN");
     ShuffleboardLayout armLay = tabMain.getLayout("Arm", BuiltInLayouts.kList).withSize(4, 4);
-    armLay.addNumber("Lift Position", m_armLiftEncoder::getPosition);
+    armLay.addNumber("Lift Position", this::getArmLiftPosition);
     armLay.addNumber("Lift SetPoint", () -> m_armLiftSetpoint);
     armLay.addBoolean("Lift LimitSwitch", this::isArmLiftMinLimitSwitch);
-    armLay.addNumber("Extend Position", m_armExtendEncoder::getPosition);
+    armLay.addNumber("Extend Position", this::getArmExtendPosition);
     armLay.addNumber("Extend SetPoint", () -> m_armExtendSetpoint);
     armLay.addBoolean("Extend LimitSwitch", this::isArmExtendMinLimitSwitch);
     armLay.addBoolean("Target Cones", () -> m_targetCones);
@@ -400,15 +445,15 @@ public class Arm extends SubsystemBase {
       ShuffleboardTab tab = Shuffleboard.getTab("ARM");
       ShuffleboardLayout liftLay =
           tab.getLayout("ArmLift", BuiltInLayouts.kList).withSize(4, 4).withPosition(0, 0);
-      liftLay.addNumber("Position", m_armLiftEncoder::getPosition).withPosition(0, 0);
-      liftLay.addNumber("Output", m_armLiftMotor::getAppliedOutput).withPosition(0, 1);
+      liftLay.addNumber("Position", this::getArmLiftPosition).withPosition(0, 0);
+      liftLay.addNumber("Output", () -> inputs.liftAppliedOutput).withPosition(0, 1);
       liftLay.addNumber("SetPoint", () -> m_armLiftSetpoint).withPosition(0, 2);
       liftLay.addBoolean("Reverse LimitSwitch", this::isArmLiftMinLimitSwitch).withPosition(0, 3);
 
       ShuffleboardLayout extLay =
           tab.getLayout("ArmExtend", BuiltInLayouts.kList).withSize(4, 4).withPosition(4, 0);
-      extLay.addNumber("Position", m_armExtendEncoder::getPosition).withPosition(0, 0);
-      extLay.addNumber("Output", m_armExtendMotor::getAppliedOutput).withPosition(0, 1);
+      extLay.addNumber("Position", this::getArmExtendPosition).withPosition(0, 0);
+      extLay.addNumber("Output", () -> inputs.extendAppliedOutput).withPosition(0, 1);
       extLay.addNumber("SetPoint", () -> m_armExtendSetpoint).withPosition(0, 2);
       extLay.addBoolean("Reverse LimitSwitch", this::isArmExtendMinLimitSwitch).withPosition(0, 3);
     }
@@ -0,0 +1,97 @@
+package frc.robot.subsystems.arm;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.wpilibj.DoubleSolenoid;
+import frc.lib.inputs.LoggedInputs;
+import frc.lib.util.LoggableInputs;
+import java.nio.ByteBuffer;
+
+/**
+ * Arm hardware abstraction interface.
+ *
+ * <p>The arm has a lift motor and an extend motor, each with a relative encoder and a reverse limit
+ * switch, and a gripper operated by a double solenoid on the pneumatic hub. Positions are in
+ * rotations of the motors, as reported by their encoders, and the motors' position controllers run
+ * on the motor controllers.
+ */
+public interface ArmIO {
+  @LoggedInputs
+  public static class ArmIOInputs implements LoggableInputs {
+    double liftPosition = 0.0; // motor rotations
+    double liftVelocityRPM = 0.0;
+    double liftAppliedOutput = 0.0;
+    double liftCurrentAmps = 0.0;
+    boolean liftLimitSwitch = false;
+
+    double extendPosition = 0.0; // motor rotations
+    double extendVelocityRPM = 0.0;
+    double extendAppliedOutput = 0.0;
+    double extendCurrentAmps = 0.0;
+    boolean extendLimitSwitch = false;
+
+    boolean gripperOpen = false;
+    boolean pressureSwitch = false;
+
+    /* Created when the inputs are first published */
+    private transient ArmIOInputsLog.Publisher publisher = null;
+
+    @Override
+    public void toLog(ByteBuffer buffer) {
+      ArmIOInputsLog.writeTo(this, buffer);
+    }
+
+    @Override
+    public void fromLog(ByteBuffer buffer) {
+      ArmIOInputsLog.readFrom(this, buffer);
+    }
+
+    @Override
+    public void publish(NetworkTable table) {
+      if (publisher == null) {
+        publisher = new ArmIOInputsLog.Publisher(table);
+      }
+      publisher.publish(this);
+    }
+  }
+
+  /** Updates the set of loggable inputs. */
+  public default void updateInputs(ArmIOInputs inputs) {}
+
+  /** Run the lift motor to the specified position (motor rotations). */
+  public default void setLiftPosition(double position) {}
+
+  /** Run the lift motor at the specified percentage of full power. */
+  public default void setLiftPercentage(double percentage) {}
+
+  /** Set the position reported by the lift motor's encoder (motor rotations). */
+  public default void resetLiftPosition(double position) {}
+
+  /** Run the extend motor to the specified position (motor rotations). */
+  public default void setExtendPosition(double position) {}
+
+  /** Run the extend motor at the specified percentage of full power. */
+  public default void setExtendPercentage(double percentage) {}
+
+  /** Set the position reported by the extend motor's encoder (motor rotations). */
+  public default void resetExtendPosition(double position) {}
+
+  /** Set the gripper's solenoid; forward opens the gripper. */
+  public default void setGripper(DoubleSolenoid.Value value) {}
+
+  /** Enable the compressor, which runs until the pressure switch indicates full pressure. */
+  public default void enableCompressorDigital() {}
+
+  public default void disableCompressor() {}
+
+  public default boolean isLiftMotorConnected() {
+    return false;
+  }
+
+  public default boolean isExtendMotorConnected() {
+    return false;
+  }
+
+  public default boolean isPneumaticHubConnected() {
+    return false;
+  }
+}
@@ -0,0 +1,7 @@
+package frc.robot.subsystems.arm;
+
+/**
+ * A version of the ArmIO interface that is used when replaying an input log. It doesn't update the
+ * inputs; instead, the InputLogger overwrites them with the logged values. Outputs are ignored.
+ */
+public class ArmIOReplay implements ArmIO {}
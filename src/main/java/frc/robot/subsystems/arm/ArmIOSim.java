@@ -0,0 +1,204 @@
+package frc.robot.subsystems.arm;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DoubleSolenoid.Value;
+import edu.wpi.first.wpilibj.simulation.ElevatorSim;
+import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
+
+/**
+ * A simulated version of the ArmIO interface.
+ *
+ * <p>The lift is simulated as a single-jointed arm and the extension as an elevator, each driven by
+ * a NEO. The "on-board" position controllers emulate those of the SPARK MAX with the same
+ * coefficients and output ranges: the output is the P and I terms of the error in motor rotations
+ * plus the feedforward times the setpoint. The limit switches are pressed when the lift or
+ * extension is at its lower limit. The models only use the WPILib math classes, so this can be used
+ * without the HAL.
+ */
+public class ArmIOSim implements ArmIO {
+  public static final double LOOP_PERIOD_SECS = 0.02;
+
+  private static final double NOMINAL_VOLTS = 12.0;
+  private static final double LIFT_LENGTH_METERS = Units.inchesToMeters(30.0);
+  private static final double EXTEND_DRUM_RADIUS_METERS = Units.inchesToMeters(1.0);
+
+  private final SingleJointedArmSim liftSim =
+      new SingleJointedArmSim(
+          DCMotor.getNEO(1),
+          ArmConstants.armLiftGearRatio,
+          SingleJointedArmSim.estimateMOI(LIFT_LENGTH_METERS, 5.0),
+          LIFT_LENGTH_METERS,
+          0.0,
+          Math.PI,
+          true);
+  private final ElevatorSim extendSim =
+      new ElevatorSim(
+          DCMotor.getNEO(1),
+          ArmConstants.armExtendGearRatio,
+          3.0,
+          EXTEND_DRUM_RADIUS_METERS,
+          0.0,
+          1.2,
+          false);
+
+  private final Controller liftController =
+      new Controller(
+          ArmConstants.armLiftKP,
+          ArmConstants.armLiftKI,
+          ArmConstants.armLiftKIZ,
+          ArmConstants.armLiftKFF,
+          ArmConstants.armLiftMinOutput,
+          ArmConstants.armLiftMaxOutput);
+  private final Controller extendController =
+      new Controller(
+          ArmConstants.armExtendKP,
+          ArmConstants.armExtendKI,
+          ArmConstants.armExtendKIZ,
+          ArmConstants.armExtendKFF,
+          ArmConstants.armExtendMinOutput,
+          ArmConstants.armExtendMaxOutput);
+
+  /* The encoder positions are relative to these model positions (motor rotations) */
+  private double liftZero = 0.0;
+  private double extendZero = 0.0;
+  private boolean gripperOpen = false;
+
+  /* Emulates a SPARK MAX in position or duty cycle mode */
+  private static class Controller {
+    private final double kP;
+    private final double kI;
+    private final double kIZ;
+    private final double kFF;
+    private final double minOutput;
+    private final double maxOutput;
+
+    private boolean positionMode = false;
+    private double setpoint = 0.0;
+    private double integral = 0.0;
+
+    Controller(double kP, double kI, double kIZ, double kFF, double minOutput, double maxOutput) {
+      this.kP = kP;
+      this.kI = kI;
+      this.kIZ = kIZ;
+      this.kFF = kFF;
+      this.minOutput = minOutput;
+      this.maxOutput = maxOutput;
+    }
+
+    void setPosition(double position) {
+      if (!positionMode) {
+        integral = 0.0;
+      }
+      positionMode = true;
+      setpoint = position;
+    }
+
+    void setPercentage(double percentage) {
+      positionMode = false;
+      setpoint = percentage;
+    }
+
+    double calculate(double position) {
+      if (!positionMode) {
+        return MathUtil.clamp(setpoint, -1.0, 1.0);
+      }
+      double error = setpoint - position;
+      integral = (kIZ == 0.0 || Math.abs(error) <= kIZ) ? integral + error : 0.0;
+      return MathUtil.clamp(kP * error + kI * integral + kFF * setpoint, minOutput, maxOutput);
+    }
+  }
+
+  @Override
+  public void updateInputs(ArmIOInputs inputs) {
+    // calculate the outputs from the positions reported in the last loop and update the models
+    double liftOutput = liftController.calculate(inputs.liftPosition);
+    double extendOutput = extendController.calculate(inputs.extendPosition);
+    liftSim.setInputVoltage(liftOutput * NOMINAL_VOLTS);
+    extendSim.setInputVoltage(extendOutput * NOMINAL_VOLTS);
+    liftSim.update(LOOP_PERIOD_SECS);
+    extendSim.update(LOOP_PERIOD_SECS);
+
+    inputs.liftPosition = getLiftModelPosition() - liftZero;
+    inputs.liftVelocityRPM =
+        Units.radiansPerSecondToRotationsPerMinute(liftSim.getVelocityRadPerSec())
+            * ArmConstants.armLiftGearRatio;
+    inputs.liftAppliedOutput = liftOutput;
+    inputs.liftCurrentAmps = Math.abs(liftSim.getCurrentDrawAmps());
+    inputs.liftLimitSwitch = liftSim.hasHitLowerLimit();
+
+    inputs.extendPosition = getExtendModelPosition() - extendZero;
+    inputs.extendVelocityRPM =
+        extendSim.getVelocityMetersPerSecond()
+            / (2.0 * Math.PI * EXTEND_DRUM_RADIUS_METERS)
+            * 60.0
+            * ArmConstants.armExtendGearRatio;
+    inputs.extendAppliedOutput = extendOutput;
+    inputs.extendCurrentAmps = Math.abs(extendSim.getCurrentDrawAmps());
+    inputs.extendLimitSwitch = extendSim.hasHitLowerLimit();
+
+    inputs.gripperOpen = gripperOpen;
+    inputs.pressureSwitch = false;
+  }
+
+  private double getLiftModelPosition() {
+    return liftSim.getAngleRads() / (2.0 * Math.PI) * ArmConstants.armLiftGearRatio;
+  }
+
+  private double getExtendModelPosition() {
+    return extendSim.getPositionMeters()
+        / (2.0 * Math.PI * EXTEND_DRUM_RADIUS_METERS)
+        * ArmConstants.armExtendGearRatio;
+  }
+
+  @Override
+  public void setLiftPosition(double position) {
+    liftController.setPosition(position);
+  }
+
+  @Override
+  public void setLiftPercentage(double percentage) {
+    liftController.setPercentage(percentage);
+  }
+
+  @Override
+  public void resetLiftPosition(double position) {
+    liftZero = getLiftModelPosition() - position;
+  }
+
+  @Override
+  public void setExtendPosition(double position) {
+    extendController.setPosition(position);
+  }
+
+  @Override
+  public void setExtendPercentage(double percentage) {
+    extendController.setPercentage(percentage);
+  }
+
+  @Override
+  public void resetExtendPosition(double position) {
+    extendZero = getExtendModelPosition() - position;
+  }
+
+  @Override
+  public void setGripper(Value value) {
+    gripperOpen = value == Value.kForward;
+  }
+
+  @Override
+  public boolean isLiftMotorConnected() {
+    return true;
+  }
+
+  @Override
+  public boolean isExtendMotorConnected() {
+    return true;
+  }
+
+  @Override
+  public boolean isPneumaticHubConnected() {
+    return true;
+  }
+}
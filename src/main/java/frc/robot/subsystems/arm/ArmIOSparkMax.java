@@ -0,0 +1,235 @@
+package frc.robot.subsystems.arm;
+
+import static frc.robot.Constants.*;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+import com.revrobotics.REVLibError;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkMaxLimitSwitch;
+import com.revrobotics.SparkMaxPIDController;
+import edu.wpi.first.wpilibj.DoubleSolenoid;
+import edu.wpi.first.wpilibj.DoubleSolenoid.Value;
+import edu.wpi.first.wpilibj.PneumaticHub;
+import frc.lib.util.DeviceConfigurator;
+import frc.lib.util.StatusFrameManager;
+
+/** Implementation of the ArmIO interface for the SPARK MAX motor controllers and the REV PH. */
+public class ArmIOSparkMax implements ArmIO {
+  private final PneumaticHub pneumaticHub = new PneumaticHub(PNEUMATICSHUB_ID);
+  private final DoubleSolenoid gripper =
+      pneumaticHub.makeDoubleSolenoid(SOLENOID_FWD_CHANNEL, SOLENOID_REV_CHANNEL);
+
+  private final CANSparkMax liftMotor = new CANSparkMax(ARM_LIFT_MOTOR_ID, MotorType.kBrushless);
+  private final SparkMaxPIDController liftController;
+  private final RelativeEncoder liftEncoder;
+  private final SparkMaxLimitSwitch liftLimit;
+
+  private final CANSparkMax extendMotor =
+      new CANSparkMax(ARM_EXTEND_MOTOR_ID, MotorType.kBrushless);
+  private final SparkMaxPIDController extendController;
+  private final RelativeEncoder extendEncoder;
+  private final SparkMaxLimitSwitch extendLimit;
+
+  public ArmIOSparkMax() {
+    // initialze PID controller and encoder objects
+    liftController = liftMotor.getPIDController();
+    liftEncoder = liftMotor.getEncoder();
+    liftLimit = liftMotor.getReverseLimitSwitch(SparkMaxLimitSwitch.Type.kNormallyOpen);
+
+    extendController = extendMotor.getPIDController();
+    extendEncoder = extendMotor.getEncoder();
+    extendLimit = extendMotor.getReverseLimitSwitch(SparkMaxLimitSwitch.Type.kNormallyOpen);
+
+    DeviceConfigurator configurator = DeviceConfigurator.getInstance();
+    configurator.submit(
+        "Arm Lift",
+        () -> {
+          boolean configured =
+              configureIfChanged(
+                  liftMotor,
+                  liftController,
+                  ArmConstants.armLiftKP,
+                  ArmConstants.armLiftKI,
+                  ArmConstants.armLiftKD,
+                  ArmConstants.armLiftKIZ,
+                  ArmConstants.armLiftKFF,
+                  ArmConstants.armLiftMinOutput,
+                  ArmConstants.armLiftMaxOutput);
+          registerStatusFrames(liftMotor);
+          return configured;
+        });
+    configurator.submit(
+        "Arm Extend",
+        () -> {
+          boolean configured =
+              configureIfChanged(
+                  extendMotor,
+                  extendController,
+                  ArmConstants.armExtendKP,
+                  ArmConstants.armExtendKI,
+                  ArmConstants.armExtendKD,
+                  ArmConstants.armExtendKIZ,
+                  ArmConstants.armExtendKFF,
+                  ArmConstants.armExtendMinOutput,
+                  ArmConstants.armExtendMaxOutput);
+          registerStatusFrames(extendMotor);
+          return configured;
+        });
+  }
+
+  /*
+   * Restore the factory defaults and set the PID coefficients unless the coefficients and output
+   * range read back from the motor controller already match. The SPARK MAX has no parameter to
+   * store a hash of its configuration in, so the values themselves are compared. After writing, the
+   * configuration is burned to flash so that it will match after the next power cycle.
+   */
+  private static boolean configureIfChanged(
+      CANSparkMax motor,
+      SparkMaxPIDController controller,
+      double kP,
+      double kI,
+      double kD,
+      double kIZ,
+      double kFF,
+      double minOutput,
+      double maxOutput) {
+    // the parameters are stored as floats
+    if ((float) controller.getP() == (float) kP
+        && (float) controller.getI() == (float) kI
+        && (float) controller.getD() == (float) kD
+        && (float) controller.getIZone() == (float) kIZ
+        && (float) controller.getFF() == (float) kFF
+        && (float) controller.getOutputMin() == (float) minOutput
+        && (float) controller.getOutputMax() == (float) maxOutput) {
+      return false;
+    }
+
+    motor.restoreFactoryDefaults();
+
+    // set PID coefficients
+    controller.setP(kP);
+    controller.setI(kI);
+    controller.setD(kD);
+    controller.setIZone(kIZ);
+    controller.setFF(kFF);
+    controller.setOutputRange(minOutput, maxOutput);
+
+    motor.burnFlash();
+    return true;
+  }
+
+  /*
+   * Status 0 (applied output and limit switches) and status 2 (position) are used every loop while
+   * enabled. Status 1 (velocity, temperature, and current) is only used for diagnostics, and the
+   * analog and alternate encoder frames aren't used at all.
+   */
+  private static void registerStatusFrames(CANSparkMax motor) {
+    StatusFrameManager manager = StatusFrameManager.getInstance();
+    manager.register(
+        ARM_CAN_BUS,
+        (periodMs, timeoutMs) -> motor.setPeriodicFramePeriod(PeriodicFrame.kStatus0, periodMs),
+        100,
+        10,
+        10);
+    manager.register(
+        ARM_CAN_BUS,
+        (periodMs, timeoutMs) -> motor.setPeriodicFramePeriod(PeriodicFrame.kStatus1, periodMs),
+        500,
+        100,
+        100);
+    manager.register(
+        ARM_CAN_BUS,
+        (periodMs, timeoutMs) -> motor.setPeriodicFramePeriod(PeriodicFrame.kStatus2, periodMs),
+        100,
+        20,
+        20);
+    manager.register(
+        ARM_CAN_BUS,
+        (periodMs, timeoutMs) -> motor.setPeriodicFramePeriod(PeriodicFrame.kStatus3, periodMs),
+        500);
+    manager.register(
+        ARM_CAN_BUS,
+        (periodMs, timeoutMs) -> motor.setPeriodicFramePeriod(PeriodicFrame.kStatus4, periodMs),
+        500);
+  }
+
+  @Override
+  public void updateInputs(ArmIOInputs inputs) {
+    inputs.liftPosition = liftEncoder.getPosition();
+    inputs.liftVelocityRPM = liftEncoder.getVelocity();
+    inputs.liftAppliedOutput = liftMotor.getAppliedOutput();
+    inputs.liftCurrentAmps = liftMotor.getOutputCurrent();
+    inputs.liftLimitSwitch = liftLimit.isPressed();
+
+    inputs.extendPosition = extendEncoder.getPosition();
+    inputs.extendVelocityRPM = extendEncoder.getVelocity();
+    inputs.extendAppliedOutput = extendMotor.getAppliedOutput();
+    inputs.extendCurrentAmps = extendMotor.getOutputCurrent();
+    inputs.extendLimitSwitch = extendLimit.isPressed();
+
+    inputs.gripperOpen = gripper.get() == Value.kForward;
+    inputs.pressureSwitch = pneumaticHub.getPressureSwitch();
+  }
+
+  @Override
+  public void setLiftPosition(double position) {
+    liftController.setReference(position, CANSparkMax.ControlType.kPosition);
+  }
+
+  @Override
+  public void setLiftPercentage(double percentage) {
+    liftController.setReference(percentage, CANSparkMax.ControlType.kDutyCycle);
+  }
+
+  @Override
+  public void resetLiftPosition(double position) {
+    liftEncoder.setPosition(position);
+  }
+
+  @Override
+  public void setExtendPosition(double position) {
+    extendController.setReference(position, CANSparkMax.ControlType.kPosition);
+  }
+
+  @Override
+  public void setExtendPercentage(double percentage) {
+    extendController.setReference(percentage, CANSparkMax.ControlType.kDutyCycle);
+  }
+
+  @Override
+  public void resetExtendPosition(double position) {
+    extendEncoder.setPosition(position);
+  }
+
+  @Override
+  public void setGripper(Value value) {
+    gripper.set(value);
+  }
+
+  @Override
+  public void enableCompressorDigital() {
+    pneumaticHub.enableCompressorDigital();
+  }
+
+  @Override
+  public void disableCompressor() {
+    pneumaticHub.disableCompressor();
+  }
+
+  @Override
+  public boolean isLiftMotorConnected() {
+    return liftMotor.getLastError() != REVLibError.kCANDisconnected;
+  }
+
+  @Override
+  public boolean isExtendMotorConnected() {
+    return extendMotor.getLastError() != REVLibError.kCANDisconnected;
+  }
+
+  @Override
+  public boolean isPneumaticHubConnected() {
+    return !pneumaticHub.getFaults().CanWarning;
+  }
+}
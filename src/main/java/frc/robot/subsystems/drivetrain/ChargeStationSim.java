@@ -0,0 +1,42 @@
+package frc.robot.subsystems.drivetrain;
+
+import frc.lib.gyro.GyroIOSim;
+
+/**
+ * The terrain of the 2023 field for the simulated gyro: flat except for the two charge stations.
+ *
+ * <p>A charge station tilts toward the side of its center on which the robot is, up to its
+ * maximum angle, and is level when the robot is balanced within BALANCE_RANGE_METERS of its
+ * center. The ramps are treated as part of the tilting platform. This ignores the station's
+ * damping and the weight of other robots, but it is enough to exercise balancing in simulation.
+ */
+public class ChargeStationSim implements GyroIOSim.Terrain {
+  private static final double FIELD_LENGTH_METERS = 16.54;
+  /* The blue charge station, including its ramps */
+  private static final double INNER_X_METERS = 2.92;
+  private static final double OUTER_X_METERS = 4.86;
+  private static final double RIGHT_Y_METERS = 1.41;
+  private static final double LEFT_Y_METERS = 3.88;
+  private static final double MAX_TILT_DEG = 15.0;
+  private static final double BALANCE_RANGE_METERS = 0.3;
+
+  @Override
+  public double getSlopeDeg(double x, double y) {
+    if (y < RIGHT_Y_METERS || y > LEFT_Y_METERS) {
+      return 0.0;
+    }
+    double centerX;
+    if (x >= INNER_X_METERS && x <= OUTER_X_METERS) {
+      centerX = (INNER_X_METERS + OUTER_X_METERS) / 2.0;
+    } else if (x >= FIELD_LENGTH_METERS - OUTER_X_METERS
+        && x <= FIELD_LENGTH_METERS - INNER_X_METERS) {
+      centerX = FIELD_LENGTH_METERS - (INNER_X_METERS + OUTER_X_METERS) / 2.0;
+    } else {
+      return 0.0;
+    }
+
+    // the side with the robot goes down, so the field falls toward it
+    double offset = Math.max(-1.0, Math.min(1.0, (x - centerX) / BALANCE_RANGE_METERS));
+    return -offset * MAX_TILT_DEG;
+  }
+}
@@ -48,12 +48,15 @@ public final class DriveTrainConstants {
 
   /* Swerve Kinematics
    * No need to ever change this unless you are not doing a traditional rectangular/square 4 module swerve */
+  public static final Translation2d[] moduleTranslations =
+      new Translation2d[] {
+        new Translation2d(WHEELBASE / 2.0, TRACKWIDTH / 2.0),
+        new Translation2d(WHEELBASE / 2.0, -TRACKWIDTH / 2.0),
+        new Translation2d(-WHEELBASE / 2.0, TRACKWIDTH / 2.0),
+        new Translation2d(-WHEELBASE / 2.0, -TRACKWIDTH / 2.0)
+      };
   public static final SwerveDriveKinematics swerveKinematics =
-      new SwerveDriveKinematics(
-          new Translation2d(WHEELBASE / 2.0, TRACKWIDTH / 2.0),
-          new Translation2d(WHEELBASE / 2.0, -TRACKWIDTH / 2.0),
-          new Translation2d(-WHEELBASE / 2.0, TRACKWIDTH / 2.0),
-          new Translation2d(-WHEELBASE / 2.0, -TRACKWIDTH / 2.0));
+      new SwerveDriveKinematics(moduleTranslations);
 
   public static final double wheelCircumference = moduleType.wheelCircumference;
 
@@ -5,11 +5,9 @@ import static frc.robot.Constants.*;
 import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.controller.ProfiledPIDController;
-import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
-import edu.wpi.first.math.geometry.Twist2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 // import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
@@ -18,6 +16,7 @@ import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.trajectory.TrajectoryConfig;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInLayouts;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
@@ -29,8 +28,14 @@ import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.lib.gyro.GyroIO;
 import frc.lib.gyro.GyroIO.GyroIOInputs;
 import frc.lib.swerve.SwerveModule;
+import frc.lib.util.InputLogger;
+import frc.lib.util.LoopProfiler;
+import frc.lib.util.OdometryThread;
+import frc.lib.util.PoseHistory;
 import frc.lib.util.RobotOdometry;
+import frc.lib.util.SwervePoseEstimator;
 import frc.robot.AutoConstants;
+import java.lang.management.ManagementFactory;
 
 public class Drivetrain extends SubsystemBase {
   private final GyroIO gyro;
@@ -69,13 +74,7 @@ public class Drivetrain extends SubsystemBase {
         new SwerveModulePosition(),
         new SwerveModulePosition()
       };
-  private final SwerveModulePosition[] prevSwerveModulePositions =
-      new SwerveModulePosition[] {
-        new SwerveModulePosition(),
-        new SwerveModulePosition(),
-        new SwerveModulePosition(),
-        new SwerveModulePosition()
-      };
+  private final double[] prevModuleDistances = new double[4];
 
   private final SwerveModuleState[] swerveModuleStates =
       new SwerveModuleState[] {
@@ -85,7 +84,31 @@ public class Drivetrain extends SubsystemBase {
         new SwerveModuleState()
       };
 
-  private Pose2d estimatedPoseWithoutGyro = new Pose2d();
+  /* Desired module states computed each loop by drive(); indexed by module number */
+  private final double[] desiredSpeeds = new double[4];
+  private final double[] desiredAnglesDeg = new double[4];
+
+  /* Module locations relative to the center of the robot; used for the kinematics in drive() */
+  private final double[] moduleX = new double[4];
+  private final double[] moduleY = new double[4];
+  private double moduleRadiusSquaredSum = 0.0;
+
+  private static final double[] xStanceAnglesDeg =
+      new double[] {
+        Math.toDegrees(Math.PI / 2 - Math.atan(TRACKWIDTH / WHEELBASE)),
+        Math.toDegrees(Math.PI / 2 + Math.atan(TRACKWIDTH / WHEELBASE)),
+        Math.toDegrees(Math.PI / 2 + Math.atan(TRACKWIDTH / WHEELBASE)),
+        Math.toDegrees(3.0 / 2.0 * Math.PI - Math.atan(TRACKWIDTH / WHEELBASE))
+      };
+
+  /* Pose estimated from the swerve module positions alone; used when the gyro is not connected */
+  private double noGyroX = 0.0;
+  private double noGyroY = 0.0;
+  private double noGyroHeadingRad = 0.0;
+
+  /* The last rotation returned by getRotation(); only rebuilt when the heading changes */
+  private Rotation2d rotation = new Rotation2d();
+  private double rotationDeg = 0.0;
 
   private boolean isFieldRelative;
 
@@ -93,7 +116,16 @@ public class Drivetrain extends SubsystemBase {
 
   private ChassisSpeeds chassisSpeeds;
 
-  private SwerveDrivePoseEstimator poseEstimator;
+  private SwervePoseEstimator poseEstimator;
+  private PoseHistory poseHistory;
+
+  /* Samples the module positions and gyro faster than the main loop; null in simulation */
+  private OdometryThread odometryThread = null;
+  /* The samples drained from the odometry thread each loop; logged so they can be replayed */
+  private final OdometryThread.Samples odometrySamples = new OdometryThread.Samples();
+  /* The module positions passed to the pose estimator; reused every loop */
+  private final double[] odometryDistances = new double[4];
+  private final double[] odometryAnglesRad = new double[4];
   private boolean brakeMode = false;
 
   private DriveMode driveMode = DriveMode.NORMAL;
@@ -102,6 +134,14 @@ public class Drivetrain extends SubsystemBase {
   // private SwerveDriveOdometry swerveOdometry;
   private Field2d m_field = new Field2d();
 
+  /* Bytes allocated by the last call to periodic(); only measured when DEBUGGING */
+  private final com.sun.management.ThreadMXBean threadMXBean =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private long periodicAllocatedBytes = 0;
+
+  private final LoopProfiler.Histogram periodicTiming =
+      LoopProfiler.getInstance().getHistogram("Drivetrain.periodic");
+
   public static final TrajectoryConfig trajectoryConfig =
       new TrajectoryConfig(
               AutoConstants.kMaxSpeedMetersPerSecond,
@@ -127,6 +167,12 @@ public class Drivetrain extends SubsystemBase {
 
     this.centerGravity = new Translation2d();
 
+    for (int i = 0; i < 4; i++) {
+      moduleX[i] = DriveTrainConstants.moduleTranslations[i].getX();
+      moduleY[i] = DriveTrainConstants.moduleTranslations[i].getY();
+      moduleRadiusSquaredSum += moduleX[i] * moduleX[i] + moduleY[i] * moduleY[i];
+    }
+
     this.zeroGyroscope();
 
     this.isFieldRelative = true;
@@ -136,6 +182,14 @@ public class Drivetrain extends SubsystemBase {
     this.chassisSpeeds = new ChassisSpeeds(0.0, 0.0, 0.0);
 
     this.poseEstimator = RobotOdometry.getInstance().getPoseEstimator();
+    this.poseHistory = RobotOdometry.getInstance().getPoseHistory();
+
+    // the simulated swerve modules are only updated by the main loop, so there is nothing to gain
+    // from sampling them faster
+    if (RobotBase.isReal()) {
+      this.odometryThread = new OdometryThread(gyro, swerveModules);
+      this.odometryThread.start();
+    }
 
     // getModulePositions();
     // this.swerveOdometry =
@@ -163,11 +217,12 @@ public class Drivetrain extends SubsystemBase {
    * @return the rotation of the robot
    */
   public Rotation2d getRotation() {
-    if (gyroInputs.connected) {
-      return Rotation2d.fromDegrees(gyroInputs.positionDeg + this.gyroOffset);
-    } else {
-      return estimatedPoseWithoutGyro.getRotation();
+    double degrees = getRotationDegrees();
+    if (degrees != rotationDeg) {
+      rotationDeg = degrees;
+      rotation = Rotation2d.fromDegrees(degrees);
     }
+    return rotation;
   }
 
   /**
@@ -185,11 +240,7 @@ public class Drivetrain extends SubsystemBase {
       this.gyroOffset = expectedYaw - gyroInputs.positionDeg;
     } else {
       this.gyroOffset = 0;
-      this.estimatedPoseWithoutGyro =
-          new Pose2d(
-              estimatedPoseWithoutGyro.getX(),
-              estimatedPoseWithoutGyro.getY(),
-              Rotation2d.fromDegrees(expectedYaw));
+      this.noGyroHeadingRad = Math.toRadians(expectedYaw);
     }
   }
 
@@ -234,8 +285,10 @@ public class Drivetrain extends SubsystemBase {
 
     getModulePositions();
 
-    estimatedPoseWithoutGyro =
-        new Pose2d(state.poseMeters.getTranslation(), state.holonomicRotation);
+    setPoseWithoutGyro(
+        state.poseMeters.getX(), state.poseMeters.getY(), state.holonomicRotation.getRadians());
+    clearOdometrySamples();
+    poseHistory.clear();
     poseEstimator.resetPosition(
         this.getRotation(),
         swerveModulePositions,
@@ -247,13 +300,23 @@ public class Drivetrain extends SubsystemBase {
 
     getModulePositions();
 
-    estimatedPoseWithoutGyro = pose;
+    setPoseWithoutGyro(pose.getX(), pose.getY(), pose.getRotation().getRadians());
+    clearOdometrySamples();
+    poseHistory.clear();
     poseEstimator.resetPosition(this.getRotation(), swerveModulePositions, pose);
     // this.swerveOdometry.resetPosition(getRotation(), swerveModulePositions, pose);
   }
 
+  private void setPoseWithoutGyro(double x, double y, double headingRad) {
+    noGyroX = x;
+    noGyroY = y;
+    noGyroHeadingRad = headingRad;
+  }
+
   public void resetPoseRotationToGyro() {
     getModulePositions();
+    clearOdometrySamples();
+    poseHistory.clear();
 
     poseEstimator.resetPosition(
         this.getRotation(),
@@ -284,15 +347,18 @@ public class Drivetrain extends SubsystemBase {
     switch (driveMode) {
       case NORMAL:
         if (isFieldRelative) {
-          chassisSpeeds =
-              ChassisSpeeds.fromFieldRelativeSpeeds(
-                  xVelocity, yVelocity, rotationalVelocity, getRotation());
+          // equivalent to ChassisSpeeds.fromFieldRelativeSpeeds without the allocations
+          double headingRad = Math.toRadians(getRotationDegrees());
+          double cos = Math.cos(headingRad);
+          double sin = Math.sin(headingRad);
+          chassisSpeeds.vxMetersPerSecond = xVelocity * cos + yVelocity * sin;
+          chassisSpeeds.vyMetersPerSecond = -xVelocity * sin + yVelocity * cos;
         } else {
-          chassisSpeeds = new ChassisSpeeds(xVelocity, yVelocity, rotationalVelocity);
+          chassisSpeeds.vxMetersPerSecond = xVelocity;
+          chassisSpeeds.vyMetersPerSecond = yVelocity;
         }
-        SwerveModuleState[] swerveModuleStates =
-            kinematics.toSwerveModuleStates(chassisSpeeds, centerGravity);
-        this.setSwerveModuleStates(swerveModuleStates, true, false);
+        chassisSpeeds.omegaRadiansPerSecond = rotationalVelocity;
+        this.setChassisSpeeds(true, false);
         break;
 
       case CHARACTERIZATION:
@@ -314,9 +380,54 @@ public class Drivetrain extends SubsystemBase {
    * after this method is invoked.
    */
   public void stop() {
-    chassisSpeeds = new ChassisSpeeds(0.0, 0.0, 0.0);
-    SwerveModuleState[] states = kinematics.toSwerveModuleStates(chassisSpeeds, centerGravity);
-    this.setSwerveModuleStates(states);
+    chassisSpeeds.vxMetersPerSecond = 0.0;
+    chassisSpeeds.vyMetersPerSecond = 0.0;
+    chassisSpeeds.omegaRadiansPerSecond = 0.0;
+    this.setChassisSpeeds(false, false);
+  }
+
+  /**
+   * Converts the current desired chassis speeds into module states and sends them to the swerve
+   * modules. This is equivalent to SwerveDriveKinematics.toSwerveModuleStates followed by
+   * setSwerveModuleStates, but works on preallocated primitive buffers so that it can be invoked
+   * every loop without creating garbage.
+   */
+  private void setChassisSpeeds(boolean isOpenLoop, boolean forceAngle) {
+    double vx = chassisSpeeds.vxMetersPerSecond;
+    double vy = chassisSpeeds.vyMetersPerSecond;
+    double omega = chassisSpeeds.omegaRadiansPerSecond;
+    double cogX = centerGravity.getX();
+    double cogY = centerGravity.getY();
+
+    for (int i = 0; i < 4; i++) {
+      double moduleVx = vx - omega * (moduleY[i] - cogY);
+      double moduleVy = vy + omega * (moduleX[i] - cogX);
+      desiredSpeeds[i] = Math.hypot(moduleVx, moduleVy);
+      desiredAnglesDeg[i] = Math.toDegrees(Math.atan2(moduleVy, moduleVx));
+    }
+    setDesiredModuleStates(isOpenLoop, forceAngle);
+  }
+
+  /**
+   * Desaturates the module speeds in the desired state buffers and sends them to the swerve
+   * modules.
+   */
+  private void setDesiredModuleStates(boolean isOpenLoop, boolean forceAngle) {
+    double maxSpeed = 0.0;
+    for (int i = 0; i < 4; i++) {
+      maxSpeed = Math.max(maxSpeed, Math.abs(desiredSpeeds[i]));
+    }
+    if (maxSpeed > DriveTrainConstants.maxSpeed) {
+      double scale = DriveTrainConstants.maxSpeed / maxSpeed;
+      for (int i = 0; i < 4; i++) {
+        desiredSpeeds[i] *= scale;
+      }
+    }
+
+    for (SwerveModule mod : this.swerveModules) {
+      int index = mod.getModuleNumber();
+      mod.setDesiredState(desiredSpeeds[index], desiredAnglesDeg[index], isOpenLoop, forceAngle);
+    }
   }
 
   /**
@@ -327,44 +438,58 @@ public class Drivetrain extends SubsystemBase {
    */
   @Override
   public void periodic() {
+    long start = System.nanoTime();
+    long allocatedBytes =
+        DEBUGGING ? threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
 
     // update and log gyro inputs
     gyro.updateInputs(gyroInputs);
+    InputLogger.getInstance().processInputs("Gyro", gyroInputs);
 
     // update and log the swerve moudles inputs
     for (SwerveModule swerveModule : swerveModules) {
       swerveModule.updateAndProcessInputs();
     }
 
-    // update estimated poses
-    getModulePositions();
-    getModuleStates();
-
-    // if the gyro is not connected, use the swerve module positions to estimate the robot's
-    // rotation
-    if (!gyroInputs.connected) {
-      SwerveModulePosition[] moduleDeltas = new SwerveModulePosition[4];
-      for (int index = 0; index < moduleDeltas.length; index++) {
-        SwerveModulePosition current = swerveModulePositions[index];
-        SwerveModulePosition previous = prevSwerveModulePositions[index];
-
-        moduleDeltas[index] =
-            new SwerveModulePosition(
-                current.distanceMeters - previous.distanceMeters, current.angle);
-        previous.distanceMeters = current.distanceMeters;
-      }
+    // update and log the odometry samples; when replaying, the logged samples are used instead
+    odometrySamples.threaded = odometryThread != null;
+    odometrySamples.loopTimestamp = Timer.getFPGATimestamp();
+    if (odometryThread != null) {
+      odometryThread.drain(odometrySamples);
+    } else {
+      odometrySamples.count = 0;
+    }
+    InputLogger.getInstance().processInputs("Odometry", odometrySamples);
 
-      Twist2d twist = kinematics.toTwist2d(moduleDeltas);
+    if (odometrySamples.threaded && gyroInputs.connected) {
+      // feed every sample taken by the odometry thread since the last loop into the pose estimator
+      updatePoseFromOdometrySamples();
+    } else {
+      // if the gyro is not connected, use the swerve module positions to estimate the robot's
+      // rotation; the samples drained from the odometry thread are discarded
+      if (!gyroInputs.connected) {
+        updatePoseWithoutGyro();
+      }
 
-      estimatedPoseWithoutGyro = estimatedPoseWithoutGyro.exp(twist);
+      for (int i = 0; i < 4; i++) {
+        odometryDistances[i] = swerveModules[i].getDistanceMeters();
+        odometryAnglesRad[i] = Math.toRadians(swerveModules[i].getAngleDegrees());
+      }
+      double timestamp = odometrySamples.loopTimestamp;
+      poseEstimator.updateWithTime(
+          timestamp, Math.toRadians(getRotationDegrees()), odometryDistances, odometryAnglesRad);
+      addPoseToHistory(timestamp);
     }
 
-    poseEstimator.updateWithTime(
-        Timer.getFPGATimestamp(), this.getRotation(), swerveModulePositions);
-
     // update the brake mode based on the robot's velocity and state (enabled/disabled)
     updateBrakeMode();
 
+    if (DEBUGGING) {
+      periodicAllocatedBytes =
+          threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBytes;
+    }
+    periodicTiming.recordSince(start);
+
     // // update tunables
     // if (autoDriveKp.hasChanged() || autoDriveKi.hasChanged() || autoDriveKd.hasChanged()) {
     //   autoXController.setPID(autoDriveKp.get(), autoDriveKi.get(), autoDriveKd.get());
@@ -386,6 +511,86 @@ public class Drivetrain extends SubsystemBase {
     // m_field.setRobotPose(poseEstimator.getEstimatedPosition());
   }
 
+  /**
+   * Feeds the samples drained from the odometry thread into the pose estimator in the order in
+   * which they were taken.
+   */
+  private void updatePoseFromOdometrySamples() {
+    for (int sample = 0; sample < odometrySamples.count; sample++) {
+      for (int i = 0; i < 4; i++) {
+        odometryDistances[i] = odometrySamples.distanceMeters[sample * 4 + i];
+        odometryAnglesRad[i] = Math.toRadians(odometrySamples.angleDeg[sample * 4 + i]);
+      }
+      double timestamp = odometrySamples.timestamps[sample];
+      poseEstimator.updateWithTime(
+          timestamp,
+          Math.toRadians(odometrySamples.yawDeg[sample] + this.gyroOffset),
+          odometryDistances,
+          odometryAnglesRad);
+      addPoseToHistory(timestamp);
+    }
+  }
+
+  private void addPoseToHistory(double timestamp) {
+    poseHistory.add(
+        timestamp,
+        poseEstimator.getX(),
+        poseEstimator.getY(),
+        poseEstimator.getRotationRadians());
+  }
+
+  /** Discards any samples queued by the odometry thread (e.g., after the pose is reset). */
+  private void clearOdometrySamples() {
+    if (odometryThread != null) {
+      odometryThread.clear();
+    }
+  }
+
+  /**
+   * Integrates the change in the swerve module positions since the last loop into the pose
+   * estimated without the gyro. This is equivalent to SwerveDriveKinematics.toTwist2d followed by
+   * Pose2d.exp, but doesn't allocate. The forward kinematics reduce to averages because the module
+   * locations are symmetric about the center of the robot.
+   */
+  private void updatePoseWithoutGyro() {
+    double dx = 0.0;
+    double dy = 0.0;
+    double dtheta = 0.0;
+    for (int index = 0; index < 4; index++) {
+      SwerveModule module = swerveModules[index];
+      double distance = module.getDistanceMeters() - prevModuleDistances[index];
+      double angleRad = Math.toRadians(module.getAngleDegrees());
+      double moduleDx = distance * Math.cos(angleRad);
+      double moduleDy = distance * Math.sin(angleRad);
+      prevModuleDistances[index] = module.getDistanceMeters();
+
+      dx += moduleDx;
+      dy += moduleDy;
+      dtheta += moduleX[index] * moduleDy - moduleY[index] * moduleDx;
+    }
+    dx /= 4.0;
+    dy /= 4.0;
+    dtheta /= moduleRadiusSquaredSum;
+
+    double s;
+    double c;
+    if (Math.abs(dtheta) < 1E-9) {
+      s = 1.0 - 1.0 / 6.0 * dtheta * dtheta;
+      c = 0.5 * dtheta;
+    } else {
+      s = Math.sin(dtheta) / dtheta;
+      c = (1 - Math.cos(dtheta)) / dtheta;
+    }
+    double tx = dx * s - dy * c;
+    double ty = dx * c + dy * s;
+
+    double cos = Math.cos(noGyroHeadingRad);
+    double sin = Math.sin(noGyroHeadingRad);
+    noGyroX += tx * cos - ty * sin;
+    noGyroY += tx * sin + ty * cos;
+    noGyroHeadingRad += dtheta;
+  }
+
   /**
    * If the robot is enabled and brake mode is not enabled, enable it. If the robot is disabled, has
    * stopped moving, and brake mode is enabled, disable it.
@@ -398,8 +603,7 @@ public class Drivetrain extends SubsystemBase {
     } else {
       boolean stillMoving = false;
       for (SwerveModule mod : swerveModules) {
-        if (Math.abs(mod.getState().speedMetersPerSecond)
-            > DriveTrainConstants.maxCoastVelocity_MPS) {
+        if (Math.abs(mod.getVelocityMetersPerSec()) > DriveTrainConstants.maxCoastVelocity_MPS) {
           stillMoving = true;
         }
       }
@@ -430,11 +634,11 @@ public class Drivetrain extends SubsystemBase {
   /* Used by SwerveControllerCommand */
   public void setSwerveModuleStates(
       SwerveModuleState[] states, boolean isOpenLoop, boolean forceAngle) {
-    SwerveDriveKinematics.desaturateWheelSpeeds(states, DriveTrainConstants.maxSpeed);
-
-    for (SwerveModule mod : this.swerveModules) {
-      mod.setDesiredState(states[mod.getModuleNumber()], isOpenLoop, forceAngle);
+    for (int i = 0; i < 4; i++) {
+      desiredSpeeds[i] = states[i].speedMetersPerSecond;
+      desiredAnglesDeg[i] = states[i].angle.getDegrees();
     }
+    setDesiredModuleStates(isOpenLoop, forceAngle);
   }
 
   /* Used by SwerveControllerCommand in Auto */
@@ -473,13 +677,14 @@ public class Drivetrain extends SubsystemBase {
    * useful when shooting.
    */
   public void setXStance() {
-    chassisSpeeds = new ChassisSpeeds(0.0, 0.0, 0.0);
-    SwerveModuleState[] states = kinematics.toSwerveModuleStates(chassisSpeeds, centerGravity);
-    states[0].angle = new Rotation2d(Math.PI / 2 - Math.atan(TRACKWIDTH / WHEELBASE));
-    states[1].angle = new Rotation2d(Math.PI / 2 + Math.atan(TRACKWIDTH / WHEELBASE));
-    states[2].angle = new Rotation2d(Math.PI / 2 + Math.atan(TRACKWIDTH / WHEELBASE));
-    states[3].angle = new Rotation2d(3.0 / 2.0 * Math.PI - Math.atan(TRACKWIDTH / WHEELBASE));
-    setSwerveModuleStates(states, true, true);
+    chassisSpeeds.vxMetersPerSecond = 0.0;
+    chassisSpeeds.vyMetersPerSecond = 0.0;
+    chassisSpeeds.omegaRadiansPerSecond = 0.0;
+    for (int i = 0; i < 4; i++) {
+      desiredSpeeds[i] = 0.0;
+      desiredAnglesDeg[i] = xStanceAnglesDeg[i];
+    }
+    setDesiredModuleStates(true, true);
   }
 
   public void getModulePositions() {
@@ -510,6 +715,39 @@ public class Drivetrain extends SubsystemBase {
     setCenterGrav(0.0, 0.0);
   }
 
+  /**
+   * Mute or unmute the swerve modules' outputs. While muted, drive and setSwerveModuleStates
+   * compute the module states as usual, but nothing is sent to the motors. When the outputs are
+   * unmuted, the desired chassis speeds are reset to zero since they were computed from muted
+   * inputs.
+   *
+   * @param muted true to mute the swerve modules' outputs
+   */
+  public void setOutputsMuted(boolean muted) {
+    for (SwerveModule swerveModule : swerveModules) {
+      swerveModule.setOutputsMuted(muted);
+    }
+    if (!muted) {
+      chassisSpeeds.vxMetersPerSecond = 0.0;
+      chassisSpeeds.vyMetersPerSecond = 0.0;
+      chassisSpeeds.omegaRadiansPerSecond = 0.0;
+    }
+  }
+
+  /**
+   * Returns the number of status signals read from the swerve modules' devices in the last loop,
+   * excluding the reads made by the odometry thread.
+   *
+   * @return the number of status signals read from the swerve modules' devices in the last loop
+   */
+  public int getDeviceReadsPerLoop() {
+    int reads = 0;
+    for (SwerveModule swerveModule : swerveModules) {
+      reads += swerveModule.getDeviceReadsPerLoop();
+    }
+    return reads;
+  }
+
   /**
    * Returns the desired velocity of the drivetrain in the x direction (units of m/s)
    *
@@ -601,7 +839,7 @@ public class Drivetrain extends SubsystemBase {
   public double getCharacterizationVelocity() {
     double driveVelocityAverage = 0.0;
     for (SwerveModule swerveModule : swerveModules) {
-      driveVelocityAverage += swerveModule.getState().speedMetersPerSecond;
+      driveVelocityAverage += swerveModule.getVelocityMetersPerSec();
     }
     return driveVelocityAverage / 4.0;
   }
@@ -620,7 +858,11 @@ public class Drivetrain extends SubsystemBase {
   }
 
   public double getRotationDegrees() {
-    return this.getRotation().getDegrees();
+    if (gyroInputs.connected) {
+      return gyroInputs.positionDeg + this.gyroOffset;
+    } else {
+      return Math.toDegrees(noGyroHeadingRad);
+    }
   }
 
   public SwerveModule getSwerveModule(int moduleNumber) {
@@ -642,12 +884,13 @@ public class Drivetrain extends SubsystemBase {
       tab.add("DriveTrain", this).withPosition(0, 0).withSize(3, 1);
       tab.addNumber("vx", this::getVelocityX);
       tab.addNumber("vy", this::getVelocityY);
-      tab.addNumber("Pose Est X", () -> poseEstimator.getEstimatedPosition().getX());
-      tab.addNumber("Pose Est Y", () -> poseEstimator.getEstimatedPosition().getY());
-      tab.addNumber(
-          "Pose Est Rot", () -> poseEstimator.getEstimatedPosition().getRotation().getDegrees());
+      tab.addNumber("Pose Est X", poseEstimator::getX);
+      tab.addNumber("Pose Est Y", poseEstimator::getY);
+      tab.addNumber("Pose Est Rot", () -> Math.toDegrees(poseEstimator.getRotationRadians()));
       tab.addNumber("CoG X", () -> this.centerGravity.getX());
       tab.addNumber("CoG Y", () -> this.centerGravity.getY());
+      tab.addNumber("Periodic Alloc Bytes", () -> this.periodicAllocatedBytes);
+      tab.addNumber("Device Reads", this::getDeviceReadsPerLoop);
       tab.add(m_field);
     }
 
@@ -0,0 +1,185 @@
+package frc.robot.subsystems.vision;
+
+import static frc.robot.Constants.*;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.lib.limelightvision.VisionIO;
+import frc.lib.limelightvision.VisionIO.VisionIOInputs;
+import frc.lib.util.InputLogger;
+import frc.lib.util.LoopProfiler;
+import frc.lib.util.PoseHistory;
+import frc.lib.util.RobotOdometry;
+import frc.lib.util.SwervePoseEstimator;
+
+/**
+ * This subsystem fuses the robot poses measured by the camera into the shared pose estimator.
+ *
+ * <p>Each frame is fused at most once and is back-dated by the camera's pipeline and capture
+ * latency. Frames are rejected if the pose is off the field or disagrees with odometry at the time
+ * of the frame. So that the estimate can recover if odometry drifts (e.g., the wheels slip in a
+ * collision), frames that disagree with odometry are accepted once enough consecutive frames agree
+ * with each other. The standard deviations of accepted frames grow with the square of the distance
+ * to the tags and shrink with the number of tags in view.
+ */
+public class Vision extends SubsystemBase {
+  private final VisionIO io;
+  private final VisionIOInputs inputs = new VisionIOInputs();
+  private final SwervePoseEstimator poseEstimator;
+  private final PoseHistory poseHistory;
+  private final double[] odometryPose = new double[3];
+
+  private double lastFrameTimestamp = 0.0;
+  /* Consecutive frames that disagree with odometry but agree with each other, and the last one */
+  private int disagreeingFrames = 0;
+  private double disagreeingX = 0.0;
+  private double disagreeingY = 0.0;
+  private long acceptedFrames = 0;
+  private long rejectedFrames = 0;
+
+  private final LoopProfiler.Histogram periodicTiming =
+      LoopProfiler.getInstance().getHistogram("Vision.periodic");
+
+  /**
+   * Constructs a new Vision object.
+   *
+   * @param io the hardware abstracted interface for the camera
+   */
+  public Vision(VisionIO io) {
+    this.io = io;
+    this.poseEstimator = RobotOdometry.getInstance().getPoseEstimator();
+    this.poseHistory = RobotOdometry.getInstance().getPoseHistory();
+
+    initLogging();
+  }
+
+  @Override
+  public void periodic() {
+    long start = System.nanoTime();
+    processFrame();
+    periodicTiming.recordSince(start);
+  }
+
+  /* Fuse the latest frame into the pose estimator if it is new and valid */
+  private void processFrame() {
+    io.updateInputs(inputs);
+    InputLogger.getInstance().processInputs("Vision", inputs);
+
+    if (inputs.frameTimestamp == lastFrameTimestamp) {
+      return;
+    }
+    lastFrameTimestamp = inputs.frameTimestamp;
+
+    if (!inputs.hasTargets || inputs.tagCount < 1) {
+      return;
+    }
+
+    double timestamp =
+        inputs.frameTimestamp - (inputs.pipelineLatencyMs + inputs.captureLatencyMs) / 1000.0;
+    if (isValidFrame(timestamp)) {
+      acceptedFrames++;
+      addVisionMeasurement(timestamp);
+    } else {
+      rejectedFrames++;
+    }
+  }
+
+  /*
+   * Returns false if the frame's pose is implausible or disagrees with odometry, unless enough
+   * consecutive frames have disagreed with odometry in the same way
+   */
+  private boolean isValidFrame(double timestamp) {
+    double x = inputs.botPose[0];
+    double y = inputs.botPose[1];
+
+    if (x < -VisionConstants.fieldMarginMeters
+        || x > VisionConstants.fieldLengthMeters + VisionConstants.fieldMarginMeters
+        || y < -VisionConstants.fieldMarginMeters
+        || y > VisionConstants.fieldWidthMeters + VisionConstants.fieldMarginMeters
+        || Math.abs(inputs.botPose[2]) > VisionConstants.maxPoseZMeters) {
+      disagreeingFrames = 0;
+      return false;
+    }
+
+    if (inputs.averageTagDistanceMeters > VisionConstants.maxTagDistanceMeters
+        || timestamp > Timer.getFPGATimestamp()) {
+      disagreeingFrames = 0;
+      return false;
+    }
+
+    // compare against where odometry thinks the robot was when the frame was captured
+    if (poseHistory.getPose(timestamp, odometryPose)) {
+      double dx = x - odometryPose[0];
+      double dy = y - odometryPose[1];
+      if (dx * dx + dy * dy
+          > VisionConstants.maxPoseErrorMeters * VisionConstants.maxPoseErrorMeters) {
+        return agreesWithPreviousFrames(x, y);
+      }
+    }
+    disagreeingFrames = 0;
+    return true;
+  }
+
+  /*
+   * Count the frames that disagree with odometry in a row, as long as each is close to the previous
+   * one, and return true once there are enough of them. The frames then continue to be accepted
+   * until a frame agrees with odometry again or the frames stop agreeing with each other.
+   */
+  private boolean agreesWithPreviousFrames(double x, double y) {
+    double dx = x - disagreeingX;
+    double dy = y - disagreeingY;
+    if (disagreeingFrames > 0
+        && dx * dx + dy * dy
+            <= VisionConstants.recoveryAgreementMeters * VisionConstants.recoveryAgreementMeters) {
+      disagreeingFrames++;
+    } else {
+      disagreeingFrames = 1;
+    }
+    disagreeingX = x;
+    disagreeingY = y;
+    return disagreeingFrames >= VisionConstants.recoveryFrameCount;
+  }
+
+  private void addVisionMeasurement(double timestamp) {
+    double distanceSquared = inputs.averageTagDistanceMeters * inputs.averageTagDistanceMeters;
+    double xyStdDev = VisionConstants.xyStdDevCoefficient * distanceSquared / inputs.tagCount;
+    double thetaStdDev =
+        inputs.tagCount > 1
+            ? VisionConstants.thetaStdDevCoefficient * distanceSquared / inputs.tagCount
+            : VisionConstants.singleTagThetaStdDev;
+
+    poseEstimator.addVisionMeasurement(
+        inputs.botPose[0],
+        inputs.botPose[1],
+        Math.toRadians(inputs.botPose[5]),
+        timestamp,
+        xyStdDev,
+        xyStdDev,
+        thetaStdDev);
+  }
+
+  public long getAcceptedFrames() {
+    return acceptedFrames;
+  }
+
+  public long getRejectedFrames() {
+    return rejectedFrames;
+  }
+
+  public void initLogging() {
+    if (DEBUGGING) {
+      ShuffleboardTab tab = Shuffleboard.getTab("Vision");
+      tab.addBoolean("Connected", () -> inputs.connected);
+      tab.addBoolean("Has Targets", () -> inputs.hasTargets);
+      tab.addNumber("Tag Count", () -> inputs.tagCount);
+      tab.addNumber("Tag Distance", () -> inputs.averageTagDistanceMeters);
+      tab.addNumber("Vision X", () -> inputs.botPose[0]);
+      tab.addNumber("Vision Y", () -> inputs.botPose[1]);
+      tab.addNumber("Vision Rot", () -> inputs.botPose[5]);
+      tab.addNumber("Accepted Frames", () -> acceptedFrames);
+      tab.addNumber("Rejected Frames", () -> rejectedFrames);
+    }
+  }
+}
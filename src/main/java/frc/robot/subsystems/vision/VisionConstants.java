@@ -0,0 +1,31 @@
+package frc.robot.subsystems.vision;
+
+public final class VisionConstants {
+  /* 2023 field dimensions; poses outside the field (plus a margin) are rejected */
+  public static final double fieldLengthMeters = 16.54175;
+  public static final double fieldWidthMeters = 8.0137;
+  public static final double fieldMarginMeters = 0.5;
+
+  /* The camera can't be trusted to report a robot that is off the ground */
+  public static final double maxPoseZMeters = 0.75;
+
+  /* Reject frames that disagree with odometry at the time of the frame by more than this */
+  public static final double maxPoseErrorMeters = 1.0;
+
+  /*
+   * Unless this many consecutive frames disagree with odometry but agree with each other (each
+   * within recoveryAgreementMeters of the previous), in which case odometry has likely drifted
+   */
+  public static final int recoveryFrameCount = 5;
+  public static final double recoveryAgreementMeters = 0.25;
+
+  /* Reject frames where the average distance to the tags is farther than this */
+  public static final double maxTagDistanceMeters = 6.0;
+
+  /* Standard deviations for a single tag at 1 m; scaled by distance squared and tag count */
+  public static final double xyStdDevCoefficient = 0.05;
+  public static final double thetaStdDevCoefficient = 0.1;
+
+  /* Heading from a single tag is poor; effectively ignore it */
+  public static final double singleTagThetaStdDev = 1.0e6;
+}
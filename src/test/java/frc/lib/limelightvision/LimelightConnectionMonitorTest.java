@@ -0,0 +1,117 @@
+package frc.lib.limelightvision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/* The robot is the NetworkTables server and the camera a client, both on localhost */
+class LimelightConnectionMonitorTest {
+  private static final int PORT = 5815;
+  private static final String TABLE_NAME = "limelight-monitor-test";
+  private static final long WAIT_TIMEOUT_MILLIS = 5000;
+
+  private NetworkTableInstance robot;
+  private NetworkTableInstance camera;
+  private File persistFile;
+
+  @BeforeAll
+  static void initializeHal() {
+    assertTrue(HAL.initialize(500, 0));
+  }
+
+  @BeforeEach
+  void connect() throws IOException, InterruptedException {
+    persistFile = File.createTempFile("networktables", ".json");
+    robot = NetworkTableInstance.create();
+    robot.startServer(persistFile.getPath(), "127.0.0.1", 0, PORT);
+
+    camera = NetworkTableInstance.create();
+    camera.startClient4("limelight");
+    camera.setServer("127.0.0.1", PORT);
+    assertTrue(waitFor(camera::isConnected));
+  }
+
+  @AfterEach
+  void disconnect() {
+    LimelightConnectionMonitor.forTable(robot.getTable(TABLE_NAME)).close();
+    NetworkTableInstance.destroy(camera);
+    NetworkTableInstance.destroy(robot);
+    persistFile.delete();
+  }
+
+  @Test
+  void sharesOneMonitorPerTable() {
+    NetworkTable table = robot.getTable(TABLE_NAME);
+    LimelightConnectionMonitor monitor = LimelightConnectionMonitor.forTable(table);
+
+    assertSame(monitor, LimelightConnectionMonitor.forTable(robot.getTable(TABLE_NAME)));
+    assertSame(monitor, new LimeLight(table).getConnectionMonitor());
+    assertNotSame(monitor, LimelightConnectionMonitor.forTable(camera.getTable(TABLE_NAME)));
+    LimelightConnectionMonitor.forTable(camera.getTable(TABLE_NAME)).close();
+  }
+
+  @Test
+  void timeoutIsSetByFirstUser() {
+    NetworkTable table = robot.getTable(TABLE_NAME);
+    LimelightConnectionMonitor monitor = LimelightConnectionMonitor.forTable(table, 1.0);
+
+    assertEquals(1.0, monitor.getTimeoutSecs());
+    assertSame(monitor, LimelightConnectionMonitor.forTable(table));
+    assertEquals(1.0, LimelightConnectionMonitor.forTable(table, 0.5).getTimeoutSecs());
+
+    // a new monitor has the default timeout
+    monitor.close();
+    assertEquals(
+        LimelightConnectionMonitor.DEFAULT_TIMEOUT_SECS,
+        LimelightConnectionMonitor.forTable(table).getTimeoutSecs());
+  }
+
+  @Test
+  void followsCameraUpdates() throws InterruptedException {
+    LimelightConnectionMonitor monitor =
+        LimelightConnectionMonitor.forTable(robot.getTable(TABLE_NAME));
+    AtomicInteger connects = new AtomicInteger();
+    AtomicInteger disconnects = new AtomicInteger();
+    monitor.addConnectionListener(
+        connected -> (connected ? connects : disconnects).incrementAndGet());
+    assertFalse(monitor.isConnected());
+
+    // the camera publishes the pipeline latency of a frame
+    DoublePublisher latency = camera.getTable(TABLE_NAME).getDoubleTopic("tl").publish();
+    latency.set(21.3);
+    camera.flush();
+    assertTrue(waitFor(monitor::isConnected));
+    assertEquals(1, connects.get());
+
+    // the camera stops publishing
+    assertTrue(waitFor(() -> !monitor.isConnected()));
+    assertTrue(waitFor(() -> disconnects.get() == 1));
+    latency.close();
+  }
+
+  private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        return false;
+      }
+      Thread.sleep(10);
+    }
+    return true;
+  }
+}
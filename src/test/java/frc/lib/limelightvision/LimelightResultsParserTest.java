@@ -0,0 +1,132 @@
+package frc.lib.limelightvision;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringPublisher;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class LimelightResultsParserTest {
+  private static final String LIMELIGHT_NAME = "limelight-test";
+  private static final String[] DUMP_FILES = {"two-tags.json", "one-tag.json", "no-targets.json"};
+
+  private static final int WARM_UP_PARSES = 5000;
+  private static final int MEASURED_PARSES = 5000;
+
+  private static String[] dumps;
+  private static StringPublisher jsonPublisher;
+
+  @BeforeAll
+  static void loadDumps() throws IOException {
+    dumps = new String[DUMP_FILES.length];
+    for (int i = 0; i < DUMP_FILES.length; i++) {
+      try (InputStream stream =
+          LimelightResultsParserTest.class.getResourceAsStream("/limelight/" + DUMP_FILES[i])) {
+        dumps[i] = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+      }
+    }
+    jsonPublisher =
+        NetworkTableInstance.getDefault()
+            .getTable(LIMELIGHT_NAME)
+            .getStringTopic("json")
+            .publish();
+  }
+
+  @AfterAll
+  static void closePublisher() {
+    jsonPublisher.close();
+  }
+
+  @Test
+  void matchesJacksonResults() {
+    LimelightResultsParser.Results results = new LimelightResultsParser.Results();
+    for (String dump : dumps) {
+      jsonPublisher.set(dump);
+      LimelightHelpers.Results expected =
+          LimelightHelpers.getLatestResults(LIMELIGHT_NAME).targetingResults;
+      assertTrue(LimelightResultsParser.getLatestResults(LIMELIGHT_NAME, results));
+
+      assertEquals(expected.valid, results.valid);
+      assertEquals(expected.pipelineID, results.pipelineID);
+      assertEquals(expected.latency_pipeline, results.latency_pipeline);
+      assertEquals(expected.latency_capture, results.latency_capture);
+      assertEquals(expected.timestamp_LIMELIGHT_publish, results.timestamp_LIMELIGHT_publish);
+      assertArrayEquals(expected.botpose, results.botpose);
+      assertArrayEquals(expected.botpose_wpired, results.botpose_wpired);
+      assertArrayEquals(expected.botpose_wpiblue, results.botpose_wpiblue);
+
+      assertEquals(expected.targets_Fiducials.length, results.fiducialCount);
+      for (int i = 0; i < results.fiducialCount; i++) {
+        LimelightHelpers.LimelightTarget_Fiducial fiducial = expected.targets_Fiducials[i];
+        assertEquals((int) fiducial.fiducialID, results.fiducialIDs[i]);
+        assertEquals(
+            fiducial.getTargetPose_CameraSpace().getTranslation().getNorm(),
+            results.fiducialDistances[i],
+            1e-9);
+      }
+    }
+  }
+
+  @Test
+  void malformedDumpIsReported() {
+    LimelightResultsParser.Results results = new LimelightResultsParser.Results();
+    assertFalse(LimelightResultsParser.parse("{\"Results\":{\"tl\":21.3,", results));
+  }
+
+  /*
+   * Compares the time and heap allocated per frame by the two parsers over the corpus of dumps,
+   * each read from NetworkTables as on the robot. Only the allocation is asserted; the times
+   * depend on the machine and are printed for comparison.
+   */
+  @Test
+  void allocatesLessThanJackson() {
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    long threadId = Thread.currentThread().getId();
+    LimelightResultsParser.Results results = new LimelightResultsParser.Results();
+
+    for (int i = 0; i < WARM_UP_PARSES; i++) {
+      jsonPublisher.set(dumps[i % dumps.length]);
+      LimelightHelpers.getLatestResults(LIMELIGHT_NAME);
+      LimelightResultsParser.getLatestResults(LIMELIGHT_NAME, results);
+    }
+
+    long jacksonNanos = 0;
+    long jacksonBytes = 0;
+    long streamNanos = 0;
+    long streamBytes = 0;
+    for (int i = 0; i < MEASURED_PARSES; i++) {
+      jsonPublisher.set(dumps[i % dumps.length]);
+
+      long bytes = threadMXBean.getThreadAllocatedBytes(threadId);
+      long start = System.nanoTime();
+      LimelightHelpers.getLatestResults(LIMELIGHT_NAME);
+      jacksonNanos += System.nanoTime() - start;
+      jacksonBytes += threadMXBean.getThreadAllocatedBytes(threadId) - bytes;
+
+      bytes = threadMXBean.getThreadAllocatedBytes(threadId);
+      start = System.nanoTime();
+      LimelightResultsParser.getLatestResults(LIMELIGHT_NAME, results);
+      streamNanos += System.nanoTime() - start;
+      streamBytes += threadMXBean.getThreadAllocatedBytes(threadId) - bytes;
+    }
+
+    System.out.printf(
+        "lljson jackson: %.1f us, %d bytes per frame%n",
+        jacksonNanos / 1000.0 / MEASURED_PARSES, jacksonBytes / MEASURED_PARSES);
+    System.out.printf(
+        "lljson stream: %.1f us, %d bytes per frame%n",
+        streamNanos / 1000.0 / MEASURED_PARSES, streamBytes / MEASURED_PARSES);
+    assertTrue(streamBytes < jacksonBytes);
+  }
+}
@@ -0,0 +1,103 @@
+package frc.lib.limelightvision;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LimelightSubscriberCacheTest {
+  private NetworkTableInstance instance;
+  private NetworkTable table;
+  private DoublePublisher tl;
+  private DoublePublisher tv;
+  private DoubleArrayPublisher botpose;
+  private LimelightSubscriberCache cache;
+
+  @BeforeEach
+  void createTable() {
+    instance = NetworkTableInstance.create();
+    table = instance.getTable("limelight-cache-test-" + instance.getHandle());
+    tl = table.getDoubleTopic("tl").publish();
+    tv = table.getDoubleTopic("tv").publish();
+    botpose = table.getDoubleArrayTopic("botpose_wpiblue").publish();
+    cache = LimelightSubscriberCache.forTable(table);
+  }
+
+  @AfterEach
+  void closeInstance() {
+    cache.close();
+    NetworkTableInstance.destroy(instance);
+  }
+
+  @Test
+  void readsEachFrameOnce() {
+    LimelightSubscriberCache.Frame frame = new LimelightSubscriberCache.Frame();
+    publishFrame(1_000_000, 21.3, new double[] {2.11, 4.04, 0.02, 0.0, 0.0, 1.8});
+
+    assertTrue(cache.readFrame(frame));
+    assertEquals(1_000_000, frame.timestamp);
+    assertTrue(frame.valid);
+    assertEquals(21.3, frame.latency_pipeline);
+    assertArrayEquals(new double[] {2.11, 4.04, 0.02, 0.0, 0.0, 1.8}, frame.botpose_wpiblue);
+    assertFalse(cache.readFrame(frame));
+  }
+
+  @Test
+  void newPoseWithSameLatencyIsNewFrame() {
+    LimelightSubscriberCache.Frame frame = new LimelightSubscriberCache.Frame();
+    publishFrame(1_000_000, 21.3, new double[] {2.11, 4.04, 0.02, 0.0, 0.0, 1.8});
+    assertTrue(cache.readFrame(frame));
+
+    // the latency didn't change, so only the pose marks the new frame
+    botpose.set(new double[] {2.13, 4.05, 0.02, 0.0, 0.0, 1.9}, 1_020_000);
+    assertTrue(cache.readFrame(frame));
+    assertEquals(1_020_000, frame.timestamp);
+    assertEquals(2.13, frame.botpose_wpiblue[0]);
+  }
+
+  @Test
+  void instancesDontShareCaches() {
+    NetworkTableInstance other = NetworkTableInstance.create();
+    try {
+      NetworkTable otherTable = other.getTable(table.getPath().substring(1));
+      LimelightSubscriberCache otherCache = LimelightSubscriberCache.forTable(otherTable);
+      assertSame(cache, LimelightSubscriberCache.forTable(instance.getTable(table.getPath())));
+      assertNotSame(cache, otherCache);
+
+      tl.set(21.3);
+      try (DoublePublisher otherTl = otherTable.getDoubleTopic("tl").publish()) {
+        otherTl.set(35.0);
+        assertEquals(21.3, cache.getDouble("tl"));
+        assertEquals(35.0, otherCache.getDouble("tl"));
+      }
+      otherCache.close();
+    } finally {
+      NetworkTableInstance.destroy(other);
+    }
+  }
+
+  @Test
+  void closedCacheIsReplaced() {
+    cache.close();
+
+    LimelightSubscriberCache replacement = LimelightSubscriberCache.forTable(table);
+    assertNotSame(cache, replacement);
+    cache = replacement;
+  }
+
+  private void publishFrame(long time, double latency, double[] pose) {
+    tv.set(1.0, time);
+    tl.set(latency, time);
+    botpose.set(pose, time);
+  }
+}
@@ -0,0 +1,117 @@
+package frc.lib.swerve;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import frc.lib.inputs.LoggedInputs;
+import frc.lib.swerve.SwerveModuleIO.SwerveModuleIOInputs;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class SwerveModuleIOInputsLogTest {
+  private static final int BUFFER_SIZE = 1024;
+
+  /* Has a field of every type supported by @LoggedInputs; its serializer is generated for tests */
+  @LoggedInputs
+  static class AllTypesInputs {
+    boolean connected = false;
+    int count = 0;
+    long timestampMicros = 0;
+    double positionDeg = 0.0;
+    double[] currentAmps = new double[1];
+    transient double notLogged = 0.0;
+  }
+
+  @Test
+  void allTypesSurviveRoundTrip() {
+    AllTypesInputs written = new AllTypesInputs();
+    written.connected = true;
+    written.count = -42;
+    written.timestampMicros = Long.MAX_VALUE - 7;
+    written.positionDeg = -123.456;
+    written.currentAmps = new double[] {1.5, Double.NaN, -0.25};
+    written.notLogged = 9.0;
+
+    AllTypesInputs read = new AllTypesInputs();
+    double[] previousArray = read.currentAmps;
+    readBack(written, read);
+
+    assertTrue(read.connected);
+    assertEquals(-42, read.count);
+    assertEquals(Long.MAX_VALUE - 7, read.timestampMicros);
+    assertEquals(-123.456, read.positionDeg);
+    assertArrayEquals(new double[] {1.5, Double.NaN, -0.25}, read.currentAmps);
+    assertEquals(0.0, read.notLogged);
+    // the logged length differs, so a new array replaces the old one
+    assertNotSame(previousArray, read.currentAmps);
+
+    // the array shrinks again and a false boolean is read back
+    written.connected = false;
+    written.currentAmps = new double[0];
+    readBack(written, read);
+    assertFalse(read.connected);
+    assertEquals(0, read.currentAmps.length);
+  }
+
+  @Test
+  void arrayOfSameLengthIsReused() {
+    AllTypesInputs written = new AllTypesInputs();
+    written.currentAmps[0] = 3.5;
+    AllTypesInputs read = new AllTypesInputs();
+    double[] previousArray = read.currentAmps;
+
+    readBack(written, read);
+    assertSame(previousArray, read.currentAmps);
+    assertEquals(3.5, read.currentAmps[0]);
+  }
+
+  @Test
+  void swerveModuleInputsSurviveRoundTrip() {
+    SwerveModuleIOInputs written = new SwerveModuleIOInputs();
+    written.drivePositionDeg = 1.0;
+    written.driveDistanceMeters = 2.0;
+    written.driveVelocityMetersPerSec = 3.0;
+    written.driveAppliedPercentage = 0.4;
+    written.driveCurrentAmps = new double[] {5.0, 6.0};
+    written.driveTempCelsius[0] = 7.0;
+    written.angleAbsolutePositionDeg = 8.0;
+    written.anglePositionDeg = 9.0;
+    written.angleVelocityRevPerMin = 10.0;
+    written.angleAppliedPercentage = -0.11;
+    written.angleCurrentAmps[0] = 12.0;
+    written.angleTempCelsius = new double[] {13.0, 14.0, 15.0};
+
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    written.toLog(buffer);
+    buffer.flip();
+    SwerveModuleIOInputs read = new SwerveModuleIOInputs();
+    read.fromLog(buffer);
+    assertFalse(buffer.hasRemaining());
+
+    assertEquals(1.0, read.drivePositionDeg);
+    assertEquals(2.0, read.driveDistanceMeters);
+    assertEquals(3.0, read.driveVelocityMetersPerSec);
+    assertEquals(0.4, read.driveAppliedPercentage);
+    assertArrayEquals(new double[] {5.0, 6.0}, read.driveCurrentAmps);
+    assertArrayEquals(new double[] {7.0}, read.driveTempCelsius);
+    assertEquals(8.0, read.angleAbsolutePositionDeg);
+    assertEquals(9.0, read.anglePositionDeg);
+    assertEquals(10.0, read.angleVelocityRevPerMin);
+    assertEquals(-0.11, read.angleAppliedPercentage);
+    assertArrayEquals(new double[] {12.0}, read.angleCurrentAmps);
+    assertArrayEquals(new double[] {13.0, 14.0, 15.0}, read.angleTempCelsius);
+  }
+
+  /* Writes the inputs with the generated serializer and reads them back into the other inputs */
+  private static void readBack(AllTypesInputs written, AllTypesInputs read) {
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    AllTypesInputsLog.writeTo(written, buffer);
+    buffer.flip();
+    AllTypesInputsLog.readFrom(read, buffer);
+    assertFalse(buffer.hasRemaining());
+  }
+}
@@ -0,0 +1,162 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.AutoConstants;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CompactTrajectoryTest {
+  private static final double LOOP_PERIOD_SECS = 0.02;
+  private static final double TOLERANCE = 1e-6;
+  private static final int WARM_UP_SAMPLES = 20000;
+  private static final int MEASURED_SAMPLES = 20000;
+
+  private static PathPlannerTrajectory trajectory;
+  private static CompactTrajectory compact;
+
+  @BeforeAll
+  static void loadTrajectory() {
+    trajectory =
+        PathPlanner.loadPathGroup(
+                "1a-cone1-Charge",
+                AutoConstants.kMaxSpeedMetersPerSecond,
+                AutoConstants.kMaxAccelerationMetersPerSecondSquared)
+            .get(0);
+    compact = CompactTrajectory.fromTrajectory(trajectory);
+  }
+
+  @Test
+  void samplesMatchPathPlanner() {
+    CompactTrajectory.Cursor cursor = compact.cursor();
+    CompactTrajectory.Sample sample = new CompactTrajectory.Sample();
+    PathPlannerTrajectory adapter = compact.asPathPlannerTrajectory();
+
+    for (double t = 0.0; t < trajectory.getTotalTimeSeconds() + 0.1; t += LOOP_PERIOD_SECS) {
+      PathPlannerState expected = trajectory.sample(t);
+      cursor.sample(t, sample);
+      assertEquals(expected.poseMeters.getX(), sample.xMeters, TOLERANCE);
+      assertEquals(expected.poseMeters.getY(), sample.yMeters, TOLERANCE);
+      assertEquals(expected.velocityMetersPerSecond, sample.velocityMetersPerSec, TOLERANCE);
+      assertAngleEquals(expected.poseMeters.getRotation(), sample.headingRad);
+      assertAngleEquals(expected.holonomicRotation, sample.holonomicRotationRad);
+      assertEquals(expected.angularVelocityRadPerSec, sample.angularVelocityRadPerSec, TOLERANCE);
+      assertEquals(
+          expected.holonomicAngularVelocityRadPerSec,
+          sample.holonomicAngularVelocityRadPerSec,
+          TOLERANCE);
+
+      PathPlannerState adapted = adapter.sample(t);
+      assertEquals(sample.xMeters, adapted.poseMeters.getX());
+      assertEquals(sample.yMeters, adapted.poseMeters.getY());
+      assertEquals(sample.headingRad, adapted.poseMeters.getRotation().getRadians());
+      assertEquals(sample.holonomicRotationRad, adapted.holonomicRotation.getRadians());
+      assertEquals(sample.velocityMetersPerSec, adapted.velocityMetersPerSecond);
+      assertEquals(sample.angularVelocityRadPerSec, adapted.angularVelocityRadPerSec);
+      assertEquals(
+          sample.holonomicAngularVelocityRadPerSec, adapted.holonomicAngularVelocityRadPerSec);
+      assertEquals(sample.curveRadiusMeters, adapted.curveRadius);
+    }
+  }
+
+  @Test
+  void adapterReusesStateAndListsEveryState() {
+    PathPlannerTrajectory adapter = compact.asPathPlannerTrajectory();
+    assertSame(adapter.sample(0.0), adapter.sample(LOOP_PERIOD_SECS));
+    assertEquals(trajectory.getTotalTimeSeconds(), adapter.getTotalTimeSeconds());
+
+    assertEquals(trajectory.getStates().size(), adapter.getStates().size());
+    for (int i = 0; i < trajectory.getStates().size(); i++) {
+      PathPlannerState expected = (PathPlannerState) trajectory.getStates().get(i);
+      PathPlannerState actual = (PathPlannerState) adapter.getStates().get(i);
+      assertEquals(expected.timeSeconds, actual.timeSeconds);
+      assertEquals(expected.poseMeters, actual.poseMeters);
+      assertEquals(expected.holonomicRotation, actual.holonomicRotation);
+      assertEquals(
+          expected.holonomicAngularVelocityRadPerSec, actual.holonomicAngularVelocityRadPerSec);
+      assertEquals(expected.angularVelocityRadPerSec, actual.angularVelocityRadPerSec);
+      assertEquals(expected.curveRadius, actual.curveRadius);
+    }
+    assertEquals(trajectory.getEndState().poseMeters, adapter.getEndState().poseMeters);
+  }
+
+  private static void assertAngleEquals(Rotation2d expected, double actualRad) {
+    assertEquals(
+        0.0, MathUtil.angleModulus(actualRad - expected.getRadians()), TOLERANCE, "angle");
+  }
+
+  /*
+   * Measures the heap used by the states and the time and heap allocated per sample. The heap of
+   * the PathPlannerState objects is measured by allocating an equivalent list of them. Only the
+   * allocations are asserted; the times depend on the machine and are printed for comparison.
+   */
+  @Test
+  void compactStatesUseLessHeapAndCursorDoesNotAllocate() {
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    long threadId = Thread.currentThread().getId();
+
+    long bytes = threadMXBean.getThreadAllocatedBytes(threadId);
+    compact.toStates();
+    long stateBytes = threadMXBean.getThreadAllocatedBytes(threadId) - bytes;
+    bytes = threadMXBean.getThreadAllocatedBytes(threadId);
+    CompactTrajectory.fromTrajectory(trajectory);
+    long compactBytes = threadMXBean.getThreadAllocatedBytes(threadId) - bytes;
+
+    CompactTrajectory.Cursor cursor = compact.cursor();
+    CompactTrajectory.Sample sample = new CompactTrajectory.Sample();
+    PathPlannerTrajectory adapter = compact.asPathPlannerTrajectory();
+    double totalTime = trajectory.getTotalTimeSeconds();
+    for (int i = 0; i < WARM_UP_SAMPLES; i++) {
+      double t = (i * LOOP_PERIOD_SECS) % totalTime;
+      trajectory.sample(t);
+      cursor.sample(t, sample);
+      adapter.sample(t);
+    }
+
+    long[] nanos = new long[3];
+    long[] allocated = new long[3];
+    for (int i = 0; i < MEASURED_SAMPLES; i++) {
+      double t = (i * LOOP_PERIOD_SECS) % totalTime;
+
+      bytes = threadMXBean.getThreadAllocatedBytes(threadId);
+      long start = System.nanoTime();
+      trajectory.sample(t);
+      nanos[0] += System.nanoTime() - start;
+      allocated[0] += threadMXBean.getThreadAllocatedBytes(threadId) - bytes;
+
+      bytes = threadMXBean.getThreadAllocatedBytes(threadId);
+      start = System.nanoTime();
+      cursor.sample(t, sample);
+      nanos[1] += System.nanoTime() - start;
+      allocated[1] += threadMXBean.getThreadAllocatedBytes(threadId) - bytes;
+
+      bytes = threadMXBean.getThreadAllocatedBytes(threadId);
+      start = System.nanoTime();
+      adapter.sample(t);
+      nanos[2] += System.nanoTime() - start;
+      allocated[2] += threadMXBean.getThreadAllocatedBytes(threadId) - bytes;
+    }
+
+    System.out.printf(
+        "Trajectory states (%d): %d bytes as PathPlannerStates, %d bytes compact%n",
+        compact.size(), stateBytes, compactBytes);
+    String[] names = {"PathPlannerTrajectory", "CompactTrajectory.Cursor", "Adapter"};
+    for (int i = 0; i < names.length; i++) {
+      System.out.printf(
+          "%s.sample: %.0f ns, %d bytes per sample%n",
+          names[i], (double) nanos[i] / MEASURED_SAMPLES, allocated[i] / MEASURED_SAMPLES);
+    }
+    assertTrue(compactBytes < stateBytes);
+    assertEquals(0, allocated[1]);
+  }
+}
@@ -0,0 +1,190 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.lib.gyro.GyroIO;
+import frc.lib.swerve.SwerveModule;
+import frc.lib.swerve.SwerveModuleIO;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OdometryThreadTest {
+  private static final int CAPACITY = new OdometryThread.Samples().timestamps.length;
+  private static final int MODULE_COUNT = 4;
+
+  private FakeGyroIO gyro;
+  private FakeModuleIO[] moduleIOs;
+  private OdometryThread thread;
+  /* The number of samples taken; sample n has yaw n and module i has distance n + i / 10 */
+  private int taken;
+
+  @BeforeAll
+  static void initializeHal() {
+    assertTrue(HAL.initialize(500, 0));
+    SimHooks.pauseTiming();
+  }
+
+  @AfterAll
+  static void resumeTiming() {
+    SimHooks.resumeTiming();
+  }
+
+  @BeforeEach
+  void createThread() {
+    gyro = new FakeGyroIO();
+    moduleIOs = new FakeModuleIO[MODULE_COUNT];
+    SwerveModule[] modules = new SwerveModule[MODULE_COUNT];
+    for (int i = 0; i < MODULE_COUNT; i++) {
+      moduleIOs[i] = new FakeModuleIO(i);
+      modules[i] = new SwerveModule(moduleIOs[i]);
+    }
+    // the notifier isn't started; the test takes the samples
+    thread = new OdometryThread(gyro, modules);
+    taken = 0;
+  }
+
+  @AfterEach
+  void stopThread() {
+    thread.stop();
+  }
+
+  @Test
+  void pollReturnsSamplesInOrder() {
+    OdometryThread.Sample sample = new OdometryThread.Sample();
+    assertFalse(thread.poll(sample));
+
+    takeSamples(3);
+    for (int n = 0; n < 3; n++) {
+      assertTrue(thread.poll(sample));
+      assertEquals(n, sample.yawDeg);
+      for (int i = 0; i < MODULE_COUNT; i++) {
+        assertEquals(n + i / 10.0, sample.distanceMeters[i]);
+        assertEquals(n * 2.0 + i, sample.angleDeg[i]);
+      }
+    }
+    assertFalse(thread.poll(sample));
+  }
+
+  @Test
+  void samplesWrapAroundTheRing() {
+    OdometryThread.Samples samples = new OdometryThread.Samples();
+    int perLoop = CAPACITY * 2 / 3;
+
+    // three loops of samples pass the end of the ring twice
+    for (int loop = 0; loop < 3; loop++) {
+      int first = taken;
+      takeSamples(perLoop);
+      thread.drain(samples);
+      assertSamples(samples, first, perLoop);
+    }
+    assertEquals(0, thread.getDroppedSamples());
+  }
+
+  @Test
+  void samplesAreDroppedWhenFull() {
+    OdometryThread.Samples samples = new OdometryThread.Samples();
+    takeSamples(CAPACITY + 10);
+    assertEquals(10, thread.getDroppedSamples());
+
+    // the oldest samples are kept and the newest dropped
+    thread.drain(samples);
+    assertSamples(samples, 0, CAPACITY);
+
+    // once drained, there is room for new samples
+    int first = taken;
+    takeSamples(5);
+    thread.drain(samples);
+    assertSamples(samples, first, 5);
+    assertEquals(10, thread.getDroppedSamples());
+  }
+
+  @Test
+  void clearDiscardsUnreadSamples() {
+    OdometryThread.Samples samples = new OdometryThread.Samples();
+    takeSamples(CAPACITY / 2 + 5);
+    thread.clear();
+    thread.drain(samples);
+    assertEquals(0, samples.count);
+
+    // samples taken after the clear are drained, including across the end of the ring
+    int first = taken;
+    takeSamples(CAPACITY / 2 + 5);
+    thread.drain(samples);
+    assertSamples(samples, first, CAPACITY / 2 + 5);
+  }
+
+  /* Take the specified number of samples, advancing the time by a notifier period for each */
+  private void takeSamples(int count) {
+    for (int k = 0; k < count; k++) {
+      int n = taken++;
+      gyro.yawDeg = n;
+      for (int i = 0; i < MODULE_COUNT; i++) {
+        moduleIOs[i].distanceMeters = n + i / 10.0;
+        moduleIOs[i].angleDeg = n * 2.0 + i;
+      }
+      SimHooks.stepTiming(1.0 / OdometryThread.FREQUENCY_HZ);
+      thread.sample();
+    }
+  }
+
+  /* Assert that the samples are the specified number of consecutive samples from first */
+  private static void assertSamples(OdometryThread.Samples samples, int first, int count) {
+    assertEquals(count, samples.count);
+    for (int k = 0; k < count; k++) {
+      int n = first + k;
+      assertEquals(n, samples.yawDeg[k], "yaw of sample " + k);
+      if (k > 0) {
+        assertTrue(samples.timestamps[k] > samples.timestamps[k - 1]);
+      }
+      for (int i = 0; i < MODULE_COUNT; i++) {
+        assertEquals(n + i / 10.0, samples.distanceMeters[k * MODULE_COUNT + i]);
+        assertEquals(n * 2.0 + i, samples.angleDeg[k * MODULE_COUNT + i]);
+      }
+    }
+    if (count > 0) {
+      assertTrue(samples.timestamps[count - 1] <= Timer.getFPGATimestamp());
+    }
+  }
+
+  private static class FakeGyroIO implements GyroIO {
+    private double yawDeg = 0.0;
+
+    @Override
+    public double getOdometryYawDeg() {
+      return yawDeg;
+    }
+  }
+
+  private static class FakeModuleIO implements SwerveModuleIO {
+    private final int moduleNumber;
+    private double distanceMeters = 0.0;
+    private double angleDeg = 0.0;
+
+    FakeModuleIO(int moduleNumber) {
+      this.moduleNumber = moduleNumber;
+    }
+
+    @Override
+    public int getModuleNumber() {
+      return moduleNumber;
+    }
+
+    @Override
+    public double getOdometryDistanceMeters() {
+      return distanceMeters;
+    }
+
+    @Override
+    public double getOdometryAngleDeg() {
+      return angleDeg;
+    }
+  }
+}
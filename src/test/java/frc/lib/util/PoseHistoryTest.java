@@ -0,0 +1,107 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import org.junit.jupiter.api.Test;
+
+class PoseHistoryTest {
+  private static final double TOLERANCE = 1e-9;
+
+  private final double[] pose = new double[3];
+
+  @Test
+  void emptyHistoryHasNoPose() {
+    PoseHistory history = new PoseHistory(4);
+    assertFalse(history.getPose(1.0, pose));
+    assertNull(history.getPose(1.0));
+    assertTrue(Double.isNaN(history.getOldestTimestamp()));
+    assertTrue(Double.isNaN(history.getNewestTimestamp()));
+  }
+
+  @Test
+  void posesAreInterpolatedBetweenSamples() {
+    PoseHistory history = new PoseHistory(4);
+    history.add(1.0, 1.0, 2.0, 0.0);
+    history.add(1.2, 2.0, 4.0, 0.4);
+
+    assertTrue(history.getPose(1.05, pose));
+    assertPose(1.25, 2.5, 0.1);
+    assertTrue(history.getPose(1.2, pose));
+    assertPose(2.0, 4.0, 0.4);
+
+    Pose2d expected = new Pose2d(1.5, 3.0, new Rotation2d(0.2));
+    Pose2d actual = history.getPose(1.1);
+    assertEquals(expected.getX(), actual.getX(), TOLERANCE);
+    assertEquals(expected.getY(), actual.getY(), TOLERANCE);
+    assertEquals(expected.getRotation().getRadians(), actual.getRotation().getRadians(), TOLERANCE);
+  }
+
+  @Test
+  void timestampsOutsideHistoryAreClamped() {
+    PoseHistory history = new PoseHistory(4);
+    history.add(1.0, 1.0, 2.0, 0.5);
+    history.add(1.2, 2.0, 4.0, 0.7);
+
+    assertTrue(history.getPose(0.5, pose));
+    assertPose(1.0, 2.0, 0.5);
+    assertTrue(history.getPose(3.0, pose));
+    assertPose(2.0, 4.0, 0.7);
+  }
+
+  @Test
+  void rotationIsInterpolatedAcrossPi() {
+    PoseHistory history = new PoseHistory(4);
+    history.add(1.0, 0.0, 0.0, Math.PI - 0.1);
+    history.add(1.2, 0.0, 0.0, -Math.PI + 0.1);
+
+    // the short way around, through ±π rather than through 0
+    history.getPose(1.1, pose);
+    assertEquals(Math.PI, Math.abs(pose[2]), TOLERANCE);
+    history.getPose(1.15, pose);
+    assertEquals(-Math.PI + 0.05, pose[2], TOLERANCE);
+  }
+
+  @Test
+  void oldestPoseIsOverwrittenWhenFull() {
+    PoseHistory history = new PoseHistory(3);
+    for (int i = 0; i < 5; i++) {
+      history.add(1.0 + i * 0.1, i, 0.0, 0.0);
+    }
+
+    assertEquals(3, history.size());
+    assertEquals(1.2, history.getOldestTimestamp(), TOLERANCE);
+    assertEquals(1.4, history.getNewestTimestamp(), TOLERANCE);
+    history.getPose(1.0, pose);
+    assertPose(2.0, 0.0, 0.0);
+    // interpolated between poses on either side of the end of the arrays
+    history.getPose(1.25, pose);
+    assertPose(2.5, 0.0, 0.0);
+  }
+
+  @Test
+  void posesNotAfterNewestAreIgnored() {
+    PoseHistory history = new PoseHistory(4);
+    history.add(1.0, 1.0, 0.0, 0.0);
+    history.add(1.0, 5.0, 0.0, 0.0);
+    history.add(0.5, 5.0, 0.0, 0.0);
+
+    assertEquals(1, history.size());
+    history.getPose(1.0, pose);
+    assertPose(1.0, 0.0, 0.0);
+
+    history.clear();
+    assertEquals(0, history.size());
+    assertFalse(history.getPose(1.0, pose));
+  }
+
+  private void assertPose(double x, double y, double theta) {
+    assertEquals(x, pose[0], TOLERANCE);
+    assertEquals(y, pose[1], TOLERANCE);
+    assertEquals(theta, pose[2], TOLERANCE);
+  }
+}
@@ -0,0 +1,184 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives a simulated robot and feeds the same odometry and latent vision measurements to the
+ * SwervePoseEstimator and to WPILib's SwerveDrivePoseEstimator, whose estimates must match.
+ */
+class SwervePoseEstimatorTest {
+  private static final double LOOP_PERIOD_SECS = 0.02;
+  private static final double START_TIME_SECS = 10.0;
+  private static final int STEPS = 300;
+  private static final int CAPACITY = 128;
+  private static final double TOLERANCE = 1e-6;
+  private static final Translation2d[] MODULE_TRANSLATIONS = {
+    new Translation2d(0.3, 0.28),
+    new Translation2d(0.3, -0.28),
+    new Translation2d(-0.3, 0.28),
+    new Translation2d(-0.3, -0.28)
+  };
+  /* The gyro starts near +π so that it wraps, and doesn't match the starting pose's rotation */
+  private static final double START_GYRO_RAD = 3.0;
+  private static final Pose2d START_POSE = new Pose2d(2.0, 4.5, new Rotation2d(-2.0));
+  /* The error of the vision measurements relative to the robot's actual pose */
+  private static final Transform2d VISION_ERROR =
+      new Transform2d(new Translation2d(0.2, -0.15), new Rotation2d(0.08));
+
+  private SwerveDriveKinematics kinematics;
+  private SwervePoseEstimator estimator;
+  private SwerveDrivePoseEstimator expected;
+
+  /* The simulated robot */
+  private int step;
+  private double gyroRad;
+  private final double[] distances = new double[MODULE_TRANSLATIONS.length];
+  private final double[] angles = new double[MODULE_TRANSLATIONS.length];
+  private final double[] times = new double[STEPS + 1];
+  private final Pose2d[] actualPoses = new Pose2d[STEPS + 1];
+
+  @BeforeEach
+  void createEstimators() {
+    kinematics = new SwerveDriveKinematics(MODULE_TRANSLATIONS);
+    step = 0;
+    gyroRad = START_GYRO_RAD;
+    times[0] = START_TIME_SECS;
+    actualPoses[0] = START_POSE;
+
+    estimator = new SwervePoseEstimator(MODULE_TRANSLATIONS, CAPACITY);
+    estimator.resetPosition(new Rotation2d(gyroRad), modulePositions(), START_POSE);
+    expected =
+        new SwerveDrivePoseEstimator(
+            kinematics, new Rotation2d(gyroRad), modulePositions(), START_POSE);
+  }
+
+  @Test
+  void odometryMatchesWpilib() {
+    while (step < STEPS) {
+      drive();
+      assertEstimatesMatch();
+    }
+  }
+
+  @Test
+  void delayedMeasurementsMatchWpilib() {
+    while (step < STEPS) {
+      drive();
+      if (step > 6 && step % 5 == 0) {
+        // captured between two odometry samples, so the estimators interpolate
+        addVisionMeasurement(step - 6, 0.007);
+      }
+      assertEstimatesMatch();
+    }
+  }
+
+  @Test
+  void outOfOrderMeasurementsMatchWpilib() {
+    while (step < STEPS) {
+      drive();
+      if (step > 20 && step % 10 == 0) {
+        addVisionMeasurement(step - 3, 0.011);
+        addVisionMeasurement(step - 15, 0.004);
+        assertEstimatesMatch();
+        // a second measurement at the same time as an earlier one
+        addVisionMeasurement(step - 15, 0.004);
+        addVisionMeasurement(step - 9, 0.0);
+      }
+      assertEstimatesMatch();
+    }
+  }
+
+  @Test
+  void measurementsOlderThanBufferAreIgnored() {
+    while (step < STEPS) {
+      drive();
+      if (step == 10) {
+        // before the oldest sample but within the buffer duration, so applied at the oldest sample
+        addVisionMeasurement(0, -0.5);
+        assertEstimatesMatch();
+      }
+      if (step > 100 && step % 10 == 0) {
+        double x = estimator.getX();
+        double y = estimator.getY();
+        double theta = estimator.getRotationRadians();
+        // two seconds old, beyond the 1.5 second buffer
+        addVisionMeasurement(step - 100, 0.0);
+        assertEquals(x, estimator.getX());
+        assertEquals(y, estimator.getY());
+        assertEquals(theta, estimator.getRotationRadians());
+      }
+      assertEstimatesMatch();
+    }
+  }
+
+  /* Drive the robot along a changing curve for one loop and update both estimators */
+  private void drive() {
+    double time = times[step] + LOOP_PERIOD_SECS;
+    ChassisSpeeds speeds =
+        new ChassisSpeeds(1.5 * Math.cos(0.4 * time), 0.6 * Math.sin(0.7 * time), 1.2);
+    SwerveModuleState[] states = kinematics.toSwerveModuleStates(speeds);
+    for (int i = 0; i < states.length; i++) {
+      distances[i] += states[i].speedMetersPerSecond * LOOP_PERIOD_SECS;
+      angles[i] = states[i].angle.getRadians();
+    }
+    gyroRad += speeds.omegaRadiansPerSecond * LOOP_PERIOD_SECS;
+
+    step++;
+    times[step] = time;
+    actualPoses[step] =
+        actualPoses[step - 1].exp(
+            new Twist2d(
+                speeds.vxMetersPerSecond * LOOP_PERIOD_SECS,
+                speeds.vyMetersPerSecond * LOOP_PERIOD_SECS,
+                speeds.omegaRadiansPerSecond * LOOP_PERIOD_SECS));
+
+    estimator.updateWithTime(time, gyroRad, distances, angles);
+    expected.updateWithTime(time, new Rotation2d(gyroRad), modulePositions());
+  }
+
+  /* Add a measurement of the pose at the specified step, captured the offset after that step */
+  private void addVisionMeasurement(int measuredStep, double offsetSecs) {
+    Pose2d measurement = actualPoses[measuredStep].transformBy(VISION_ERROR);
+    double timestamp = times[measuredStep] + offsetSecs;
+    estimator.addVisionMeasurement(
+        measurement.getX(),
+        measurement.getY(),
+        measurement.getRotation().getRadians(),
+        timestamp);
+    expected.addVisionMeasurement(measurement, timestamp);
+  }
+
+  private SwerveModulePosition[] modulePositions() {
+    SwerveModulePosition[] positions = new SwerveModulePosition[distances.length];
+    for (int i = 0; i < positions.length; i++) {
+      positions[i] = new SwerveModulePosition(distances[i], new Rotation2d(angles[i]));
+    }
+    return positions;
+  }
+
+  private void assertEstimatesMatch() {
+    Pose2d expectedPose = expected.getEstimatedPosition();
+    assertEquals(expectedPose.getX(), estimator.getX(), TOLERANCE, "x at step " + step);
+    assertEquals(expectedPose.getY(), estimator.getY(), TOLERANCE, "y at step " + step);
+    assertEquals(
+        0.0,
+        MathUtil.angleModulus(
+            expectedPose.getRotation().getRadians() - estimator.getRotationRadians()),
+        TOLERANCE,
+        "rotation at step " + step);
+  }
+}
@@ -0,0 +1,117 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import frc.robot.AutoConstants;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TrajectoryFileTest {
+  /* PathPlanner loads path groups from the deploy directory, which is here on the desktop */
+  private static final Path PATH_DIRECTORY = Paths.get("src/main/deploy/pathplanner");
+  private static final double TOLERANCE = 1e-9;
+
+  @TempDir Path outputDirectory;
+
+  @Test
+  void everyPathGroupSurvivesRoundTrip() throws IOException {
+    int count = 0;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(PATH_DIRECTORY, "*.path")) {
+      for (Path file : stream) {
+        String name = file.getFileName().toString().replaceFirst("[.][^.]+$", "");
+        List<PathPlannerTrajectory> expected = loadPathGroup(name);
+        List<PathPlannerTrajectory> actual =
+            roundTrip(name, expected, TrajectoryFile.checksum(file));
+
+        assertNotNull(actual, name);
+        assertTrue(TrajectoryFile.equivalent(expected, actual, TOLERANCE), name);
+        count++;
+      }
+    }
+    assertTrue(count > 0);
+  }
+
+  @Test
+  void staleFileIsNotLoaded() throws IOException {
+    Path file = PATH_DIRECTORY.resolve("1a-cone1-Charge.path");
+    List<PathPlannerTrajectory> trajectories = loadPathGroup("1a-cone1-Charge");
+    long checksum = TrajectoryFile.checksum(file);
+    Path output = outputDirectory.resolve("1a-cone1-Charge" + TrajectoryFile.EXTENSION);
+    TrajectoryFile.write(
+        output,
+        trajectories,
+        AutoConstants.kMaxSpeedMetersPerSecond,
+        AutoConstants.kMaxAccelerationMetersPerSecondSquared,
+        checksum);
+
+    assertNull(
+        TrajectoryFile.read(
+            output,
+            AutoConstants.kMaxSpeedMetersPerSecond,
+            AutoConstants.kMaxAccelerationMetersPerSecondSquared,
+            checksum + 1));
+    assertNull(
+        TrajectoryFile.read(
+            output,
+            AutoConstants.kMaxSpeedMetersPerSecond + 1.0,
+            AutoConstants.kMaxAccelerationMetersPerSecondSquared,
+            checksum));
+  }
+
+  @Test
+  void nanOnlyMatchesNan() throws IOException {
+    Path file = PATH_DIRECTORY.resolve("1a-cone1-Charge.path");
+    List<PathPlannerTrajectory> expected = loadPathGroup("1a-cone1-Charge");
+    List<PathPlannerTrajectory> actual =
+        roundTrip("1a-cone1-Charge", expected, TrajectoryFile.checksum(file));
+    PathPlannerState expectedState = (PathPlannerState) expected.get(0).getStates().get(1);
+    PathPlannerState actualState = (PathPlannerState) actual.get(0).getStates().get(1);
+
+    expectedState.curveRadius = 1.0;
+    actualState.curveRadius = Double.NaN;
+    assertFalse(TrajectoryFile.equivalent(expected, actual, TOLERANCE));
+    assertFalse(TrajectoryFile.equivalent(actual, expected, TOLERANCE));
+
+    expectedState.curveRadius = Double.NaN;
+    assertTrue(TrajectoryFile.equivalent(expected, actual, TOLERANCE));
+
+    expectedState.curveRadius = 1.0;
+    actualState.curveRadius = Double.POSITIVE_INFINITY;
+    assertFalse(TrajectoryFile.equivalent(expected, actual, TOLERANCE));
+  }
+
+  private static List<PathPlannerTrajectory> loadPathGroup(String name) {
+    return PathPlanner.loadPathGroup(
+        name,
+        AutoConstants.kMaxSpeedMetersPerSecond,
+        AutoConstants.kMaxAccelerationMetersPerSecondSquared);
+  }
+
+  private List<PathPlannerTrajectory> roundTrip(
+      String name, List<PathPlannerTrajectory> trajectories, long checksum) throws IOException {
+    Path output = outputDirectory.resolve(name + TrajectoryFile.EXTENSION);
+    TrajectoryFile.write(
+        output,
+        trajectories,
+        AutoConstants.kMaxSpeedMetersPerSecond,
+        AutoConstants.kMaxAccelerationMetersPerSecondSquared,
+        checksum);
+    return TrajectoryFile.read(
+        output,
+        AutoConstants.kMaxSpeedMetersPerSecond,
+        AutoConstants.kMaxAccelerationMetersPerSecondSquared,
+        checksum);
+  }
+}
@@ -0,0 +1,273 @@
+package frc.robot.autos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import com.pathplanner.lib.auto.PIDConstants;
+import com.pathplanner.lib.auto.SwerveAutoBuilder;
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.AutoConstants;
+import frc.robot.subsystems.drivetrain.DriveTrainConstants;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AutoRegistryTest {
+  /* PathPlanner loads path groups from the deploy directory, which is here on the desktop */
+  private static final Path PATH_DIRECTORY = Paths.get("src/main/deploy/pathplanner");
+
+  /* No precompiled trajectories, so the registry generates every path group like the eager path */
+  @TempDir static Path compiledDirectory;
+
+  private static RecordingAutoBuilder autoBuilder;
+
+  /* Records the path group from which each command was built */
+  private static class RecordingAutoBuilder extends SwerveAutoBuilder {
+    private final Map<Command, List<PathPlannerTrajectory>> pathGroups = new IdentityHashMap<>();
+
+    RecordingAutoBuilder() {
+      super(
+          Pose2d::new,
+          pose -> {},
+          new SwerveDriveKinematics(DriveTrainConstants.moduleTranslations),
+          new PIDConstants(
+              AutoConstants.kPXController,
+              AutoConstants.kIXController,
+              AutoConstants.kDXController),
+          new PIDConstants(
+              AutoConstants.kPThetaController,
+              AutoConstants.kIThetaController,
+              AutoConstants.kDThetaController),
+          states -> {},
+          new HashMap<>(),
+          false);
+    }
+
+    @Override
+    public CommandBase fullAuto(List<PathPlannerTrajectory> pathGroup) {
+      CommandBase command = super.fullAuto(pathGroup);
+      pathGroups.put(command, pathGroup);
+      return command;
+    }
+  }
+
+  @BeforeAll
+  static void initializeHal() {
+    assertTrue(HAL.initialize(500, 0));
+    autoBuilder = new RecordingAutoBuilder();
+  }
+
+  @AfterEach
+  void resetAlliance() {
+    DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+    DriverStationSim.notifyNewData();
+  }
+
+  @Test
+  void redTrajectoriesMatchPathPlannerTransform() {
+    AutoRegistry registry = new AutoRegistry(autoBuilder);
+    registry.addPaths(PATH_DIRECTORY, compiledDirectory);
+    assertFalse(registry.getPathNames().isEmpty());
+
+    for (String name : registry.getPathNames()) {
+      List<PathPlannerTrajectory> blue = registry.getTrajectories(name, Alliance.Blue);
+      List<PathPlannerTrajectory> red = registry.getTrajectories(name, Alliance.Red);
+      assertEquals(blue.size(), red.size(), name);
+
+      for (int i = 0; i < blue.size(); i++) {
+        PathPlannerTrajectory expected =
+            PathPlannerTrajectory.transformTrajectoryForAlliance(blue.get(i), Alliance.Red);
+        List<?> expectedStates = expected.getStates();
+        List<?> actualStates = red.get(i).getStates();
+        assertEquals(expectedStates.size(), actualStates.size(), name);
+        for (int j = 0; j < expectedStates.size(); j++) {
+          PathPlannerState e = (PathPlannerState) expectedStates.get(j);
+          PathPlannerState a = (PathPlannerState) actualStates.get(j);
+          assertEquals(e.timeSeconds, a.timeSeconds, name);
+          assertEquals(e.poseMeters, a.poseMeters, name);
+          assertEquals(e.holonomicRotation, a.holonomicRotation, name);
+          assertEquals(e.velocityMetersPerSecond, a.velocityMetersPerSecond, name);
+          assertEquals(e.angularVelocityRadPerSec, a.angularVelocityRadPerSec, name);
+          assertEquals(
+              e.holonomicAngularVelocityRadPerSec, a.holonomicAngularVelocityRadPerSec, name);
+        }
+      }
+      PathPlannerState blueStart = (PathPlannerState) blue.get(0).getStates().get(0);
+      PathPlannerState redStart = (PathPlannerState) red.get(0).getStates().get(0);
+      assertNotEquals(blueStart.poseMeters, redStart.poseMeters, name);
+    }
+  }
+
+  @Test
+  void selectedCommandFollowsAlliance() {
+    AutoRegistry registry = new AutoRegistry(autoBuilder);
+    registry.addPaths(PATH_DIRECTORY, compiledDirectory);
+    String name = registry.getPathNames().get(0);
+    select(registry, name);
+
+    DriverStationSim.setAllianceStationId(AllianceStationID.Red2);
+    DriverStationSim.notifyNewData();
+    Command red = registry.getSelectedCommand();
+    assertSame(registry.getTrajectories(name, Alliance.Red), autoBuilder.pathGroups.get(red));
+
+    // switching alliance picks the other prebuilt command rather than building a new one
+    DriverStationSim.setAllianceStationId(AllianceStationID.Blue3);
+    DriverStationSim.notifyNewData();
+    Command blue = registry.getSelectedCommand();
+    assertSame(registry.getTrajectories(name, Alliance.Blue), autoBuilder.pathGroups.get(blue));
+    assertNotSame(red, blue);
+
+    DriverStationSim.setAllianceStationId(AllianceStationID.Red1);
+    DriverStationSim.notifyNewData();
+    assertSame(red, registry.getSelectedCommand());
+  }
+
+  @Test
+  void failedPathGroupIsLeftOutOfChooser(@TempDir Path pathDirectory) throws IOException {
+    // a path group that PathPlanner can't find, next to one it can
+    copyPath("1a-cone1-Piece", pathDirectory);
+    Files.writeString(pathDirectory.resolve("auto-registry-missing.path"), "not a path");
+
+    AutoRegistry registry = new AutoRegistry(autoBuilder);
+    registry.addPaths(pathDirectory, compiledDirectory);
+    assertNull(registry.getTrajectories("auto-registry-missing", Alliance.Blue));
+    assertNotNull(registry.getTrajectories("1a-cone1-Piece", Alliance.Blue));
+    assertNotNull(registry.buildPathCommand("auto-registry-missing", Alliance.Blue));
+
+    registry.updateSelection();
+    assertEquals(List.of("1a-cone1-Piece"), getOptions(registry));
+  }
+
+  @Test
+  void pathsCanBeAddedAfterLoading(@TempDir Path pathDirectory) throws IOException {
+    AutoRegistry registry = new AutoRegistry(autoBuilder);
+    registry.addPaths(PATH_DIRECTORY, compiledDirectory);
+    for (String name : registry.getPathNames()) {
+      registry.getTrajectories(name, Alliance.Blue);
+    }
+
+    copyPath("1a-cone1-Piece", pathDirectory);
+    registry.addPaths(pathDirectory, compiledDirectory);
+    assertNotNull(registry.getTrajectories("1a-cone1-Piece", Alliance.Red));
+  }
+
+  private static void copyPath(String name, Path directory) throws IOException {
+    Files.copy(PATH_DIRECTORY.resolve(name + ".path"), directory.resolve(name + ".path"));
+  }
+
+  /* Wait for the auto to be loaded, then select it in the chooser as the dashboard would */
+  private static void select(AutoRegistry registry, String name) {
+    registry.getTrajectories(name, Alliance.Blue);
+    registry.updateSelection();
+    SmartDashboard.putData("Auto Registry Test", registry.getChooser());
+    NetworkTableInstance.getDefault()
+        .getTable("SmartDashboard")
+        .getSubTable("Auto Registry Test")
+        .getEntry("selected")
+        .setString(name);
+    SmartDashboard.updateValues();
+    assertEquals(name, registry.getChooser().getSelected());
+  }
+
+  /* The options in the chooser, as published to the dashboard */
+  private static List<String> getOptions(AutoRegistry registry) {
+    SmartDashboard.putData("Auto Registry Test", registry.getChooser());
+    SmartDashboard.updateValues();
+    return Arrays.asList(
+        NetworkTableInstance.getDefault()
+            .getTable("SmartDashboard")
+            .getSubTable("Auto Registry Test")
+            .getEntry("options")
+            .getStringArray(new String[0]));
+  }
+
+  /*
+   * Compares the time robotInit is blocked by loading the autos: before AutoRegistry, every path
+   * group was loaded and its command built on the main thread at startup. The registry only
+   * indexes the directory on the main thread; the time until every path group has been generated
+   * in the background is printed for comparison. One untimed round of each loads the classes
+   * first, so the comparison isn't dominated by whichever runs first.
+   */
+  @Test
+  void startupBlocksLessThanEagerLoading() throws IOException {
+    List<String> names = new ArrayList<>();
+    try (Stream<Path> files = Files.list(PATH_DIRECTORY)) {
+      files.forEach(
+          file -> names.add(file.getFileName().toString().replaceFirst("[.][^.]+$", "")));
+    }
+    assertFalse(names.isEmpty());
+
+    loadEagerly(names);
+    loadWithRegistry(names);
+
+    long start = System.nanoTime();
+    loadEagerly(names);
+    double eagerMs = (System.nanoTime() - start) / 1.0e6;
+
+    start = System.nanoTime();
+    AutoRegistry registry = new AutoRegistry(autoBuilder);
+    registry.addPaths(PATH_DIRECTORY, compiledDirectory);
+    double indexMs = (System.nanoTime() - start) / 1.0e6;
+    for (String name : registry.getPathNames()) {
+      assertNotNull(registry.getTrajectories(name, Alliance.Red));
+    }
+    double generatedMs = (System.nanoTime() - start) / 1.0e6;
+
+    System.out.printf(
+        "Auto startup (%d paths): eager %.1f ms; registry %.1f ms blocking, %.1f ms generated%n",
+        names.size(), eagerMs, indexMs, generatedMs);
+    assertTrue(indexMs < eagerMs);
+  }
+
+  /* What robotInit did before AutoRegistry; the builder mirrored the paths for red when run */
+  private static List<Command> loadEagerly(List<String> names) {
+    List<Command> commands = new ArrayList<>();
+    for (String name : names) {
+      List<PathPlannerTrajectory> group =
+          PathPlanner.loadPathGroup(
+              name,
+              AutoConstants.kMaxSpeedMetersPerSecond,
+              AutoConstants.kMaxAccelerationMetersPerSecondSquared);
+      commands.add(autoBuilder.fullAuto(group));
+    }
+    return commands;
+  }
+
+  private static void loadWithRegistry(List<String> names) {
+    AutoRegistry registry = new AutoRegistry(autoBuilder);
+    registry.addPaths(PATH_DIRECTORY, compiledDirectory);
+    for (String name : names) {
+      registry.getTrajectories(name, Alliance.Blue);
+    }
+  }
+}
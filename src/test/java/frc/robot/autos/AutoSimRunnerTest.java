@@ -0,0 +1,39 @@
+package frc.robot.autos;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AutoSimRunnerTest {
+  /* A path that drives to a game piece without crossing the charge station */
+  private static final String PATH_NAME = "1a-cone1-Piece";
+
+  private static AutoSimRunner runner;
+
+  @BeforeAll
+  static void createRunner() {
+    AutoSimRunner.initializeSimulation();
+    runner = new AutoSimRunner();
+  }
+
+  @AfterAll
+  static void resumeTiming() {
+    SimHooks.resumeTiming();
+  }
+
+  @Test
+  void unperturbedAutoSucceeds() {
+    AutoSimRunner.Result result = runner.runAuto(PATH_NAME, AutoPerturbation.NONE);
+
+    assertTrue(result.finished, "timed out");
+    assertTrue(
+        result.finalErrorMeters <= AutoSweepRunner.SUCCESS_ERROR_METERS,
+        "final error " + result.finalErrorMeters + " m");
+    assertTrue(
+        result.finalHeadingErrorDeg <= AutoSweepRunner.SUCCESS_HEADING_ERROR_DEG,
+        "final heading error " + result.finalHeadingErrorDeg + " deg");
+  }
+}
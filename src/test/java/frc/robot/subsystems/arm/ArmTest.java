@@ -0,0 +1,158 @@
+package frc.robot.subsystems.arm;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/* The arm isn't attached to the scheduler or Shuffleboard, so none of these tests need the HAL */
+class ArmTest {
+  /* Reports the positions and limit switches set by the test and records every output */
+  private static class FakeArmIO implements ArmIO {
+    double liftPosition = 0.0;
+    double extendPosition = 0.0;
+    boolean liftLimitSwitch = false;
+    boolean extendLimitSwitch = false;
+    final List<String> outputs = new ArrayList<>();
+
+    FakeArmIO(double liftPosition, double extendPosition) {
+      this.liftPosition = liftPosition;
+      this.extendPosition = extendPosition;
+    }
+
+    @Override
+    public void updateInputs(ArmIOInputs inputs) {
+      inputs.liftPosition = liftPosition;
+      inputs.extendPosition = extendPosition;
+      inputs.liftLimitSwitch = liftLimitSwitch;
+      inputs.extendLimitSwitch = extendLimitSwitch;
+    }
+
+    @Override
+    public void setLiftPosition(double position) {
+      outputs.add("setLiftPosition " + position);
+    }
+
+    @Override
+    public void setLiftPercentage(double percentage) {
+      outputs.add("setLiftPercentage " + percentage);
+    }
+
+    @Override
+    public void resetLiftPosition(double position) {
+      liftPosition = position;
+      outputs.add("resetLiftPosition " + position);
+    }
+
+    @Override
+    public void setExtendPosition(double position) {
+      outputs.add("setExtendPosition " + position);
+    }
+
+    @Override
+    public void setExtendPercentage(double percentage) {
+      outputs.add("setExtendPercentage " + percentage);
+    }
+
+    @Override
+    public void resetExtendPosition(double position) {
+      extendPosition = position;
+      outputs.add("resetExtendPosition " + position);
+    }
+  }
+
+  @Test
+  void limitsSetpointsToLiftProfile() {
+    Arm arm = new Arm(new FakeArmIO(0.0, 0.0), false);
+    double[] limited = new double[2];
+
+    // holding the lift between 5 and 10 limits the extension to that of the next profile point
+    arm.limitSetpoints(7.0, 40.0, 7.0, 300.0, limited);
+    assertArrayEquals(new double[] {7.0, 30.0}, limited);
+
+    // raising the lift below the safety height doesn't extend the arm any further
+    arm.limitSetpoints(2.0, 10.0, 100.0, 300.0, limited);
+    assertArrayEquals(new double[] {100.0, 10.0}, limited);
+
+    // lowering the lift is held at the profile point for the current extension, which retracts
+    arm.limitSetpoints(60.0, 200.0, 0.0, 200.0, limited);
+    assertArrayEquals(new double[] {50.0, 180.0}, limited);
+
+    // above the safety height, the arm is extended as it is raised
+    arm.limitSetpoints(50.0, 0.0, 100.0, 300.0, limited);
+    assertArrayEquals(new double[] {100.0, 300.0}, limited);
+  }
+
+  @Test
+  void periodicSendsLimitedSetpointsOnce() {
+    FakeArmIO io = new FakeArmIO(7.0, 25.0);
+    Arm arm = new Arm(io, false);
+
+    // the setpoints start at the current positions, which are within the lift profile
+    arm.periodic();
+    assertTrue(io.outputs.isEmpty());
+    assertTrue(arm.isArmRaised());
+    assertTrue(arm.isArmExtended());
+
+    arm.setArmExtendPosition(300.0);
+    arm.periodic();
+    arm.periodic();
+    assertEquals(List.of("setExtendPosition 30.0"), io.outputs);
+    assertFalse(arm.isArmExtended());
+
+    // while the lift rises below the safety height, the extension is held where it is
+    arm.setArmLiftPosition(100.0);
+    arm.periodic();
+    assertEquals(List.of("setExtendPosition 30.0", "setLiftPosition 100.0"), io.outputs);
+
+    // the setpoints are limited to the range of the arm
+    arm.setArmLiftPosition(1000.0);
+    arm.periodic();
+    assertEquals("setLiftPosition " + ArmConstants.armLiftMaxPosition, io.outputs.get(2));
+  }
+
+  @Test
+  void resetRetractsThenLowersToLimitSwitches() {
+    FakeArmIO io = new FakeArmIO(100.0, 50.0);
+    Arm arm = new Arm(io, false);
+
+    arm.resetArm();
+    assertTrue(arm.isResetting());
+    assertEquals(
+        List.of("setExtendPercentage " + ArmConstants.armExtendResetOutput), io.outputs);
+
+    // the setpoints can't be changed and aren't sent until the extension is retracted
+    arm.setArmLiftPosition(200.0);
+    arm.periodic();
+    arm.doResetting();
+    assertEquals(1, io.outputs.size());
+
+    io.extendLimitSwitch = true;
+    arm.periodic();
+    assertEquals(
+        List.of(
+            "setExtendPercentage " + ArmConstants.armExtendResetOutput,
+            "setExtendPercentage 0.0",
+            "resetExtendPosition 0.0",
+            "setLiftPercentage " + ArmConstants.armLiftResetOutput),
+        io.outputs);
+    assertTrue(arm.isResetting());
+
+    io.liftLimitSwitch = true;
+    arm.periodic();
+    assertEquals(
+        List.of("resetLiftPosition 0.0", "setLiftPercentage 0.0"),
+        io.outputs.subList(4, io.outputs.size()));
+    assertFalse(arm.isResetting());
+
+    // once reset, the setpoints are the zeroed positions, so nothing more is sent
+    arm.periodic();
+    assertEquals(6, io.outputs.size());
+    assertTrue(arm.isArmRaised());
+    assertTrue(arm.isArmExtended());
+  }
+}
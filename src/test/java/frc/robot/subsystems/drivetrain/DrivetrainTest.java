@@ -0,0 +1,79 @@
+package frc.robot.subsystems.drivetrain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.lib.gyro.GyroIOSim;
+import frc.lib.swerve.SwerveChassisSim;
+import frc.lib.swerve.SwerveModule;
+import frc.lib.swerve.SwerveModuleIOSim;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class DrivetrainTest {
+  /* Enough loops for the JIT compiler to compile the loop and for the pose buffers to fill */
+  private static final int WARM_UP_LOOPS = 5000;
+  private static final int MEASURED_LOOPS = 500;
+
+  @BeforeAll
+  static void initializeHal() {
+    assertTrue(HAL.initialize(500, 0));
+    SimHooks.pauseTiming();
+  }
+
+  @AfterAll
+  static void resumeTiming() {
+    SimHooks.resumeTiming();
+  }
+
+  @Test
+  void steadyStateLoopDoesNotAllocate() {
+    SwerveModuleIOSim[] modules = new SwerveModuleIOSim[4];
+    for (int i = 0; i < modules.length; i++) {
+      modules[i] = new SwerveModuleIOSim(i);
+    }
+    SwerveChassisSim chassis =
+        new SwerveChassisSim(modules, DriveTrainConstants.moduleTranslations);
+    Drivetrain drivetrain =
+        new Drivetrain(
+            new GyroIOSim(chassis, 0),
+            new SwerveModule(modules[0]),
+            new SwerveModule(modules[1]),
+            new SwerveModule(modules[2]),
+            new SwerveModule(modules[3]));
+
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    long threadId = Thread.currentThread().getId();
+
+    for (int i = 0; i < WARM_UP_LOOPS; i++) {
+      runLoop(drivetrain, i);
+      chassis.update(SwerveModuleIOSim.LOOP_PERIOD_SECS);
+      SimHooks.stepTiming(SwerveModuleIOSim.LOOP_PERIOD_SECS);
+    }
+
+    long allocatedBytes = 0;
+    for (int i = WARM_UP_LOOPS; i < WARM_UP_LOOPS + MEASURED_LOOPS; i++) {
+      long before = threadMXBean.getThreadAllocatedBytes(threadId);
+      runLoop(drivetrain, i);
+      allocatedBytes += threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+      chassis.update(SwerveModuleIOSim.LOOP_PERIOD_SECS);
+      SimHooks.stepTiming(SwerveModuleIOSim.LOOP_PERIOD_SECS);
+    }
+
+    assertEquals(0, allocatedBytes, "bytes allocated in " + MEASURED_LOOPS + " loops");
+  }
+
+  /* Drive in a slowly changing direction while turning, as in teleop */
+  private static void runLoop(Drivetrain drivetrain, int loop) {
+    double phase = loop * 0.01;
+    drivetrain.drive(1.5 * Math.cos(phase), 1.5 * Math.sin(phase), 0.5);
+    drivetrain.periodic();
+  }
+}
@@ -0,0 +1,204 @@
+package frc.robot.subsystems.vision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.lib.limelightvision.VisionIO;
+import frc.lib.util.PoseHistory;
+import frc.lib.util.RobotOdometry;
+import frc.lib.util.SwervePoseEstimator;
+import java.util.Arrays;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VisionTest {
+  private static final double LOOP_PERIOD_SECS = 0.02;
+
+  /* Where odometry places the robot for the whole test */
+  private static final double ROBOT_X = 2.0;
+  private static final double ROBOT_Y = 4.0;
+
+  /*
+   * Frames in the form the camera publishes them to NetworkTables: tl, cl, then botpose_wpiblue
+   * (x, y, z, roll, pitch, yaw, total latency, tag count, tag span, average distance, average
+   * area). The robot is facing the blue alliance grid, 2 m in front of tags 7 and 8.
+   */
+  private static final double[][] CONSISTENT_FRAMES = {
+    {21.3, 11.0, 2.11, 4.04, 0.02, 0.0, 0.0, 1.8, 32.3, 2.0, 0.56, 2.47, 0.31},
+    {20.8, 11.0, 2.09, 4.06, 0.01, 0.0, 0.0, 2.2, 31.8, 2.0, 0.56, 2.46, 0.31},
+    {22.6, 11.0, 2.12, 4.05, 0.03, 0.0, 0.0, 1.6, 33.6, 2.0, 0.56, 2.48, 0.30},
+    {21.0, 11.0, 2.10, 4.03, 0.02, 0.0, 0.0, 2.0, 32.0, 2.0, 0.57, 2.47, 0.31},
+    {21.9, 11.0, 2.11, 4.05, 0.02, 0.0, 0.0, 1.9, 32.9, 2.0, 0.56, 2.47, 0.31},
+  };
+
+  private static final double[][] IMPLAUSIBLE_FRAMES = {
+    // off the field
+    {21.3, 11.0, -1.20, 4.04, 0.02, 0.0, 0.0, 1.8, 32.3, 1.0, 0.0, 3.10, 0.12},
+    // floating above the carpet
+    {21.3, 11.0, 2.11, 4.04, 1.10, 0.0, 0.0, 1.8, 32.3, 2.0, 0.56, 2.47, 0.31},
+    // tags too far away
+    {21.3, 11.0, 2.31, 4.12, 0.05, 0.0, 0.0, 1.8, 32.3, 1.0, 0.0, 7.40, 0.02},
+    // disagrees with odometry
+    {21.3, 11.0, 3.60, 4.04, 0.02, 0.0, 0.0, 1.8, 32.3, 2.0, 0.56, 3.95, 0.21},
+  };
+
+  /* Frames that agree with each other but not with odometry, as if the wheels had slipped */
+  private static final double[][] DRIFTED_FRAMES = {
+    {21.3, 11.0, 3.60, 4.04, 0.02, 0.0, 0.0, 1.8, 32.3, 2.0, 0.56, 3.95, 0.21},
+    {20.8, 11.0, 3.58, 4.06, 0.01, 0.0, 0.0, 2.2, 31.8, 2.0, 0.56, 3.93, 0.21},
+    {22.6, 11.0, 3.62, 4.05, 0.03, 0.0, 0.0, 1.6, 33.6, 2.0, 0.56, 3.96, 0.20},
+    {21.0, 11.0, 3.61, 4.03, 0.02, 0.0, 0.0, 2.0, 32.0, 2.0, 0.57, 3.95, 0.21},
+    {21.9, 11.0, 3.59, 4.05, 0.02, 0.0, 0.0, 1.9, 32.9, 2.0, 0.56, 3.94, 0.21},
+    {21.5, 11.0, 3.60, 4.04, 0.02, 0.0, 0.0, 1.8, 32.5, 2.0, 0.56, 3.95, 0.21},
+    {21.2, 11.0, 3.61, 4.05, 0.02, 0.0, 0.0, 1.7, 32.2, 2.0, 0.56, 3.95, 0.21},
+  };
+
+  /* Frames that disagree with odometry and with each other */
+  private static final double[][] SCATTERED_FRAMES = {
+    {21.3, 11.0, 3.60, 4.04, 0.02, 0.0, 0.0, 1.8, 32.3, 2.0, 0.56, 3.95, 0.21},
+    {21.3, 11.0, 0.70, 4.04, 0.02, 0.0, 0.0, 1.8, 32.3, 2.0, 0.56, 1.20, 0.80},
+    {21.3, 11.0, 3.60, 4.04, 0.02, 0.0, 0.0, 1.8, 32.3, 2.0, 0.56, 3.95, 0.21},
+    {21.3, 11.0, 0.70, 4.04, 0.02, 0.0, 0.0, 1.8, 32.3, 2.0, 0.56, 1.20, 0.80},
+    {21.3, 11.0, 3.60, 4.04, 0.02, 0.0, 0.0, 1.8, 32.3, 2.0, 0.56, 3.95, 0.21},
+    {21.3, 11.0, 0.70, 4.04, 0.02, 0.0, 0.0, 1.8, 32.3, 2.0, 0.56, 1.20, 0.80},
+    {21.3, 11.0, 3.60, 4.04, 0.02, 0.0, 0.0, 1.8, 32.3, 2.0, 0.56, 3.95, 0.21},
+  };
+
+  private final SwervePoseEstimator poseEstimator = RobotOdometry.getInstance().getPoseEstimator();
+  private final PoseHistory poseHistory = RobotOdometry.getInstance().getPoseHistory();
+  private final double[] distances = new double[4];
+  private final double[] anglesRad = new double[4];
+
+  @BeforeAll
+  static void initializeHal() {
+    assertTrue(HAL.initialize(500, 0));
+    SimHooks.pauseTiming();
+  }
+
+  @AfterAll
+  static void resumeTiming() {
+    SimHooks.resumeTiming();
+  }
+
+  @BeforeEach
+  void resetOdometry() {
+    poseEstimator.resetPosition(0.0, distances, anglesRad, ROBOT_X, ROBOT_Y, 0.0);
+    poseHistory.clear();
+    for (int i = 0; i < 50; i++) {
+      stepOdometry();
+    }
+  }
+
+  @Test
+  void fusesConsistentFrames() {
+    Vision vision = new Vision(new ReplayVisionIO(CONSISTENT_FRAMES));
+    replay(vision, CONSISTENT_FRAMES.length);
+
+    assertEquals(CONSISTENT_FRAMES.length, vision.getAcceptedFrames());
+    assertEquals(0, vision.getRejectedFrames());
+    assertTrue(poseEstimator.getX() > ROBOT_X && poseEstimator.getX() < 2.12);
+    assertTrue(poseEstimator.getY() > ROBOT_Y && poseEstimator.getY() < 4.06);
+  }
+
+  @Test
+  void rejectsImplausibleFrames() {
+    Vision vision = new Vision(new ReplayVisionIO(IMPLAUSIBLE_FRAMES));
+    replay(vision, IMPLAUSIBLE_FRAMES.length);
+
+    assertEquals(0, vision.getAcceptedFrames());
+    assertEquals(IMPLAUSIBLE_FRAMES.length, vision.getRejectedFrames());
+    assertEquals(ROBOT_X, poseEstimator.getX(), 1e-9);
+    assertEquals(ROBOT_Y, poseEstimator.getY(), 1e-9);
+  }
+
+  @Test
+  void recoversWhenOdometryHasDrifted() {
+    Vision vision = new Vision(new ReplayVisionIO(DRIFTED_FRAMES));
+    replay(vision, DRIFTED_FRAMES.length);
+
+    int rejected = VisionConstants.recoveryFrameCount - 1;
+    assertEquals(DRIFTED_FRAMES.length - rejected, vision.getAcceptedFrames());
+    assertEquals(rejected, vision.getRejectedFrames());
+    assertTrue(poseEstimator.getX() > ROBOT_X + 0.1 && poseEstimator.getX() < 3.62);
+  }
+
+  @Test
+  void rejectsDisagreeingFramesThatDontAgreeWithEachOther() {
+    Vision vision = new Vision(new ReplayVisionIO(SCATTERED_FRAMES));
+    replay(vision, SCATTERED_FRAMES.length);
+
+    assertEquals(0, vision.getAcceptedFrames());
+    assertEquals(SCATTERED_FRAMES.length, vision.getRejectedFrames());
+    assertEquals(ROBOT_X, poseEstimator.getX(), 1e-9);
+  }
+
+  @Test
+  void ignoresFramesWithoutTargets() {
+    Vision vision = new Vision(new ReplayVisionIO(new double[0][]));
+    replay(vision, 5);
+
+    assertEquals(0, vision.getAcceptedFrames());
+    assertEquals(0, vision.getRejectedFrames());
+  }
+
+  /* Run two robot loops per camera frame, so every frame is also seen a second time */
+  private void replay(Vision vision, int frameCount) {
+    for (int i = 0; i < 2 * frameCount; i++) {
+      stepOdometry();
+      vision.periodic();
+    }
+  }
+
+  /* Odometry for a stationary robot, as the drivetrain would record it */
+  private void stepOdometry() {
+    SimHooks.stepTiming(LOOP_PERIOD_SECS);
+    double timestamp = Timer.getFPGATimestamp();
+    poseEstimator.updateWithTime(timestamp, 0.0, distances, anglesRad);
+    poseHistory.add(timestamp, ROBOT_X, ROBOT_Y, 0.0);
+  }
+
+  /*
+   * Publishes a new frame every other loop and fills the inputs the way VisionIOLimelight does:
+   * the frame is timestamped when it is read and the tag count and distance come from botpose.
+   */
+  private static class ReplayVisionIO implements VisionIO {
+    private final double[][] frames;
+    private int loop = 0;
+
+    ReplayVisionIO(double[][] frames) {
+      this.frames = frames;
+    }
+
+    @Override
+    public void updateInputs(VisionIOInputs inputs) {
+      inputs.connected = true;
+      int frame = loop / 2;
+      boolean newFrame = loop % 2 == 0;
+      loop++;
+      if (!newFrame) {
+        return;
+      }
+
+      inputs.frameTimestamp = Timer.getFPGATimestamp();
+      if (frame >= frames.length) {
+        inputs.hasTargets = false;
+        inputs.tagCount = 0;
+        return;
+      }
+
+      double[] values = frames[frame];
+      double[] botPose = Arrays.copyOfRange(values, 2, values.length);
+      inputs.hasTargets = true;
+      inputs.pipelineLatencyMs = values[0];
+      inputs.captureLatencyMs = values[1];
+      System.arraycopy(botPose, 0, inputs.botPose, 0, 6);
+      inputs.tagCount = (int) botPose[7];
+      inputs.averageTagDistanceMeters = botPose[9];
+    }
+  }
+}